@@ -0,0 +1,115 @@
+package org.jahia.modules.contentintegrity.services;
+
+import org.jahia.modules.contentintegrity.api.ContentIntegrityError;
+import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorList;
+import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorSink;
+import org.jahia.modules.contentintegrity.api.ErrorCollector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Cost per node and per check of tracking the errors, between the checks returning a list of errors, which the scan
+ * then iterates over, and the checks pushing their errors to the collector of the scan. The errors are created once,
+ * so that only what the tracking allocates is measured.
+ * <p>
+ * Run with the benchmarks profile, the allocations being reported by the GC profiler (gc.alloc.rate.norm):
+ * <pre>mvn -P benchmarks test-compile exec:exec -Dbenchmark.mainClass=org.openjdk.jmh.Main -Dbenchmark.args="ErrorCollectionBenchmark -prof gc"</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorCollectionBenchmark {
+
+    // Most of the nodes have no error
+    @Param({"0", "1", "3"})
+    public int errorsPerNode;
+
+    private ContentIntegrityError error;
+    private ContentIntegrityErrorSink sink;
+    private ThreadLocal<ScanErrorCollector> collectors;
+
+    @Setup
+    public void setup() {
+        error = (ContentIntegrityError) Proxy.newProxyInstance(ErrorCollectionBenchmark.class.getClassLoader(),
+                new Class<?>[]{ContentIntegrityError.class}, (proxy, method, args) -> null);
+        sink = new TrackingErrorSink();
+        collectors = ScanErrorCollector.perThread();
+    }
+
+    /**
+     * The check returns a list of errors, iterated over by the scan as done before the collectors
+     */
+    @Benchmark
+    public void listReturningCheck() {
+        final ContentIntegrityErrorList errors = checkReturningList();
+        if (errors == null || !errors.hasErrors()) return;
+        for (ContentIntegrityError integrityError : errors.getNestedErrors()) {
+            ScanErrorCollector.trackError(integrityError, null, false, null, sink, null);
+        }
+    }
+
+    /**
+     * The check pushes its errors to the collector of the thread, reset for each node as done by the scan
+     */
+    @Benchmark
+    public void collectorCheck() {
+        final ScanErrorCollector collector = collectors.get().reset(null, false, sink, null);
+        collector.setCheck(null);
+        checkPushingErrors(collector);
+    }
+
+    /*
+    Same as the checks extending AbstractContentIntegrityCheck: no list when there is no error, a single error list,
+    or a list filled with the errors
+     */
+    private ContentIntegrityErrorList checkReturningList() {
+        if (errorsPerNode == 0) return null;
+        if (errorsPerNode == 1) return ContentIntegrityErrorListImpl.createSingleError(error);
+        final ContentIntegrityErrorList errors = ContentIntegrityErrorListImpl.createEmptyList();
+        for (int i = 0; i < errorsPerNode; i++) errors.addError(error);
+        return errors;
+    }
+
+    private void checkPushingErrors(ErrorCollector errors) {
+        for (int i = 0; i < errorsPerNode; i++) errors.addError(error);
+    }
+
+    /*
+    Keeps the last error only, the sink being held by the state of the benchmark so that the tracking can't be
+    eliminated. The count is constant, so that the progress of the scan is never logged
+     */
+    private static class TrackingErrorSink implements ContentIntegrityErrorSink {
+        private ContentIntegrityError lastError;
+
+        @Override
+        public void addError(ContentIntegrityError error) {
+            lastError = error;
+        }
+
+        @Override
+        public long getErrorsCount() {
+            return 1L;
+        }
+
+        @Override
+        public Stream<ContentIntegrityError> getErrors() {
+            return Stream.empty();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package org.jahia.modules.contentintegrity.services;
+
+import org.jahia.modules.contentintegrity.api.ContentIntegrityError;
+import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.IntFunction;
+
+/**
+ * Compares the retained heap of the errors held in memory by a scan, between the layout of the errors before the
+ * binary sinks (copied in {@link LegacyError}) and the current {@link ContentIntegrityErrorImpl}.
+ * <p>
+ * Run with the benchmarks profile, the sizes being passed as arguments (default: 100000 1000000 5000000):
+ * <pre>mvn -P benchmarks test-compile exec:exec -Dbenchmark.jvmArgs=-Xmx12g -Dbenchmark.args="100000 1000000"</pre>
+ * The 5M errors of the legacy layout need about 6 GB of heap.
+ */
+public class ErrorsHeapFootprint {
+
+    private static final List<Integer> DEFAULT_SIZES = Arrays.asList(100000, 1000000, 5000000);
+    private static final String[] WORKSPACES = {"default", "live"};
+    private static final ContentIntegrityErrorType ERROR_TYPE = ContentIntegrityErrorTypeImpl.register(
+            new ContentIntegrityErrorTypeImpl("BROKEN_REFERENCE").setDefaultMessage("Broken reference"));
+    private static final String CHECK_NAME = "ReferencesSanityCheck";
+    private static final String CHECK_ID = "1";
+
+    public static void main(String[] args) throws IOException {
+        final List<Integer> sizes = new ArrayList<>();
+        for (String arg : args) sizes.add(Integer.parseInt(arg.trim()));
+        if (sizes.isEmpty()) sizes.addAll(DEFAULT_SIZES);
+
+        System.out.printf("%12s %22s %22s %8s%n", "errors", "legacy (bytes/error)", "current (bytes/error)", "ratio");
+        for (int size : sizes) {
+            final long legacy = measureBytesPerError(size, ErrorsHeapFootprint::legacyError);
+            final long current = measureBytesPerError(size, ErrorsHeapFootprint::currentError);
+            System.out.printf("%12d %22d %22d %8.2f%n", size, legacy, current, (double) current / legacy);
+        }
+    }
+
+    private static long measureBytesPerError(int size, IntFunction<Object> errorFactory) {
+        final List<Object> errors = new ArrayList<>(size);
+        final long before = usedHeap();
+        for (int i = 0; i < size; i++) errors.add(errorFactory.apply(i));
+        final long after = usedHeap();
+        if (errors.size() != size) throw new IllegalStateException("Unexpected number of errors: " + errors.size());
+        return Math.max(0L, after - before) / size;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static String path(int i) {
+        return String.format("/sites/site%d/contents/folder%d/node%d", i % 10, i % 1000, i);
+    }
+
+    /*
+    Same values as the ones read from the JCR during a scan: the path, identifier, node type and site key are
+    new strings for each error, while the workspace name, the check and its error type are shared
+     */
+    private static Object legacyError(int i) {
+        final LegacyError error = new LegacyError(path(i), UUID.randomUUID().toString(), new String("jnt:contentList"), null,
+                WORKSPACES[i % 2], null, ERROR_TYPE, ERROR_TYPE.getDefaultMessage(), CHECK_NAME, CHECK_ID);
+        error.addExtraInfo("property", new String("j:node"));
+        return error;
+    }
+
+    /*
+    The errors are read back from the binary format, as done by the sinks, which builds them the same way as
+    during a scan
+     */
+    private static Object currentError(int i) {
+        final String path = path(i);
+        final Map<String, Object> values = new HashMap<>();
+        values.put("getErrorID", Integer.toString(i));
+        values.put("getPath", path);
+        values.put("getSite", Utils.getSiteKey(path));
+        values.put("getUuid", UUID.randomUUID().toString());
+        values.put("getPrimaryType", "jnt:contentList");
+        values.put("getWorkspace", WORKSPACES[i % 2]);
+        values.put("getConstraintMessage", ERROR_TYPE.getDefaultMessage());
+        values.put("getIntegrityCheckName", CHECK_NAME);
+        values.put("getIntegrityCheckID", CHECK_ID);
+        values.put("getErrorType", ERROR_TYPE);
+        values.put("isFixed", Boolean.FALSE);
+        values.put("getAllExtraInfos", Collections.singletonMap("property", "j:node"));
+        values.put("getSpecificExtraInfos", Collections.emptyMap());
+        final ContentIntegrityError error = (ContentIntegrityError) Proxy.newProxyInstance(ErrorsHeapFootprint.class.getClassLoader(),
+                new Class<?>[]{ContentIntegrityError.class}, (proxy, method, methodArgs) -> values.get(method.getName()));
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                ContentIntegrityErrorImpl.writeTo(error, out);
+            }
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                return ContentIntegrityErrorImpl.readFrom(in);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Fields of {@link ContentIntegrityErrorImpl} before the binary sinks: random UUID as error ID, one copy of each
+     * string per error, and the extra infos held in a list of keys and two sorted maps
+     */
+    private static class LegacyError {
+        private static final String MODULE_PREFIX = "module ";
+        private static final String NO_SITE = "<no site> ";
+
+        private final String id;
+        private final String path;
+        private final String site;
+        private final String uuid;
+        private final String primaryType;
+        private final String mixins;
+        private final String locale;
+        private final String workspace;
+        private final String constraintMessage;
+        private final String integrityCheckName;
+        private final String integrityCheckID;
+        private ContentIntegrityErrorType errorType;
+        private List<String> extraInfosKeys;
+        private Map<String, Object> extraInfos;
+        private Map<String, Object> specificExtraInfos;
+        private boolean fixed = false;
+
+        private LegacyError(String path, String uuid, String primaryType, String mixins, String workspace,
+                            String locale, ContentIntegrityErrorType errorType, String constraintMessage,
+                            String integrityCheckName, String integrityCheckID) {
+            id = UUID.randomUUID().toString();
+            this.path = path;
+            site = Optional.ofNullable(Utils.getSiteKey(path, true, MODULE_PREFIX::concat)).orElse(NO_SITE);
+            this.uuid = uuid;
+            this.primaryType = primaryType;
+            this.mixins = mixins;
+            this.locale = locale;
+            this.workspace = workspace;
+            this.errorType = errorType;
+            this.constraintMessage = constraintMessage;
+            this.integrityCheckName = integrityCheckName;
+            this.integrityCheckID = integrityCheckID;
+        }
+
+        private void addExtraInfo(String key, Object value) {
+            if (extraInfosKeys == null) extraInfosKeys = new ArrayList<>();
+            extraInfosKeys.add(key);
+            if (extraInfos == null) extraInfos = new TreeMap<>();
+            extraInfos.put(key, value);
+        }
+    }
+}
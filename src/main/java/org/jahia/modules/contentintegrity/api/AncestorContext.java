@@ -0,0 +1,267 @@
+package org.jahia.modules.contentintegrity.api;
+
+import org.apache.commons.lang.StringUtils;
+import org.jahia.modules.contentintegrity.services.impl.Constants;
+import org.jahia.services.content.JCRNodeWrapper;
+import org.jahia.services.content.decorator.JCRSiteNode;
+
+import javax.jcr.RepositoryException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.jahia.modules.contentintegrity.services.impl.Constants.JCR_PATH_SEPARATOR_CHAR;
+import static org.jahia.modules.contentintegrity.services.impl.Constants.MODULES_TREE_PATH;
+import static org.jahia.modules.contentintegrity.services.impl.Constants.ROOT_NODE_PATH;
+import static org.jahia.modules.contentintegrity.services.impl.Constants.SITES_TREE_PATH;
+
+/**
+ * What the scanned node inherits from its ancestors: the enclosing site, the nearest publication root, the root of
+ * the deletion it is part of, ...
+ * <p>
+ * While traversing a tree, the scan keeps the context of the node being scanned, linked to the one of its parent, so
+ * that those facts are calculated once per node from the ones of the parent, instead of walking up the tree for
+ * each node. Each fact is calculated the first time it is requested. When a node is not scanned as part of a tree
+ * traversal, its context walks up the tree, as far as needed.
+ * <p>
+ * A context is used by the thread scanning the node only, it is not thread safe.
+ */
+public class AncestorContext {
+
+    private final JCRNodeWrapper node;
+    private final String path;
+    private final String workspace;
+    private AncestorContext parent;
+    private boolean parentResolved;
+    private final Map<String, Boolean> nodeTypes = new HashMap<>(4);
+
+    private JCRNodeWrapper publicationRoot;
+    private boolean publicationRootResolved = false;
+    private JCRSiteNode enclosingSite;
+    private boolean enclosingSiteResolved = false;
+    private JCRSiteNode site;
+    private Set<String> siteLanguages;
+    private String siteKey;
+    private boolean siteKeyResolved = false;
+    private String moduleKey;
+    private String moduleVersion;
+    private boolean moduleResolved = false;
+    private JCRNodeWrapper markedForDeletionRoot;
+    private boolean markedForDeletionRootResolved = false;
+    private Boolean inTranslation;
+
+    /**
+     * @param parent the context of the parent node, null if it has to be resolved when needed
+     */
+    AncestorContext(JCRNodeWrapper node, AncestorContext parent) {
+        this.node = node;
+        path = node.getPath();
+        workspace = getWorkspace(node);
+        this.parent = parent;
+        parentResolved = parent != null || ROOT_NODE_PATH.equals(path);
+    }
+
+    public JCRNodeWrapper getNode() {
+        return node;
+    }
+
+    private static String getWorkspace(JCRNodeWrapper node) {
+        try {
+            return node.getSession().getWorkspace().getName();
+        } catch (RepositoryException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The nodes with the same path in the default and live workspaces have different ancestors, so the workspace is
+     * part of the comparison.
+     *
+     * @return true if this context is the one of the specified node
+     */
+    boolean isContextOf(JCRNodeWrapper other) {
+        if (other == node) return true;
+        return StringUtils.equals(other.getPath(), path) && isInWorkspaceOf(other);
+    }
+
+    /**
+     * @return true if this context is the one of the parent of the specified node
+     */
+    boolean isParentContextOf(JCRNodeWrapper child) {
+        final String childPath = child.getPath();
+        final int idx = childPath.lastIndexOf(JCR_PATH_SEPARATOR_CHAR);
+        if (idx < 0 || ROOT_NODE_PATH.equals(childPath)) return false;
+        final boolean isParentPath = idx == 0 ? ROOT_NODE_PATH.equals(path) : path.length() == idx && childPath.startsWith(path);
+        return isParentPath && isInWorkspaceOf(child);
+    }
+
+    private boolean isInWorkspaceOf(JCRNodeWrapper other) {
+        return workspace != null && workspace.equals(getWorkspace(other));
+    }
+
+    /**
+     * @return the context of the parent node, null for the root node
+     */
+    public AncestorContext getParent() throws RepositoryException {
+        if (!parentResolved) {
+            parent = new AncestorContext(node.getParent(), null);
+            parentResolved = true;
+        }
+        return parent;
+    }
+
+    private boolean isNodeType(String type) throws RepositoryException {
+        Boolean isNodeType = nodeTypes.get(type);
+        if (isNodeType == null) {
+            isNodeType = node.isNodeType(type);
+            nodeTypes.put(type, isNodeType);
+        }
+        return isNodeType;
+    }
+
+    /**
+     * Same as {@link org.jahia.services.content.JCRContentUtils#getParentOfType(JCRNodeWrapper, String)} with the type
+     * {@value Constants#JAHIAMIX_LASTPUBLISHED}
+     *
+     * @return the nearest ancestor which can be published, the node itself being excluded, or null if there's none
+     */
+    public JCRNodeWrapper getPublicationRoot() throws RepositoryException {
+        if (!publicationRootResolved) {
+            final AncestorContext parentContext = getParent();
+            if (parentContext == null) publicationRoot = null;
+            else if (parentContext.isNodeType(Constants.JAHIAMIX_LASTPUBLISHED)) publicationRoot = parentContext.node;
+            else publicationRoot = parentContext.getPublicationRoot();
+            publicationRootResolved = true;
+        }
+        return publicationRoot;
+    }
+
+    private JCRSiteNode getEnclosingSite() throws RepositoryException {
+        if (!enclosingSiteResolved) {
+            if (node instanceof JCRSiteNode) {
+                enclosingSite = (JCRSiteNode) node;
+            } else {
+                final AncestorContext parentContext = getParent();
+                enclosingSite = parentContext == null ? null : parentContext.getEnclosingSite();
+            }
+            enclosingSiteResolved = true;
+        }
+        return enclosingSite;
+    }
+
+    /**
+     * Same as {@link JCRNodeWrapper#getResolveSite()}
+     *
+     * @return the site, or module, the node is part of, or the system site if the node is out of any site
+     */
+    public JCRSiteNode getSite() throws RepositoryException {
+        if (site == null) {
+            site = getEnclosingSite();
+            if (site == null) site = node.getResolveSite();
+        }
+        return site;
+    }
+
+    /**
+     * @return the languages of the site returned by {@link #getSite()}
+     */
+    public Set<String> getSiteLanguages() throws RepositoryException {
+        if (siteLanguages == null) {
+            final JCRSiteNode nodeSite = getSite();
+            final AncestorContext parentContext = getParent();
+            if (nodeSite != null && nodeSite != node && parentContext != null && parentContext.getEnclosingSite() == nodeSite) {
+                siteLanguages = parentContext.getSiteLanguages();
+            } else {
+                siteLanguages = nodeSite == null ? null : nodeSite.getLanguages();
+            }
+        }
+        return siteLanguages;
+    }
+
+    /**
+     * Same as {@link org.jahia.modules.contentintegrity.services.Utils#getSiteKey(String)}
+     *
+     * @return the key of the site, if the node is under {@value Constants#SITES_TREE_PATH}, null otherwise
+     */
+    public String getSiteKey() {
+        if (!siteKeyResolved) {
+            if (parentResolved && parent != null) {
+                siteKey = SITES_TREE_PATH.equals(parent.path) ? node.getName() : parent.getSiteKey();
+            } else {
+                siteKey = StringUtils.startsWith(path, Constants.NODE_UNDER_SITE_PATH_PREFIX) ?
+                        StringUtils.split(path, JCR_PATH_SEPARATOR_CHAR)[1] : null;
+            }
+            siteKeyResolved = true;
+        }
+        return siteKey;
+    }
+
+    /**
+     * @return the key of the module, if the node is under {@value Constants#MODULES_TREE_PATH}, null otherwise
+     */
+    public String getModuleKey() {
+        resolveModule();
+        return moduleKey;
+    }
+
+    /**
+     * @return the version of the module, if the node is under the node of a version of a module, null otherwise
+     */
+    public String getModuleVersion() {
+        resolveModule();
+        return moduleVersion;
+    }
+
+    private void resolveModule() {
+        if (moduleResolved) return;
+        if (parentResolved && parent != null) {
+            if (MODULES_TREE_PATH.equals(parent.path)) {
+                moduleKey = node.getName();
+                moduleVersion = null;
+            } else {
+                moduleKey = parent.getModuleKey();
+                moduleVersion = moduleKey != null && parent.getModuleVersion() == null ? node.getName() : parent.getModuleVersion();
+            }
+        } else if (StringUtils.startsWith(path, Constants.NODE_UNDER_MODULES_PATH_PREFIX)) {
+            final String[] segments = StringUtils.split(path, JCR_PATH_SEPARATOR_CHAR);
+            moduleKey = segments[1];
+            moduleVersion = segments.length > 2 ? segments[2] : null;
+        }
+        moduleResolved = true;
+    }
+
+    /**
+     * @return the root of the deletion the node is part of, which is either the node itself, or an ancestor such as
+     * all the nodes between the node and this ancestor are marked for deletion. Null if the node is not marked for
+     * deletion, or if it is marked for deletion but no such root can be found
+     */
+    public JCRNodeWrapper getMarkedForDeletionRoot() throws RepositoryException {
+        if (!markedForDeletionRootResolved) {
+            if (!isNodeType(Constants.JAHIAMIX_MARKED_FOR_DELETION)) {
+                markedForDeletionRoot = null;
+            } else if (isNodeType(Constants.JAHIAMIX_MARKED_FOR_DELETION_ROOT)) {
+                markedForDeletionRoot = node;
+            } else {
+                final AncestorContext parentContext = getParent();
+                markedForDeletionRoot = parentContext == null ? null : parentContext.getMarkedForDeletionRoot();
+            }
+            markedForDeletionRootResolved = true;
+        }
+        return markedForDeletionRoot;
+    }
+
+    /**
+     * @return true if the node is a translation node, or is under a translation node
+     */
+    public boolean isInTranslation() throws RepositoryException {
+        if (inTranslation == null) {
+            if (isNodeType(Constants.JAHIANT_TRANSLATION)) {
+                inTranslation = Boolean.TRUE;
+            } else {
+                final AncestorContext parentContext = getParent();
+                inTranslation = parentContext != null && parentContext.isInTranslation();
+            }
+        }
+        return inTranslation;
+    }
+}
@@ -4,6 +4,8 @@ import org.jahia.services.content.JCRNodeWrapper;
 
 import javax.jcr.RepositoryException;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 public interface ContentIntegrityCheck {
 
@@ -14,6 +16,21 @@ public interface ContentIntegrityCheck {
 
     ContentIntegrityErrorList checkIntegrityAfterChildren(JCRNodeWrapper node);
 
+    /**
+     * Called by the scan instead of {@link #checkIntegrityBeforeChildren(JCRNodeWrapper)}, which is adapted by default.
+     * Override it to push the errors to the collector, without allocating a list of errors per node.
+     */
+    default void checkIntegrityBeforeChildren(JCRNodeWrapper node, ErrorCollector errors) {
+        errors.addAll(checkIntegrityBeforeChildren(node));
+    }
+
+    /**
+     * Called by the scan instead of {@link #checkIntegrityAfterChildren(JCRNodeWrapper)}, which is adapted by default.
+     */
+    default void checkIntegrityAfterChildren(JCRNodeWrapper node, ErrorCollector errors) {
+        errors.addAll(checkIntegrityAfterChildren(node));
+    }
+
     String getName();
 
     boolean isEnabled();
@@ -30,8 +47,45 @@ public interface ContentIntegrityCheck {
 
     boolean areConditionsMatched(JCRNodeWrapper node);
 
+    /**
+     * Evaluates only the conditions which depend on the node types of the node. The result is the same for all the
+     * nodes having the same primary type and mixins, so that it can be cached during a scan.
+     */
+    default boolean areNodeTypeConditionsMatched(JCRNodeWrapper node) {
+        return true;
+    }
+
+    /**
+     * Evaluates the conditions which are not evaluated by {@link #areNodeTypeConditionsMatched(JCRNodeWrapper)}
+     */
+    default boolean areOtherConditionsMatched(JCRNodeWrapper node) {
+        return areConditionsMatched(node);
+    }
+
     boolean areConditionsReachable(JCRNodeWrapper scanRootNode, Collection<String> excludedPaths);
 
+    /**
+     * Evaluates the conditions which depend on the path of the node, so that the scan doesn't traverse the subtrees
+     * in which the check can't be executed.
+     *
+     * @return false if the check can't be executed on the node at the specified path, nor on any of its descendants
+     */
+    default boolean areConditionsReachableInSubtree(String path) {
+        return true;
+    }
+
+    /**
+     * Translates the conditions of the check into some JCR-SQL2 queries, so that the scan can find the nodes on which
+     * the check can be executed without traversing the tree.
+     *
+     * @param scanRootPath the path of the root node of the scan
+     * @return some queries returning together at least all the nodes under the specified path on which the check can
+     * be executed, or null if the conditions of the check don't restrict the node types or the properties of the nodes
+     */
+    default List<String> getCandidateNodesQueries(String scanRootPath) {
+        return null;
+    }
+
     String toFullString();
 
     void resetOwnTime();
@@ -60,6 +114,84 @@ public interface ContentIntegrityCheck {
         boolean fixError(JCRNodeWrapper node, ContentIntegrityError error) throws RepositoryException;
     }
 
+    /**
+     * Marker interface for the checks which can be executed concurrently on several subtrees during a parallel scan.
+     * The implementations must not rely on the order in which the sibling subtrees are scanned, and any state kept
+     * between two calls must be safe for concurrent access.
+     */
+    interface SupportsParallelScan {
+    }
+
+    /**
+     * Marker interface for the checks which need to visit the whole scanned tree to calculate their errors, for example
+     * because they aggregate some values until the end of the scan, or which read some state outside the checked node
+     * (other nodes, its ancestors, its counterpart in the other workspace, the configuration of the sites) which can
+     * change without modifying this node. Such checks are skipped during an incremental scan, and the errors they have
+     * detected during the previous scan are kept.
+     */
+    interface RequiresFullScan {
+    }
+
+    /**
+     * Marker interface for the checks which don't need any context from the tree, so that they can be executed on the
+     * nodes read in storage order. The nodes are then visited in no particular order, the parent of a node is not
+     * necessarily visited before the node, and the checks are executed before and after the children of a node in a row.
+     */
+    interface SupportsUnorderedScan {
+    }
+
+    /**
+     * Marker interface for the checks which only need to be executed on the nodes matching their conditions, without any
+     * context from the tree. When a query scan is requested, all the checks of the scan support it, and the conditions of
+     * each of them restrict the node types or the properties of the nodes, the scan queries the candidate nodes instead
+     * of traversing the tree. Each check is then executed alone on the nodes returned by its queries, in the order of the
+     * results, before and after the children of a node in a row.
+     *
+     * @see #getCandidateNodesQueries(String)
+     */
+    interface SupportsQueryScan {
+    }
+
+    /**
+     * For the checks which compare the nodes of the default and live workspaces. When scanning one of those workspaces,
+     * the scan resolves the counterparts of the nodes in the other workspace while traversing the tree, and this method
+     * is called instead of {@link #checkIntegrityBeforeChildren(JCRNodeWrapper)}.
+     */
+    interface SupportsPairedScan {
+        ContentIntegrityErrorList checkIntegrityBeforeChildren(PairedNode pairedNode);
+
+        default void checkIntegrityBeforeChildren(PairedNode pairedNode, ErrorCollector errors) {
+            errors.addAll(checkIntegrityBeforeChildren(pairedNode));
+        }
+    }
+
+    /**
+     * For the checks which read the node types, the properties or the children of the scanned nodes. The scan builds
+     * a single {@link NodeSnapshot} per node, shared by all those checks, and this method is called instead of
+     * {@link #checkIntegrityBeforeChildren(JCRNodeWrapper)}, so that each item is read only once per node.
+     */
+    interface SupportsNodeSnapshot {
+        ContentIntegrityErrorList checkIntegrityBeforeChildren(NodeSnapshot node);
+
+        default void checkIntegrityBeforeChildren(NodeSnapshot node, ErrorCollector errors) {
+            errors.addAll(checkIntegrityBeforeChildren(node));
+        }
+    }
+
+    /**
+     * For the checks which keep some state between two nodes, for example to calculate some errors at the end of the scan.
+     * The state is saved with the checkpoints of the scan, and restored after {@link #initializeIntegrityTest(JCRNodeWrapper, Collection)}
+     * when the scan is resumed, so that the resumed scan produces the same errors as an uninterrupted one.
+     */
+    interface SupportsCheckpoint {
+        /**
+         * @return the state of the check, as accumulated since the beginning of the scan
+         */
+        Map<String, String> getCheckpointState();
+
+        void restoreCheckpointState(Map<String, String> state);
+    }
+
     interface IsConfigurable {
         ContentIntegrityCheckConfiguration getConfigurations();
     }
@@ -70,6 +202,11 @@ public interface ContentIntegrityCheck {
     public interface ExecutionCondition {
         boolean matches(JCRNodeWrapper node);
 
+        /**
+         * @return true if the condition depends only on the primary type and the mixins of the node
+         */
+        default boolean isNodeTypeCondition() { return false; }
+
         /**
          * Validates if the condition can be matched on at least 1 node during the scan.
          * A positive value means that it can, a negative value means that it can't, zero means that this can't be determined.
@@ -79,6 +216,29 @@ public interface ContentIntegrityCheck {
          */
         default int isReachableCondition(JCRNodeWrapper scanRootNode, Collection<String> excludedPaths) { return 0; }
 
+        /**
+         * @return false if the condition can't match the node at the specified path, nor any of its descendants
+         */
+        default boolean isReachableInSubtree(String path) { return true; }
+
+        /**
+         * @return true if the condition matches the node at the specified path and all its descendants, whatever their other properties
+         */
+        default boolean matchesWholeSubtree(String path) { return false; }
+
+        /**
+         * @return the node types such as each node matching the condition is of at least one of them, or null if the
+         * condition doesn't restrict the node types
+         */
+        default Collection<String> getQueryNodeTypes() { return null; }
+
+        /**
+         * @param selector the name of the selector of the query
+         * @return a JCR-SQL2 constraint satisfied by all the nodes matching the condition, or null if the condition
+         * can't be expressed this way
+         */
+        default String getQueryConstraint(String selector) { return null; }
+
         String APPLY = "apply";
         String SKIP = "skip";
 
@@ -0,0 +1,47 @@
+package org.jahia.modules.contentintegrity.api;
+
+import java.util.stream.Stream;
+
+/**
+ * Destination of the errors produced during a scan. The errors are pushed to the sink as soon as they are detected,
+ * so that an implementation can decide how much of them has to be kept in memory.
+ * <p>
+ * The implementations must support concurrent calls to {@link #addError(ContentIntegrityError)}, since the subtrees
+ * can be scanned in parallel.
+ */
+public interface ContentIntegrityErrorSink {
+
+    void addError(ContentIntegrityError error);
+
+    /**
+     * @return the number of errors tracked by the sink, including the ones which can't be read back
+     */
+    long getErrorsCount();
+
+    /**
+     * Reads back the errors stored by the sink, in the order they have been tracked.
+     * The returned stream has to be closed once consumed.
+     *
+     * @return the stored errors, which might be only a subset of the tracked errors if the sink is not complete
+     */
+    Stream<ContentIntegrityError> getErrors();
+
+    /**
+     * @return true if every tracked error can be read back from the sink
+     */
+    default boolean isComplete() {
+        return true;
+    }
+
+    /**
+     * Called once the scan is over. No error will be added afterwards.
+     */
+    default void close() {
+    }
+
+    /**
+     * Called when the results of the scan are discarded. The resources held by the sink can be released.
+     */
+    default void dispose() {
+    }
+}
@@ -3,6 +3,7 @@ package org.jahia.modules.contentintegrity.api;
 import org.jahia.modules.contentintegrity.services.ContentIntegrityResults;
 import org.jahia.modules.contentintegrity.services.exceptions.ConcurrentExecutionException;
 
+import java.io.IOException;
 import java.util.List;
 
 public interface ContentIntegrityService {
@@ -11,6 +12,38 @@ public interface ContentIntegrityService {
 
     ContentIntegrityResults validateIntegrity(String path, List<String> excludedPaths, boolean skipMountPoints, String workspace, List<String> checksToExecute, ExternalLogger externalLogger) throws ConcurrentExecutionException;
 
+    /**
+     * @param options the options of the scan, the default ones are used if null
+     */
+    ContentIntegrityResults validateIntegrity(String path, String workspace, ScanOptions options) throws ConcurrentExecutionException;
+
+    /**
+     * Resumes a scan which has not completed, from its last checkpoint. The checkpoints are written on the disk
+     * during the sequential scans of a tree, so that they survive a restart. The errors detected before the checkpoint
+     * are pushed to the sink before resuming the scan.
+     *
+     * @param scanID  the ID of the scan, which is also the ID of its results
+     * @param options the options of the resumed scan. The scan is resumed with the tree, the excluded paths and the
+     *                checks of the interrupted scan, so only the external logger, the error sink, the execution ID
+     *                and the maximum number of nodes per second are used
+     * @return the results of the whole scan, or null if the scan can't be resumed
+     */
+    ContentIntegrityResults resumeScan(String scanID, ScanOptions options) throws ConcurrentExecutionException;
+
+    /**
+     * @return the IDs of the scans which can be resumed
+     */
+    List<String> getResumableScans();
+
+    /**
+     * Creates a sink to pass to a scan.
+     *
+     * @param description "memory", "bounded[:max number of errors kept in memory]", "disk" or "count"
+     * @return the sink
+     * @throws IOException if the sink can't be created
+     */
+    ContentIntegrityErrorSink createErrorSink(String description) throws IOException;
+
     void fixError(ContentIntegrityError error);
 
     ContentIntegrityCheck getContentIntegrityCheck(String id);
@@ -23,13 +56,32 @@ public interface ContentIntegrityService {
 
     ContentIntegrityResults getTestResults(String testDate);
 
+    /**
+     * @return the IDs of the available results, from the oldest scan to the latest one
+     */
     List<String> getTestIDs();
 
     List<String> printIntegrityChecksList(boolean simpleOutput);
 
     List<String> getContentIntegrityChecksIdentifiers(boolean activeOnly);
 
+    /**
+     * @return true if at least one scan is running
+     */
     boolean isScanRunning();
 
+    /**
+     * @return the execution IDs of the running scans
+     */
+    List<String> getRunningScans();
+
+    /**
+     * Stops all the running scans
+     */
     void stopRunningScan();
+
+    /**
+     * @return false if there's no running scan with this execution ID
+     */
+    boolean stopScan(String executionID);
 }
@@ -0,0 +1,23 @@
+package org.jahia.modules.contentintegrity.api;
+
+/**
+ * Receives the errors detected by a check on a node. During a scan, the errors are pushed straight to the
+ * {@link ContentIntegrityErrorSink} of the scan, without building a list of errors per node.
+ * <p>
+ * A {@link ContentIntegrityErrorList} can be used as a collector with {@code errorList::addError}.
+ */
+@FunctionalInterface
+public interface ErrorCollector {
+
+    /**
+     * @param error the error to track, ignored if null
+     */
+    void addError(ContentIntegrityError error);
+
+    default void addAll(ContentIntegrityErrorList errors) {
+        if (errors == null || !errors.hasErrors()) return;
+        for (ContentIntegrityError error : errors.getNestedErrors()) {
+            addError(error);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package org.jahia.modules.contentintegrity.api;
+
+import org.jahia.services.content.JCRNodeWrapper;
+
+import javax.jcr.Property;
+import javax.jcr.PropertyIterator;
+import javax.jcr.RepositoryException;
+import javax.jcr.Value;
+import javax.jcr.nodetype.NodeType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What the checks read from a scanned node: its node types, its properties and its children.
+ * <p>
+ * The snapshot is shared by all the checks executed on the node, and each item is read from the repository the first
+ * time a check requests it, and then never again for this node. A read which fails is not retried, the same error
+ * being thrown to the next checks requesting the item. The returned collections are immutable.
+ * <p>
+ * A snapshot is used by the thread scanning the node only, it is not thread safe.
+ */
+public class NodeSnapshot {
+
+    // Beyond this number of children, the child nodes are not kept for the traversal, which then iterates over them again
+    private static final int MAX_RETAINED_CHILD_NODES = 1000;
+
+    private final JCRNodeWrapper node;
+    private String primaryNodeTypeName;
+    private List<String> mixinNodeTypeNames;
+    private Map<String, PropertySnapshot> properties;
+    private RepositoryException propertiesError;
+    private List<ChildSnapshot> children;
+    private List<JCRNodeWrapper> childNodes;
+    private RepositoryException childrenError;
+    private long childrenCount = -1L;
+
+    public NodeSnapshot(JCRNodeWrapper node) {
+        this.node = node;
+    }
+
+    public JCRNodeWrapper getNode() {
+        return node;
+    }
+
+    public String getPrimaryNodeTypeName() throws RepositoryException {
+        if (primaryNodeTypeName == null) primaryNodeTypeName = node.getPrimaryNodeTypeName();
+        return primaryNodeTypeName;
+    }
+
+    public List<String> getMixinNodeTypeNames() throws RepositoryException {
+        if (mixinNodeTypeNames == null) {
+            final List<String> names = new ArrayList<>();
+            for (NodeType mixin : node.getMixinNodeTypes()) {
+                names.add(mixin.getName());
+            }
+            mixinNodeTypeNames = Collections.unmodifiableList(names);
+        }
+        return mixinNodeTypeNames;
+    }
+
+    /**
+     * @return the properties of the node, by name, in the order returned by the repository
+     */
+    public Map<String, PropertySnapshot> getProperties() throws RepositoryException {
+        if (propertiesError != null) throw propertiesError;
+        if (properties == null) {
+            final Map<String, PropertySnapshot> loaded = new LinkedHashMap<>();
+            try {
+                final PropertyIterator iterator = node.getProperties();
+                while (iterator.hasNext()) {
+                    final Property property = iterator.nextProperty();
+                    loaded.put(property.getName(), new PropertySnapshot(property));
+                }
+            } catch (RepositoryException e) {
+                propertiesError = e;
+                throw e;
+            }
+            properties = Collections.unmodifiableMap(loaded);
+        }
+        return properties;
+    }
+
+    /**
+     * @return the property with the specified name, or null if the node has no such property
+     */
+    public PropertySnapshot getProperty(String name) throws RepositoryException {
+        return getProperties().get(name);
+    }
+
+    /**
+     * @return the children of the node, in the order returned by the repository
+     */
+    public List<ChildSnapshot> getChildren() throws RepositoryException {
+        if (childrenError != null) throw childrenError;
+        if (children == null) {
+            final List<ChildSnapshot> loaded = new ArrayList<>();
+            List<JCRNodeWrapper> loadedNodes = new ArrayList<>();
+            try {
+                for (JCRNodeWrapper child : node.getNodes()) {
+                    loaded.add(new ChildSnapshot(child.getName(), child.getIdentifier(), child.getPrimaryNodeTypeName()));
+                    if (loadedNodes != null) {
+                        loadedNodes.add(child);
+                        if (loadedNodes.size() > MAX_RETAINED_CHILD_NODES) loadedNodes = null;
+                    }
+                }
+            } catch (RepositoryException e) {
+                childrenError = e;
+                throw e;
+            }
+            children = Collections.unmodifiableList(loaded);
+            childNodes = loadedNodes == null ? null : Collections.unmodifiableList(loadedNodes);
+        }
+        return children;
+    }
+
+    /**
+     * @return the number of children of the node. Read from the size of the iterator over the child nodes, without
+     * loading them, unless some check has already requested the children
+     */
+    public long getChildrenCount() throws RepositoryException {
+        if (children != null) return children.size();
+        if (childrenCount < 0L) {
+            final long size = node.getNodes().getSize();
+            // The size is unknown for some iterators, in which case the children are counted by loading them
+            childrenCount = size < 0L ? getChildren().size() : size;
+        }
+        return childrenCount;
+    }
+
+    /**
+     * @return the child nodes, if some check has already requested the children and there are not too many of them.
+     * Null otherwise, in which case the caller has to load the child nodes by itself
+     */
+    public List<JCRNodeWrapper> getLoadedChildNodes() {
+        return childNodes;
+    }
+
+    public static class PropertySnapshot {
+
+        private final Property property;
+        private final String name;
+        private Integer type;
+        private Boolean multiple;
+        private List<Value> values;
+        private RepositoryException valuesError;
+
+        private PropertySnapshot(Property property) throws RepositoryException {
+            this.property = property;
+            name = property.getName();
+        }
+
+        /**
+         * @return the underlying property, for the reads which are not covered by the snapshot
+         */
+        public Property getProperty() {
+            return property;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the type of the property, as defined in {@link javax.jcr.PropertyType}
+         */
+        public int getType() throws RepositoryException {
+            if (type == null) type = property.getType();
+            return type;
+        }
+
+        public boolean isMultiple() throws RepositoryException {
+            if (multiple == null) multiple = property.isMultiple();
+            return multiple;
+        }
+
+        /**
+         * @return the values of the property, a single one if the property is not multiple. The binaries are not
+         * downloaded, they are read when requested from the returned values
+         */
+        public List<Value> getValues() throws RepositoryException {
+            if (valuesError != null) throw valuesError;
+            if (values == null) {
+                try {
+                    values = Collections.unmodifiableList(isMultiple() ?
+                            Arrays.asList(property.getValues()) :
+                            Collections.singletonList(property.getValue()));
+                } catch (RepositoryException e) {
+                    valuesError = e;
+                    throw e;
+                }
+            }
+            return values;
+        }
+    }
+
+    public static class ChildSnapshot {
+
+        private final String name;
+        private final String identifier;
+        private final String primaryNodeTypeName;
+
+        private ChildSnapshot(String name, String identifier, String primaryNodeTypeName) {
+            this.name = name;
+            this.identifier = identifier;
+            this.primaryNodeTypeName = primaryNodeTypeName;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getIdentifier() {
+            return identifier;
+        }
+
+        public String getPrimaryNodeTypeName() {
+            return primaryNodeTypeName;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.jahia.modules.contentintegrity.api;
+
+import org.apache.commons.lang.StringUtils;
+import org.jahia.services.content.JCRNodeWrapper;
+import org.jahia.services.content.JCRSessionFactory;
+import org.jahia.services.content.JCRSessionWrapper;
+
+import javax.jcr.ItemNotFoundException;
+import javax.jcr.RepositoryException;
+
+/**
+ * A scanned node, and its counterparts in the other workspace.
+ * <p>
+ * When the default and live workspaces are scanned in paired mode, the node with the same path in the other workspace
+ * is resolved while traversing the tree, from the counterpart of the parent node. The node with the same identifier
+ * is then the same one as long as the node has not been moved, in which case it is looked up by identifier.
+ */
+public class PairedNode {
+
+    private final JCRNodeWrapper node;
+    private final String otherWorkspace;
+    private JCRNodeWrapper samePathNode;
+    private boolean samePathNodeResolved;
+    private JCRNodeWrapper sameIdentifierNode;
+    private boolean sameIdentifierNodeResolved;
+
+    /**
+     * The counterparts will be looked up when requested
+     */
+    public PairedNode(JCRNodeWrapper node, String otherWorkspace) {
+        this.node = node;
+        this.otherWorkspace = otherWorkspace;
+    }
+
+    /**
+     * @param samePathNode the node with the same path in the other workspace, or null if there's none
+     */
+    public PairedNode(JCRNodeWrapper node, String otherWorkspace, JCRNodeWrapper samePathNode) {
+        this(node, otherWorkspace);
+        this.samePathNode = samePathNode;
+        samePathNodeResolved = true;
+    }
+
+    public JCRNodeWrapper getNode() {
+        return node;
+    }
+
+    public String getOtherWorkspace() {
+        return otherWorkspace;
+    }
+
+    public JCRSessionWrapper getOtherSession() throws RepositoryException {
+        final ScanContext scanContext = ScanContext.getCurrent();
+        if (scanContext != null && scanContext.getSessions() != null)
+            return scanContext.getSessions().getSession(otherWorkspace, null);
+        return JCRSessionFactory.getInstance().getCurrentSystemSession(otherWorkspace, null, null);
+    }
+
+    /**
+     * @return the node with the same path in the other workspace, or null if there's none
+     */
+    public JCRNodeWrapper getSamePathNode() throws RepositoryException {
+        if (!samePathNodeResolved) {
+            final JCRSessionWrapper otherSession = getOtherSession();
+            final String path = node.getPath();
+            samePathNode = otherSession.nodeExists(path) ? otherSession.getNode(path) : null;
+            samePathNodeResolved = true;
+        }
+        return samePathNode;
+    }
+
+    /**
+     * @return the node with the same identifier in the other workspace
+     * @throws ItemNotFoundException if there's no node with the same identifier in the other workspace
+     */
+    public JCRNodeWrapper getSameIdentifierNode() throws RepositoryException {
+        if (!sameIdentifierNodeResolved) {
+            final JCRNodeWrapper otherNode = getSamePathNode();
+            if (otherNode != null && StringUtils.equals(otherNode.getIdentifier(), node.getIdentifier())) {
+                sameIdentifierNode = otherNode;
+            } else {
+                try {
+                    sameIdentifierNode = getOtherSession().getNodeByIdentifier(node.getIdentifier());
+                } catch (ItemNotFoundException infe) {
+                    sameIdentifierNode = null;
+                }
+            }
+            sameIdentifierNodeResolved = true;
+        }
+        if (sameIdentifierNode == null)
+            throw new ItemNotFoundException(String.format("No node %s in the workspace %s", node.getIdentifier(), otherWorkspace));
+        return sameIdentifierNode;
+    }
+}
@@ -0,0 +1,167 @@
+package org.jahia.modules.contentintegrity.api;
+
+import org.jahia.modules.contentintegrity.services.util.EffectiveDefinitionsCache;
+import org.jahia.modules.contentintegrity.services.util.IdentifierIndexes;
+import org.jahia.modules.contentintegrity.services.util.ScanSessions;
+import org.jahia.modules.contentintegrity.services.util.SessionRefreshTracker;
+import org.jahia.services.content.JCRNodeWrapper;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * State of a running scan, shared by the checks executed during this scan.
+ * <p>
+ * The checks are singletons, which are executed by all the scans running at the same time. The state they accumulate
+ * during a scan has then to be stored in the context of the scan instead of their instance fields.
+ * <p>
+ * The context is bound to the threads executing the scan, from {@link ContentIntegrityCheck#initializeIntegrityTest}
+ * to {@link ContentIntegrityCheck#finalizeIntegrityTest}, so that the signatures of the methods of the checks
+ * don't depend on it.
+ */
+public class ScanContext {
+
+    private static final ThreadLocal<ScanContext> current = new ThreadLocal<>();
+
+    private final String executionID;
+    private final String workspace;
+    private final Map<ContentIntegrityCheck, Object> checksStates = new ConcurrentHashMap<>();
+    private final Map<ContentIntegrityCheck, AtomicInteger> fatalErrorsCounts = new ConcurrentHashMap<>();
+    private final Map<ContentIntegrityCheck, Boolean> disabledChecks = new ConcurrentHashMap<>();
+    private final EffectiveDefinitionsCache effectiveDefinitions = new EffectiveDefinitionsCache();
+    private final IdentifierIndexes identifierIndexes = new IdentifierIndexes();
+    private final ThreadLocal<AncestorContext> traversedNode = new ThreadLocal<>();
+    private volatile SessionRefreshTracker sessionRefreshTracker;
+    private volatile ScanSessions sessions;
+
+    public ScanContext(String executionID, String workspace) {
+        this.executionID = executionID;
+        this.workspace = workspace;
+    }
+
+    /**
+     * @return the context of the scan executed by the current thread, or null if the current thread is not executing a scan
+     */
+    public static ScanContext getCurrent() {
+        return current.get();
+    }
+
+    /**
+     * Binds the context to the current thread, until {@link #unbind()} is called
+     */
+    public void bind() {
+        current.set(this);
+    }
+
+    public static void unbind() {
+        current.remove();
+    }
+
+    public String getExecutionID() {
+        return executionID;
+    }
+
+    /**
+     * @return the scanned workspace, or null if the context is not related to a scan
+     */
+    public String getWorkspace() {
+        return workspace;
+    }
+
+    /**
+     * @return the tracker which decides when to refresh the sessions used during the scan, or null if the context is not related to a scan
+     */
+    public SessionRefreshTracker getSessionRefreshTracker() {
+        return sessionRefreshTracker;
+    }
+
+    public void setSessionRefreshTracker(SessionRefreshTracker sessionRefreshTracker) {
+        this.sessionRefreshTracker = sessionRefreshTracker;
+    }
+
+    /**
+     * @return the sessions used during the scan, per workspace and locale, or null if the context is not related to a scan
+     */
+    public ScanSessions getSessions() {
+        return sessions;
+    }
+
+    public void setSessions(ScanSessions sessions) {
+        this.sessions = sessions;
+    }
+
+    /**
+     * @return the definitions which apply to the scanned nodes, resolved once per combination of node types during the scan
+     */
+    public EffectiveDefinitionsCache getEffectiveDefinitions() {
+        return effectiveDefinitions;
+    }
+
+    /**
+     * @return the indexes of the identifiers of the nodes of the workspaces, loaded once during the scan
+     */
+    public IdentifierIndexes getIdentifierIndexes() {
+        return identifierIndexes;
+    }
+
+    /**
+     * Called by the traversal of the tree before scanning a node, until {@link #leaveNode(AncestorContext)}
+     *
+     * @return the context of the node which was scanned by the current thread before this one, to be restored when leaving the node
+     */
+    public AncestorContext enterNode(JCRNodeWrapper node) {
+        final AncestorContext previous = traversedNode.get();
+        traversedNode.set(new AncestorContext(node, previous != null && previous.isParentContextOf(node) ? previous : null));
+        return previous;
+    }
+
+    public void leaveNode(AncestorContext previous) {
+        if (previous == null) traversedNode.remove();
+        else traversedNode.set(previous);
+    }
+
+    /**
+     * @return the context of the node, built from the ones of its ancestors if the node is being scanned as part of a
+     * tree traversal by the current thread, or resolved by walking up the tree otherwise
+     */
+    public AncestorContext getAncestorContext(JCRNodeWrapper node) {
+        final AncestorContext current = traversedNode.get();
+        if (current != null && current.isContextOf(node)) return current;
+        return new AncestorContext(node, null);
+    }
+
+    /**
+     * @param factory creates the state of the check, the first time it is requested during the scan
+     * @return the state of the check for this scan. The state is shared by all the threads executing the scan
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getCheckState(ContentIntegrityCheck check, Supplier<T> factory) {
+        return (T) checksStates.computeIfAbsent(check, c -> factory.get());
+    }
+
+    public boolean isCheckDisabled(ContentIntegrityCheck check) {
+        return disabledChecks.getOrDefault(check, Boolean.FALSE);
+    }
+
+    public void setCheckDisabled(ContentIntegrityCheck check, boolean disabled) {
+        disabledChecks.put(check, disabled);
+    }
+
+    /**
+     * @return the number of fatal errors raised by the check during this scan, including this one
+     */
+    public int trackFatalError(ContentIntegrityCheck check) {
+        return fatalErrorsCounts.computeIfAbsent(check, c -> new AtomicInteger()).incrementAndGet();
+    }
+
+    /**
+     * Drops the state, the fatal errors and the deactivation of the check
+     */
+    public void releaseCheck(ContentIntegrityCheck check) {
+        checksStates.remove(check);
+        fatalErrorsCounts.remove(check);
+        disabledChecks.remove(check);
+    }
+}
@@ -0,0 +1,19 @@
+package org.jahia.modules.contentintegrity.api;
+
+/**
+ * Measures the load of a resource shared by the scans and the rest of the server, so that the throttled scans slow
+ * down when the server is under pressure. The probes registered as OSGi services are used by all the throttled scans,
+ * in addition to the built-in ones.
+ * <p>
+ * The load is read about once per second by each throttled scan, and possibly from several threads at a time.
+ */
+public interface ScanLoadProbe {
+
+    String getName();
+
+    /**
+     * @return the load of the resource, from 0 when it is idle, to 1 or more when the scans have to slow down.
+     * A negative value if the load can't be measured
+     */
+    double getLoad();
+}
@@ -0,0 +1,174 @@
+package org.jahia.modules.contentintegrity.api;
+
+import java.util.List;
+
+/**
+ * Options of a scan, passed to {@link ContentIntegrityService#validateIntegrity(String, String, ScanOptions)}. The
+ * default values run a sequential scan of the whole tree with the active checks, keeping the errors in memory.
+ */
+public class ScanOptions {
+
+    private List<String> excludedPaths;
+    private boolean skipMountPoints = false;
+    private List<String> checksToExecute;
+    private ExternalLogger externalLogger;
+    private int parallelism = 1;
+    private boolean estimateNodesCount = false;
+    private ContentIntegrityErrorSink errorSink;
+    private boolean incremental = false;
+    private boolean storageOrder = false;
+    private boolean queryScan = false;
+    private String executionID;
+    private int maxNodesPerSecond = 0;
+
+    public List<String> getExcludedPaths() {
+        return excludedPaths;
+    }
+
+    public ScanOptions setExcludedPaths(List<String> excludedPaths) {
+        this.excludedPaths = excludedPaths;
+        return this;
+    }
+
+    public boolean isSkipMountPoints() {
+        return skipMountPoints;
+    }
+
+    /**
+     * @param skipMountPoints if true, the external nodes are excluded from the scan
+     */
+    public ScanOptions setSkipMountPoints(boolean skipMountPoints) {
+        this.skipMountPoints = skipMountPoints;
+        return this;
+    }
+
+    public List<String> getChecksToExecute() {
+        return checksToExecute;
+    }
+
+    /**
+     * @param checksToExecute the IDs of the checks to execute, the active checks are executed if null or empty
+     */
+    public ScanOptions setChecksToExecute(List<String> checksToExecute) {
+        this.checksToExecute = checksToExecute;
+        return this;
+    }
+
+    public ExternalLogger getExternalLogger() {
+        return externalLogger;
+    }
+
+    public ScanOptions setExternalLogger(ExternalLogger externalLogger) {
+        this.externalLogger = externalLogger;
+        return this;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @param parallelism the number of threads scanning the subtrees in parallel. The scan is sequential if 1 or less,
+     *                    or if some of the checks to execute do not support the parallel scan
+     */
+    public ScanOptions setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public boolean isEstimateNodesCount() {
+        return estimateNodesCount;
+    }
+
+    /**
+     * @param estimateNodesCount if true, the number of nodes to scan is estimated instead of being calculated before
+     *                           the scan, so that the tree is read only once
+     */
+    public ScanOptions setEstimateNodesCount(boolean estimateNodesCount) {
+        this.estimateNodesCount = estimateNodesCount;
+        return this;
+    }
+
+    public ContentIntegrityErrorSink getErrorSink() {
+        return errorSink;
+    }
+
+    /**
+     * @param errorSink where to store the errors, in memory if null. See {@link ContentIntegrityService#createErrorSink(String)}
+     */
+    public ScanOptions setErrorSink(ContentIntegrityErrorSink errorSink) {
+        this.errorSink = errorSink;
+        return this;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * @param incremental if true, only the nodes created or modified since the previous complete scan of the same tree
+     *                    with the same checks are scanned. The errors of the previous scan which are still open are
+     *                    added to the results. If there's no such previous scan, a full scan is executed.
+     */
+    public ScanOptions setIncremental(boolean incremental) {
+        this.incremental = incremental;
+        return this;
+    }
+
+    public boolean isStorageOrder() {
+        return storageOrder;
+    }
+
+    /**
+     * @param storageOrder if true, the nodes are read in the order in which they are stored by the persistence manager
+     *                     instead of traversing the tree. Only possible if all the checks to execute support the
+     *                     unordered scan, a tree traversal is executed otherwise.
+     */
+    public ScanOptions setStorageOrder(boolean storageOrder) {
+        this.storageOrder = storageOrder;
+        return this;
+    }
+
+    public boolean isQueryScan() {
+        return queryScan;
+    }
+
+    /**
+     * @param queryScan if true, the nodes on which the checks can be executed are found with some JCR-SQL2 queries built
+     *                  from the conditions of the checks, instead of traversing the tree. Only possible if all the
+     *                  checks to execute support the query scan, a tree traversal is executed otherwise. The search
+     *                  index of the workspace is then trusted: the nodes missing from the index, and the external
+     *                  nodes, are not scanned.
+     */
+    public ScanOptions setQueryScan(boolean queryScan) {
+        this.queryScan = queryScan;
+        return this;
+    }
+
+    public String getExecutionID() {
+        return executionID;
+    }
+
+    /**
+     * @param executionID identifies the scan among the ones running at the same time, so that it can be stopped
+     *                    with {@link ContentIntegrityService#stopScan(String)}. Generated if null
+     */
+    public ScanOptions setExecutionID(String executionID) {
+        this.executionID = executionID;
+        return this;
+    }
+
+    public int getMaxNodesPerSecond() {
+        return maxNodesPerSecond;
+    }
+
+    /**
+     * @param maxNodesPerSecond the maximum number of nodes to scan per second, not limited if 0 or less. When limited,
+     *                          the scan also slows down when the server is under pressure, according to the latency of
+     *                          the JCR reads, the built-in load probes and the {@link ScanLoadProbe} registered as OSGi services
+     */
+    public ScanOptions setMaxNodesPerSecond(int maxNodesPerSecond) {
+        this.maxNodesPerSecond = maxNodesPerSecond;
+        return this;
+    }
+}
@@ -0,0 +1,39 @@
+package org.jahia.modules.contentintegrity.api;
+
+/**
+ * Decides when to refresh the sessions used during a scan, so that the items they have loaded are dropped from their cache.
+ * Refreshing too rarely fills the heap, while refreshing too often reloads the same items again and again.
+ * <p>
+ * A policy registered as an OSGi service replaces the default one. It is called each time a node is loaded
+ * through one of the sessions of a scan, possibly from several threads at a time.
+ */
+public interface SessionRefreshPolicy {
+
+    /**
+     * @param load what has been loaded through the session since its previous refresh
+     * @return true if the session has to be refreshed now
+     */
+    boolean isRefreshRequired(SessionLoad load);
+
+    interface SessionLoad {
+        /**
+         * @return the number of items loaded since the previous refresh
+         */
+        long getLoadedItems();
+
+        /**
+         * @return the approximate size in bytes of the items loaded since the previous refresh
+         */
+        long getEstimatedBytes();
+
+        /**
+         * @return the time elapsed since the previous refresh, in milliseconds
+         */
+        long getElapsedTime();
+
+        /**
+         * @return the share of the maximum heap size which is still available, from 0 to 1
+         */
+        double getHeapHeadroom();
+    }
+}
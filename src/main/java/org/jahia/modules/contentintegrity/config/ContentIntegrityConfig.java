@@ -1,5 +1,6 @@
 package org.jahia.modules.contentintegrity.config;
 
+import org.apache.commons.lang.math.NumberUtils;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
@@ -13,6 +14,7 @@ import org.slf4j.LoggerFactory;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
+import java.util.Objects;
 
 @Component(service = ContentIntegrityConfig.class, immediate = true, configurationPid = "org.jahia.modules.contentintegrity")
 //@Designate(ocd = ContentIntegrityConfig.Config.class)
@@ -40,8 +42,14 @@ public class ContentIntegrityConfig {
     private static final String UI_REACT = "react";
     private static final String DEFAULT_UI = UI_JS;
     private static final Collection<String> validUis = Arrays.asList(UI_JS, UI_REACT);
+    private static final int DEFAULT_MAX_CONCURRENT_SCANS = 1;
+    private static final int DEFAULT_PREFETCH_DEPTH = 0;
+    private static final int DEFAULT_PREFETCH_BUFFER_SIZE = 1000;
 
     private String ui;
+    private int maxConcurrentScans = DEFAULT_MAX_CONCURRENT_SCANS;
+    private int prefetchDepth = DEFAULT_PREFETCH_DEPTH;
+    private int prefetchBufferSize = DEFAULT_PREFETCH_BUFFER_SIZE;
 
     /*
     @Activate
@@ -53,9 +61,33 @@ public class ContentIntegrityConfig {
     @Activate
     public void activate(Map<String, ?> properties) {
         ui = (String) properties.getOrDefault("contentIntegrity.ui", null);
+        maxConcurrentScans = NumberUtils.toInt(Objects.toString(properties.get("contentIntegrity.maxConcurrentScans"), null), DEFAULT_MAX_CONCURRENT_SCANS);
+        prefetchDepth = NumberUtils.toInt(Objects.toString(properties.get("contentIntegrity.prefetch.depth"), null), DEFAULT_PREFETCH_DEPTH);
+        prefetchBufferSize = NumberUtils.toInt(Objects.toString(properties.get("contentIntegrity.prefetch.bufferSize"), null), DEFAULT_PREFETCH_BUFFER_SIZE);
     }
 
     public String getUi() {
         return validUis.contains(ui) ? ui : DEFAULT_UI;
     }
+
+    /**
+     * @return the number of scans which can run at the same time
+     */
+    public int getMaxConcurrentScans() {
+        return Math.max(1, maxConcurrentScans);
+    }
+
+    /**
+     * @return the number of levels loaded ahead of the traversal below each upcoming child, 0 if the prefetch is disabled
+     */
+    public int getPrefetchDepth() {
+        return Math.max(0, prefetchDepth);
+    }
+
+    /**
+     * @return the maximum number of nodes loaded ahead of the traversal
+     */
+    public int getPrefetchBufferSize() {
+        return Math.max(1, prefetchBufferSize);
+    }
 }
@@ -12,6 +12,7 @@ import org.apache.commons.lang.WordUtils;
 import org.jahia.bin.filters.jcr.JcrSessionFilter;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityService;
 import org.jahia.modules.contentintegrity.api.ExternalLogger;
+import org.jahia.modules.contentintegrity.api.ScanOptions;
 import org.jahia.modules.contentintegrity.graphql.util.GqlUtils;
 import org.jahia.modules.contentintegrity.services.ContentIntegrityReport;
 import org.jahia.modules.contentintegrity.services.ContentIntegrityResults;
@@ -23,6 +24,7 @@ import org.jahia.services.usermanager.JahiaUser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -44,6 +46,14 @@ public class GqlIntegrityScan {
     private static final Map<String, List<ContentIntegrityReport>> executionReports = new HashMap<>();
     private static final Map<String, String> scanResults = new HashMap<>();
     private static final String PATH_DESC = "Path of the node from which to start the scan. If not defined, the root node is used";
+    private static final String PARALLELISM_DESC = "Number of threads used to scan the subtrees in parallel. If not defined, the scan is sequential";
+    private static final String ESTIMATE_NODES_COUNT_DESC = "If true, the number of nodes to scan is estimated instead of being calculated before the scan";
+    private static final String INCREMENTAL_DESC = "If true, only the nodes created or modified since the previous scan of the same tree with the same checks are scanned, and the errors of the previous scan which are still open are kept";
+    private static final String STORAGE_ORDER_DESC = "If true, the nodes are read in the order in which they are stored in the database instead of traversing the tree. Ignored if some of the checks to run require the tree to be traversed";
+    private static final String QUERY_SCAN_DESC = "If true, the nodes to scan are found with some queries built from the conditions of the checks instead of traversing the tree. The search index is then trusted: the nodes missing from the index, and the external nodes, are not scanned. Ignored if some of the checks to run do not support it";
+    private static final String SCAN_ID_DESC = "ID of the scan to resume, as listed by resumableScans";
+    private static final String MAX_NODES_PER_SECOND_DESC = "Maximum number of nodes to scan per second. If defined, the scan also slows down when the server is under pressure";
+    private static final String ERROR_SINK_DESC = "Where to store the errors: memory (default), bounded[:max number of errors kept in memory], disk, count";
     private static final int LOGS_LIMIT_CLIENT_SIDE_INTRO_SIZE = 100;
     private static final int LOGS_LIMIT_CLIENT_SIDE_END_SIZE = 500;
     private static final int LOGS_LIMIT_CLIENT_SIDE_TOTAL_SIZE = LOGS_LIMIT_CLIENT_SIDE_INTRO_SIZE + LOGS_LIMIT_CLIENT_SIDE_END_SIZE + 1;
@@ -98,7 +108,14 @@ public class GqlIntegrityScan {
                           @GraphQLName("excludedPaths") List<String> excludedPaths,
                           @GraphQLName("skipMountPoints") @GraphQLDefaultValue(GqlUtils.SupplierFalse.class) boolean skipMountPoints,
                           @GraphQLName("checksToRun") List<String> checksToRun,
-                          @GraphQLName("uploadResults") @GraphQLDefaultValue(GqlUtils.SupplierFalse.class) boolean uploadResults) {
+                          @GraphQLName("uploadResults") @GraphQLDefaultValue(GqlUtils.SupplierFalse.class) boolean uploadResults,
+                          @GraphQLName("parallelism") @GraphQLDescription(PARALLELISM_DESC) Integer parallelism,
+                          @GraphQLName("estimateNodesCount") @GraphQLDescription(ESTIMATE_NODES_COUNT_DESC) @GraphQLDefaultValue(GqlUtils.SupplierFalse.class) boolean estimateNodesCount,
+                          @GraphQLName("errorSink") @GraphQLDescription(ERROR_SINK_DESC) String errorSink,
+                          @GraphQLName("incremental") @GraphQLDescription(INCREMENTAL_DESC) @GraphQLDefaultValue(GqlUtils.SupplierFalse.class) boolean incremental,
+                          @GraphQLName("storageOrder") @GraphQLDescription(STORAGE_ORDER_DESC) @GraphQLDefaultValue(GqlUtils.SupplierFalse.class) boolean storageOrder,
+                          @GraphQLName("queryScan") @GraphQLDescription(QUERY_SCAN_DESC) @GraphQLDefaultValue(GqlUtils.SupplierFalse.class) boolean queryScan,
+                          @GraphQLName("maxNodesPerSecond") @GraphQLDescription(MAX_NODES_PER_SECOND_DESC) Integer maxNodesPerSecond) {
         id = generateExecutionID();
         executionStatus.put(id, Status.RUNNING);
         final List<String> output = new ArrayList<>();
@@ -123,33 +140,33 @@ public class GqlIntegrityScan {
                 final List<ContentIntegrityResults> results = new ArrayList<>(workspaces.size());
                 for (String ws : workspaces) {
                     if (executionStatus.get(id) != Status.RUNNING) break;
-                    final ContentIntegrityResults contentIntegrityResults = service.validateIntegrity(Optional.ofNullable(path).orElse(Constants.ROOT_NODE_PATH), excludedPaths, skipMountPoints, ws, checksToExecute, console);
+                    final ScanOptions options = new ScanOptions()
+                            .setExcludedPaths(excludedPaths)
+                            .setSkipMountPoints(skipMountPoints)
+                            .setChecksToExecute(checksToExecute)
+                            .setExternalLogger(console)
+                            .setParallelism(Optional.ofNullable(parallelism).orElse(1))
+                            .setEstimateNodesCount(estimateNodesCount)
+                            .setErrorSink(service.createErrorSink(errorSink))
+                            .setIncremental(incremental)
+                            .setStorageOrder(storageOrder)
+                            .setQueryScan(queryScan)
+                            .setExecutionID(id)
+                            .setMaxNodesPerSecond(Optional.ofNullable(maxNodesPerSecond).orElse(0));
+                    final ContentIntegrityResults contentIntegrityResults = service.validateIntegrity(Optional.ofNullable(path).orElse(Constants.ROOT_NODE_PATH), ws, options);
                     if (contentIntegrityResults != null)
                         results.add(contentIntegrityResults.setExecutionID(id));
                 }
-                final ContentIntegrityResults mergedResults = Utils.mergeResults(results);
-                if (mergedResults == null || CollectionUtils.isEmpty(mergedResults.getErrors())) {
-                    console.logLine(NO_ERROR_FOUND);
-                } else {
-                    scanResults.put(id, mergedResults.getID());
-                    final int nbErrors = mergedResults.getErrors().size();
-                    final String details = workspaces.size() == 1 ?
-                            StringUtils.EMPTY :
-                            results.stream()
-                                    .map(r -> r.getWorkspace() + " : " + r.getErrors().size())
-                                    .collect(Collectors.joining(" , ", " [", "]"));
-
-                    console.logLine(String.format("%d error%s found%s", nbErrors, nbErrors == 1 ? StringUtils.EMPTY : "s", details));
-
-                    if (uploadResults && Utils.writeDumpInTheJCR(mergedResults, false, console)) {
-                        executionReports.put(id, mergedResults.getReports());
-                    }
-                }
+                reportResults(results, workspaces.size() > 1, uploadResults, console);
                 executionStatus.put(id, Status.FINISHED);
             } catch (ConcurrentExecutionException cee) {
                 logger.error("", cee);
                 output.add(cee.getMessage());
                 executionStatus.put(id, Status.FAILED);
+            } catch (IllegalArgumentException | IOException e) {
+                logger.error("Impossible to create the error sink", e);
+                output.add(e.getMessage());
+                executionStatus.put(id, Status.FAILED);
             } finally {
                 JcrSessionFilter.endRequest();
             }
@@ -158,6 +175,69 @@ public class GqlIntegrityScan {
         return id;
     }
 
+    @GraphQLField
+    public String getResumeScan(@GraphQLName("scanID") @GraphQLNonNull @GraphQLDescription(SCAN_ID_DESC) String scanID,
+                                @GraphQLName("uploadResults") @GraphQLDefaultValue(GqlUtils.SupplierFalse.class) boolean uploadResults,
+                                @GraphQLName("errorSink") @GraphQLDescription(ERROR_SINK_DESC) String errorSink,
+                                @GraphQLName("maxNodesPerSecond") @GraphQLDescription(MAX_NODES_PER_SECOND_DESC) Integer maxNodesPerSecond) {
+        id = generateExecutionID();
+        executionStatus.put(id, Status.RUNNING);
+        final List<String> output = new ArrayList<>();
+        executionLog.put(id, output);
+        final GqlExternalLogger console = e -> output.add(WordUtils.abbreviate(e, 200, 250, ABBREVIATED_LINE_SUFFIX));
+
+        final JahiaUser currentUser = JCRSessionFactory.getInstance().getCurrentUser();
+        Executors.newSingleThreadExecutor().execute(() -> {
+            Thread.currentThread().setPriority(Thread.MIN_PRIORITY);
+
+            JCRSessionFactory.getInstance().setCurrentUser(currentUser);
+            final ContentIntegrityService service = getService();
+            try {
+                final ScanOptions options = new ScanOptions()
+                        .setExternalLogger(console)
+                        .setErrorSink(service.createErrorSink(errorSink))
+                        .setExecutionID(id)
+                        .setMaxNodesPerSecond(Optional.ofNullable(maxNodesPerSecond).orElse(0));
+                final ContentIntegrityResults results = service.resumeScan(scanID, options);
+                reportResults(results == null ? Collections.emptyList() : Collections.singletonList(results.setExecutionID(id)), false, uploadResults, console);
+                executionStatus.put(id, Status.FINISHED);
+            } catch (ConcurrentExecutionException cee) {
+                logger.error("", cee);
+                output.add(cee.getMessage());
+                executionStatus.put(id, Status.FAILED);
+            } catch (IllegalArgumentException | IOException e) {
+                logger.error("Impossible to create the error sink", e);
+                output.add(e.getMessage());
+                executionStatus.put(id, Status.FAILED);
+            } finally {
+                JcrSessionFilter.endRequest();
+            }
+        });
+        return id;
+    }
+
+    private void reportResults(List<ContentIntegrityResults> results, boolean detailPerWorkspace, boolean uploadResults, GqlExternalLogger console) {
+        final ContentIntegrityResults mergedResults = Utils.mergeResults(results);
+        if (mergedResults == null || mergedResults.getErrorsCount() == 0L) {
+            console.logLine(NO_ERROR_FOUND);
+            return;
+        }
+
+        scanResults.put(id, mergedResults.getID());
+        final long nbErrors = mergedResults.getErrorsCount();
+        final String details = detailPerWorkspace ?
+                results.stream()
+                        .map(r -> r.getWorkspace() + " : " + r.getErrorsCount())
+                        .collect(Collectors.joining(" , ", " [", "]")) :
+                StringUtils.EMPTY;
+
+        console.logLine(String.format("%d error%s found%s", nbErrors, nbErrors == 1 ? StringUtils.EMPTY : "s", details));
+
+        if (uploadResults && Utils.writeDumpInTheJCR(mergedResults, false, console)) {
+            executionReports.put(id, mergedResults.getReports());
+        }
+    }
+
     @GraphQLField
     @GraphQLName("logs")
     public List<String> getExecutionLogs() {
@@ -205,13 +285,7 @@ public class GqlIntegrityScan {
     public boolean stopRunningScan() {
         executionStatus.put(id, Status.INTERRUPTED);
 
-        final ContentIntegrityService service = getService();
-
-        if (!service.isScanRunning())
-            return Boolean.FALSE;
-
-        service.stopRunningScan();
-        return Boolean.TRUE;
+        return getService().stopScan(id);
     }
 
     private String generateExecutionID() {
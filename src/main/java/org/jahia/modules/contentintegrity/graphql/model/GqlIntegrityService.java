@@ -5,7 +5,6 @@ import graphql.annotations.annotationTypes.GraphQLField;
 import graphql.annotations.annotationTypes.GraphQLName;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityCheck;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityService;
-import org.jahia.modules.contentintegrity.services.ContentIntegrityResults;
 import org.jahia.modules.contentintegrity.services.Utils;
 import org.jahia.modules.contentintegrity.services.impl.Constants;
 import org.osgi.service.component.annotations.Component;
@@ -15,9 +14,7 @@ import org.slf4j.LoggerFactory;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -94,13 +91,19 @@ public class GqlIntegrityService {
 
     @GraphQLField
     public Collection<String> getScanResults() {
-        final ContentIntegrityService integrityService = Utils.getContentIntegrityService();
-        return integrityService.getTestIDs().stream()
-                .map(integrityService::getTestResults)
-                .filter(Objects::nonNull)
-                .sorted(Comparator.comparing(ContentIntegrityResults::getTestDate))
-                .map(ContentIntegrityResults::getID)
-                .collect(Collectors.toList());
+        return Utils.getContentIntegrityService().getTestIDs();
+    }
+
+    @GraphQLField
+    @GraphQLDescription("Returns the IDs of the scans which have not completed, and which can be resumed from their last checkpoint")
+    public Collection<String> getResumableScans() {
+        return Utils.getContentIntegrityService().getResumableScans();
+    }
+
+    @GraphQLField
+    @GraphQLDescription("Returns the IDs of the scans which are currently running")
+    public Collection<String> getRunningScans() {
+        return Utils.getContentIntegrityService().getRunningScans();
     }
 
     @GraphQLField
@@ -0,0 +1,75 @@
+package org.jahia.modules.contentintegrity.graphql.model;
+
+import graphql.annotations.annotationTypes.GraphQLDescription;
+import graphql.annotations.annotationTypes.GraphQLField;
+import org.jahia.modules.contentintegrity.services.util.CheckExecutionStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+public class GqlScanCheckStats {
+
+    private static final Logger logger = LoggerFactory.getLogger(GqlScanCheckStats.class);
+
+    private final CheckExecutionStats stats;
+
+    public GqlScanCheckStats(CheckExecutionStats stats) {
+        this.stats = stats;
+    }
+
+    @GraphQLField
+    public String getCheckId() {
+        return stats.getCheckId();
+    }
+
+    @GraphQLField
+    public String getCheckName() {
+        return stats.getCheckName();
+    }
+
+    @GraphQLField
+    @GraphQLDescription("Number of nodes on which the check has been executed")
+    public long getMatchedNodes() {
+        return stats.getMatchedNodes();
+    }
+
+    @GraphQLField
+    @GraphQLDescription("Number of nodes skipped by the check, as its conditions were not matched")
+    public long getSkippedNodes() {
+        return stats.getSkippedNodes();
+    }
+
+    @GraphQLField
+    @GraphQLDescription("Total time spent in the check, in milliseconds")
+    public long getTotalTime() {
+        return TimeUnit.NANOSECONDS.toMillis(stats.getTotalTime());
+    }
+
+    @GraphQLField
+    @GraphQLDescription("Median duration of an execution of the check on a node, in microseconds")
+    public long getP50() {
+        return TimeUnit.NANOSECONDS.toMicros(stats.getPercentile(50));
+    }
+
+    @GraphQLField
+    @GraphQLDescription("99th percentile of the duration of an execution of the check on a node, in microseconds")
+    public long getP99() {
+        return TimeUnit.NANOSECONDS.toMicros(stats.getPercentile(99));
+    }
+
+    @GraphQLField
+    @GraphQLDescription("Maximum duration of an execution of the check on a node, in microseconds")
+    public long getMax() {
+        return TimeUnit.NANOSECONDS.toMicros(stats.getMaxTime());
+    }
+
+    @GraphQLField
+    public List<GqlScanCheckStatsNode> getSlowestNodes() {
+        return stats.getSlowestNodes().stream()
+                .map(GqlScanCheckStatsNode::new)
+                .collect(Collectors.toList());
+    }
+}
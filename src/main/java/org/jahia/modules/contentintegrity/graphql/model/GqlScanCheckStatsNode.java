@@ -0,0 +1,33 @@
+package org.jahia.modules.contentintegrity.graphql.model;
+
+import graphql.annotations.annotationTypes.GraphQLDescription;
+import graphql.annotations.annotationTypes.GraphQLField;
+import org.jahia.modules.contentintegrity.services.util.CheckExecutionStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+public class GqlScanCheckStatsNode {
+
+    private static final Logger logger = LoggerFactory.getLogger(GqlScanCheckStatsNode.class);
+
+    private final String path;
+    private final long duration;
+
+    public GqlScanCheckStatsNode(CheckExecutionStats.NodeDuration node) {
+        path = node.getPath();
+        duration = TimeUnit.NANOSECONDS.toMicros(node.getDuration());
+    }
+
+    @GraphQLField
+    public String getPath() {
+        return path;
+    }
+
+    @GraphQLField
+    @GraphQLDescription("Duration of the execution of the check on the node, in microseconds")
+    public long getDuration() {
+        return duration;
+    }
+}
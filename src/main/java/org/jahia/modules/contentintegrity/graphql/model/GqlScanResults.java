@@ -5,9 +5,9 @@ import graphql.annotations.annotationTypes.GraphQLName;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityError;
-import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorType;
 import org.jahia.modules.contentintegrity.services.ContentIntegrityResults;
 import org.jahia.modules.contentintegrity.services.Utils;
+import org.jahia.modules.contentintegrity.services.util.ErrorsIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -16,9 +16,6 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import java.util.Optional;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class GqlScanResults {
@@ -27,53 +24,50 @@ public class GqlScanResults {
 
     private static final int MAX_PAGE_SIZE = 100;
 
-    private final List<ContentIntegrityError> filteredErrors;
-    private final List<ContentIntegrityError> allErrors;
+    private final ContentIntegrityResults results;
     private final int errorCount, totalErrorCount;
-    private final Collection<String> currentFilters;
+    private final Map<String, String> currentFilters;
     private final List<GqlScanReportFile> reports;
+    private final int[] filteredErrors;
 
     public GqlScanResults(String id, Collection<String> filters) {
         final ContentIntegrityResults all = Utils.getContentIntegrityService().getTestResults(id);
         if (all == null) {
-            allErrors = null;
-            filteredErrors = null;
+            results = null;
             errorCount = 0;
             totalErrorCount = 0;
             currentFilters = null;
             reports = new ArrayList<>();
+            filteredErrors = null;
 
             return;
         }
 
-        currentFilters = filters;
-        allErrors = all.getErrors();
+        currentFilters = CollectionUtils.isEmpty(filters) ? Collections.emptyMap() : filters.stream()
+                .map(f -> StringUtils.split(f, ";", 2))
+                .filter(f -> f.length == 2)
+                .collect(Collectors.toMap(f -> f[0], f -> f[1], (f1, f2) -> f2));
+        results = all;
         filteredErrors = getFilteredErrors(null);
-        errorCount = filteredErrors.size();
-        totalErrorCount = all.getErrors().size();
+        errorCount = filteredErrors.length;
+        totalErrorCount = (int) all.getErrorsCount();
         reports = all.getReports().stream()
                 .map(GqlScanReportFile::new)
                 .collect(Collectors.toList());
     }
 
-    private List<ContentIntegrityError> getFilteredErrors(Collection<String> ignoredFilters) {
-        if (CollectionUtils.isEmpty(currentFilters)) return allErrors;
-
-        final Map<String, String> filtersMap = currentFilters.stream()
-                .map(f -> StringUtils.split(f, ";", 2))
-                .filter(f -> f.length == 2)
-                .filter(f -> ignoredFilters == null || !ignoredFilters.contains(f[0]))
-                .collect(Collectors.toMap(f -> f[0], f -> f[1]));
-
-        return allErrors.stream()
-                .filter(error ->
-                        filtersMap.entrySet().stream().allMatch(filter -> columnValueMatches(error, filter.getKey(), filter.getValue()))
-                )
-                .collect(Collectors.toList());
+    /*
+    The errors are indexed once per results, then the filters are applied on the index
+     */
+    private int[] getFilteredErrors(String ignoredFilter) {
+        final Map<String, String> filtersMap = ignoredFilter == null ? currentFilters : currentFilters.entrySet().stream()
+                .filter(f -> !StringUtils.equals(f.getKey(), ignoredFilter))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        return results.getErrorsIndex().filter(filtersMap);
     }
 
     public boolean isValid() {
-        return filteredErrors != null;
+        return results != null;
     }
 
     @GraphQLField
@@ -81,13 +75,20 @@ public class GqlScanResults {
         return reports;
     }
 
+    @GraphQLField
+    public List<GqlScanCheckStats> getChecksStats() {
+        if (results == null) return Collections.emptyList();
+        return results.getChecksStats().stream()
+                .map(GqlScanCheckStats::new)
+                .collect(Collectors.toList());
+    }
+
     @GraphQLField
     public Collection<GqlScanResultsError> getErrors(@GraphQLName("offset") int offset, @GraphQLName("pageSize") int pageSize) {
         if (offset < 0 || offset >= getErrorCount() || pageSize < 1) return CollectionUtils.emptyCollection();
 
-        return filteredErrors.stream()
-                .skip(offset)
-                .limit(Math.min(pageSize, MAX_PAGE_SIZE))
+        final int end = Math.min(filteredErrors.length, offset + Math.min(pageSize, MAX_PAGE_SIZE));
+        return results.getErrorsIndex().get(filteredErrors, offset, end).stream()
                 .map(GqlScanResultsError::new)
                 .collect(Collectors.toList());
     }
@@ -104,64 +105,20 @@ public class GqlScanResults {
 
     @GraphQLField
     public GqlScanResultsError getErrorById(@GraphQLName("id") String id) {
-        return filteredErrors.stream()
-                .filter(e -> StringUtils.equals(e.getErrorID(), id))
-                .map(GqlScanResultsError::new)
-                .findFirst().orElse(null);
+        final ContentIntegrityError error = results.getErrorsIndex().find(filteredErrors, e -> StringUtils.equals(e.getErrorID(), id));
+        return error == null ? null : new GqlScanResultsError(error);
     }
 
     @GraphQLField
     public Collection<GqlScanResultsColumn> getPossibleValues(@GraphQLName("names") Collection<String> cols, @GraphQLName("withErrorsOnly") boolean withErrorsOnly) {
-        final Map<String, Map<String, Long>> columnsData = cols.stream()
-                .collect(Collectors.toMap(Function.identity(),
-                        name -> {
-                            final List<ContentIntegrityError> errorsWithOtherFilters = getFilteredErrors(Collections.singleton(name));
-                            final Map<String, Long> result = errorsWithOtherFilters.stream()
-                                    .map(error -> getColumnValue(error, name))
-                                    .filter(Objects::nonNull)
-                                    .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
-
-                            if (withErrorsOnly) return result;
-
-                            allErrors.stream()
-                                    .map(error -> getColumnValue(error, name))
-                                    .filter(Objects::nonNull)
-                                    .distinct()
-                                    .filter(val -> !result.containsKey(val))
-                                    .forEach(val -> result.put(val, 0L));
-                            return result;
-                        }
-                ));
-
-        return columnsData.entrySet().stream()
-                .map(column -> new GqlScanResultsColumn(column.getKey(), column.getValue()))
+        final ErrorsIndex index = results.getErrorsIndex();
+        return cols.stream()
+                .distinct()
+                .map(name -> {
+                    final Map<String, Long> counts = index.countValues(name, getFilteredErrors(name));
+                    if (withErrorsOnly) counts.values().removeIf(count -> count == 0L);
+                    return new GqlScanResultsColumn(name, counts);
+                })
                 .collect(Collectors.toList());
     }
-
-    private String getColumnValue(ContentIntegrityError error, String column) {
-        switch (column) {
-            case "checkName":
-                return error.getIntegrityCheckName();
-            case "errorType":
-                return Optional.ofNullable(error.getErrorType()).map(ContentIntegrityErrorType::getKey).orElse(StringUtils.EMPTY);
-            case "workspace":
-                return error.getWorkspace();
-            case "site":
-                return error.getSite();
-            case "nodePrimaryType":
-                return error.getPrimaryType();
-            case "locale":
-                return error.getLocale();
-            case "message":
-                return error.getConstraintMessage();
-            case "importError":
-                return Optional.ofNullable(error.getErrorType()).map(ContentIntegrityErrorType::isBlockingImport).orElse(Boolean.FALSE).toString();
-            default:
-                return StringUtils.EMPTY;
-        }
-    }
-
-    private boolean columnValueMatches(ContentIntegrityError error, String column, String value) {
-        return StringUtils.equals(getColumnValue(error, column), value);
-    }
 }
@@ -9,13 +9,16 @@ import org.apache.karaf.shell.api.action.Option;
 import org.apache.karaf.shell.api.action.lifecycle.Reference;
 import org.apache.karaf.shell.api.action.lifecycle.Service;
 import org.apache.karaf.shell.api.console.Session;
+import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorSink;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityService;
+import org.jahia.modules.contentintegrity.api.ScanOptions;
 import org.jahia.modules.contentintegrity.jcrcommands.completers.CheckIdCompleter;
 import org.jahia.modules.contentintegrity.jcrcommands.completers.JCRNodeCompleter;
 import org.jahia.modules.contentintegrity.services.ContentIntegrityResults;
 import org.jahia.modules.contentintegrity.services.Utils;
 import org.jahia.modules.contentintegrity.services.exceptions.ConcurrentExecutionException;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -45,14 +48,62 @@ public class CheckIntegrityCommand extends JCRCommandSupport implements Action {
     @Option(name = "--skipMP", description = "If specified, the virtual nodes are excluded from the scan")
     private boolean skipMP;
 
+    @Option(name = "-p", aliases = "--parallelism", description = "Number of threads used to scan the subtrees in parallel. The scan is sequential if not specified, or if some of the checks to execute do not support the parallel scan")
+    private int parallelism = 1;
+
+    @Option(name = "--estimateCount", description = "If specified, the number of nodes to scan is estimated instead of being calculated before the scan, so that the tree is read only once")
+    private boolean estimateCount;
+
+    @Option(name = "--errorSink", description = "Where to store the errors: memory (default), bounded[:max number of errors kept in memory], disk, count")
+    private String errorSink;
+
+    @Option(name = "--incremental", description = "If specified, only the nodes created or modified since the previous scan of the same tree with the same checks are scanned, and the errors of the previous scan which are still open are kept")
+    private boolean incremental;
+
+    @Option(name = "--storageOrder", description = "If specified, the nodes are read in the order in which they are stored in the database instead of traversing the tree. Ignored if some of the checks to run require the tree to be traversed")
+    private boolean storageOrder;
+
+    @Option(name = "--queryScan", description = "If specified, the nodes to scan are found with some queries built from the conditions of the checks instead of traversing the tree. The search index is then trusted: the nodes missing from the index, and the external nodes, are not scanned. Ignored if some of the checks to run do not support it")
+    private boolean queryScan;
+
+    @Option(name = "--maxRate", description = "Maximum number of nodes to scan per second. If specified, the scan also slows down when the server is under pressure, so that it can be run on a server which is serving some requests")
+    private int maxRate;
+
+    @Option(name = "--resume", description = "ID of a scan which has not completed, to resume from its last checkpoint. The scan is then resumed with its initial parameters, and the other options are ignored but -l, --errorSink and --maxRate")
+    private String resume;
+
     @Override
     public Object execute() throws Exception {
         final String currentPath = StringUtils.defaultString(getCurrentPath(session), "/");
         final ContentIntegrityService service = Utils.getContentIntegrityService();
         final ContentIntegrityResults integrityResults;
+        final ContentIntegrityErrorSink sink;
+        try {
+            sink = service.createErrorSink(errorSink);
+        } catch (IllegalArgumentException | IOException e) {
+            System.out.println(String.format("Impossible to create the error sink: %s", e.getMessage()));
+            return null;
+        }
         try {
-            integrityResults = service.validateIntegrity(currentPath, excludedPaths, skipMP, getCurrentWorkspace(session), getChecksToExecute(service), CONSOLE);
+            final ScanOptions options = new ScanOptions()
+                    .setExternalLogger(CONSOLE)
+                    .setErrorSink(sink)
+                    .setMaxNodesPerSecond(maxRate);
+            if (StringUtils.isNotBlank(resume)) {
+                integrityResults = service.resumeScan(resume, options);
+            } else {
+                options.setExcludedPaths(excludedPaths)
+                        .setSkipMountPoints(skipMP)
+                        .setChecksToExecute(getChecksToExecute(service))
+                        .setParallelism(parallelism)
+                        .setEstimateNodesCount(estimateCount)
+                        .setIncremental(incremental)
+                        .setStorageOrder(storageOrder)
+                        .setQueryScan(queryScan);
+                integrityResults = service.validateIntegrity(currentPath, getCurrentWorkspace(session), options);
+            }
         } catch (ConcurrentExecutionException cee) {
+            sink.dispose();
             System.out.println(cee.getMessage());
             return null;
         }
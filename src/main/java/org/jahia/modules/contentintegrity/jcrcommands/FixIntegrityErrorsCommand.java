@@ -20,6 +20,7 @@ import org.jahia.modules.contentintegrity.services.Utils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Command(scope = "jcr", name = "integrity-fix", description = "Allows to fix an error identified by an integrity check")
@@ -62,11 +63,12 @@ public class FixIntegrityErrorsCommand extends JCRCommandSupport implements Acti
         }
 
         final List<ContentIntegrityError> errors = results.getErrors();
+        final List<ContentIntegrityError> fixedErrors = new ArrayList<>();
         if (errorIDs.contains("*")) {
             for (int i = 0; i < errors.size(); i++) {
                 final ContentIntegrityError error = errors.get(i);
                 if (!error.isFixed())
-                    fixSingleError(error, i, contentIntegrityService);
+                    fixSingleError(error, i, contentIntegrityService, fixedErrors);
             }
         } else {
             for (String errorID : errorIDs) {
@@ -80,17 +82,22 @@ public class FixIntegrityErrorsCommand extends JCRCommandSupport implements Acti
                     System.out.println(String.format("The error (id=%s) is already fixed", errorID));
                     continue;
                 }
-                fixSingleError(error, errorIdx, contentIntegrityService);
+                fixSingleError(error, errorIdx, contentIntegrityService, fixedErrors);
             }
         }
+        // The errors read from the disk are copies, their fixed status has to be tracked by the results
+        results.trackFixedErrors(fixedErrors);
 
         return null;
     }
 
-    private void fixSingleError(ContentIntegrityError error, int errorID, ContentIntegrityService contentIntegrityService) {
+    private void fixSingleError(ContentIntegrityError error, int errorID, ContentIntegrityService contentIntegrityService, List<ContentIntegrityError> fixedErrors) {
         contentIntegrityService.fixError(error);
-        if (error.isFixed()) System.out.println(String.format("Fixed the error id=%s", errorID));
-        else System.out.println(String.format("Impossible to fix the error id=%s", errorID));
-
+        if (error.isFixed()) {
+            fixedErrors.add(error);
+            System.out.println(String.format("Fixed the error id=%s", errorID));
+        } else {
+            System.out.println(String.format("Impossible to fix the error id=%s", errorID));
+        }
     }
 }
@@ -1,6 +1,5 @@
 package org.jahia.modules.contentintegrity.jcrcommands;
 
-import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.math.NumberUtils;
 import org.apache.karaf.shell.api.console.Session;
 import org.apache.karaf.shell.api.console.Terminal;
@@ -18,8 +17,9 @@ import org.json.JSONObject;
 
 import javax.jcr.PathNotFoundException;
 import javax.jcr.RepositoryException;
-import java.util.List;
+import java.util.Iterator;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 // TODO : this is a fork from org.jahia.bundles.jcrcommands , which doesn't export a required package
 public class JCRCommandSupport {
@@ -89,8 +89,8 @@ public class JCRCommandSupport {
             return;
         }
         System.out.println(String.format("Content integrity tested in %s", results.getFormattedTestDuration()));
-        final List<ContentIntegrityError> errors = results.getErrors();
-        if (CollectionUtils.isEmpty(errors)) {
+        final long errorsCount = results.getErrorsCount();
+        if (errorsCount == 0L) {
             System.out.println("No error found");
             return;
         }
@@ -110,27 +110,30 @@ public class JCRCommandSupport {
         int errorID = 0;
         int nbPrintedErrors = 0;
         final int limit = NumberUtils.toInt(limitStr, DEFAULT_LIMIT);
-        for (ContentIntegrityError error : errors) {
-            if (nbPrintedErrors >= limit) continue;
-            final boolean fixed = error.isFixed();
-            if (printFixedErrors || !fixed) {
-                nbPrintedErrors++;
-                final Row row = table.addRow();
-                final JSONObject json = error.toJSON();
-                row.addContent(errorID,
-                        fixed ? "X" : "",
-                        json.get("checkName"),
-                        json.get("workspace"),
-                        //json.get("path"),
-                        json.get("uuid"),
-                        error.getPrimaryType(),
-                        json.get("locale"),
-                        json.get("message"));
+        final Iterator<ContentIntegrityError> errors;
+        try (Stream<ContentIntegrityError> stream = results.streamErrors()) {
+            errors = stream.iterator();
+            while (errors.hasNext() && nbPrintedErrors < limit) {
+                final ContentIntegrityError error = errors.next();
+                final boolean fixed = error.isFixed();
+                if (printFixedErrors || !fixed) {
+                    nbPrintedErrors++;
+                    final Row row = table.addRow();
+                    final JSONObject json = error.toJSON();
+                    row.addContent(errorID,
+                            fixed ? "X" : "",
+                            json.get("checkName"),
+                            json.get("workspace"),
+                            //json.get("path"),
+                            json.get("uuid"),
+                            error.getPrimaryType(),
+                            json.get("locale"),
+                            json.get("message"));
+                }
+                errorID++;
             }
-            errorID++;
         }
         table.print(System.out, true);
-        final int errorsCount = errors.size();
         if (errorsCount > errorID)
             System.out.println(String.format("Printed the first %s errors. Total number of errors: %s", nbPrintedErrors, errorsCount));
     }
@@ -1,7 +1,8 @@
 package org.jahia.modules.contentintegrity.services;
 
-import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
 import org.apache.commons.lang.time.FastDateFormat;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityCheck;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityError;
@@ -14,15 +15,19 @@ import org.slf4j.LoggerFactory;
 
 import javax.jcr.RepositoryException;
 import javax.jcr.nodetype.NodeType;
-import java.util.ArrayList;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.TreeMap;
-import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.jahia.modules.contentintegrity.services.Utils.getSiteKey;
 
@@ -34,10 +39,17 @@ public class ContentIntegrityErrorImpl implements ContentIntegrityError {
     private static final String MODULE_PREFIX = "module ";
     private static final String NO_SITE = "<no site> ";
     private static final String NO_INTEGRITY_CHECK = "Framework";
-    private static final ContentIntegrityErrorType FRAMEWORK_ERROR = new ContentIntegrityErrorTypeImpl("FRAMEWORK_ERROR").setDefaultMessage("Execution error");
+    private static final ContentIntegrityErrorType FRAMEWORK_ERROR = ContentIntegrityErrorTypeImpl.register(new ContentIntegrityErrorTypeImpl("FRAMEWORK_ERROR").setDefaultMessage("Execution error"));
     private static final int EXTRA_INFO_STRING_VALUE_MAX_LENGTH = 100;
-
-    private final String id;
+    /*
+    The IDs only have to be unique among the errors stored in the cache. The counter is seeded with the current time,
+    so that the IDs generated after a restart are greater than the ones generated before
+     */
+    private static final AtomicLong ID_GENERATOR = new AtomicLong(System.currentTimeMillis() << 16);
+
+    private final long id;
+    // Only set when the error is read back from an error of another implementation, whose ID is not a number
+    private final String nonNumericID;
     private final String path;
     private final String site;
     private final String uuid;
@@ -49,26 +61,41 @@ public class ContentIntegrityErrorImpl implements ContentIntegrityError {
     private final String integrityCheckName;
     private final String integrityCheckID;
     private ContentIntegrityErrorType errorType = null;
-    private List<String> extraInfosKeys;
+    // Both maps are allocated only when an extra info is added, the errors usually have none or only a few of them
     private Map<String, Object> extraInfos;
-    private Map<String, Object> specificExtraInfos;
+    private Set<String> specificExtraInfosKeys;
     private boolean fixed = false;
 
     private ContentIntegrityErrorImpl(String path, String uuid, String primaryType, String mixins, String workspace,
                                       String locale, ContentIntegrityErrorType errorType, String constraintMessage,
                                       String integrityCheckName, String integrityCheckID) {
-        id = UUID.randomUUID().toString();
+        this(ID_GENERATOR.incrementAndGet(), null, path, Optional.ofNullable(getSiteKey(path, true, MODULE_PREFIX::concat)).orElse(NO_SITE),
+                uuid, primaryType, mixins, workspace, locale, errorType, constraintMessage, integrityCheckName, integrityCheckID);
+    }
+
+    /*
+    The fields with a low cardinality are interned, so that a large number of errors shares the same instances
+     */
+    private ContentIntegrityErrorImpl(long id, String nonNumericID, String path, String site, String uuid, String primaryType, String mixins, String workspace,
+                                      String locale, ContentIntegrityErrorType errorType, String constraintMessage,
+                                      String integrityCheckName, String integrityCheckID) {
+        this.id = id;
+        this.nonNumericID = nonNumericID;
         this.path = path;
-        site = Optional.ofNullable(getSiteKey(path, true, MODULE_PREFIX::concat)).orElse(NO_SITE);
+        this.site = intern(site);
         this.uuid = uuid;
-        this.primaryType = primaryType;
-        this.mixins = mixins;
-        this.locale = locale;
-        this.workspace = workspace;
+        this.primaryType = intern(primaryType);
+        this.mixins = intern(mixins);
+        this.locale = intern(locale);
+        this.workspace = intern(workspace);
         this.errorType = errorType;
         this.constraintMessage = constraintMessage;
-        this.integrityCheckName = integrityCheckName;
-        this.integrityCheckID = integrityCheckID;
+        this.integrityCheckName = intern(integrityCheckName);
+        this.integrityCheckID = intern(integrityCheckID);
+    }
+
+    private static String intern(String value) {
+        return value == null ? null : value.intern();
     }
 
     public static ContentIntegrityError createError(JCRNodeWrapper node, String locale, ContentIntegrityErrorType errorType, String message, ContentIntegrityCheck integrityCheck) {
@@ -127,7 +154,7 @@ public class ContentIntegrityErrorImpl implements ContentIntegrityError {
 
     @Override
     public String getErrorID() {
-        return id;
+        return nonNumericID == null ? Long.toString(id) : nonNumericID;
     }
 
     @Override
@@ -192,31 +219,38 @@ public class ContentIntegrityErrorImpl implements ContentIntegrityError {
 
     @Override
     public Map<String, Object> getExtraInfos() {
-        return Collections.unmodifiableMap(Optional.ofNullable(extraInfos).orElse(Collections.emptyMap()));
+        return getExtraInfos(false);
     }
 
     @Override
     public Map<String, Object> getSpecificExtraInfos() {
-        return Collections.unmodifiableMap(Optional.ofNullable(specificExtraInfos).orElse(Collections.emptyMap()));
+        return getExtraInfos(true);
+    }
+
+    private Map<String, Object> getExtraInfos(boolean specific) {
+        if (MapUtils.isEmpty(extraInfos)) return Collections.emptyMap();
+
+        final Map<String, Object> map = new TreeMap<>();
+        extraInfos.forEach((key, value) -> {
+            if (isSpecificExtraInfo(key) == specific) map.put(key, value);
+        });
+        return Collections.unmodifiableMap(map);
+    }
+
+    private boolean isSpecificExtraInfo(String key) {
+        return specificExtraInfosKeys != null && specificExtraInfosKeys.contains(key);
     }
 
     @Override
     public Map<String, Object> getAllExtraInfos() {
-        if (CollectionUtils.isEmpty(extraInfosKeys)) return Collections.emptyMap();
-
-        final LinkedHashMap<String, Object> map = new LinkedHashMap<>();
-        for (String key : extraInfosKeys) {
-            map.put(key, getExtraInfo(key));
-        }
+        if (MapUtils.isEmpty(extraInfos)) return Collections.emptyMap();
 
-        return map;
+        return new LinkedHashMap<>(extraInfos);
     }
 
     @Override
     public Object getExtraInfo(String key) {
-        if (extraInfosKeys == null || !extraInfosKeys.contains(key)) return null;
-
-        return extraInfos != null && extraInfos.containsKey(key) ? extraInfos.get(key) : specificExtraInfos.get(key);
+        return extraInfos == null ? null : extraInfos.get(key);
     }
 
     @Override
@@ -230,18 +264,16 @@ public class ContentIntegrityErrorImpl implements ContentIntegrityError {
     }
 
     private ContentIntegrityError addExtraInfo(String key, Object value, boolean isErrorSpecific, boolean bypassLengthLimit) {
-        if (extraInfosKeys == null) extraInfosKeys = new ArrayList<>();
-        else if (extraInfosKeys.contains(key))
+        if (extraInfos == null) extraInfos = new LinkedHashMap<>(4);
+        else if (extraInfos.containsKey(key))
             throw new IllegalArgumentException(String.format("Key already defined: %s", key));
 
-        extraInfosKeys.add(key);
         final Object storedValue = value instanceof String && !bypassLengthLimit ? StringUtils.left((String) value, EXTRA_INFO_STRING_VALUE_MAX_LENGTH) : value;
+        // The keys are shared by all the errors of a same check
+        extraInfos.put(intern(key), storedValue);
         if (isErrorSpecific) {
-            if (specificExtraInfos == null) specificExtraInfos = new TreeMap<>();
-            specificExtraInfos.put(key, storedValue);
-        } else {
-            if (extraInfos == null) extraInfos = new TreeMap<>();
-            extraInfos.put(key, storedValue);
+            if (specificExtraInfosKeys == null) specificExtraInfosKeys = new HashSet<>(2);
+            specificExtraInfosKeys.add(key);
         }
         return this;
     }
@@ -263,6 +295,103 @@ public class ContentIntegrityErrorImpl implements ContentIntegrityError {
         return addExtraInfo(EXTRA_MESSAGE_KEY, msg, false, true);
     }
 
+    /**
+     * Writes the error in a binary format, readable with {@link #readFrom(DataInput)}.
+     * The values of the extra infos are written as strings. The ID is written as a number when possible, and as a
+     * string otherwise, since the errors created by the other implementations can have any ID.
+     */
+    public static void writeTo(ContentIntegrityError error, DataOutput out) throws IOException {
+        final String errorID = error.getErrorID();
+        final Long numericID = toNumericID(errorID);
+        out.writeBoolean(numericID != null);
+        if (numericID != null) out.writeLong(numericID);
+        else writeString(out, errorID);
+        writeString(out, error.getPath());
+        writeString(out, error.getSite());
+        writeString(out, error.getUuid());
+        writeString(out, error.getPrimaryType());
+        writeString(out, error.getMixins());
+        writeString(out, error.getWorkspace());
+        writeString(out, error.getLocale());
+        writeString(out, error.getConstraintMessage());
+        writeString(out, error.getIntegrityCheckName());
+        writeString(out, error.getIntegrityCheckID());
+        final ContentIntegrityErrorType type = error.getErrorType();
+        out.writeBoolean(type instanceof ContentIntegrityErrorTypeImplLegacy);
+        writeString(out, type.getKey());
+        out.writeBoolean(type.isBlockingImport());
+        writeString(out, type.getDefaultMessage());
+        out.writeBoolean(error.isFixed());
+        final Map<String, Object> allExtraInfos = error.getAllExtraInfos();
+        final Map<String, Object> specificExtraInfos = error.getSpecificExtraInfos();
+        out.writeInt(allExtraInfos.size());
+        for (Map.Entry<String, Object> extraInfo : allExtraInfos.entrySet()) {
+            writeString(out, extraInfo.getKey());
+            out.writeBoolean(specificExtraInfos.containsKey(extraInfo.getKey()));
+            writeString(out, Objects.toString(extraInfo.getValue(), null));
+        }
+    }
+
+    public static ContentIntegrityError readFrom(DataInput in) throws IOException {
+        final boolean isNumericID = in.readBoolean();
+        final long id = isNumericID ? in.readLong() : 0L;
+        final String nonNumericID = isNumericID ? null : readString(in);
+        final String path = readString(in);
+        final String site = readString(in);
+        final String uuid = readString(in);
+        final String primaryType = readString(in);
+        final String mixins = readString(in);
+        final String workspace = readString(in);
+        final String locale = readString(in);
+        final String constraintMessage = readString(in);
+        final String integrityCheckName = readString(in);
+        final String integrityCheckID = readString(in);
+        final boolean isLegacyType = in.readBoolean();
+        final String typeKey = readString(in);
+        final boolean isBlockingImport = in.readBoolean();
+        final String typeDefaultMessage = readString(in);
+        // The legacy types can be modified per error, the other ones are resolved to the types declared by the checks
+        final ContentIntegrityErrorType errorType;
+        if (isLegacyType) {
+            errorType = new ContentIntegrityErrorTypeImplLegacy(typeKey, isBlockingImport);
+            if (typeDefaultMessage != null) errorType.setDefaultMessage(typeDefaultMessage);
+        } else {
+            errorType = ContentIntegrityErrorTypeImpl.resolve(typeKey, isBlockingImport, typeDefaultMessage);
+        }
+        final ContentIntegrityErrorImpl error = new ContentIntegrityErrorImpl(id, nonNumericID, path, site, uuid, primaryType, mixins, workspace,
+                locale, errorType, constraintMessage, integrityCheckName, integrityCheckID);
+        error.setFixed(in.readBoolean());
+        final int nbExtraInfos = in.readInt();
+        for (int i = 0; i < nbExtraInfos; i++) {
+            final String key = readString(in);
+            final boolean isErrorSpecific = in.readBoolean();
+            error.addExtraInfo(key, readString(in), isErrorSpecific, true);
+        }
+        return error;
+    }
+
+    /*
+    Returns null if the ID can't be written as a number and read back identically
+     */
+    private static Long toNumericID(String errorID) {
+        if (!NumberUtils.isDigits(errorID)) return null;
+        try {
+            final long numericID = Long.parseLong(errorID);
+            return StringUtils.equals(Long.toString(numericID), errorID) ? numericID : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(StringUtils.left(value, Short.MAX_VALUE / 3));
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
     private String getFullNodetype() {
         if (StringUtils.isBlank(mixins))
             return primaryType;
@@ -1,12 +1,21 @@
 package org.jahia.modules.contentintegrity.services;
 
 import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorType;
+import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 public class ContentIntegrityErrorTypeImpl implements ContentIntegrityErrorType {
 
     private static final Logger logger = LoggerFactory.getLogger(ContentIntegrityErrorTypeImpl.class);
+    // The error types declared by the checks, and the ones read back from the stored errors, per key
+    private static final Map<String, List<ContentIntegrityErrorType>> registeredTypes = new ConcurrentHashMap<>();
 
     private final String key;
     private final boolean isBlockingImport;
@@ -46,6 +55,63 @@ public class ContentIntegrityErrorTypeImpl implements ContentIntegrityErrorType
         return this;
     }
 
+    /**
+     * Registers an error type declared by a check, so that the errors read back from a sink or from the results
+     * store get this instance. Several checks can declare types with the same key, they are told apart by their
+     * default message.
+     *
+     * @return the registered type
+     */
+    public static ContentIntegrityErrorType register(ContentIntegrityErrorType errorType) {
+        final List<ContentIntegrityErrorType> types = registeredTypes.computeIfAbsent(errorType.getKey(), k -> new CopyOnWriteArrayList<>());
+        synchronized (types) {
+            final ContentIntegrityErrorType registeredType = find(types, errorType.isBlockingImport(), errorType.getDefaultMessage());
+            if (registeredType != null) return registeredType;
+            types.add(errorType);
+            return errorType;
+        }
+    }
+
+    /**
+     * @return the registered type matching the specified values. If no such type has been declared, for example when
+     * the check which has detected the error is not deployed anymore, a type is created and registered, so that the
+     * errors of the same type share a single instance
+     */
+    public static ContentIntegrityErrorType resolve(String key, boolean isBlockingImport, String defaultMessage) {
+        final List<ContentIntegrityErrorType> types = registeredTypes.get(key);
+        final ContentIntegrityErrorType registeredType = types == null ? null : find(types, isBlockingImport, defaultMessage);
+        if (registeredType != null) return registeredType;
+
+        final ContentIntegrityErrorType errorType = new ContentIntegrityErrorTypeImpl(key, isBlockingImport);
+        if (defaultMessage != null) errorType.setDefaultMessage(defaultMessage);
+        return register(errorType);
+    }
+
+    private static ContentIntegrityErrorType find(List<ContentIntegrityErrorType> types, boolean isBlockingImport, String defaultMessage) {
+        for (ContentIntegrityErrorType type : types) {
+            if (type.isBlockingImport() == isBlockingImport && StringUtils.equals(type.getDefaultMessage(), defaultMessage))
+                return type;
+        }
+        return null;
+    }
+
+    /**
+     * Two types are equal if they have the same key, so that the errors read back from a sink can be compared with
+     * the types declared by the checks, even if they have not been resolved to the registered instance
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final ContentIntegrityErrorTypeImpl that = (ContentIntegrityErrorTypeImpl) o;
+        return isBlockingImport == that.isBlockingImport && StringUtils.equals(getKey(), that.getKey());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getKey());
+    }
+
     @Override
     public String toString() {
         return getKey();
@@ -2,13 +2,22 @@ package org.jahia.modules.contentintegrity.services;
 
 import org.apache.commons.lang.time.FastDateFormat;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityError;
+import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorSink;
+import org.jahia.modules.contentintegrity.services.sinks.InMemoryErrorSink;
+import org.jahia.modules.contentintegrity.services.util.CheckExecutionStats;
+import org.jahia.modules.contentintegrity.services.util.ErrorsIndex;
 import org.jahia.utils.DateUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class ContentIntegrityResults {
 
@@ -19,14 +28,22 @@ public class ContentIntegrityResults {
     private final Long testDuration;
     private final String formattedTestDuration;
     private final String workspace;
-    private final List<ContentIntegrityError> errors;
+    private final ContentIntegrityErrorSink errors;
     private String executionID;
     private final List<String> executionLog;
     private final List<ContentIntegrityReport> reports;
+    private List<CheckExecutionStats> checksStats = Collections.emptyList();
+    // The errors read from a sink which is not in memory are new instances each time, so their fixed status is tracked here
+    private final Set<String> fixedErrorIDs = ConcurrentHashMap.newKeySet();
+    private volatile ErrorsIndex errorsIndex;
 
     public ContentIntegrityResults(Long testDate, Long testDuration, String workspace, List<ContentIntegrityError> errors, List<String> executionLog) {
+        this(testDate, testDuration, workspace, new InMemoryErrorSink(errors), executionLog);
+    }
+
+    public ContentIntegrityResults(Long testDate, Long testDuration, String workspace, ContentIntegrityErrorSink errors, List<String> executionLog) {
         this.testDate = testDate;
-        formattedTestDate = FastDateFormat.getInstance("yyyy_MM_dd-HH_mm_ss_SSS").format(testDate);
+        formattedTestDate = formatTestDate(testDate);
         this.testDuration = testDuration;
         this.formattedTestDuration = DateUtils.formatDurationWords(testDuration);
         this.workspace = workspace;
@@ -43,6 +60,17 @@ public class ContentIntegrityResults {
         return String.format("%s_%s", workspace, formattedTestDate);
     }
 
+    /**
+     * @return the ID of the results of the scan of the workspace started at the specified date
+     */
+    public static String getID(String workspace, long testDate) {
+        return String.format("%s_%s", workspace, formatTestDate(testDate));
+    }
+
+    private static String formatTestDate(long testDate) {
+        return FastDateFormat.getInstance("yyyy_MM_dd-HH_mm_ss_SSS").format(testDate);
+    }
+
     public Long getTestDuration() {
         return testDuration;
     }
@@ -51,8 +79,45 @@ public class ContentIntegrityResults {
         return formattedTestDuration;
     }
 
+    /**
+     * Loads all the errors in memory. Prefer {@link #streamErrors()} when the errors are stored out of the heap.
+     */
     public List<ContentIntegrityError> getErrors() {
-        return Collections.unmodifiableList(errors);
+        if (errors instanceof InMemoryErrorSink) return ((InMemoryErrorSink) errors).getErrorsList();
+        try (Stream<ContentIntegrityError> stream = streamErrors()) {
+            return Collections.unmodifiableList(stream.collect(Collectors.toList()));
+        }
+    }
+
+    /**
+     * The returned stream has to be closed once consumed.
+     */
+    public Stream<ContentIntegrityError> streamErrors() {
+        if (fixedErrorIDs.isEmpty() || errors instanceof InMemoryErrorSink) return errors.getErrors();
+        return errors.getErrors().peek(error -> {
+            if (fixedErrorIDs.contains(error.getErrorID())) error.setFixed(true);
+        });
+    }
+
+    public long getErrorsCount() {
+        return errors.getErrorsCount();
+    }
+
+    /**
+     * The index is created the first time this method is called, and then kept as long as the results. It only holds
+     * the positions of the errors, which are read from the sink of the results when needed.
+     */
+    public ErrorsIndex getErrorsIndex() {
+        if (errorsIndex == null) {
+            synchronized (this) {
+                if (errorsIndex == null) errorsIndex = new ErrorsIndex(errors instanceof InMemoryErrorSink ? errors : new ErrorsView());
+            }
+        }
+        return errorsIndex;
+    }
+
+    public ContentIntegrityErrorSink getErrorSink() {
+        return errors;
     }
 
     public String getWorkspace() {
@@ -67,6 +132,15 @@ public class ContentIntegrityResults {
         return Collections.unmodifiableList(executionLog);
     }
 
+    public List<CheckExecutionStats> getChecksStats() {
+        return Collections.unmodifiableList(checksStats);
+    }
+
+    public ContentIntegrityResults setChecksStats(List<CheckExecutionStats> checksStats) {
+        this.checksStats = checksStats;
+        return this;
+    }
+
     public ContentIntegrityResults setExecutionID(String executionID) {
         this.executionID = executionID;
         return this;
@@ -90,7 +164,66 @@ public class ContentIntegrityResults {
         Utils.getContentIntegrityService().storeErrorsInCache(this);
     }
 
+    /**
+     * Tracks the errors fixed after the scan, and stores the results again so that their status is not lost when
+     * the results are read back from the disk
+     */
+    public void trackFixedErrors(Collection<ContentIntegrityError> fixedErrors) {
+        boolean modified = false;
+        for (ContentIntegrityError error : fixedErrors) {
+            if (error.isFixed() && error.getErrorID() != null) modified |= fixedErrorIDs.add(error.getErrorID());
+        }
+        if (modified) Utils.getContentIntegrityService().storeErrorsInCache(this);
+    }
+
+    /**
+     * @return the IDs of the errors fixed after the scan
+     */
+    public Set<String> getFixedErrorIDs() {
+        return Collections.unmodifiableSet(fixedErrorIDs);
+    }
+
+    /**
+     * Restores the errors fixed after the scan, without storing the results again
+     */
+    void restoreFixedErrors(Collection<String> errorIDs) {
+        fixedErrorIDs.addAll(errorIDs);
+    }
+
+    /**
+     * Adds a report generated before the results were stored, without storing them again
+     */
+    void restoreReport(ContentIntegrityReport report) {
+        reports.add(report);
+    }
+
     public List<ContentIntegrityReport> getReports() {
         return Collections.unmodifiableList(reports);
     }
+
+    /*
+    Errors of the sink, with the fixed status tracked after the scan
+     */
+    private class ErrorsView implements ContentIntegrityErrorSink {
+
+        @Override
+        public void addError(ContentIntegrityError error) {
+            throw new UnsupportedOperationException("The results of a scan can't be modified");
+        }
+
+        @Override
+        public long getErrorsCount() {
+            return errors.getErrorsCount();
+        }
+
+        @Override
+        public Stream<ContentIntegrityError> getErrors() {
+            return streamErrors();
+        }
+
+        @Override
+        public boolean isComplete() {
+            return errors.isComplete();
+        }
+    }
 }
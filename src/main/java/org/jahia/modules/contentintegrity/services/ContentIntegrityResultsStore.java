@@ -0,0 +1,343 @@
+package org.jahia.modules.contentintegrity.services;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
+import org.jahia.modules.contentintegrity.api.ContentIntegrityError;
+import org.jahia.modules.contentintegrity.services.sinks.FileErrorSink;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Persists the results of the scans on the disk, so that they survive the restarts and the eviction from the cache.
+ * <p>
+ * Each scan is stored in its own folder, with its errors in the binary format used by {@link FileErrorSink}, its
+ * execution log, its reports and the IDs of its errors fixed after the scan. A small index of the metadata of the scans is kept in memory and in a single file,
+ * so that listing the scans or identifying the latest one doesn't require to read the stored scans.
+ * The execution statistics of the checks are not stored.
+ * <p>
+ * The last complete scan of each tree with each set of checks is also tracked, as the ID of the scan and the watermark
+ * from which the next incremental scan has to look for the modified nodes.
+ */
+public class ContentIntegrityResultsStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentIntegrityResultsStore.class);
+
+    private static final String INDEX_FILE = "index.txt";
+    private static final String LAST_COMPLETE_SCANS_FILE = "lastCompleteScans.txt";
+    private static final String ERRORS_FILE = "errors.bin";
+    private static final String EXECUTION_LOG_FILE = "execution.log";
+    private static final String REPORTS_FILE = "reports.txt";
+    private static final String FIXED_ERRORS_FILE = "fixedErrors.txt";
+    private static final String TMP_EXTENSION = ".tmp";
+    private static final String SEPARATOR = "\t";
+
+    private final File folder;
+    private final Map<String, ScanMetadata> index = new ConcurrentHashMap<>();
+    private final Map<String, LastCompleteScan> lastCompleteScans = new ConcurrentHashMap<>();
+
+    public ContentIntegrityResultsStore(File folder) {
+        this.folder = folder;
+    }
+
+    /**
+     * Loads the index of the stored scans. The scans whose folder is missing are dropped from the index.
+     */
+    public synchronized void load() throws IOException {
+        FileUtils.forceMkdir(folder);
+        index.clear();
+        lastCompleteScans.clear();
+        for (String line : readLinesIfExists(new File(folder, INDEX_FILE))) {
+            final ScanMetadata metadata = ScanMetadata.parse(line);
+            if (metadata == null) {
+                logger.error(String.format("Skipping an invalid line in the index of the stored scans: %s", line));
+                continue;
+            }
+            if (new File(getScanFolder(metadata.getId()), ERRORS_FILE).exists()) index.put(metadata.getId(), metadata);
+        }
+        for (String line : readLinesIfExists(new File(folder, LAST_COMPLETE_SCANS_FILE))) {
+            final LastCompleteScan lastCompleteScan = LastCompleteScan.parse(line);
+            if (lastCompleteScan == null) {
+                logger.error(String.format("Skipping an invalid line in the list of the last complete scans: %s", line));
+                continue;
+            }
+            lastCompleteScans.put(lastCompleteScan.getKey(), lastCompleteScan);
+        }
+    }
+
+    /**
+     * Stores the results of a scan. If the scan is already stored, its errors are not written again: only its
+     * execution log, its reports, the errors fixed since the scan and its metadata are updated.
+     */
+    public synchronized void store(ContentIntegrityResults results) throws IOException {
+        final String id = results.getID();
+        final File scanFolder = getScanFolder(id);
+        FileUtils.forceMkdir(scanFolder);
+        final ScanMetadata previous = index.get(id);
+        long storedErrorsCount = previous == null ? 0L : previous.getStoredErrorsCount();
+        if (previous == null) {
+            final long[] writtenErrors = {0L};
+            final File errorsFile = new File(scanFolder, ERRORS_FILE);
+            final File tmpFile = new File(scanFolder, ERRORS_FILE + TMP_EXTENSION);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+                 Stream<ContentIntegrityError> errors = results.streamErrors()) {
+                errors.forEach(error -> {
+                    try {
+                        ContentIntegrityErrorImpl.writeTo(error, out);
+                        writtenErrors[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                FileUtils.deleteQuietly(tmpFile);
+                throw e.getCause();
+            }
+            Files.move(tmpFile.toPath(), errorsFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            storedErrorsCount = writtenErrors[0];
+        }
+        FileUtils.writeLines(new File(scanFolder, EXECUTION_LOG_FILE), StandardCharsets.UTF_8.name(), results.getExecutionLog());
+        FileUtils.writeLines(new File(scanFolder, REPORTS_FILE), StandardCharsets.UTF_8.name(), results.getReports().stream()
+                .map(r -> StringUtils.join(new Object[]{r.getName(), r.getLocation(), r.getUri(), r.getExtension()}, SEPARATOR))
+                .collect(Collectors.toList()));
+        FileUtils.writeLines(new File(scanFolder, FIXED_ERRORS_FILE), StandardCharsets.UTF_8.name(), results.getFixedErrorIDs());
+        index.put(id, new ScanMetadata(id, results.getTestDate(), results.getTestDuration(), results.getWorkspace(),
+                results.getErrorsCount(), storedErrorsCount, results.getExecutionID()));
+        writeIndex();
+    }
+
+    /**
+     * Reads the results of a scan. The errors are read from the disk when consumed, they are not loaded in memory.
+     *
+     * @param id the ID of the scan
+     * @return the results, or null if the scan is not stored or if it can't be read
+     */
+    public ContentIntegrityResults read(String id) {
+        final ScanMetadata metadata = index.get(id);
+        if (metadata == null) return null;
+
+        final File scanFolder = getScanFolder(id);
+        try {
+            final List<String> executionLog = readLinesIfExists(new File(scanFolder, EXECUTION_LOG_FILE));
+            final ContentIntegrityResults results = new ContentIntegrityResults(metadata.getTestDate(), metadata.getTestDuration(),
+                    metadata.getWorkspace(), FileErrorSink.open(new File(scanFolder, ERRORS_FILE), metadata.getStoredErrorsCount()), executionLog)
+                    .setExecutionID(metadata.getExecutionID());
+            for (String line : readLinesIfExists(new File(scanFolder, REPORTS_FILE))) {
+                final String[] report = StringUtils.splitPreserveAllTokens(line, SEPARATOR);
+                if (report.length != 4) continue;
+                results.restoreReport(new ContentIntegrityReport(report[0], ContentIntegrityReport.LOCATION.valueOf(report[1]), report[2], report[3]));
+            }
+            results.restoreFixedErrors(readLinesIfExists(new File(scanFolder, FIXED_ERRORS_FILE)));
+            return results;
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error(String.format("Impossible to read the stored scan %s", id), e);
+            return null;
+        }
+    }
+
+    public synchronized void remove(String id) {
+        if (index.remove(id) == null) return;
+        FileUtils.deleteQuietly(getScanFolder(id));
+        try {
+            writeIndex();
+            if (lastCompleteScans.values().removeIf(s -> StringUtils.equals(s.getScanID(), id))) writeLastCompleteScans();
+        } catch (IOException e) {
+            logger.error("Impossible to write the index of the stored scans", e);
+        }
+    }
+
+    /**
+     * Tracks the last complete scan of a tree with a set of checks
+     *
+     * @param key       identifies the scanned tree and the executed checks
+     * @param scanID    the ID of the results of the scan
+     * @param watermark the date from which the nodes have to be scanned again by the next incremental scan
+     */
+    public synchronized void setLastCompleteScan(String key, String scanID, long watermark) throws IOException {
+        lastCompleteScans.put(key, new LastCompleteScan(key, scanID, watermark));
+        writeLastCompleteScans();
+    }
+
+    /**
+     * @param key identifies the scanned tree and the executed checks
+     * @return the last complete scan, or null if none is tracked. Its results might not be available anymore
+     */
+    public LastCompleteScan getLastCompleteScan(String key) {
+        return lastCompleteScans.get(key);
+    }
+
+    /**
+     * Removes the scans executed before the specified date
+     *
+     * @return the number of removed scans
+     */
+    public synchronized int purge(long oldestTestDate) {
+        final List<String> expired = index.values().stream()
+                .filter(m -> m.getTestDate() < oldestTestDate)
+                .map(ScanMetadata::getId)
+                .collect(Collectors.toList());
+        expired.forEach(this::remove);
+        return expired.size();
+    }
+
+    public boolean contains(String id) {
+        return index.containsKey(id);
+    }
+
+    /**
+     * @return the metadata of the stored scans, sorted by test date
+     */
+    public List<ScanMetadata> getScans() {
+        return index.values().stream()
+                .sorted(Comparator.comparingLong(ScanMetadata::getTestDate))
+                .collect(Collectors.toList());
+    }
+
+    public Optional<ScanMetadata> getLatestScan() {
+        return index.values().stream().max(Comparator.comparingLong(ScanMetadata::getTestDate));
+    }
+
+    private File getScanFolder(String id) {
+        return new File(folder, id);
+    }
+
+    private void writeIndex() throws IOException {
+        final File tmpFile = new File(folder, INDEX_FILE + TMP_EXTENSION);
+        FileUtils.writeLines(tmpFile, StandardCharsets.UTF_8.name(), getScans().stream()
+                .map(ScanMetadata::format)
+                .collect(Collectors.toList()));
+        Files.move(tmpFile.toPath(), new File(folder, INDEX_FILE).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void writeLastCompleteScans() throws IOException {
+        final File tmpFile = new File(folder, LAST_COMPLETE_SCANS_FILE + TMP_EXTENSION);
+        FileUtils.writeLines(tmpFile, StandardCharsets.UTF_8.name(), lastCompleteScans.values().stream()
+                .map(LastCompleteScan::format)
+                .collect(Collectors.toList()));
+        Files.move(tmpFile.toPath(), new File(folder, LAST_COMPLETE_SCANS_FILE).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static List<String> readLinesIfExists(File file) throws IOException {
+        return file.exists() ? FileUtils.readLines(file, StandardCharsets.UTF_8) : new ArrayList<>();
+    }
+
+    public static class ScanMetadata {
+        private final String id;
+        private final long testDate;
+        private final long testDuration;
+        private final String workspace;
+        private final long errorsCount;
+        // Lower than errorsCount when the sink used during the scan was not keeping all the errors
+        private final long storedErrorsCount;
+        private final String executionID;
+
+        public ScanMetadata(String id, long testDate, long testDuration, String workspace, long errorsCount, long storedErrorsCount, String executionID) {
+            this.id = id;
+            this.testDate = testDate;
+            this.testDuration = testDuration;
+            this.workspace = workspace;
+            this.errorsCount = errorsCount;
+            this.storedErrorsCount = storedErrorsCount;
+            this.executionID = executionID;
+        }
+
+        private String format() {
+            return StringUtils.join(new Object[]{id, testDate, testDuration, workspace, errorsCount, storedErrorsCount, StringUtils.defaultString(executionID)}, SEPARATOR);
+        }
+
+        private static ScanMetadata parse(String line) {
+            final String[] fields = StringUtils.splitPreserveAllTokens(line, SEPARATOR);
+            if (fields.length != 7) return null;
+            for (int i : new int[]{1, 2, 4, 5}) {
+                if (!NumberUtils.isDigits(fields[i])) return null;
+            }
+            return new ScanMetadata(fields[0], Long.parseLong(fields[1]), Long.parseLong(fields[2]), fields[3],
+                    Long.parseLong(fields[4]), Long.parseLong(fields[5]), StringUtils.defaultIfEmpty(fields[6], null));
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public long getTestDate() {
+            return testDate;
+        }
+
+        public long getTestDuration() {
+            return testDuration;
+        }
+
+        public String getWorkspace() {
+            return workspace;
+        }
+
+        public long getErrorsCount() {
+            return errorsCount;
+        }
+
+        public long getStoredErrorsCount() {
+            return storedErrorsCount;
+        }
+
+        public String getExecutionID() {
+            return executionID;
+        }
+    }
+
+    public static class LastCompleteScan {
+        private final String key;
+        private final String scanID;
+        private final long watermark;
+
+        public LastCompleteScan(String key, String scanID, long watermark) {
+            this.key = key;
+            this.scanID = scanID;
+            this.watermark = watermark;
+        }
+
+        private String format() {
+            return StringUtils.join(new Object[]{key, scanID, watermark}, SEPARATOR);
+        }
+
+        /*
+        The key is built from the scanned path and the excluded paths, so it is parsed from the end of the line
+         */
+        private static LastCompleteScan parse(String line) {
+            final String watermark = StringUtils.substringAfterLast(line, SEPARATOR);
+            final String keyAndScanID = StringUtils.substringBeforeLast(line, SEPARATOR);
+            if (!NumberUtils.isDigits(watermark) || !StringUtils.contains(keyAndScanID, SEPARATOR)) return null;
+            return new LastCompleteScan(StringUtils.substringBeforeLast(keyAndScanID, SEPARATOR),
+                    StringUtils.substringAfterLast(keyAndScanID, SEPARATOR), Long.parseLong(watermark));
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getScanID() {
+            return scanID;
+        }
+
+        public long getWatermark() {
+            return watermark;
+        }
+    }
+}
@@ -1,26 +1,55 @@
 package org.jahia.modules.contentintegrity.services;
 
 import net.sf.ehcache.Cache;
+import net.sf.ehcache.Ehcache;
 import net.sf.ehcache.Element;
+import net.sf.ehcache.event.CacheEventListenerAdapter;
 import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.time.FastDateFormat;
 import org.jahia.bin.Jahia;
 import org.jahia.bin.filters.jcr.JcrSessionFilter;
 import org.jahia.exceptions.JahiaException;
 import org.jahia.exceptions.JahiaInitializationException;
+import org.jahia.modules.contentintegrity.api.AncestorContext;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityCheck;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityError;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorList;
+import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorSink;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityService;
 import org.jahia.modules.contentintegrity.api.ExternalLogger;
+import org.jahia.modules.contentintegrity.api.NodeSnapshot;
+import org.jahia.modules.contentintegrity.api.PairedNode;
+import org.jahia.modules.contentintegrity.api.ScanContext;
+import org.jahia.modules.contentintegrity.api.ScanLoadProbe;
+import org.jahia.modules.contentintegrity.api.ScanOptions;
+import org.jahia.modules.contentintegrity.api.SessionRefreshPolicy;
+import org.jahia.modules.contentintegrity.config.ContentIntegrityConfig;
 import org.jahia.modules.contentintegrity.services.exceptions.ConcurrentExecutionException;
 import org.jahia.modules.contentintegrity.services.exceptions.InterruptedScanException;
+import org.jahia.modules.contentintegrity.services.impl.BundleTableReader;
 import org.jahia.modules.contentintegrity.services.impl.JCRUtils;
+import org.jahia.modules.contentintegrity.services.sinks.ErrorSinks;
+import org.jahia.modules.contentintegrity.services.sinks.FileErrorSink;
+import org.jahia.modules.contentintegrity.services.sinks.InMemoryErrorSink;
+import org.jahia.modules.contentintegrity.services.util.CheckExecutionStats;
+import org.jahia.modules.contentintegrity.services.util.ChildrenPrefetcher;
+import org.jahia.modules.contentintegrity.services.util.ChecksDispatchTable;
+import org.jahia.modules.contentintegrity.services.util.IdentifierIndex;
+import org.jahia.modules.contentintegrity.services.util.PathTrie;
 import org.jahia.modules.contentintegrity.services.util.ProgressMonitor;
+import org.jahia.modules.contentintegrity.services.util.ScanCursor;
+import org.jahia.modules.contentintegrity.services.util.ScanSessions;
+import org.jahia.modules.contentintegrity.services.util.ScanThrottle;
+import org.jahia.modules.contentintegrity.services.util.SessionRefreshTracker;
 import org.jahia.services.SpringContextSingleton;
 import org.jahia.services.cache.ehcache.EhCacheProvider;
+import org.jahia.services.content.JCRContentUtils;
 import org.jahia.services.content.JCRNodeWrapper;
 import org.jahia.services.content.JCRSessionWrapper;
+import org.jahia.services.query.QueryWrapper;
+import org.jahia.settings.SettingsBean;
 import org.jahia.utils.DateUtils;
 import org.osgi.framework.Constants;
 import org.osgi.service.component.annotations.Activate;
@@ -29,24 +58,47 @@ import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
+import org.osgi.service.component.annotations.ReferencePolicyOption;
 import org.slf4j.Logger;
 
+import javax.jcr.ItemNotFoundException;
 import javax.jcr.RepositoryException;
+import javax.jcr.query.Query;
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
-import java.util.TreeMap;
-import java.util.concurrent.Semaphore;
-import java.util.function.BinaryOperator;
-import java.util.function.Function;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import static org.jahia.modules.contentintegrity.services.impl.Constants.EDIT_WORKSPACE;
 import static org.jahia.modules.contentintegrity.services.impl.Constants.JCR_PATH_SEPARATOR;
+import static org.jahia.modules.contentintegrity.services.impl.Constants.LIVE_WORKSPACE;
 import static org.jahia.modules.contentintegrity.services.impl.Constants.ROOT_NODE_PATH;
 import static org.jahia.modules.contentintegrity.services.impl.Constants.TAB_LVL_1;
 import static org.jahia.modules.contentintegrity.services.impl.Constants.TAB_LVL_2;
@@ -60,19 +112,55 @@ public class ContentIntegrityServiceImpl implements ContentIntegrityService {
     private static final Logger logger = org.slf4j.LoggerFactory.getLogger(ContentIntegrityServiceImpl.class);
 
     private static final long NODES_COUNT_LOG_INTERVAL = 10000L;
-    private static final long SESSION_REFRESH_INTERVAL = 10000L;
     private static final String INTERRUPT_PROP_NAME = "modules.contentIntegrity.interrupt";
+    private static final int PARALLEL_SCAN_SPLIT_DEPTH = 2;
+    private static final String PARALLEL_SCAN_THREAD_NAME_PREFIX = "content-integrity-scan-";
+    private static final String PREFETCH_THREAD_NAME_PREFIX = "content-integrity-prefetch-";
+    private static final int NODES_COUNT_ESTIMATION_PROBES = 100;
+    private static final String ISO8601_DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSSZZ";
+    private static final String JCR_SYSTEM_PATH = "/jcr:system";
+    private static final int STORAGE_ORDER_BATCH_SIZE = 1000;
+    private static final int QUERY_SCAN_PAGE_SIZE = 1000;
+    private static final String CHECKPOINTS_FOLDER = "content-integrity/checkpoints";
+    private static final long CHECKPOINT_INTERVAL_MS = 5L * 60L * 1000L;
+    // Beyond this number of modified nodes, a full scan is run instead of an incremental one
+    private static final int INCREMENTAL_SCAN_MAX_NODES = 100000;
 
     private final List<ContentIntegrityCheck> integrityChecks = new ArrayList<>();
     private Cache errorsCache;
     private EhCacheProvider ehCacheProvider;
     private final String errorsCacheName = "ContentIntegrityService-errors";
     private final long errorsCacheTti = 5L * 7L * 24L * 3600L; // 5 weeks;
-    private long nbNodesToScanCalculationDuration = 0L;
-    private long ownTime = 0L;
-    private long ownTimeIntervalStart = 0L;
-    private long nbNodesToScan = 0;
-    private final Semaphore semaphore = new Semaphore(1);
+    private static final String RESULTS_STORE_FOLDER = "content-integrity/results";
+    private ContentIntegrityResultsStore resultsStore;
+    private final Map<String, Long> scannedNodesCountHistory = new ConcurrentHashMap<>();
+    // Running scans, by execution ID
+    private final Map<String, Scan> runningScans = new LinkedHashMap<>();
+    private volatile ContentIntegrityConfig config;
+    private final List<ScanLoadProbe> loadProbes = new CopyOnWriteArrayList<>();
+    // The default policy is used if null
+    private volatile SessionRefreshPolicy sessionRefreshPolicy;
+    /*
+    Releases the resources held by the error sinks of the results which are dropped from the cache.
+    Not done on explicit removals, since the sinks are then reused, for example when merging some results
+     */
+    private final CacheEventListenerAdapter errorSinksDisposer = new CacheEventListenerAdapter() {
+        @Override
+        public void notifyElementExpired(Ehcache cache, Element element) {
+            disposeErrorSink(element);
+        }
+
+        @Override
+        public void notifyElementEvicted(Ehcache cache, Element element) {
+            disposeErrorSink(element);
+        }
+
+        private void disposeErrorSink(Element element) {
+            final Object value = element.getObjectValue();
+            if (value instanceof ContentIntegrityResults)
+                ((ContentIntegrityResults) value).getErrorSink().dispose();
+        }
+    };
 
     @Activate
     public void start() throws JahiaInitializationException {
@@ -85,6 +173,18 @@ public class ContentIntegrityServiceImpl implements ContentIntegrityService {
                 errorsCache = ehCacheProvider.getCacheManager().getCache(errorsCacheName);
                 errorsCache.getCacheConfiguration().setTimeToIdleSeconds(errorsCacheTti);
             }
+            errorsCache.getCacheEventNotificationService().registerListener(errorSinksDisposer);
+        }
+        FileErrorSink.cleanSpillFolder();
+        if (resultsStore == null) {
+            resultsStore = new ContentIntegrityResultsStore(new File(SettingsBean.getInstance().getJahiaVarDiskPath(), RESULTS_STORE_FOLDER));
+            try {
+                resultsStore.load();
+                final int purgedScans = resultsStore.purge(System.currentTimeMillis() - errorsCacheTti * 1000L);
+                if (purgedScans > 0) logger.info("Removed {} stored scans older than {}", purgedScans, DateUtils.formatDurationWords(errorsCacheTti * 1000L));
+            } catch (IOException e) {
+                logger.error("Impossible to load the stored scans", e);
+            }
         }
 
         logger.info("Content integrity service started ({})", Utils.getContentIntegrityVersion());
@@ -92,7 +192,10 @@ public class ContentIntegrityServiceImpl implements ContentIntegrityService {
 
     @Deactivate
     public void stop() throws JahiaException {
-        if (errorsCache != null) errorsCache.flush();
+        if (errorsCache != null) {
+            errorsCache.flush();
+            errorsCache.getCacheEventNotificationService().unregisterListener(errorSinksDisposer);
+        }
 
         logger.info("Content integrity service stopped ({})", Utils.getContentIntegrityVersion());
     }
@@ -126,6 +229,36 @@ public class ContentIntegrityServiceImpl implements ContentIntegrityService {
             logger.error(String.format("Failed to unregister %s in the contentIntegrity service, number of checks: %s", integrityCheck, integrityChecks.size()));
     }
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC, unbind = "unsetConfig")
+    public void setConfig(ContentIntegrityConfig config) {
+        this.config = config;
+    }
+
+    public void unsetConfig(ContentIntegrityConfig config) {
+        if (this.config == config) this.config = null;
+    }
+
+    @Reference(service = ScanLoadProbe.class, cardinality = ReferenceCardinality.MULTIPLE, policy = ReferencePolicy.DYNAMIC, unbind = "unregisterLoadProbe")
+    public void registerLoadProbe(ScanLoadProbe loadProbe) {
+        loadProbes.add(loadProbe);
+        logger.info(String.format("Registered the load probe %s in the contentIntegrity service", loadProbe.getName()));
+    }
+
+    public void unregisterLoadProbe(ScanLoadProbe loadProbe) {
+        if (loadProbes.remove(loadProbe))
+            logger.info(String.format("Unregistered the load probe %s in the contentIntegrity service", loadProbe.getName()));
+    }
+
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC, policyOption = ReferencePolicyOption.GREEDY, unbind = "unsetSessionRefreshPolicy")
+    public void setSessionRefreshPolicy(SessionRefreshPolicy sessionRefreshPolicy) {
+        this.sessionRefreshPolicy = sessionRefreshPolicy;
+        logger.info(String.format("Using the session refresh policy %s", sessionRefreshPolicy.getClass().getName()));
+    }
+
+    public void unsetSessionRefreshPolicy(SessionRefreshPolicy sessionRefreshPolicy) {
+        if (this.sessionRefreshPolicy == sessionRefreshPolicy) this.sessionRefreshPolicy = null;
+    }
+
     private synchronized String generateCheckID(ContentIntegrityCheck integrityCheck) {
         return integrityCheck.getClass().getSimpleName();
     }
@@ -137,15 +270,91 @@ public class ContentIntegrityServiceImpl implements ContentIntegrityService {
 
     @Override
     public ContentIntegrityResults validateIntegrity(String path, List<String> excludedPaths, boolean skipMountPoints, String workspace, List<String> checksToExecute, ExternalLogger externalLogger) throws ConcurrentExecutionException {
-        return validateIntegrity(path, excludedPaths, skipMountPoints, workspace, checksToExecute, externalLogger, false);
+        return validateIntegrity(path, workspace, new ScanOptions()
+                .setExcludedPaths(excludedPaths)
+                .setSkipMountPoints(skipMountPoints)
+                .setChecksToExecute(checksToExecute)
+                .setExternalLogger(externalLogger));
+    }
+
+    @Override
+    public ContentIntegrityResults validateIntegrity(String path, String workspace, ScanOptions options) throws ConcurrentExecutionException {
+        return validateIntegrity(path, workspace, Optional.ofNullable(options).orElseGet(ScanOptions::new), false, null);
+    }
+
+    @Override
+    public ContentIntegrityResults resumeScan(String scanID, ScanOptions options) throws ConcurrentExecutionException {
+        final ScanOptions resumeOptions = Optional.ofNullable(options).orElseGet(ScanOptions::new);
+        final ExternalLogger externalLogger = resumeOptions.getExternalLogger();
+        final ContentIntegrityErrorSink errorSink = resumeOptions.getErrorSink();
+        final ScanCheckpoint checkpoint;
+        try {
+            checkpoint = ScanCheckpoint.load(getCheckpointsFolder(), scanID);
+        } catch (IOException e) {
+            Utils.log(String.format("Impossible to load the checkpoint of the scan %s", scanID), Utils.LOG_LEVEL.ERROR, logger, e, externalLogger);
+            if (errorSink != null) errorSink.dispose();
+            return null;
+        }
+        if (checkpoint == null) {
+            Utils.log(String.format("No checkpoint found for the scan %s", scanID), Utils.LOG_LEVEL.WARN, logger, externalLogger);
+            if (errorSink != null) errorSink.dispose();
+            return null;
+        }
+        try {
+            final ScanOptions scanOptions = new ScanOptions()
+                    .setExcludedPaths(checkpoint.getExcludedPaths())
+                    .setSkipMountPoints(checkpoint.isSkipMountPoints())
+                    .setChecksToExecute(checkpoint.getChecks())
+                    .setExternalLogger(externalLogger)
+                    .setErrorSink(errorSink)
+                    .setExecutionID(resumeOptions.getExecutionID())
+                    .setMaxNodesPerSecond(resumeOptions.getMaxNodesPerSecond());
+            return validateIntegrity(checkpoint.getPath(), checkpoint.getWorkspace(), scanOptions, false, checkpoint);
+        } finally {
+            checkpoint.close();
+        }
+    }
+
+    @Override
+    public List<String> getResumableScans() {
+        return ScanCheckpoint.list(getCheckpointsFolder());
     }
 
-    private ContentIntegrityResults validateIntegrity(String path, List<String> excludedPaths, boolean skipMountPoints, String workspace, List<String> checksToExecute, ExternalLogger externalLogger, boolean fixErrors) throws ConcurrentExecutionException {
-        if (!semaphore.tryAcquire()) {
-            throw new ConcurrentExecutionException();
+    private File getCheckpointsFolder() {
+        return new File(SettingsBean.getInstance().getJahiaVarDiskPath(), CHECKPOINTS_FOLDER);
+    }
+
+    /**
+     * @param resumedCheckpoint the checkpoint of the interrupted scan to resume, null when starting a new scan
+     */
+    private ContentIntegrityResults validateIntegrity(String path, String workspace, ScanOptions options, boolean fixErrors, ScanCheckpoint resumedCheckpoint) throws ConcurrentExecutionException {
+        final List<String> excludedPaths = options.getExcludedPaths();
+        final boolean skipMountPoints = options.isSkipMountPoints();
+        final ExternalLogger externalLogger = options.getExternalLogger();
+        final boolean estimateNodesCount = options.isEstimateNodesCount();
+        final ContentIntegrityErrorSink errorSink = options.getErrorSink();
+        final int maxNodesPerSecond = options.getMaxNodesPerSecond();
+        final Scan scan;
+        try {
+            scan = registerScan(options.getExecutionID(), workspace, resumedCheckpoint);
+        } catch (ConcurrentExecutionException e) {
+            // The scan doesn't start, so the sink provided for it is released the same way as when it doesn't complete
+            if (errorSink != null) errorSink.dispose();
+            throw e;
+        }
+        if (maxNodesPerSecond > 0) {
+            scan.throttle = new ScanThrottle(maxNodesPerSecond, loadProbes, logger, externalLogger);
+            scan.progressMonitor.setStatusSupplier(scan.throttle::getStatus);
         }
 
+        boolean resultsStored = false;
         try {
+            scan.context.bind();
+            if (resumedCheckpoint != null) {
+                // Results stored when the scan has been stopped, replaced by the ones of the resumed scan
+                final ContentIntegrityResults partialResults = getTestResults(resumedCheckpoint.getScanID());
+                if (partialResults != null) removeErrorsFromCache(partialResults);
+            }
             JcrSessionFilter.endRequest();
             final JCRSessionWrapper session = JCRUtils.getSystemSession(workspace);
             if (session == null) return null;
@@ -159,24 +368,57 @@ public class ContentIntegrityServiceImpl implements ContentIntegrityService {
                 final String excludedPathsDesc = CollectionUtils.isNotEmpty(excludedPaths) ?
                         excludedPaths.stream().collect(Collectors.joining(" , ", " (excluded paths: ", " )")) : StringUtils.EMPTY;
                 Utils.log(String.format("Starting to check the integrity under %s in the workspace %s%s with %s", path, workspace, excludedPathsDesc, Utils.getContentIntegrityVersion()), logger, externalLogger);
-                final List<ContentIntegrityError> errors = new ArrayList<>();
-                final long start = System.currentTimeMillis();
-                resetCounters();
-                final Set<String> trimmedExcludedPaths = new HashSet<>();
+                if (scan.throttle != null)
+                    Utils.log(String.format("The scan is limited to %d nodes/s, and slows down when the server is under pressure", maxNodesPerSecond), logger, externalLogger);
+                final ContentIntegrityErrorSink errors = Optional.ofNullable(errorSink).orElseGet(InMemoryErrorSink::new);
+                scan.executionStart = System.currentTimeMillis();
+                final long start = resumedCheckpoint == null ? scan.executionStart : resumedCheckpoint.getTestDate();
+                final Set<String> excludedPathsSet = new HashSet<>();
                 if (CollectionUtils.isNotEmpty(excludedPaths)) {
                     for (String excludedPath : excludedPaths) {
-                        trimmedExcludedPaths.add((ROOT_NODE_PATH.equals(excludedPath) || !excludedPath.endsWith(JCR_PATH_SEPARATOR)) ? excludedPath : excludedPath.substring(0, excludedPath.length() - 1));
+                        excludedPathsSet.add((ROOT_NODE_PATH.equals(excludedPath) || !excludedPath.endsWith(JCR_PATH_SEPARATOR)) ? excludedPath : excludedPath.substring(0, excludedPath.length() - 1));
                     }
                 }
-                calculateNbNodesToScan(node, trimmedExcludedPaths, skipMountPoints, externalLogger);
-                if (nbNodesToScan < 1) {
+                final PathTrie trimmedExcludedPaths = new PathTrie(excludedPathsSet);
+                final String nodesCountKey = getNodesCountKey(path, workspace, trimmedExcludedPaths, skipMountPoints);
+                final List<ContentIntegrityCheck> checks = getActiveChecks(options.getChecksToExecute());
+                final String lastCompleteScanKey = getLastCompleteScanKey(nodesCountKey, checks);
+                final ContentIntegrityResultsStore.LastCompleteScan lastCompleteScan = options.isIncremental() ? resultsStore.getLastCompleteScan(lastCompleteScanKey) : null;
+                final ContentIntegrityResults previousScan = options.isIncremental() ? getPreviousScan(lastCompleteScan, externalLogger) : null;
+                final List<String> modifiedNodes = resumedCheckpoint == null && previousScan != null ?
+                        getNodesModifiedSince(node, lastCompleteScan.getWatermark(), trimmedExcludedPaths, externalLogger) : null;
+                BundleTableReader bundleTableReader = null;
+                Map<ContentIntegrityCheck, List<String>> candidateNodesQueries = null;
+                if (resumedCheckpoint != null) {
+                    scan.nbNodesToScan = Math.max(1L, resumedCheckpoint.getNbNodesToScan() - resumedCheckpoint.getScannedNodesCount());
+                } else if (modifiedNodes != null) {
+                    Utils.log(String.format("Incremental scan: %d nodes created, modified or published since %s", modifiedNodes.size(), FastDateFormat.getInstance(ISO8601_DATE_FORMAT).format(lastCompleteScan.getWatermark())), logger, externalLogger);
+                    scan.nbNodesToScan = Math.max(1L, modifiedNodes.size());
+                } else {
+                    if (options.isStorageOrder()) bundleTableReader = prepareStorageOrderScan(scan, workspace, checks, externalLogger);
+                    else if (options.isQueryScan()) candidateNodesQueries = prepareQueryScan(scan, node, checks, externalLogger);
+                    if (bundleTableReader != null) {
+                        Utils.log(String.format("Storage order scan: %d nodes stored in the workspace", scan.nbNodesToScan), logger, externalLogger);
+                    } else if (candidateNodesQueries != null) {
+                        Utils.log(String.format("Query scan: about %d candidate nodes returned by the queries built from the conditions of the checks", scan.nbNodesToScan), logger, externalLogger);
+                        Utils.log("The query scan trusts the search index of the workspace: the nodes missing from the index, and the external nodes, are not scanned",
+                                Utils.LOG_LEVEL.WARN, logger, externalLogger);
+                    } else if (estimateNodesCount) {
+                        estimateNbNodesToScan(scan, node, trimmedExcludedPaths, skipMountPoints, nodesCountKey, externalLogger);
+                    } else {
+                        calculateNbNodesToScan(scan, node, trimmedExcludedPaths, skipMountPoints, externalLogger);
+                    }
+                }
+                if (scan.nbNodesToScan < 1) {
                     Utils.log("Interrupting the scan", Utils.LOG_LEVEL.WARN, logger, externalLogger);
                     return null;
                 }
-                ProgressMonitor.getInstance().init(nbNodesToScan, "Scan progress", logger, externalLogger);
+                scan.progressMonitor.init(scan.nbNodesToScan, (estimateNodesCount || bundleTableReader != null || resumedCheckpoint != null || candidateNodesQueries != null) && modifiedNodes == null, "Scan progress", logger, externalLogger);
                 final List<ContentIntegrityCheck> activeChecks = new ArrayList<>();
-                for (ContentIntegrityCheck integrityCheck : getActiveChecks(checksToExecute)) {
-                    if (integrityCheck.areConditionsReachable(node, trimmedExcludedPaths)) {
+                for (ContentIntegrityCheck integrityCheck : checks) {
+                    if (modifiedNodes != null && integrityCheck instanceof ContentIntegrityCheck.RequiresFullScan) {
+                        Utils.log(String.format("Skipping %s as it can't be executed during an incremental scan", integrityCheck.getName()), logger, externalLogger);
+                    } else if (integrityCheck.areConditionsReachable(node, trimmedExcludedPaths)) {
                         integrityCheck.initializeIntegrityTest(node, trimmedExcludedPaths);
                         activeChecks.add(integrityCheck);
                     } else {
@@ -187,28 +429,85 @@ public class ContentIntegrityServiceImpl implements ContentIntegrityService {
                     Utils.log("No integrity check to run", Utils.LOG_LEVEL.WARN, logger, externalLogger);
                     return null;
                 }
-                validateIntegrity(node, trimmedExcludedPaths, skipMountPoints, activeChecks, errors, externalLogger, fixErrors);
-                if (System.getProperty(INTERRUPT_PROP_NAME) != null) {
+                final Map<ContentIntegrityCheck, CheckExecutionStats> scanChecksStats = new IdentityHashMap<>();
+                for (ContentIntegrityCheck integrityCheck : activeChecks) {
+                    scanChecksStats.put(integrityCheck, new CheckExecutionStats(integrityCheck.getId(), integrityCheck.getName()));
+                }
+                scan.checksStats = scanChecksStats;
+                // During a query scan, each check is executed alone on the nodes returned by its queries
+                if (candidateNodesQueries == null) scan.checksDispatchTable = new ChecksDispatchTable(activeChecks);
+                scan.pairedWorkspace = getPairedWorkspace(workspace, activeChecks, externalLogger);
+                final boolean treeTraversal = modifiedNodes == null && bundleTableReader == null && candidateNodesQueries == null;
+                final int effectiveParallelism = treeTraversal ? getEffectiveParallelism(options.getParallelism(), activeChecks, externalLogger) : 1;
+                if (resumedCheckpoint != null) {
+                    resumeFromCheckpoint(scan, resumedCheckpoint, activeChecks, errors, externalLogger);
+                } else if (treeTraversal && effectiveParallelism == 1) {
+                    initCheckpoint(scan, path, trimmedExcludedPaths, skipMountPoints, workspace, checks, start, externalLogger);
+                }
+                final ContentIntegrityErrorSink scanErrors = scan.checkpoint == null ? errors : scan.checkpoint.track(errors);
+                if (modifiedNodes != null) {
+                    final Set<String> scannedNodes = validateNodes(scan, session, modifiedNodes, activeChecks, errors, externalLogger, fixErrors);
+                    carryOverOpenErrors(previousScan, scannedNodes, activeChecks, session, errors, externalLogger);
+                } else if (candidateNodesQueries != null) {
+                    validateCandidateNodes(scan, node, candidateNodesQueries, trimmedExcludedPaths, activeChecks, errors, externalLogger, fixErrors);
+                } else if (bundleTableReader != null) {
+                    validateIntegrityInStorageOrder(scan, session, bundleTableReader, path, trimmedExcludedPaths, activeChecks, errors, externalLogger, fixErrors);
+                } else if (effectiveParallelism > 1) {
+                    validateIntegrityInParallel(scan, node, workspace, trimmedExcludedPaths, skipMountPoints, activeChecks, errors, externalLogger, fixErrors, effectiveParallelism);
+                } else {
+                    scan.prefetcher = startPrefetcher(scan, workspace, trimmedExcludedPaths, skipMountPoints);
+                    try {
+                        validateIntegrity(scan, node, getCounterpart(scan, path), resumedCheckpoint == null ? null : resumedCheckpoint.getCursor(), trimmedExcludedPaths, skipMountPoints, activeChecks, scanErrors, externalLogger, fixErrors);
+                    } finally {
+                        if (scan.prefetcher != null) scan.prefetcher.stop();
+                    }
+                }
+                final boolean interrupted = isInterrupted(scan);
+                if (interrupted) {
                     Utils.log("Scan interrupted before the end", Utils.LOG_LEVEL.WARN, logger, externalLogger);
+                } else if (treeTraversal && resumedCheckpoint == null) {
+                    scannedNodesCountHistory.put(nodesCountKey, scan.progressMonitor.getCounter());
                 }
                 for (ContentIntegrityCheck integrityCheck : activeChecks) {
                     final ContentIntegrityErrorList lastErrors = integrityCheck.finalizeIntegrityTest(node, trimmedExcludedPaths);
                     handleResult(lastErrors, null, false, integrityCheck, errors, externalLogger);
                 }
-                final long testDuration = System.currentTimeMillis() - start;
+                errors.close();
+                final long testDuration = scan.checkpointedDuration + System.currentTimeMillis() - scan.executionStart;
                 final List<String> summary = new ArrayList<>();
                 final ExternalLogger summaryLogger = summary::add;
-                final String msg = String.format("Integrity checked under %s in the workspace %s in %s, %d nodes scanned, %d errors found", path, workspace, DateUtils.formatDurationWords(testDuration), ProgressMonitor.getInstance().getCounter(), errors.size());
+                final String msg = String.format("Integrity checked under %s in the workspace %s in %s, %d nodes scanned, %d errors found", path, workspace, DateUtils.formatDurationWords(testDuration), scan.checkpointedNodesCount + scan.progressMonitor.getCounter(), errors.getErrorsCount());
                 Utils.log(msg, logger, externalLogger, summaryLogger);
                 final List<ExternalLogger> externalLoggers = new ArrayList<>();
                 externalLoggers.add(summaryLogger);
                 if (externalLogger.includeSummary()) externalLoggers.add(externalLogger);
                 final ExternalLogger[] externalLoggersArray = externalLoggers.toArray(new ExternalLogger[0]);
-                printChecksDuration(testDuration, activeChecks, externalLoggersArray);
+                for (ContentIntegrityCheck integrityCheck : activeChecks) {
+                    integrityCheck.trackOwnTime(TimeUnit.NANOSECONDS.toMillis(scanChecksStats.get(integrityCheck).getTotalTime()));
+                }
+                printChecksDuration(scan, testDuration, activeChecks, externalLoggersArray);
+                Utils.log(String.format("Sessions refreshed %d times, releasing about %s of loaded items", scan.sessionRefreshTracker.getRefreshCount(),
+                        FileUtils.byteCountToDisplaySize(scan.sessionRefreshTracker.getReleasedBytes())), logger, externalLoggersArray);
+                if (scan.prunedSubtrees.sum() > 0L)
+                    Utils.log(String.format("%d subtrees pruned, since none of the checks can be executed in them", scan.prunedSubtrees.sum()), logger, externalLoggersArray);
+                Utils.log(String.format("Sessions: %d opened, %d lookups, hit rate %.0f%%", scan.sessions.getOpenedSessionsCount(),
+                        scan.sessions.getLookupsCount(), 100D * scan.sessions.getHitRate()), logger, externalLoggersArray);
+                for (IdentifierIndex identifierIndex : scan.context.getIdentifierIndexes().getLoadedIndexes()) {
+                    Utils.log(String.format("Identifiers of the workspace %s indexed: %d nodes, about %s", identifierIndex.getWorkspace(),
+                            identifierIndex.getSize(), FileUtils.byteCountToDisplaySize(identifierIndex.getMemoryFootprint())), logger, externalLoggersArray);
+                }
                 Utils.validateImportCompatibility(errors, logger, externalLoggersArray);
                 Utils.detectLegacyErrorTypes(errors, logger, externalLoggersArray);
                 final ContentIntegrityResults results = new ContentIntegrityResults(start, testDuration, workspace, errors, summary);
+                results.setChecksStats(activeChecks.stream().map(scanChecksStats::get).collect(Collectors.toList()));
                 storeErrorsInCache(results);
+                resultsStored = true;
+                if (!interrupted) {
+                    trackLastCompleteScan(lastCompleteScanKey, results, externalLogger);
+                    if (scan.checkpoint != null) scan.checkpoint.delete();
+                } else if (scan.checkpoint != null) {
+                    Utils.log(String.format("The scan can be resumed with the ID %s", scan.checkpoint.getScanID()), logger, externalLogger);
+                }
                 return results;
             } catch (RepositoryException e) {
                 Utils.log("", Utils.LOG_LEVEL.ERROR, logger, e, externalLogger);
@@ -216,165 +515,865 @@ public class ContentIntegrityServiceImpl implements ContentIntegrityService {
                 Utils.log("Scan interrupted before the end", Utils.LOG_LEVEL.WARN, logger, externalLogger);
             }
         } finally {
+            // No results refer to the sink if the scan has not completed, so the resources it holds can be released
+            if (!resultsStored && errorSink != null) errorSink.dispose();
+            // The checkpoint is kept on the disk if the scan has not completed, so that it can be resumed
+            if (scan.checkpoint != null) scan.checkpoint.close();
             JcrSessionFilter.endRequest();
-            System.clearProperty(INTERRUPT_PROP_NAME);
-            semaphore.release();
+            scan.sessions.releaseSessions();
+            ScanContext.unbind();
+            unregisterScan(scan);
         }
         return null;
     }
 
-    private void resetCounters() {
-        for (ContentIntegrityCheck integrityCheck : integrityChecks) {
-            integrityCheck.resetOwnTime();
+    /**
+     * @throws ConcurrentExecutionException if the maximum number of scans running at the same time is reached, if a
+     *                                      scan with the same execution ID is running, or if the checkpoint is already being resumed
+     */
+    private Scan registerScan(String executionID, String workspace, ScanCheckpoint resumedCheckpoint) throws ConcurrentExecutionException {
+        final String id = StringUtils.isBlank(executionID) ? UUID.randomUUID().toString() : executionID;
+        final String resumedScanID = resumedCheckpoint == null ? null : resumedCheckpoint.getScanID();
+        synchronized (runningScans) {
+            if (runningScans.size() >= getMaxConcurrentScans() || runningScans.containsKey(id)
+                    || resumedScanID != null && runningScans.values().stream().anyMatch(s -> StringUtils.equals(s.resumedScanID, resumedScanID))) {
+                throw new ConcurrentExecutionException();
+            }
+            final Scan scan = new Scan(id, workspace, resumedScanID, sessionRefreshPolicy);
+            runningScans.put(id, scan);
+            return scan;
+        }
+    }
+
+    private void unregisterScan(Scan scan) {
+        synchronized (runningScans) {
+            runningScans.remove(scan.executionID);
+            // The interruption requested by setting the system property applies to all the scans running at that time
+            if (runningScans.isEmpty()) System.clearProperty(INTERRUPT_PROP_NAME);
         }
-        nbNodesToScanCalculationDuration = 0L;
-        ownTime = 0L;
-        ownTimeIntervalStart = 0L;
-        nbNodesToScan = 0L;
     }
 
-    private void beginComputingOwnTime() {
-        ownTimeIntervalStart = System.currentTimeMillis();
+    private int getMaxConcurrentScans() {
+        final ContentIntegrityConfig contentIntegrityConfig = config;
+        return contentIntegrityConfig == null ? 1 : contentIntegrityConfig.getMaxConcurrentScans();
+    }
+
+    private boolean isInterrupted(Scan scan) {
+        return scan.interrupted || System.getProperty(INTERRUPT_PROP_NAME) != null;
+    }
+
+    /**
+     * Waits until the next node can be scanned, if the scan is throttled. Not part of the own time of the scan
+     */
+    private void throttle(Scan scan) {
+        if (scan.throttle != null) scan.throttle.acquire();
+    }
+
+    private void trackRead(Scan scan, long readStart) {
+        if (scan.throttle != null) scan.throttle.trackRead(System.nanoTime() - readStart);
+    }
+
+    /**
+     * @return the prefetcher of the sequential traversal of the tree, or null if the prefetch is disabled
+     */
+    private ChildrenPrefetcher startPrefetcher(Scan scan, String workspace, PathTrie excludedPaths, boolean skipMountPoints) {
+        final ContentIntegrityConfig contentIntegrityConfig = config;
+        if (contentIntegrityConfig == null || contentIntegrityConfig.getPrefetchDepth() == 0) return null;
+        final ChildrenPrefetcher prefetcher = new ChildrenPrefetcher(workspace, contentIntegrityConfig.getPrefetchDepth(), contentIntegrityConfig.getPrefetchBufferSize(),
+                n -> JCR_SYSTEM_PATH.equals(n.getPath()) || isExcluded(n.getPath(), excludedPaths) || skipMountPoints && JCRUtils.isExternalNode(n),
+                scan.sessionRefreshTracker);
+        prefetcher.start(PREFETCH_THREAD_NAME_PREFIX + scan.executionID);
+        return prefetcher;
     }
 
-    private void endComputingOwnTime() {
-        if (ownTimeIntervalStart == 0L) {
-            logger.error("Invalid call to endComputingOwnTime()");
+    private void initCheckpoint(Scan scan, String path, PathTrie excludedPaths, boolean skipMountPoints, String workspace, List<ContentIntegrityCheck> checks, long testDate, ExternalLogger externalLogger) {
+        final String scanID = ContentIntegrityResults.getID(workspace, testDate);
+        try {
+            scan.checkpoint = ScanCheckpoint.create(getCheckpointsFolder(), scanID, path, excludedPaths, skipMountPoints, workspace,
+                    checks.stream().map(ContentIntegrityCheck::getId).collect(Collectors.toList()), testDate, scan.nbNodesToScan);
+        } catch (IOException e) {
+            Utils.log(String.format("Impossible to create the checkpoint of the scan %s, it won't be resumable", scanID), Utils.LOG_LEVEL.WARN, logger, e, externalLogger);
+        }
+    }
+
+    private void resumeFromCheckpoint(Scan scan, ScanCheckpoint checkpoint, List<ContentIntegrityCheck> activeChecks, ContentIntegrityErrorSink errors, ExternalLogger externalLogger) {
+        for (ContentIntegrityCheck integrityCheck : activeChecks) {
+            if (integrityCheck instanceof ContentIntegrityCheck.SupportsCheckpoint)
+                ((ContentIntegrityCheck.SupportsCheckpoint) integrityCheck).restoreCheckpointState(checkpoint.getCheckState(integrityCheck.getId()));
+        }
+        try (Stream<ContentIntegrityError> previousErrors = checkpoint.readErrors()) {
+            previousErrors.forEach(errors::addError);
+        }
+        scan.checkpointedNodesCount = checkpoint.getScannedNodesCount();
+        scan.checkpointedDuration = checkpoint.getDuration();
+        scan.checkpoint = checkpoint;
+        Utils.log(String.format("Resuming the scan %s after %s, %d nodes already scanned", checkpoint.getScanID(),
+                StringUtils.defaultString(checkpoint.getCursor(), "its start"), scan.checkpointedNodesCount), logger, externalLogger);
+    }
+
+    private void beginComputingOwnTime(Scan scan) {
+        scan.ownTimeIntervalStart.set(System.nanoTime());
+    }
+
+    private void endComputingOwnTime(Scan scan) {
+        final Long intervalStart = scan.ownTimeIntervalStart.get();
+        if (intervalStart == null) {
+            logger.error("Invalid call to endComputingOwnTime(scan)");
             return;
         }
-        ownTime += (System.currentTimeMillis() - ownTimeIntervalStart);
-        ownTimeIntervalStart = 0L;
+        scan.ownTime.addAndGet(System.nanoTime() - intervalStart);
+        scan.ownTimeIntervalStart.remove();
     }
 
-    private void printChecksDuration(long totalDuration, List<ContentIntegrityCheck> activeChecks, ExternalLogger... externalLoggers) {
-        final long totalChecksDuration = activeChecks.stream().map(ContentIntegrityCheck::getOwnTime).reduce(0L, Long::sum);
-        Utils.log(String.format("%sCalculation of the size of the tree: %s", TAB_LVL_1, getDurationOutput(nbNodesToScanCalculationDuration, totalDuration)), logger, externalLoggers);
-        Utils.log(String.format("%sScan of the tree: %s", TAB_LVL_1, getDurationOutput(ownTime, totalDuration)), logger, externalLoggers);
-        final List<ContentIntegrityCheck> sortedChecks = activeChecks.stream().sorted((o1, o2) -> (int) (o2.getOwnTime() - o1.getOwnTime())).collect(Collectors.toList());
-        final long durationRest = totalDuration - nbNodesToScanCalculationDuration - ownTime - totalChecksDuration;
+    private void printChecksDuration(Scan scan, long totalDuration, List<ContentIntegrityCheck> activeChecks, ExternalLogger... externalLoggers) {
+        final Map<ContentIntegrityCheck, Long> checksDuration = new IdentityHashMap<>();
+        for (ContentIntegrityCheck integrityCheck : activeChecks) {
+            checksDuration.put(integrityCheck, TimeUnit.NANOSECONDS.toMillis(scan.checksStats.get(integrityCheck).getTotalTime()));
+        }
+        final long totalChecksDuration = checksDuration.values().stream().reduce(0L, Long::sum);
+        Utils.log(String.format("%sCalculation of the size of the tree: %s", TAB_LVL_1, getDurationOutput(scan.nbNodesToScanCalculationDuration, totalDuration)), logger, externalLoggers);
+        Utils.log(String.format("%sScan of the tree: %s", TAB_LVL_1, getDurationOutput(TimeUnit.NANOSECONDS.toMillis(scan.ownTime.get()), totalDuration)), logger, externalLoggers);
+        final List<ContentIntegrityCheck> sortedChecks = activeChecks.stream().sorted((o1, o2) -> Long.compare(checksDuration.get(o2), checksDuration.get(o1))).collect(Collectors.toList());
+        final long throttledDuration = scan.throttle == null ? 0L : TimeUnit.NANOSECONDS.toMillis(scan.throttle.getThrottledTime());
+        if (scan.throttle != null)
+            Utils.log(String.format("%sThrottling: %s", TAB_LVL_1, getDurationOutput(throttledDuration, totalDuration)), logger, externalLoggers);
+        if (scan.prefetcher != null)
+            Utils.log(String.format("%sPrefetch: %d nodes loaded ahead, hit rate %.0f%%", TAB_LVL_1, scan.prefetcher.getPrefetchedNodes(), 100D * scan.prefetcher.getHitRate()), logger, externalLoggers);
+        final long durationRest = totalDuration - scan.nbNodesToScanCalculationDuration - TimeUnit.NANOSECONDS.toMillis(scan.ownTime.get()) - throttledDuration - totalChecksDuration;
         Utils.log(String.format("%sOther: %s", TAB_LVL_1, getDurationOutput(durationRest, totalDuration)), logger, externalLoggers);
         Utils.log(String.format("%sIntegrity checks: %s", TAB_LVL_1, getDurationOutput(totalChecksDuration, totalDuration)), logger, externalLoggers);
         for (ContentIntegrityCheck integrityCheck : sortedChecks) {
-            Utils.log(String.format("%s%s: %s", TAB_LVL_2, integrityCheck.getName(), getDurationOutput(integrityCheck.getOwnTime(), totalChecksDuration)), logger, externalLoggers);
+            Utils.log(String.format("%s%s: %s", TAB_LVL_2, integrityCheck.getName(), getDurationOutput(checksDuration.get(integrityCheck), totalChecksDuration)), logger, externalLoggers);
+            final CheckExecutionStats stats = scan.checksStats.get(integrityCheck);
+            if (stats != null && stats.getMatchedNodes() > 0L) {
+                Utils.log(String.format("%s%s%d nodes checked, %d skipped, per execution: p50 %s, p99 %s, max %s", TAB_LVL_2, TAB_LVL_1,
+                        stats.getMatchedNodes(), stats.getSkippedNodes(), formatNanos(stats.getPercentile(50)),
+                        formatNanos(stats.getPercentile(99)), formatNanos(stats.getMaxTime())), logger, externalLoggers);
+            }
         }
     }
 
+    private String formatNanos(long nanos) {
+        if (nanos < 1000L) return String.format("%d ns", nanos);
+        if (nanos < 1000000L) return String.format("%.1f \u00b5s", nanos / 1000F);
+        return String.format("%.1f ms", nanos / 1000000F);
+    }
+
     private String getDurationOutput(long duration, long totalDuration) {
         return String.format("%s [%.0f%%]", DateUtils.formatDurationWords(duration), 100F * duration / totalDuration);
     }
 
-    private void validateIntegrity(JCRNodeWrapper node, Set<String> excludedPaths, boolean skipMountPoints, List<ContentIntegrityCheck> activeChecks, List<ContentIntegrityError> errors, ExternalLogger externalLogger, boolean fixErrors) {
-        if (System.getProperty(INTERRUPT_PROP_NAME) != null) {
+    /**
+     * @param resumeAfter if not null, the path of the last node whose subtree has been fully scanned before the
+     *                    interruption of the scan. The node is then either this one, or one of its descendants
+     */
+    private void validateIntegrity(Scan scan, JCRNodeWrapper node, JCRNodeWrapper counterpart, String resumeAfter, PathTrie excludedPaths, boolean skipMountPoints, List<ContentIntegrityCheck> activeChecks, ContentIntegrityErrorSink errors, ExternalLogger externalLogger, boolean fixErrors) {
+        if (isInterrupted(scan)) {
             return;
         }
+        throttle(scan);
+        final String path;
         try {
-            beginComputingOwnTime();
-            final String path = node.getPath();
+            beginComputingOwnTime(scan);
+            path = node.getPath();
+            if (StringUtils.equals(path, resumeAfter)) return;
             if (isExcluded(path, excludedPaths)) {
                 Utils.log(String.format("Skipping node %s", path), logger, externalLogger);
                 return;
             }
+            if (scan.prefetcher != null) scan.prefetcher.nodeReached(path);
         } finally {
-            endComputingOwnTime();
+            endComputingOwnTime(scan);
         }
-        checkNode(node, activeChecks, errors, fixErrors, true, externalLogger);
+        // What the node inherits from its ancestors, read by the checks
+        final AncestorContext parentContext = scan.context.enterNode(node);
         try {
-            boolean hasNext;
-            final Iterator<JCRNodeWrapper> children;
-            int childIdx = 0;
+            // Shared by the checks, and the children it has loaded are reused by the traversal
+            final NodeSnapshot snapshot = new NodeSnapshot(node);
+            // When resuming a scan, the node has already been checked before the interruption
+            if (resumeAfter == null) checkNode(scan, node, snapshot, counterpart, activeChecks, errors, fixErrors, true, externalLogger);
+            if (scan.prefetcher != null) scan.prefetcher.enter(path);
             try {
-                beginComputingOwnTime();
-                children = node.getNodes().iterator();
-                hasNext = children.hasNext();
-            } finally {
-                endComputingOwnTime();
-            }
-            JCRNodeWrapper child;
-            while (hasNext) {
-                childIdx++;
+                boolean hasNext;
+                final Iterator<JCRNodeWrapper> children;
+                int childIdx = 0;
+                ScanCursor scanCursor = null;
                 try {
-                    beginComputingOwnTime();
+                    beginComputingOwnTime(scan);
+                    if (resumeAfter != null) scanCursor = getScanCursor(node, resumeAfter);
+                    final long readStart = System.nanoTime();
+                    final List<JCRNodeWrapper> loadedChildren = snapshot.getLoadedChildNodes();
+                    children = loadedChildren == null ? node.getNodes().iterator() : loadedChildren.iterator();
+                    hasNext = children.hasNext();
+                    trackRead(scan, readStart);
+                } finally {
+                    endComputingOwnTime(scan);
+                }
+                JCRNodeWrapper child;
+                JCRNodeWrapper childCounterpart;
+                while (hasNext) {
+                    childIdx++;
+                    if (scan.prefetcher != null) scan.prefetcher.childReached(path, childIdx);
                     try {
-                        child = children.next(); // Not using a for loop so that it.next() is part of the calculation of the duration of the scan, and internal errors can be catched
-                    } catch (Throwable t) {
-                        Utils.log(String.format("Impossible to load the child node %d of %s , skipping it and its subtree", childIdx, node.getPath()),
-                                Utils.LOG_LEVEL.ERROR, logger, t, externalLogger);
-                        continue;
+                        beginComputingOwnTime(scan);
+                        try {
+                            child = children.next(); // Not using a for loop so that it.next() is part of the calculation of the duration of the scan, and internal errors can be catched
+                        } catch (Throwable t) {
+                            Utils.log(String.format("Impossible to load the child node %d of %s , skipping it and its subtree", childIdx, node.getPath()),
+                                    Utils.LOG_LEVEL.ERROR, logger, t, externalLogger);
+                            continue;
+                        }
+                        hasNext = children.hasNext(); // Not calculating in the while loop so that it.hasNext() is part of the calculation of the duration of the scan
+                        if (scanCursor != null && scanCursor.isScanned(child.getPath()))
+                            continue; // Scanned before the interruption
+                        if (isNodeIgnored(child, node, skipMountPoints, externalLogger) || isPruned(scan, child.getPath(), activeChecks))
+                            continue;
+                        childCounterpart = getChildCounterpart(scan, counterpart, child);
+                    } finally {
+                        endComputingOwnTime(scan);
                     }
-                    hasNext = children.hasNext(); // Not calculating in the while loop so that it.hasNext() is part of the calculation of the duration of the scan
-                    if (isNodeIgnored(child, node, skipMountPoints, externalLogger))
-                        continue;
-                } finally {
-                    endComputingOwnTime();
+                    validateIntegrity(scan, child, childCounterpart, scanCursor == null ? null : scanCursor.getCursorInside(child.getPath()), excludedPaths, skipMountPoints, activeChecks, errors, externalLogger, fixErrors);
+                }
+            } catch (Throwable e) {
+                String ws = "unknown";
+                try {
+                    ws = node.getSession().getWorkspace().getName();
+                } catch (RepositoryException e1) {
+                    logger.error("", e1);
                 }
-                validateIntegrity(child, excludedPaths, skipMountPoints, activeChecks, errors, externalLogger, fixErrors);
+                logger.error(String.format("An error occurred while iterating over the children of the node %s in the workspace %s",
+                        node, ws), e);
+            } finally {
+                if (scan.prefetcher != null) scan.prefetcher.leave(path);
             }
-        } catch (Throwable e) {
-            String ws = "unknown";
+            checkNode(scan, node, null, activeChecks, errors, fixErrors, false, externalLogger);
             try {
-                ws = node.getSession().getWorkspace().getName();
-            } catch (RepositoryException e1) {
-                logger.error("", e1);
+                beginComputingOwnTime(scan);
+                scan.progressMonitor.progress();
+                scan.sessionRefreshTracker.nodeLoaded(node);
+                if (counterpart != null) scan.sessionRefreshTracker.nodeLoaded(counterpart);
+                if (scan.checkpoint != null) writeCheckpointIfDue(scan, path, activeChecks, externalLogger);
+            } finally {
+                endComputingOwnTime(scan);
             }
-            logger.error(String.format("An error occurred while iterating over the children of the node %s in the workspace %s",
-                    node, ws), e);
+        } finally {
+            scan.context.leaveNode(parentContext);
+        }
+    }
+
+    /**
+     * @return the position of the resumed scan among the children of the node, or null if the child of the node which
+     * is the resumed node or one of its ancestors doesn't exist anymore. In such case, all the children of the node are
+     * scanned again
+     */
+    private ScanCursor getScanCursor(JCRNodeWrapper node, String resumeAfter) throws RepositoryException {
+        final String resumedChildPath = ScanCursor.getChildOnPath(node.getPath(), resumeAfter);
+        if (resumedChildPath == null) return null;
+        return node.hasNode(StringUtils.substringAfterLast(resumedChildPath, JCR_PATH_SEPARATOR)) ? new ScanCursor(resumeAfter, resumedChildPath) : null;
+    }
+
+    /**
+     * Writes the checkpoint of the scan if the previous one is old enough. Called once the subtree of the specified node
+     * has been fully scanned. Nothing is written once the scan has been interrupted, since the subtrees of the nodes
+     * completed afterward have not been fully scanned.
+     */
+    private void writeCheckpointIfDue(Scan scan, String cursor, List<ContentIntegrityCheck> activeChecks, ExternalLogger externalLogger) {
+        final long now = System.currentTimeMillis();
+        if (now - scan.lastCheckpointTime < CHECKPOINT_INTERVAL_MS || isInterrupted(scan)) return;
+        scan.lastCheckpointTime = now;
+
+        final Map<String, Map<String, String>> checksStates = new HashMap<>();
+        for (ContentIntegrityCheck integrityCheck : activeChecks) {
+            if (integrityCheck instanceof ContentIntegrityCheck.SupportsCheckpoint)
+                checksStates.put(integrityCheck.getId(), ((ContentIntegrityCheck.SupportsCheckpoint) integrityCheck).getCheckpointState());
         }
-        checkNode(node, activeChecks, errors, fixErrors, false, externalLogger);
         try {
-            beginComputingOwnTime();
-            ProgressMonitor.getInstance().progress();
-            if (ProgressMonitor.getInstance().getCounter() % SESSION_REFRESH_INTERVAL == 0) {
+            scan.checkpoint.write(cursor, scan.checkpointedNodesCount + scan.progressMonitor.getCounter(),
+                    scan.checkpointedDuration + now - scan.executionStart, checksStates);
+            logger.debug("Checkpoint of the scan {} written after {}", scan.checkpoint.getScanID(), cursor);
+        } catch (IOException e) {
+            Utils.log(String.format("Impossible to write the checkpoint of the scan %s, it won't be resumable", scan.checkpoint.getScanID()),
+                    Utils.LOG_LEVEL.WARN, logger, e, externalLogger);
+            scan.checkpoint.delete();
+            scan.checkpoint = null;
+        }
+    }
+
+    private int getEffectiveParallelism(int parallelism, List<ContentIntegrityCheck> activeChecks, ExternalLogger externalLogger) {
+        if (parallelism <= 1) return 1;
+        final List<String> unsupportedChecks = activeChecks.stream()
+                .filter(c -> !(c instanceof ContentIntegrityCheck.SupportsParallelScan))
+                .map(ContentIntegrityCheck::getName)
+                .collect(Collectors.toList());
+        if (!unsupportedChecks.isEmpty()) {
+            Utils.log(String.format("Running a sequential scan, as some of the checks to run do not support the parallel scan: %s", unsupportedChecks),
+                    Utils.LOG_LEVEL.WARN, logger, externalLogger);
+            return 1;
+        }
+        Utils.log(String.format("Running a parallel scan with %d threads", parallelism), logger, externalLogger);
+        return parallelism;
+    }
+
+    /**
+     * Scans the top of the tree on the current thread, until {@link #PARALLEL_SCAN_SPLIT_DEPTH}, and then scans each
+     * of the subtrees below this depth on a pool of threads. Each subtree is scanned with its own session.
+     * The checks are executed on the top nodes after their children only once all the subtrees have been scanned.
+     */
+    private void validateIntegrityInParallel(Scan scan, JCRNodeWrapper node, String workspace, PathTrie excludedPaths, boolean skipMountPoints, List<ContentIntegrityCheck> activeChecks, ContentIntegrityErrorSink errors, ExternalLogger externalLogger, boolean fixErrors, int parallelism) {
+        final List<String> subtrees = new ArrayList<>();
+        final List<JCRNodeWrapper> splitNodes = new ArrayList<>();
+        splitTree(scan, node, getCounterpart(scan, node.getPath()), PARALLEL_SCAN_SPLIT_DEPTH, excludedPaths, skipMountPoints, activeChecks, errors, externalLogger, fixErrors, subtrees, splitNodes);
+        Utils.log(String.format("%d subtrees to scan in parallel", subtrees.size()), logger, externalLogger);
+
+        final int priority = Thread.currentThread().getPriority();
+        final AtomicInteger threadIdx = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(parallelism, r -> {
+            final Thread thread = new Thread(r, PARALLEL_SCAN_THREAD_NAME_PREFIX + threadIdx.incrementAndGet());
+            thread.setPriority(priority);
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            final List<Future<?>> futures = subtrees.stream()
+                    .map(subtree -> executor.submit(() -> validateSubtree(scan, subtree, workspace, excludedPaths, skipMountPoints, activeChecks, errors, externalLogger, fixErrors)))
+                    .collect(Collectors.toList());
+            for (Future<?> future : futures) {
                 try {
-                    node.getSession().refresh(false);
-                } catch (RepositoryException e) {
-                    logger.error("", e);
+                    future.get();
+                } catch (ExecutionException e) {
+                    Utils.log("An error occurred while scanning a subtree", Utils.LOG_LEVEL.ERROR, logger, e.getCause(), externalLogger);
                 }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Utils.log("Interrupted while waiting for the subtrees to be scanned", Utils.LOG_LEVEL.WARN, logger, externalLogger);
         } finally {
-            endComputingOwnTime();
+            executor.shutdownNow();
+        }
+
+        for (JCRNodeWrapper splitNode : splitNodes) {
+            checkNode(scan, splitNode, null, activeChecks, errors, fixErrors, false, externalLogger);
+            scan.progressMonitor.progress();
         }
     }
 
-    private void checkNode(JCRNodeWrapper node, List<ContentIntegrityCheck> activeChecks, List<ContentIntegrityError> errors, boolean fixErrors, boolean beforeChildren, ExternalLogger externalLogger) {
-        for (ContentIntegrityCheck integrityCheck : activeChecks) {
-            final long start = System.currentTimeMillis();
-            if (integrityCheck.canRun() && integrityCheck.areConditionsMatched(node)) {
+    private void splitTree(Scan scan, JCRNodeWrapper node, JCRNodeWrapper counterpart, int depth, PathTrie excludedPaths, boolean skipMountPoints, List<ContentIntegrityCheck> activeChecks, ContentIntegrityErrorSink errors, ExternalLogger externalLogger, boolean fixErrors, List<String> subtrees, List<JCRNodeWrapper> splitNodes) {
+        if (isInterrupted(scan)) {
+            return;
+        }
+        final String path = node.getPath();
+        if (isExcluded(path, excludedPaths)) {
+            Utils.log(String.format("Skipping node %s", path), logger, externalLogger);
+            return;
+        }
+        checkNode(scan, node, counterpart, activeChecks, errors, fixErrors, true, externalLogger);
+        try {
+            for (JCRNodeWrapper child : node.getNodes()) {
+                if (isNodeIgnored(child, node, skipMountPoints, externalLogger) || isPruned(scan, child.getPath(), activeChecks))
+                    continue;
+                if (depth > 1) {
+                    splitTree(scan, child, getChildCounterpart(scan, counterpart, child), depth - 1, excludedPaths, skipMountPoints, activeChecks, errors, externalLogger, fixErrors, subtrees, splitNodes);
+                } else {
+                    subtrees.add(child.getPath());
+                }
+            }
+        } catch (Throwable e) {
+            logger.error(String.format("An error occurred while iterating over the children of the node %s", path), e);
+        }
+        splitNodes.add(node);
+    }
+
+    private void validateSubtree(Scan scan, String path, String workspace, PathTrie excludedPaths, boolean skipMountPoints, List<ContentIntegrityCheck> activeChecks, ContentIntegrityErrorSink errors, ExternalLogger externalLogger, boolean fixErrors) {
+        scan.context.bind();
+        try {
+            final JCRSessionWrapper session = JCRUtils.getSystemSession(workspace, false);
+            if (session == null) return;
+            validateIntegrity(scan, session.getNode(path), getCounterpart(scan, path), null, excludedPaths, skipMountPoints, activeChecks, errors, externalLogger, fixErrors);
+        } catch (RepositoryException e) {
+            Utils.log(String.format("Impossible to scan the subtree %s", path), Utils.LOG_LEVEL.ERROR, logger, e, externalLogger);
+        } finally {
+            JcrSessionFilter.endRequest();
+            scan.sessions.releaseSessions();
+            ScanContext.unbind();
+        }
+    }
+
+    /**
+     * @return the reader of the bundle table if the checks can be executed in storage order, null otherwise
+     */
+    private BundleTableReader prepareStorageOrderScan(Scan scan, String workspace, List<ContentIntegrityCheck> checks, ExternalLogger externalLogger) {
+        final List<String> unsupportedChecks = checks.stream()
+                .filter(c -> !(c instanceof ContentIntegrityCheck.SupportsUnorderedScan))
+                .map(ContentIntegrityCheck::getName)
+                .collect(Collectors.toList());
+        if (!unsupportedChecks.isEmpty()) {
+            Utils.log(String.format("Traversing the tree, as some of the checks to run do not support the storage order scan: %s", unsupportedChecks),
+                    Utils.LOG_LEVEL.WARN, logger, externalLogger);
+            return null;
+        }
+        final BundleTableReader reader = new BundleTableReader(workspace, STORAGE_ORDER_BATCH_SIZE);
+        try {
+            scan.nbNodesToScan = reader.countNodes();
+        } catch (SQLException e) {
+            Utils.log("Impossible to read the bundle table of the workspace, traversing the tree", Utils.LOG_LEVEL.WARN, logger, e, externalLogger);
+            return null;
+        }
+        return reader;
+    }
+
+    /**
+     * Reads the nodes batch after batch, in the order of the bundle table of the workspace, and executes the checks on
+     * the nodes which are part of the scanned tree.
+     */
+    private void validateIntegrityInStorageOrder(Scan scan, JCRSessionWrapper session, BundleTableReader reader, String rootPath, PathTrie excludedPaths, List<ContentIntegrityCheck> activeChecks, ContentIntegrityErrorSink errors, ExternalLogger externalLogger, boolean fixErrors) {
+        final String rootPathPlusSlash = StringUtils.equals(rootPath, ROOT_NODE_PATH) ? rootPath : rootPath.concat(JCR_PATH_SEPARATOR);
+        final boolean skipJcrSystem = !StringUtils.startsWith(rootPath, JCR_SYSTEM_PATH);
+        while (!isInterrupted(scan)) {
+            final List<String> identifiers;
+            try {
+                beginComputingOwnTime(scan);
+                identifiers = reader.nextBatch();
+            } catch (SQLException e) {
+                Utils.log("Impossible to read the next nodes from the bundle table, interrupting the scan", Utils.LOG_LEVEL.ERROR, logger, e, externalLogger);
+                return;
+            } finally {
+                endComputingOwnTime(scan);
+            }
+            if (identifiers.isEmpty()) return;
+
+            for (String identifier : identifiers) {
+                if (isInterrupted(scan)) return;
+                throttle(scan);
+                JCRNodeWrapper node = null;
+                try {
+                    beginComputingOwnTime(scan);
+                    scan.progressMonitor.progress();
+                    final long readStart = System.nanoTime();
+                    node = session.getNodeByIdentifier(identifier);
+                    trackRead(scan, readStart);
+                    scan.sessionRefreshTracker.nodeLoaded(node);
+                    final String path = node.getPath();
+                    if (!StringUtils.equals(path, rootPath) && !StringUtils.startsWith(path, rootPathPlusSlash)
+                            || skipJcrSystem && (StringUtils.equals(path, JCR_SYSTEM_PATH) || StringUtils.startsWith(path, JCR_SYSTEM_PATH + JCR_PATH_SEPARATOR))
+                            || isExcluded(path, excludedPaths)) {
+                        node = null;
+                    }
+                } catch (ItemNotFoundException e) {
+                    logger.debug("The node {} has been deleted since it has been read from the bundle table", identifier);
+                } catch (RepositoryException e) {
+                    Utils.log(String.format("Impossible to load the node %s , skipping it", identifier), Utils.LOG_LEVEL.ERROR, logger, e, externalLogger);
+                } finally {
+                    endComputingOwnTime(scan);
+                }
+                if (node == null) continue;
+                checkNode(scan, node, null, activeChecks, errors, fixErrors, true, externalLogger);
+                checkNode(scan, node, null, activeChecks, errors, fixErrors, false, externalLogger);
+            }
+        }
+    }
+
+    private void checkNode(Scan scan, JCRNodeWrapper node, JCRNodeWrapper counterpart, List<ContentIntegrityCheck> activeChecks, ContentIntegrityErrorSink errors, boolean fixErrors, boolean beforeChildren, ExternalLogger externalLogger) {
+        checkNode(scan, node, null, counterpart, activeChecks, errors, fixErrors, beforeChildren, externalLogger);
+    }
+
+    /**
+     * @param snapshot    the snapshot of the node, or null to build it only if some check requires it
+     * @param counterpart the node with the same path in the paired workspace, only used before the children
+     */
+    private void checkNode(Scan scan, JCRNodeWrapper node, NodeSnapshot snapshot, JCRNodeWrapper counterpart, List<ContentIntegrityCheck> activeChecks, ContentIntegrityErrorSink errors, boolean fixErrors, boolean beforeChildren, ExternalLogger externalLogger) {
+        final String otherWorkspace = beforeChildren ? scan.pairedWorkspace : null;
+        PairedNode pairedNode = null;
+        final ChecksDispatchTable dispatchTable = scan.checksDispatchTable;
+        final boolean[] candidateChecks = dispatchTable == null ? null : dispatchTable.getCandidateChecks(node);
+        final ScanErrorCollector collector = scan.errorCollectors.get().reset(node, fixErrors, errors, externalLogger);
+        for (int checkIdx = 0; checkIdx < activeChecks.size(); checkIdx++) {
+            final ContentIntegrityCheck integrityCheck = activeChecks.get(checkIdx);
+            if (candidateChecks != null && !candidateChecks[checkIdx]) {
+                final CheckExecutionStats stats = scan.checksStats.get(integrityCheck);
+                if (stats != null) stats.trackSkippedNode(0L, beforeChildren);
+                continue;
+            }
+            final long start = System.nanoTime();
+            // The conditions on the node types have already been evaluated for the node types of this node when using the dispatch table
+            final boolean matched = integrityCheck.canRun() && (candidateChecks == null ?
+                    integrityCheck.areConditionsMatched(node) :
+                    integrityCheck.areOtherConditionsMatched(node));
+            if (matched) {
                 if (logger.isDebugEnabled())
                     logger.debug(String.format("Running %s on %s %s its children", integrityCheck.getClass().getName(), node, beforeChildren ? "before" : "after"));
+                collector.setCheck(integrityCheck);
                 try {
-                    final ContentIntegrityErrorList checkResult = beforeChildren ?
-                            integrityCheck.checkIntegrityBeforeChildren(node) :
-                            integrityCheck.checkIntegrityAfterChildren(node);
-                    handleResult(checkResult, node, fixErrors, integrityCheck, errors, externalLogger);
-                } catch (Throwable t) {
-                    logFatalError(node, t, integrityCheck, externalLogger);
-                    try {
-                        errors.add(ContentIntegrityErrorImpl.createFrameworkError(node, null, null, t, integrityCheck));
-                    } catch (Throwable t2) {
-                        Utils.log("Failed to track a framework error", Utils.LOG_LEVEL.ERROR, logger, t2, externalLogger);
+                    // The errors are pushed to the sink of the scan as soon as they are detected
+                    if (otherWorkspace != null && integrityCheck instanceof ContentIntegrityCheck.SupportsPairedScan) {
+                        if (pairedNode == null) pairedNode = new PairedNode(node, otherWorkspace, counterpart);
+                        ((ContentIntegrityCheck.SupportsPairedScan) integrityCheck).checkIntegrityBeforeChildren(pairedNode, collector);
+                    } else if (beforeChildren && integrityCheck instanceof ContentIntegrityCheck.SupportsNodeSnapshot) {
+                        if (snapshot == null) snapshot = new NodeSnapshot(node);
+                        ((ContentIntegrityCheck.SupportsNodeSnapshot) integrityCheck).checkIntegrityBeforeChildren(snapshot, collector);
+                    } else if (beforeChildren) {
+                        integrityCheck.checkIntegrityBeforeChildren(node, collector);
+                    } else {
+                        integrityCheck.checkIntegrityAfterChildren(node, collector);
                     }
+                } catch (Throwable t) {
+                    collector.trackFailure(t);
                 }
             } else if (logger.isDebugEnabled())
                 logger.debug(String.format("Skipping %s on %s (%s its children) as conditions are not matched", integrityCheck.getClass().getName(), node, beforeChildren ? "before" : "after"));
-            integrityCheck.trackOwnTime(System.currentTimeMillis() - start);
+            final long duration = System.nanoTime() - start;
+            final CheckExecutionStats stats = scan.checksStats.get(integrityCheck);
+            if (stats == null) continue;
+            if (matched) stats.trackMatchedNode(node.getPath(), duration, beforeChildren);
+            else stats.trackSkippedNode(duration, beforeChildren);
+        }
+    }
+
+    /**
+     * The default and live workspaces are paired if some of the checks to run compare the nodes of both workspaces
+     */
+    private String getPairedWorkspace(String workspace, List<ContentIntegrityCheck> activeChecks, ExternalLogger externalLogger) {
+        if (activeChecks.stream().noneMatch(c -> c instanceof ContentIntegrityCheck.SupportsPairedScan)) return null;
+        final String otherWorkspace;
+        if (StringUtils.equals(workspace, EDIT_WORKSPACE)) otherWorkspace = LIVE_WORKSPACE;
+        else if (StringUtils.equals(workspace, LIVE_WORKSPACE)) otherWorkspace = EDIT_WORKSPACE;
+        else return null;
+        Utils.log(String.format("Resolving the counterparts of the scanned nodes in the workspace %s while traversing the tree", otherWorkspace), Utils.LOG_LEVEL.DEBUG, logger, externalLogger);
+        return otherWorkspace;
+    }
+
+    /**
+     * @return the node with the same path in the paired workspace, or null if there's none or if the scan is not paired
+     */
+    private JCRNodeWrapper getCounterpart(Scan scan, String path) {
+        final String otherWorkspace = scan.pairedWorkspace;
+        if (otherWorkspace == null) return null;
+        try {
+            final JCRSessionWrapper otherSession = JCRUtils.getSystemSession(otherWorkspace, false);
+            return otherSession.nodeExists(path) ? otherSession.getNode(path) : null;
+        } catch (RepositoryException e) {
+            logger.error(String.format("Impossible to load the node %s in the workspace %s", path, otherWorkspace), e);
+            return null;
+        }
+    }
+
+    /*
+    The counterpart of a child is looked up by name under the counterpart of its parent, what is cheaper than resolving its path from the root.
+    If the parent has no counterpart, then the child has no node with the same path in the other workspace either
+     */
+    private JCRNodeWrapper getChildCounterpart(Scan scan, JCRNodeWrapper parentCounterpart, JCRNodeWrapper child) {
+        if (parentCounterpart == null) return null;
+        try {
+            final String name = child.getName();
+            return parentCounterpart.hasNode(name) ? parentCounterpart.getNode(name) : null;
+        } catch (RepositoryException e) {
+            logger.error(String.format("Impossible to load the counterpart of %s in the workspace %s", child.getPath(), scan.pairedWorkspace), e);
+            return null;
         }
     }
 
-    private void calculateNbNodesToScan(JCRNodeWrapper node, Set<String> excludedPaths, boolean skipMountPoints, ExternalLogger externalLogger) throws InterruptedScanException {
+    private void calculateNbNodesToScan(Scan scan, JCRNodeWrapper node, PathTrie excludedPaths, boolean skipMountPoints, ExternalLogger externalLogger) throws InterruptedScanException {
         final long start = System.currentTimeMillis();
         try {
-            nbNodesToScan = calculateNbNodesToScan(node, excludedPaths, skipMountPoints, 0L, externalLogger);
-            Utils.log(String.format("%s nodes to scan", nbNodesToScan), logger, externalLogger);
+            scan.nbNodesToScan = calculateNbNodesToScan(scan, node, excludedPaths, skipMountPoints, 0L, externalLogger);
+            Utils.log(String.format("%s nodes to scan", scan.nbNodesToScan), logger, externalLogger);
         } catch (InterruptedScanException e) {
             throw e;
         } catch (Throwable e) {
             logger.error("", e);
         }
-        nbNodesToScanCalculationDuration = System.currentTimeMillis() - start;
+        scan.nbNodesToScanCalculationDuration = System.currentTimeMillis() - start;
+    }
+
+    /**
+     * Estimates the number of nodes to scan without walking the whole tree. The number of nodes scanned during the
+     * previous complete scan of the same tree is used if available, otherwise the size of the tree is estimated by
+     * sampling some random paths from the root of the scan (Knuth's estimator).
+     * The progress monitor refines this estimate during the scan.
+     */
+    private void estimateNbNodesToScan(Scan scan, JCRNodeWrapper node, PathTrie excludedPaths, boolean skipMountPoints, String nodesCountKey, ExternalLogger externalLogger) {
+        final long start = System.currentTimeMillis();
+        final Long previousCount = scannedNodesCountHistory.get(nodesCountKey);
+        if (previousCount != null) {
+            scan.nbNodesToScan = previousCount;
+            Utils.log(String.format("About %s nodes to scan, based on the previous scan", scan.nbNodesToScan), logger, externalLogger);
+        } else {
+            final Map<String, List<JCRNodeWrapper>> sampledChildren = new HashMap<>();
+            double total = 0d;
+            try {
+                for (int i = 0; i < NODES_COUNT_ESTIMATION_PROBES; i++) {
+                    total += probeTreeSize(node, excludedPaths, skipMountPoints, sampledChildren, externalLogger);
+                }
+            } catch (Throwable e) {
+                logger.error("", e);
+            }
+            scan.nbNodesToScan = Math.max(1L, Math.round(total / NODES_COUNT_ESTIMATION_PROBES));
+            Utils.log(String.format("About %s nodes to scan, based on a sampling of the tree", scan.nbNodesToScan), logger, externalLogger);
+        }
+        scan.nbNodesToScanCalculationDuration = System.currentTimeMillis() - start;
+    }
+
+    private double probeTreeSize(JCRNodeWrapper root, PathTrie excludedPaths, boolean skipMountPoints, Map<String, List<JCRNodeWrapper>> sampledChildren, ExternalLogger externalLogger) {
+        double estimate = 1d;
+        double levelWeight = 1d;
+        JCRNodeWrapper node = root;
+        while (node != null) {
+            final JCRNodeWrapper parent = node;
+            final List<JCRNodeWrapper> children = sampledChildren.computeIfAbsent(parent.getPath(), p -> getChildrenToScan(parent, excludedPaths, skipMountPoints, externalLogger));
+            if (children.isEmpty()) break;
+            levelWeight *= children.size();
+            estimate += levelWeight;
+            node = children.get(ThreadLocalRandom.current().nextInt(children.size()));
+        }
+        return estimate;
+    }
+
+    private List<JCRNodeWrapper> getChildrenToScan(JCRNodeWrapper node, PathTrie excludedPaths, boolean skipMountPoints, ExternalLogger externalLogger) {
+        final List<JCRNodeWrapper> children = new ArrayList<>();
+        try {
+            for (JCRNodeWrapper child : node.getNodes()) {
+                if (!isNodeIgnored(child, node, skipMountPoints, externalLogger) && !isExcluded(child.getPath(), excludedPaths))
+                    children.add(child);
+            }
+        } catch (Throwable t) {
+            Utils.log(String.format("Impossible to load the child nodes of %s , skipping them in the estimation of the number of nodes to scan", node.getPath()),
+                    Utils.LOG_LEVEL.ERROR, logger, t, externalLogger);
+        }
+        return children;
+    }
+
+    private String getNodesCountKey(String path, String workspace, PathTrie excludedPaths, boolean skipMountPoints) {
+        return String.format("%s:%s:%s:%s", workspace, path, excludedPaths.stream().sorted().collect(Collectors.joining(",")), skipMountPoints);
+    }
+
+    private String getLastCompleteScanKey(String nodesCountKey, List<ContentIntegrityCheck> checks) {
+        return String.format("%s:%s", nodesCountKey, checks.stream().map(ContentIntegrityCheck::getId).sorted().collect(Collectors.joining(",")));
+    }
+
+    /*
+    Only the scans whose errors can be all read back can be the base of an incremental scan. Otherwise, the previous
+    complete scan remains the base: the nodes which have not been modified since then still have the same errors
+     */
+    private void trackLastCompleteScan(String lastCompleteScanKey, ContentIntegrityResults results, ExternalLogger externalLogger) {
+        if (!results.getErrorSink().isComplete()) return;
+        try {
+            resultsStore.setLastCompleteScan(lastCompleteScanKey, results.getID(), results.getTestDate());
+        } catch (IOException e) {
+            Utils.log("Impossible to track the scan as the base of the next incremental scans", Utils.LOG_LEVEL.ERROR, logger, e, externalLogger);
+        }
+    }
+
+    private ContentIntegrityResults getPreviousScan(ContentIntegrityResultsStore.LastCompleteScan lastCompleteScan, ExternalLogger externalLogger) {
+        if (lastCompleteScan == null) {
+            Utils.log("No previous scan of the same tree with the same checks, running a full scan", Utils.LOG_LEVEL.WARN, logger, externalLogger);
+            return null;
+        }
+        final ContentIntegrityResults previousScan = getTestResults(lastCompleteScan.getScanID());
+        if (previousScan == null) {
+            Utils.log(String.format("The results of the previous scan %s are not available anymore, running a full scan", lastCompleteScan.getScanID()),
+                    Utils.LOG_LEVEL.WARN, logger, externalLogger);
+            return null;
+        }
+        if (!previousScan.getErrorSink().isComplete()) {
+            Utils.log("The errors of the previous scan can't be all read back, running a full scan", Utils.LOG_LEVEL.WARN, logger, externalLogger);
+            return null;
+        }
+        return previousScan;
+    }
+
+    /*
+    Nodes without jcr:lastModified, jcr:created nor j:lastPublished are not returned. In live, the publication keeps the
+    jcr:lastModified of the node in default, so the published nodes are found from their j:lastPublished.
+    The external nodes are not indexed, so they are never scanned during an incremental scan.
+    The paths are sorted, so that a node is scanned before its descendants, as during a full scan.
+    Returns null if too many nodes have been modified, in which case a full scan has to be run.
+     */
+    private List<String> getNodesModifiedSince(JCRNodeWrapper scanRootNode, long watermark, PathTrie excludedPaths, ExternalLogger externalLogger) throws RepositoryException {
+        final String since = FastDateFormat.getInstance(ISO8601_DATE_FORMAT).format(watermark);
+        final String scanRootPath = scanRootNode.getPath();
+        final String query = String.format("select * from [nt:base] as n where (issamenode(n, '%1$s') or isdescendantnode(n, '%1$s')) " +
+                        "and (n.[jcr:lastModified] >= cast('%2$s' as date) or n.[jcr:created] >= cast('%2$s' as date) or n.[j:lastPublished] >= cast('%2$s' as date))",
+                JCRContentUtils.sqlEncode(scanRootPath), since);
+        final QueryWrapper q = scanRootNode.getSession().getWorkspace().getQueryManager().createQuery(query, Query.JCR_SQL2);
+        final boolean scanSystemNodes = StringUtils.startsWith(scanRootPath, JCR_SYSTEM_PATH);
+        final List<String> paths = new ArrayList<>();
+        for (JCRNodeWrapper resultNode : q.execute().getNodes()) {
+            final String path = resultNode.getPath();
+            if (isExcluded(path, excludedPaths)) continue;
+            if (!scanSystemNodes && StringUtils.startsWith(path, JCR_SYSTEM_PATH)) continue;
+            if (paths.size() == INCREMENTAL_SCAN_MAX_NODES) {
+                Utils.log(String.format("More than %d nodes have been created, modified or published since %s, running a full scan",
+                        INCREMENTAL_SCAN_MAX_NODES, since), Utils.LOG_LEVEL.WARN, logger, externalLogger);
+                return null;
+            }
+            paths.add(path);
+        }
+        Collections.sort(paths);
+        return paths;
+    }
+
+    /**
+     * Prepares a scan of the nodes returned by some queries built from the conditions of the checks, instead of
+     * traversing the tree. Sets the number of nodes to scan to the number of candidate nodes, as an estimate, since a
+     * node can be returned by several queries.
+     *
+     * @return the queries of each check, or null if the tree has to be traversed
+     */
+    private Map<ContentIntegrityCheck, List<String>> prepareQueryScan(Scan scan, JCRNodeWrapper scanRootNode, List<ContentIntegrityCheck> checks, ExternalLogger externalLogger) {
+        final String scanRootPath = scanRootNode.getPath();
+        final Map<ContentIntegrityCheck, List<String>> queries = new IdentityHashMap<>();
+        final List<String> unsupportedChecks = new ArrayList<>();
+        for (ContentIntegrityCheck integrityCheck : checks) {
+            final List<String> checkQueries = integrityCheck instanceof ContentIntegrityCheck.SupportsQueryScan ?
+                    integrityCheck.getCandidateNodesQueries(scanRootPath) : null;
+            if (checkQueries == null) unsupportedChecks.add(integrityCheck.getName());
+            else queries.put(integrityCheck, checkQueries);
+        }
+        if (!unsupportedChecks.isEmpty()) {
+            Utils.log(String.format("Traversing the tree, as some of the checks to run do not support the query scan: %s", unsupportedChecks),
+                    Utils.LOG_LEVEL.WARN, logger, externalLogger);
+            return null;
+        }
+
+        long nbCandidateNodes = 0L;
+        try {
+            for (List<String> checkQueries : queries.values()) {
+                for (String query : checkQueries) {
+                    logger.debug("Counting the candidate nodes: {}", query);
+                    final long size = scanRootNode.getSession().getWorkspace().getQueryManager().createQuery(query, Query.JCR_SQL2).execute().getNodes().getSize();
+                    if (size > 0L) nbCandidateNodes += size;
+                }
+            }
+        } catch (RepositoryException e) {
+            Utils.log("Impossible to query the nodes to scan, traversing the tree instead", Utils.LOG_LEVEL.WARN, logger, e, externalLogger);
+            return null;
+        }
+        scan.nbNodesToScan = Math.max(1L, nbCandidateNodes);
+        return queries;
+    }
+
+    /**
+     * Executes each check on the nodes returned by its queries, page after page, so that the results are not kept in
+     * memory. A node returned by the queries of several checks is then loaded once per check, and only one check is
+     * executed at a time. The nodes are visited in the order of the results, and the check is executed before and
+     * after the children of a node in a row.
+     * <p>
+     * The external nodes are not indexed, so they are never scanned during a query scan.
+     */
+    private void validateCandidateNodes(Scan scan, JCRNodeWrapper scanRootNode, Map<ContentIntegrityCheck, List<String>> candidateNodesQueries, PathTrie excludedPaths, List<ContentIntegrityCheck> activeChecks, ContentIntegrityErrorSink errors, ExternalLogger externalLogger, boolean fixErrors) {
+        final boolean scanSystemNodes = StringUtils.startsWith(scanRootNode.getPath(), JCR_SYSTEM_PATH);
+        for (ContentIntegrityCheck integrityCheck : activeChecks) {
+            final List<String> queries = candidateNodesQueries.get(integrityCheck);
+            if (queries == null) continue;
+            final List<ContentIntegrityCheck> checkToExecute = Collections.singletonList(integrityCheck);
+            // A node can be returned by several queries of the same check, for example if it is of several of the queried node types
+            final Set<String> checkedNodes = queries.size() > 1 ? new HashSet<>() : null;
+            for (String query : queries) {
+                logger.debug("Querying the candidate nodes: {}", query);
+                try {
+                    final QueryWrapper q = scanRootNode.getSession().getWorkspace().getQueryManager().createQuery(query, Query.JCR_SQL2);
+                    q.setLimit(QUERY_SCAN_PAGE_SIZE);
+                    long offset = 0L;
+                    int pageSize;
+                    do {
+                        if (isInterrupted(scan)) return;
+                        q.setOffset(offset);
+                        pageSize = 0;
+                        for (JCRNodeWrapper node : q.execute().getNodes()) {
+                            pageSize++;
+                            if (isInterrupted(scan)) return;
+                            final String path = node.getPath();
+                            if (isExcluded(path, excludedPaths)) continue;
+                            if (!scanSystemNodes && StringUtils.startsWith(path, JCR_SYSTEM_PATH)) continue;
+                            if (checkedNodes != null && !checkedNodes.add(node.getIdentifier())) continue;
+                            throttle(scan);
+                            checkNode(scan, node, getCounterpart(scan, path), checkToExecute, errors, fixErrors, true, externalLogger);
+                            checkNode(scan, node, null, checkToExecute, errors, fixErrors, false, externalLogger);
+                            try {
+                                beginComputingOwnTime(scan);
+                                scan.progressMonitor.progress();
+                                scan.sessionRefreshTracker.nodeLoaded(node);
+                            } finally {
+                                endComputingOwnTime(scan);
+                            }
+                        }
+                        offset += pageSize;
+                    } while (pageSize == QUERY_SCAN_PAGE_SIZE);
+                } catch (RepositoryException e) {
+                    Utils.log(String.format("Impossible to query the candidate nodes of %s , some nodes have not been checked", integrityCheck.getName()),
+                            Utils.LOG_LEVEL.ERROR, logger, e, externalLogger);
+                }
+            }
+        }
+    }
+
+    /**
+     * Scans a list of nodes without traversing their subtrees.
+     *
+     * @return the identifiers of the scanned nodes
+     */
+    private Set<String> validateNodes(Scan scan, JCRSessionWrapper session, List<String> paths, List<ContentIntegrityCheck> activeChecks, ContentIntegrityErrorSink errors, ExternalLogger externalLogger, boolean fixErrors) {
+        final Set<String> scannedNodes = new HashSet<>();
+        for (String path : paths) {
+            if (isInterrupted(scan)) break;
+            throttle(scan);
+            final JCRNodeWrapper node;
+            try {
+                beginComputingOwnTime(scan);
+                final long readStart = System.nanoTime();
+                if (!session.nodeExists(path)) continue;
+                node = session.getNode(path);
+                trackRead(scan, readStart);
+                scannedNodes.add(node.getIdentifier());
+            } catch (RepositoryException e) {
+                Utils.log(String.format("Impossible to load the node %s , skipping it", path), Utils.LOG_LEVEL.ERROR, logger, e, externalLogger);
+                continue;
+            } finally {
+                endComputingOwnTime(scan);
+            }
+            checkNode(scan, node, getCounterpart(scan, path), activeChecks, errors, fixErrors, true, externalLogger);
+            checkNode(scan, node, null, activeChecks, errors, fixErrors, false, externalLogger);
+            try {
+                beginComputingOwnTime(scan);
+                scan.progressMonitor.progress();
+                scan.sessionRefreshTracker.nodeLoaded(node);
+            } finally {
+                endComputingOwnTime(scan);
+            }
+        }
+        return scannedNodes;
+    }
+
+    /*
+    The errors of the previous scan are kept unless they have been fixed, they have been detected on a node which has been
+    deleted since then, or they have been detected by a check executed on a node scanned during the current scan.
+     */
+    private void carryOverOpenErrors(ContentIntegrityResults previousScan, Set<String> scannedNodes, List<ContentIntegrityCheck> activeChecks, JCRSessionWrapper session, ContentIntegrityErrorSink errors, ExternalLogger externalLogger) {
+        final Set<String> executedChecks = activeChecks.stream().map(ContentIntegrityCheck::getId).collect(Collectors.toSet());
+        final long nbErrorsBefore = errors.getErrorsCount();
+        try (Stream<ContentIntegrityError> previousErrors = previousScan.streamErrors()) {
+            previousErrors
+                    .filter(error -> !error.isFixed())
+                    .filter(error -> error.getUuid() == null || !scannedNodes.contains(error.getUuid()) || !executedChecks.contains(error.getIntegrityCheckID()))
+                    .filter(error -> error.getUuid() == null || nodeExists(session, error.getUuid()))
+                    .forEach(errors::addError);
+        }
+        Utils.log(String.format("%d errors kept from the previous scan", errors.getErrorsCount() - nbErrorsBefore), logger, externalLogger);
     }
 
-    private long calculateNbNodesToScan(JCRNodeWrapper node, Set<String> excludedPaths, boolean skipMountPoints, long currentCount, ExternalLogger externalLogger) throws RepositoryException, InterruptedScanException {
-        if (System.getProperty(INTERRUPT_PROP_NAME) != null) {
+    private boolean nodeExists(JCRSessionWrapper session, String uuid) {
+        try {
+            session.getNodeByIdentifier(uuid);
+            return true;
+        } catch (ItemNotFoundException e) {
+            return false;
+        } catch (RepositoryException e) {
+            logger.error(String.format("Impossible to check if the node %s exists", uuid), e);
+            return true;
+        }
+    }
+
+    private long calculateNbNodesToScan(Scan scan, JCRNodeWrapper node, PathTrie excludedPaths, boolean skipMountPoints, long currentCount, ExternalLogger externalLogger) throws RepositoryException, InterruptedScanException {
+        if (isInterrupted(scan)) {
             throw new InterruptedScanException();
         }
         if (isExcluded(node.getPath(), excludedPaths)) {
@@ -385,8 +1384,7 @@ public class ContentIntegrityServiceImpl implements ContentIntegrityService {
         if (count % NODES_COUNT_LOG_INTERVAL == 0)
             Utils.log(String.format("Counted %d nodes to scan so far", count), logger, externalLogger);
 
-        if (count % SESSION_REFRESH_INTERVAL == 0)
-            node.getSession().refresh(false);
+        scan.sessionRefreshTracker.nodeLoaded(node);
 
         final Iterator<JCRNodeWrapper> children;
         int childIdx = 0;
@@ -409,7 +1407,7 @@ public class ContentIntegrityServiceImpl implements ContentIntegrityService {
             }
             if (isNodeIgnored(child, node, skipMountPoints, externalLogger))
                 continue;
-            count = calculateNbNodesToScan(child, excludedPaths, skipMountPoints, count, externalLogger);
+            count = calculateNbNodesToScan(scan, child, excludedPaths, skipMountPoints, count, externalLogger);
         }
         return count;
     }
@@ -432,33 +1430,27 @@ public class ContentIntegrityServiceImpl implements ContentIntegrityService {
         } else return false;
     }
 
-    private boolean isExcluded(String scanNodePath, Set<String> excludedPaths) {
-        return excludedPaths.stream().anyMatch(excludedPath -> StringUtils.startsWith(scanNodePath, excludedPath));
+    private boolean isExcluded(String scanNodePath, PathTrie excludedPaths) {
+        return excludedPaths.containsPrefixOf(scanNodePath);
     }
 
-    private void logFatalError(JCRNodeWrapper node, Throwable t, ContentIntegrityCheck integrityCheck, ExternalLogger externalLogger) {
-        String path = null;
-        try {
-            path = node.getPath();
-        } finally {
-            Utils.log("Impossible to check the integrity of " + path, Utils.LOG_LEVEL.ERROR, logger, t, externalLogger);
-            integrityCheck.trackFatalError();
+    /**
+     * @return true if none of the checks can be executed on the node at the specified path or on its descendants,
+     * according to the conditions of the checks related to the path
+     */
+    private boolean isPruned(Scan scan, String path, List<ContentIntegrityCheck> activeChecks) {
+        for (ContentIntegrityCheck integrityCheck : activeChecks) {
+            if (integrityCheck.areConditionsReachableInSubtree(path)) return false;
         }
+        scan.prunedSubtrees.increment();
+        logger.debug("Pruning {}, no check can be executed in this subtree", path);
+        return true;
     }
 
-    private void handleResult(ContentIntegrityErrorList checkResult, JCRNodeWrapper node, boolean executeFix, ContentIntegrityCheck integrityCheck, List<ContentIntegrityError> errors, ExternalLogger externalLogger) {
+    private void handleResult(ContentIntegrityErrorList checkResult, JCRNodeWrapper node, boolean executeFix, ContentIntegrityCheck integrityCheck, ContentIntegrityErrorSink errors, ExternalLogger externalLogger) {
         if (checkResult == null || !checkResult.hasErrors()) return;
         for (ContentIntegrityError integrityError : checkResult.getNestedErrors()) {
-            if (executeFix && integrityCheck instanceof ContentIntegrityCheck.SupportsIntegrityErrorFix)
-                try {
-                    integrityError.setFixed(((ContentIntegrityCheck.SupportsIntegrityErrorFix) integrityCheck).fixError(node, integrityError));
-                } catch (RepositoryException e) {
-                    logger.error("An error occurred while fixing a content integrity error", e);
-                }
-            errors.add(integrityError);
-            if (errors.size() % 1000 == 0) {
-                Utils.log(String.format("%d errors tracked so far", errors.size()), logger, externalLogger);
-            }
+            ScanErrorCollector.trackError(integrityError, node, executeFix, integrityCheck, errors, externalLogger);
         }
     }
 
@@ -492,6 +1484,11 @@ public class ContentIntegrityServiceImpl implements ContentIntegrityService {
         }
     }
 
+    @Override
+    public ContentIntegrityErrorSink createErrorSink(String description) throws IOException {
+        return ErrorSinks.create(description);
+    }
+
     @Override
     public ContentIntegrityCheck getContentIntegrityCheck(String id) {
         // TODO: a double storage of the integrity checks in a map where the keys are the IDs should fasten this method
@@ -524,11 +1521,17 @@ public class ContentIntegrityServiceImpl implements ContentIntegrityService {
     public void storeErrorsInCache(ContentIntegrityResults results) {
         final Element element = new Element(results.getID(), results);
         errorsCache.put(element);
+        try {
+            resultsStore.store(results);
+        } catch (IOException e) {
+            logger.error(String.format("Impossible to store the results %s on the disk, they will be lost if evicted from the cache", results.getID()), e);
+        }
     }
 
     @Override
     public void removeErrorsFromCache(ContentIntegrityResults results) {
         errorsCache.remove(results.getID());
+        resultsStore.remove(results.getID());
     }
 
     @Override
@@ -538,22 +1541,44 @@ public class ContentIntegrityServiceImpl implements ContentIntegrityService {
 
     @Override
     public ContentIntegrityResults getTestResults(String testDate) {
-        final List<String> keys = getTestIDs();
-        if (CollectionUtils.isEmpty(keys)) return null;
-        if (StringUtils.isNotBlank(testDate)) {
-            return (ContentIntegrityResults) errorsCache.get(testDate).getObjectValue();
-        }
-        final TreeMap<Long, String> testDates = keys.stream().collect(Collectors.toMap(k -> ((ContentIntegrityResults) errorsCache.get(k).getObjectValue()).getTestDate(), Function.identity(), throwingMerger(), TreeMap::new));
-        return (ContentIntegrityResults) errorsCache.get(testDates.lastEntry().getValue()).getObjectValue();
+        final String id = StringUtils.isNotBlank(testDate) ? testDate : getLatestTestID();
+        if (id == null) return null;
+
+        final Element element = errorsCache.get(id);
+        if (element != null) return (ContentIntegrityResults) element.getObjectValue();
+        final ContentIntegrityResults results = resultsStore.read(id);
+        if (results != null) errorsCache.put(new Element(id, results));
+        return results;
     }
 
-    private static <T> BinaryOperator<T> throwingMerger() {
-        return (u, v) -> { throw new IllegalStateException(String.format("Duplicate key %s", u)); };
+    private String getLatestTestID() {
+        final Optional<ContentIntegrityResultsStore.ScanMetadata> latestStoredScan = resultsStore.getLatestScan();
+        final Optional<ContentIntegrityResults> latestCachedResults = getCachedResultsNotStored().max(Comparator.comparing(ContentIntegrityResults::getTestDate));
+        if (!latestCachedResults.isPresent()) return latestStoredScan.map(ContentIntegrityResultsStore.ScanMetadata::getId).orElse(null);
+        if (!latestStoredScan.isPresent() || latestCachedResults.get().getTestDate() > latestStoredScan.get().getTestDate())
+            return latestCachedResults.get().getID();
+        return latestStoredScan.get().getId();
+    }
+
+    /*
+    Results which can't be written on the disk are only kept in the cache
+     */
+    private Stream<ContentIntegrityResults> getCachedResultsNotStored() {
+        final List<?> keys = errorsCache.getKeys();
+        return keys.stream()
+                .map(String.class::cast)
+                .filter(k -> !resultsStore.contains(k))
+                .map(errorsCache::get)
+                .filter(Objects::nonNull)
+                .map(e -> (ContentIntegrityResults) e.getObjectValue());
     }
 
     @Override
     public List<String> getTestIDs() {
-        return errorsCache.getKeys();
+        return Stream.concat(
+                        resultsStore.getScans().stream().map(ContentIntegrityResultsStore.ScanMetadata::getId),
+                        getCachedResultsNotStored().sorted(Comparator.comparing(ContentIntegrityResults::getTestDate)).map(ContentIntegrityResults::getID))
+                .collect(Collectors.toList());
     }
 
     @Override
@@ -573,12 +1598,33 @@ public class ContentIntegrityServiceImpl implements ContentIntegrityService {
 
     @Override
     public boolean isScanRunning() {
-        return semaphore.availablePermits() == 0;
+        synchronized (runningScans) {
+            return !runningScans.isEmpty();
+        }
+    }
+
+    @Override
+    public List<String> getRunningScans() {
+        synchronized (runningScans) {
+            return new ArrayList<>(runningScans.keySet());
+        }
     }
 
     @Override
     public void stopRunningScan() {
-        System.setProperty(INTERRUPT_PROP_NAME, "true");
+        synchronized (runningScans) {
+            runningScans.values().forEach(scan -> scan.interrupted = true);
+        }
+    }
+
+    @Override
+    public boolean stopScan(String executionID) {
+        synchronized (runningScans) {
+            final Scan scan = runningScans.get(executionID);
+            if (scan == null) return false;
+            scan.interrupted = true;
+            return true;
+        }
     }
 
     /**
@@ -586,4 +1632,51 @@ public class ContentIntegrityServiceImpl implements ContentIntegrityService {
      * - iterating over the checks and for each, iterating over the tree
      * - iterating over the tree and for each node, iterating over the checks
      */
+
+    /**
+     * State of a running scan. Several scans can run at the same time, so nothing related to a scan is stored in the
+     * fields of the service.
+     */
+    private static class Scan {
+        private final String executionID;
+        // ID of the checkpoint resumed by the scan, null if the scan has not been resumed
+        private final String resumedScanID;
+        private final ScanContext context;
+        private final ProgressMonitor progressMonitor = new ProgressMonitor();
+        // Null if the scan is not throttled
+        private ScanThrottle throttle;
+        // Null if the nodes are not loaded ahead of the scan
+        private volatile ChildrenPrefetcher prefetcher;
+        private volatile boolean interrupted = false;
+        private long nbNodesToScanCalculationDuration = 0L;
+        private final AtomicLong ownTime = new AtomicLong(); // nanoseconds
+        private final ThreadLocal<Long> ownTimeIntervalStart = new ThreadLocal<>();
+        private final SessionRefreshTracker sessionRefreshTracker;
+        private final ScanSessions sessions;
+        private final LongAdder prunedSubtrees = new LongAdder();
+        private final ThreadLocal<ScanErrorCollector> errorCollectors = ScanErrorCollector.perThread();
+        private long nbNodesToScan = 0;
+        private volatile Map<ContentIntegrityCheck, CheckExecutionStats> checksStats = Collections.emptyMap();
+        private volatile ChecksDispatchTable checksDispatchTable;
+        // Workspace in which the counterparts of the scanned nodes are resolved, null if the scan is not paired
+        private volatile String pairedWorkspace;
+        // Checkpoint of the scan, null if the scan can't be resumed
+        private volatile ScanCheckpoint checkpoint;
+        private long lastCheckpointTime = System.currentTimeMillis();
+        // Start of the current execution of the scan, which differs from the test date when the scan is resumed
+        private long executionStart;
+        // Nodes scanned and time spent by the previous executions of a resumed scan
+        private long checkpointedNodesCount;
+        private long checkpointedDuration;
+
+        private Scan(String executionID, String workspace, String resumedScanID, SessionRefreshPolicy sessionRefreshPolicy) {
+            this.executionID = executionID;
+            this.resumedScanID = resumedScanID;
+            context = new ScanContext(executionID, workspace);
+            sessionRefreshTracker = new SessionRefreshTracker(sessionRefreshPolicy);
+            context.setSessionRefreshTracker(sessionRefreshTracker);
+            sessions = new ScanSessions(sessionRefreshTracker);
+            context.setSessions(sessions);
+        }
+    }
 }
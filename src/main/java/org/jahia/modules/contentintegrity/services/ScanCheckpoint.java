@@ -0,0 +1,309 @@
+package org.jahia.modules.contentintegrity.services;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
+import org.jahia.modules.contentintegrity.api.ContentIntegrityCheck;
+import org.jahia.modules.contentintegrity.api.ContentIntegrityError;
+import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorSink;
+import org.jahia.modules.contentintegrity.services.sinks.FileErrorSink;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Checkpoint of a running scan, persisted on the disk so that the scan can be resumed after an interruption or a restart.
+ * <p>
+ * The tree is scanned depth first, in the order of the children of the nodes, so that a single path is enough to know
+ * which nodes have been scanned: the cursor is the last node whose subtree has been fully scanned. The checkpoint also
+ * holds the parameters of the scan, the errors detected so far, which are appended to a file as they are detected,
+ * and the state of the checks implementing {@link ContentIntegrityCheck.SupportsCheckpoint}.
+ * <p>
+ * The errors detected after the last write of the checkpoint are dropped when the checkpoint is loaded, since they will
+ * be detected again by the resumed scan.
+ */
+public class ScanCheckpoint {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScanCheckpoint.class);
+
+    private static final String PROPERTIES_FILE = "checkpoint.properties";
+    private static final String ERRORS_FILE = "errors.bin";
+    private static final String TMP_EXTENSION = ".tmp";
+    private static final String LIST_SEPARATOR = "\t";
+    private static final String PATH = "path";
+    private static final String EXCLUDED_PATHS = "excludedPaths";
+    private static final String SKIP_MOUNT_POINTS = "skipMountPoints";
+    private static final String WORKSPACE = "workspace";
+    private static final String CHECKS = "checks";
+    private static final String TEST_DATE = "testDate";
+    private static final String NB_NODES_TO_SCAN = "nbNodesToScan";
+    private static final String CURSOR = "cursor";
+    private static final String SCANNED_NODES_COUNT = "scannedNodesCount";
+    private static final String DURATION = "duration";
+    private static final String ERRORS_COUNT = "errorsCount";
+    private static final String ERRORS_LENGTH = "errorsLength";
+    private static final String CHECK_STATE_PREFIX = "state.";
+
+    private final String scanID;
+    private final File folder;
+    private final File errorsFile;
+    private final Properties properties;
+    private DataOutputStream out;
+    private long errorsCount;
+    private long failedWrites = 0L;
+
+    private ScanCheckpoint(String scanID, File folder, Properties properties, boolean append) throws IOException {
+        this.scanID = scanID;
+        this.folder = folder;
+        this.properties = properties;
+        errorsFile = new File(folder, ERRORS_FILE);
+        errorsCount = NumberUtils.toLong(properties.getProperty(ERRORS_COUNT));
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(errorsFile, append)));
+    }
+
+    /**
+     * Creates the checkpoint of a scan which is starting. Nothing is considered as scanned until the first call
+     * to {@link #write(String, long, long, Map)}.
+     *
+     * @param rootFolder the folder where the checkpoints are stored
+     * @param scanID     the ID of the scan, which is also the ID of its results
+     */
+    public static ScanCheckpoint create(File rootFolder, String scanID, String path, Collection<String> excludedPaths, boolean skipMountPoints,
+                                        String workspace, List<String> checks, long testDate, long nbNodesToScan) throws IOException {
+        final File folder = new File(rootFolder, scanID);
+        FileUtils.forceMkdir(folder);
+        final Properties properties = new Properties();
+        properties.setProperty(PATH, path);
+        properties.setProperty(EXCLUDED_PATHS, StringUtils.join(excludedPaths, LIST_SEPARATOR));
+        properties.setProperty(SKIP_MOUNT_POINTS, String.valueOf(skipMountPoints));
+        properties.setProperty(WORKSPACE, workspace);
+        properties.setProperty(CHECKS, StringUtils.join(checks, LIST_SEPARATOR));
+        properties.setProperty(TEST_DATE, String.valueOf(testDate));
+        properties.setProperty(NB_NODES_TO_SCAN, String.valueOf(nbNodesToScan));
+        final ScanCheckpoint checkpoint = new ScanCheckpoint(scanID, folder, properties, false);
+        checkpoint.writeProperties();
+        return checkpoint;
+    }
+
+    /**
+     * Loads the checkpoint of an interrupted scan, to resume it. The errors detected after the last write of the
+     * checkpoint are dropped.
+     *
+     * @return the checkpoint, or null if there's no checkpoint for this scan
+     */
+    public static ScanCheckpoint load(File rootFolder, String scanID) throws IOException {
+        if (StringUtils.isBlank(scanID)) return null;
+        final File folder = new File(rootFolder, scanID);
+        final File propertiesFile = new File(folder, PROPERTIES_FILE);
+        if (!propertiesFile.exists()) return null;
+
+        final Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(propertiesFile)) {
+            properties.load(in);
+        }
+        try (RandomAccessFile errors = new RandomAccessFile(new File(folder, ERRORS_FILE), "rw")) {
+            errors.setLength(NumberUtils.toLong(properties.getProperty(ERRORS_LENGTH)));
+        }
+        return new ScanCheckpoint(scanID, folder, properties, true);
+    }
+
+    /**
+     * @return the IDs of the scans which have a checkpoint
+     */
+    public static List<String> list(File rootFolder) {
+        final File[] folders = rootFolder.listFiles(f -> new File(f, PROPERTIES_FILE).exists());
+        if (folders == null) return Collections.emptyList();
+        return Arrays.stream(folders).map(File::getName).sorted().collect(Collectors.toList());
+    }
+
+    /**
+     * Wraps the sink of the scan, so that the errors pushed to the sink are also appended to the checkpoint
+     */
+    public ContentIntegrityErrorSink track(ContentIntegrityErrorSink sink) {
+        return new ContentIntegrityErrorSink() {
+            @Override
+            public void addError(ContentIntegrityError error) {
+                sink.addError(error);
+                appendError(error);
+            }
+
+            @Override
+            public long getErrorsCount() {
+                return sink.getErrorsCount();
+            }
+
+            @Override
+            public Stream<ContentIntegrityError> getErrors() {
+                return sink.getErrors();
+            }
+
+            @Override
+            public boolean isComplete() {
+                return sink.isComplete();
+            }
+
+            @Override
+            public void close() {
+                sink.close();
+            }
+
+            @Override
+            public void dispose() {
+                sink.dispose();
+            }
+        };
+    }
+
+    private synchronized void appendError(ContentIntegrityError error) {
+        if (out == null) return;
+        try {
+            ContentIntegrityErrorImpl.writeTo(error, out);
+            errorsCount++;
+        } catch (IOException e) {
+            if (failedWrites++ == 0L) logger.error(String.format("Impossible to write an error in the checkpoint of the scan %s", scanID), e);
+        }
+    }
+
+    /**
+     * @return the errors detected until the last write of the checkpoint. The returned stream has to be closed once consumed
+     */
+    public Stream<ContentIntegrityError> readErrors() {
+        return FileErrorSink.open(errorsFile, NumberUtils.toLong(properties.getProperty(ERRORS_COUNT))).getErrors();
+    }
+
+    /**
+     * Records that the tree has been scanned until the specified node, included.
+     *
+     * @param cursor            the path of the last node whose subtree has been fully scanned
+     * @param scannedNodesCount the number of nodes scanned since the beginning of the scan, including its previous executions
+     * @param duration          the duration of the scan, including its previous executions
+     * @param checksStates      the state of the checks, per check ID
+     */
+    public synchronized void write(String cursor, long scannedNodesCount, long duration, Map<String, Map<String, String>> checksStates) throws IOException {
+        if (out == null) throw new IllegalStateException("The checkpoint is closed");
+        if (failedWrites > 0L) throw new IOException("Some errors could not be written in the checkpoint");
+        out.flush();
+        properties.setProperty(CURSOR, cursor);
+        properties.setProperty(SCANNED_NODES_COUNT, String.valueOf(scannedNodesCount));
+        properties.setProperty(DURATION, String.valueOf(duration));
+        properties.setProperty(ERRORS_COUNT, String.valueOf(errorsCount));
+        properties.setProperty(ERRORS_LENGTH, String.valueOf(errorsFile.length()));
+        properties.stringPropertyNames().stream()
+                .filter(key -> key.startsWith(CHECK_STATE_PREFIX))
+                .forEach(properties::remove);
+        checksStates.forEach((checkID, state) -> state.forEach((key, value) ->
+                properties.setProperty(CHECK_STATE_PREFIX + checkID + "." + key, value)));
+        writeProperties();
+    }
+
+    private void writeProperties() throws IOException {
+        final File tmpFile = new File(folder, PROPERTIES_FILE + TMP_EXTENSION);
+        try (OutputStream propertiesOut = new FileOutputStream(tmpFile)) {
+            properties.store(propertiesOut, String.format("Checkpoint of the scan %s", scanID));
+        }
+        Files.move(tmpFile.toPath(), new File(folder, PROPERTIES_FILE).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Stops tracking the errors. The checkpoint is kept on the disk, so that the scan can be resumed.
+     */
+    public synchronized void close() {
+        if (out == null) return;
+        IOUtils.closeQuietly(out);
+        out = null;
+    }
+
+    /**
+     * Deletes the checkpoint, once the scan is completed
+     */
+    public synchronized void delete() {
+        close();
+        FileUtils.deleteQuietly(folder);
+    }
+
+    public String getScanID() {
+        return scanID;
+    }
+
+    public String getPath() {
+        return properties.getProperty(PATH);
+    }
+
+    public List<String> getExcludedPaths() {
+        return splitList(properties.getProperty(EXCLUDED_PATHS));
+    }
+
+    public boolean isSkipMountPoints() {
+        return Boolean.parseBoolean(properties.getProperty(SKIP_MOUNT_POINTS));
+    }
+
+    public String getWorkspace() {
+        return properties.getProperty(WORKSPACE);
+    }
+
+    /**
+     * @return the IDs of the checks executed by the scan
+     */
+    public List<String> getChecks() {
+        return splitList(properties.getProperty(CHECKS));
+    }
+
+    public long getTestDate() {
+        return NumberUtils.toLong(properties.getProperty(TEST_DATE));
+    }
+
+    public long getNbNodesToScan() {
+        return NumberUtils.toLong(properties.getProperty(NB_NODES_TO_SCAN));
+    }
+
+    /**
+     * @return the path of the last node whose subtree has been fully scanned, or null if no subtree has been fully scanned yet
+     */
+    public String getCursor() {
+        return properties.getProperty(CURSOR);
+    }
+
+    public long getScannedNodesCount() {
+        return NumberUtils.toLong(properties.getProperty(SCANNED_NODES_COUNT));
+    }
+
+    public long getDuration() {
+        return NumberUtils.toLong(properties.getProperty(DURATION));
+    }
+
+    public Map<String, String> getCheckState(String checkID) {
+        final String prefix = CHECK_STATE_PREFIX + checkID + ".";
+        final Map<String, String> state = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(prefix)) state.put(key.substring(prefix.length()), properties.getProperty(key));
+        }
+        return state;
+    }
+
+    private static List<String> splitList(String value) {
+        if (StringUtils.isEmpty(value)) return new ArrayList<>();
+        return new ArrayList<>(Arrays.asList(StringUtils.splitPreserveAllTokens(value, LIST_SEPARATOR)));
+    }
+}
@@ -0,0 +1,86 @@
+package org.jahia.modules.contentintegrity.services;
+
+import org.jahia.modules.contentintegrity.api.ContentIntegrityCheck;
+import org.jahia.modules.contentintegrity.api.ContentIntegrityError;
+import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorSink;
+import org.jahia.modules.contentintegrity.api.ErrorCollector;
+import org.jahia.modules.contentintegrity.api.ExternalLogger;
+import org.jahia.services.content.JCRNodeWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.RepositoryException;
+
+/**
+ * Pushes the errors detected by a check on a node to the sink of the scan, fixing them first if requested. Reused
+ * for all the nodes scanned by a thread, so that no object is allocated per node and per check.
+ */
+class ScanErrorCollector implements ErrorCollector {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScanErrorCollector.class);
+
+    private JCRNodeWrapper node;
+    private boolean executeFix;
+    private ContentIntegrityCheck integrityCheck;
+    private ContentIntegrityErrorSink errors;
+    private ExternalLogger externalLogger;
+
+    /**
+     * @return one collector per thread, to be held by a single scan so that the collectors are released with it
+     */
+    static ThreadLocal<ScanErrorCollector> perThread() {
+        return ThreadLocal.withInitial(ScanErrorCollector::new);
+    }
+
+    ScanErrorCollector reset(JCRNodeWrapper node, boolean executeFix, ContentIntegrityErrorSink errors, ExternalLogger externalLogger) {
+        this.node = node;
+        this.executeFix = executeFix;
+        this.errors = errors;
+        this.externalLogger = externalLogger;
+        integrityCheck = null;
+        return this;
+    }
+
+    void setCheck(ContentIntegrityCheck integrityCheck) {
+        this.integrityCheck = integrityCheck;
+    }
+
+    @Override
+    public void addError(ContentIntegrityError error) {
+        if (error == null) return;
+        trackError(error, node, executeFix, integrityCheck, errors, externalLogger);
+    }
+
+    /**
+     * Tracks the failure of the current check on the current node as a framework error. The errors already pushed
+     * by the check before it failed are kept.
+     */
+    void trackFailure(Throwable t) {
+        String path = null;
+        try {
+            path = node.getPath();
+        } finally {
+            Utils.log("Impossible to check the integrity of " + path, Utils.LOG_LEVEL.ERROR, logger, t, externalLogger);
+            integrityCheck.trackFatalError();
+        }
+        try {
+            errors.addError(ContentIntegrityErrorImpl.createFrameworkError(node, null, null, t, integrityCheck));
+        } catch (Throwable t2) {
+            Utils.log("Failed to track a framework error", Utils.LOG_LEVEL.ERROR, logger, t2, externalLogger);
+        }
+    }
+
+    static void trackError(ContentIntegrityError integrityError, JCRNodeWrapper node, boolean executeFix, ContentIntegrityCheck integrityCheck, ContentIntegrityErrorSink errors, ExternalLogger externalLogger) {
+        if (executeFix && integrityCheck instanceof ContentIntegrityCheck.SupportsIntegrityErrorFix)
+            try {
+                integrityError.setFixed(((ContentIntegrityCheck.SupportsIntegrityErrorFix) integrityCheck).fixError(node, integrityError));
+            } catch (RepositoryException e) {
+                logger.error("An error occurred while fixing a content integrity error", e);
+            }
+        errors.addError(integrityError);
+        final long nbErrors = errors.getErrorsCount();
+        if (nbErrors % 1000 == 0) {
+            Utils.log(String.format("%d errors tracked so far", nbErrors), logger, externalLogger);
+        }
+    }
+}
@@ -7,7 +7,7 @@ import org.apache.commons.lang.time.FastDateFormat;
 import org.jahia.bin.Jahia;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityError;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorList;
-import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorType;
+import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorSink;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityService;
 import org.jahia.modules.contentintegrity.api.ExternalLogger;
 import org.jahia.modules.contentintegrity.services.impl.Constants;
@@ -16,6 +16,8 @@ import org.jahia.modules.contentintegrity.services.reporting.CsvReport;
 import org.jahia.modules.contentintegrity.services.reporting.ExcelReport;
 import org.jahia.modules.contentintegrity.services.reporting.Report;
 import org.jahia.modules.contentintegrity.services.reporting.ReportWriter;
+import org.jahia.modules.contentintegrity.services.sinks.CompositeErrorSink;
+import org.jahia.modules.contentintegrity.services.util.CheckExecutionStats;
 import org.jahia.osgi.BundleUtils;
 import org.jahia.services.content.JCRAutoSplitUtils;
 import org.jahia.services.content.JCRNodeWrapper;
@@ -34,6 +36,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.GregorianCalendar;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -43,6 +47,7 @@ import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.jahia.modules.contentintegrity.services.impl.Constants.JCR_PATH_SEPARATOR_CHAR;
 import static org.jahia.modules.contentintegrity.services.impl.Constants.NODE_UNDER_MODULES_PATH_PREFIX;
@@ -215,27 +220,27 @@ public class Utils {
                 .map(Report::getMaxNumberOfLines)
                 .min(Integer::compareTo)
                 .get();
-        final long nbErrors = results.getErrors().stream()
-                .filter(error -> !excludeFixedErrors || !error.isFixed())
-                .count();
-        if (nbErrors < chunksSize) {
-            final List<ContentIntegrityError> errors = results.getErrors().stream()
+        // The errors are read only once from the sink, one chunk at a time
+        try (Stream<ContentIntegrityError> stream = results.streamErrors()) {
+            final Iterator<ContentIntegrityError> errorsIterator = stream
                     .filter(error -> !excludeFixedErrors || !error.isFixed())
-                    .collect(Collectors.toList());
-            return writeReports(errors, resultsSignature, reportWriter);
-        } else {
-            long dumpedErrors = 0L;
+                    .iterator();
+            final List<ContentIntegrityError> chunk = new ArrayList<>();
+            while (errorsIterator.hasNext() && chunk.size() < chunksSize) {
+                chunk.add(errorsIterator.next());
+            }
+            if (!errorsIterator.hasNext()) {
+                return writeReports(chunk, resultsSignature, reportWriter);
+            }
             int idx = 0;
             boolean success = true;
-            while (dumpedErrors < nbErrors) {
-                final List<ContentIntegrityError> errors = results.getErrors().stream()
-                        .filter(error -> !excludeFixedErrors || !error.isFixed())
-                        .skip(dumpedErrors)
-                        .limit(chunksSize)
-                        .collect(Collectors.toList());
+            while (!chunk.isEmpty()) {
                 idx++;
-                dumpedErrors += chunksSize;
-                success &= writeReports(errors, String.format("%s--%d", resultsSignature, idx), reportWriter);
+                success &= writeReports(chunk, String.format("%s--%d", resultsSignature, idx), reportWriter);
+                chunk.clear();
+                while (errorsIterator.hasNext() && chunk.size() < chunksSize) {
+                    chunk.add(errorsIterator.next());
+                }
             }
             return success;
         }
@@ -265,7 +270,7 @@ public class Utils {
 
     private static void writeReportMetadata(JCRNodeWrapper reportNode, ContentIntegrityResults results) throws RepositoryException {
         reportNode.addMixin("integrity:scanReport");
-        reportNode.setProperty("integrity:errorsCount", results.getErrors().size());
+        reportNode.setProperty("integrity:errorsCount", results.getErrorsCount());
         final String workspace = results.getWorkspace();
         final boolean multipleWorkspacesScanned = StringUtils.equals(workspace, ALL_WORKSPACES);
         reportNode.setProperty("integrity:scannedWorkspace", workspace);
@@ -276,22 +281,23 @@ public class Utils {
         reportNode.setProperty("integrity:moduleVersion", getContentIntegrityVersion());
         reportNode.setProperty("integrity:jahiaVersion", Jahia.VERSION);
         reportNode.setProperty("integrity:executionLog", StringUtils.join(results.getExecutionLog(), "\n"));
-        final Map<String, List<ContentIntegrityError>> errorsByType = results.getErrors().stream()
-                .collect(Collectors.groupingBy(ContentIntegrityError::getIntegrityCheckID));
-        final String countByErrorType = errorsByType.entrySet().stream()
+        // Only the counters are kept in memory, not the errors
+        final Map<String, Map<String, Map<String, Long>>> countByCheck;
+        try (Stream<ContentIntegrityError> stream = results.streamErrors()) {
+            countByCheck = stream.collect(Collectors.groupingBy(ContentIntegrityError::getIntegrityCheckID,
+                    Collectors.groupingBy(ContentIntegrityError::getConstraintMessage,
+                            Collectors.groupingBy(ContentIntegrityError::getWorkspace, Collectors.counting()))));
+        }
+        final String countByErrorType = countByCheck.entrySet().stream()
                 .map(e -> {
                     final List<String> lines = new ArrayList<>();
-                    lines.add(String.format("%s : %d errors", e.getKey(), e.getValue().size()));
-                    e.getValue().stream()
-                            .collect(Collectors.groupingBy(ContentIntegrityError::getConstraintMessage))
-                            .forEach((key, value) -> {
-                                lines.add(String.format("%s%s : %d", TAB_LVL_1, key, value.size()));
-                                if (multipleWorkspacesScanned) {
-                                    value.stream()
-                                            .collect(Collectors.groupingBy(ContentIntegrityError::getWorkspace))
-                                            .forEach((msg, errors) -> lines.add(String.format("%s%s : %d", TAB_LVL_2, msg, errors.size())));
-                                }
-                            });
+                    lines.add(String.format("%s : %d errors", e.getKey(), sumCounts(e.getValue().values().stream())));
+                    e.getValue().forEach((key, value) -> {
+                        lines.add(String.format("%s%s : %d", TAB_LVL_1, key, sumCounts(Stream.of(value))));
+                        if (multipleWorkspacesScanned) {
+                            value.forEach((msg, count) -> lines.add(String.format("%s%s : %d", TAB_LVL_2, msg, count)));
+                        }
+                    });
                     return lines;
                 })
                 .flatMap(Collection::stream)
@@ -299,6 +305,10 @@ public class Utils {
         reportNode.setProperty("integrity:countByErrorType", countByErrorType);
     }
 
+    private static long sumCounts(Stream<Map<String, Long>> counts) {
+        return counts.flatMap(m -> m.values().stream()).mapToLong(Long::longValue).sum();
+    }
+
     public static boolean writeDumpOnTheFilesystem(ContentIntegrityResults results, boolean excludeFixedErrors) {
         final File outputDir = new File(System.getProperty("java.io.tmpdir"), "content-integrity");
         final boolean folderCreated = outputDir.exists() || outputDir.mkdirs();
@@ -345,14 +355,20 @@ public class Utils {
         final Long duration = results.stream().map(ContentIntegrityResults::getTestDuration).reduce(0L, Long::sum);
         final Set<String> workspaces = results.stream().map(ContentIntegrityResults::getWorkspace).collect(Collectors.toSet());
         final String workspace = workspaces.size() == 1 ? workspaces.stream().findAny().get() : ALL_WORKSPACES;
-        final List<ContentIntegrityError> errors = results.stream()
+        final ContentIntegrityErrorSink errors = new CompositeErrorSink(results.stream()
                 .peek(contentIntegrityService::removeErrorsFromCache)
-                .map(ContentIntegrityResults::getErrors)
-                .flatMap(Collection::stream)
-                .collect(Collectors.toList());
+                .map(ContentIntegrityResults::getErrorSink)
+                .collect(Collectors.toList()));
         final List<String> executionLog = results.stream().map(ContentIntegrityResults::getExecutionLog).flatMap(List::stream).collect(Collectors.toList());
 
+        final Map<String, CheckExecutionStats> checksStats = new LinkedHashMap<>();
+        results.stream()
+                .map(ContentIntegrityResults::getChecksStats)
+                .flatMap(List::stream)
+                .forEach(stats -> checksStats.computeIfAbsent(stats.getCheckId(), id -> new CheckExecutionStats(id, stats.getCheckName())).add(stats));
+
         final ContentIntegrityResults mergedResults = new ContentIntegrityResults(testDate, duration, workspace, errors, executionLog);
+        mergedResults.setChecksStats(new ArrayList<>(checksStats.values()));
         contentIntegrityService.storeErrorsInCache(mergedResults);
         return mergedResults;
     }
@@ -405,32 +421,37 @@ public class Utils {
         return String.format("%s %s", bundle.getSymbolicName(), bundle.getHeaders().get(Constants.MANIFEST_HEADER_CONTENT_INTEGRITY_VERSION));
     }
 
-    public static void validateImportCompatibility(List<ContentIntegrityError> errors, Logger logger, ExternalLogger... externalLoggers) {
-        final boolean isImportCompatible = errors.stream()
-                .filter(e -> !e.isFixed())
-                .map(ContentIntegrityError::getErrorType)
-                .noneMatch(ContentIntegrityErrorType::isBlockingImport);
-        if (isImportCompatible) {
+    public static void validateImportCompatibility(ContentIntegrityErrorSink errors, Logger logger, ExternalLogger... externalLoggers) {
+        if (!errors.isComplete()) {
+            log("Only some of the errors have been kept, the compatibility with the XML import is calculated on those", LOG_LEVEL.WARN, logger, externalLoggers);
+        }
+        final Map<String, Long> incompatibilitiesBySite;
+        try (Stream<ContentIntegrityError> stream = errors.getErrors()) {
+            incompatibilitiesBySite = stream
+                    .filter(e -> !e.isFixed())
+                    .filter(e -> e.getErrorType().isBlockingImport())
+                    .map(ContentIntegrityError::getSite)
+                    .collect(Collectors.groupingBy(Function.identity(), TreeMap::new, Collectors.counting()));
+        }
+        if (incompatibilitiesBySite.isEmpty()) {
             log("The scanned tree is compatible with the XML import", logger, externalLoggers);
             return;
         }
         log("The scanned tree is incompatible with the XML import", LOG_LEVEL.WARN, logger, externalLoggers);
         log(TAB_LVL_1 + "The following sites contain incompatibilities:", LOG_LEVEL.WARN, logger, externalLoggers);
-        errors.stream()
-                .filter(e -> !e.isFixed())
-                .filter(e -> e.getErrorType().isBlockingImport())
-                .map(ContentIntegrityError::getSite)
-                .collect(Collectors.groupingBy(Function.identity(), TreeMap::new, Collectors.counting()))
-                .forEach((site, count) -> log(String.format("%s%s: %s errors", TAB_LVL_2, site, count), LOG_LEVEL.WARN, logger, externalLoggers));
+        incompatibilitiesBySite.forEach((site, count) -> log(String.format("%s%s: %s errors", TAB_LVL_2, site, count), LOG_LEVEL.WARN, logger, externalLoggers));
     }
 
     @Deprecated
-    public static void detectLegacyErrorTypes(List<ContentIntegrityError> errors, Logger logger, ExternalLogger... externalLoggers) {
-        final List<String> checksUsingLegacyAPI = errors.stream()
-                .filter(e -> e.getErrorType() instanceof ContentIntegrityErrorTypeImplLegacy)
-                .map(ContentIntegrityError::getIntegrityCheckName)
-                .distinct()
-                .collect(Collectors.toList());
+    public static void detectLegacyErrorTypes(ContentIntegrityErrorSink errors, Logger logger, ExternalLogger... externalLoggers) {
+        final List<String> checksUsingLegacyAPI;
+        try (Stream<ContentIntegrityError> stream = errors.getErrors()) {
+            checksUsingLegacyAPI = stream
+                    .filter(e -> e.getErrorType() instanceof ContentIntegrityErrorTypeImplLegacy)
+                    .map(ContentIntegrityError::getIntegrityCheckName)
+                    .distinct()
+                    .collect(Collectors.toList());
+        }
         if (checksUsingLegacyAPI.isEmpty()) return;
         log("Some checks are using a deprecated API for the error types. Please refactor them before this API is dropped", LOG_LEVEL.WARN, logger, externalLoggers);
         checksUsingLegacyAPI.stream()
@@ -2,11 +2,13 @@ package org.jahia.modules.contentintegrity.services.checks;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityCheck;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityCheckConfiguration;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityError;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorList;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorType;
+import org.jahia.modules.contentintegrity.api.ErrorCollector;
 import org.jahia.modules.contentintegrity.services.Utils;
 import org.jahia.modules.contentintegrity.services.impl.AbstractContentIntegrityCheck;
 import org.jahia.modules.contentintegrity.services.impl.Constants;
@@ -44,7 +46,6 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
-import static org.jahia.modules.contentintegrity.services.Utils.getSiteKey;
 import static org.jahia.modules.contentintegrity.services.impl.Constants.ACE_TYPE_GRANT;
 import static org.jahia.modules.contentintegrity.services.impl.Constants.ACL;
 import static org.jahia.modules.contentintegrity.services.impl.Constants.EDIT_WORKSPACE;
@@ -71,7 +72,11 @@ import static org.jahia.services.usermanager.JahiaGroupManagerService.SITE_PRIVI
 })
 public class AceSanityCheck extends AbstractContentIntegrityCheck implements
         ContentIntegrityCheck.IsConfigurable,
-        ContentIntegrityCheck.SupportsIntegrityErrorFix {
+        ContentIntegrityCheck.SupportsIntegrityErrorFix,
+        ContentIntegrityCheck.SupportsParallelScan,
+        ContentIntegrityCheck.RequiresFullScan,
+        ContentIntegrityCheck.SupportsCheckpoint,
+        ContentIntegrityCheck.SupportsQueryScan {
 
     private static final Logger logger = LoggerFactory.getLogger(AceSanityCheck.class);
     private static final Pattern CURRENT_SITE_PATTERN = Pattern.compile("^currentSite");
@@ -103,9 +108,6 @@ public class AceSanityCheck extends AbstractContentIntegrityCheck implements
     public static final ContentIntegrityErrorType TOO_MANY_ACE = createErrorType("TOO_MANY_ACE", "Too many ACE nodes");
 
     private final ContentIntegrityCheckConfiguration configurations;
-    private final Map<String, Role> roles = new HashMap<>();
-    private final Set<String> privilegedAccessRoles = new HashSet<>();
-    private final Map<String, Long> aceBySite = new HashMap<>();
     private JahiaGroupManagerService groupService;
     private JahiaUserManagerService userService;
 
@@ -123,15 +125,37 @@ public class AceSanityCheck extends AbstractContentIntegrityCheck implements
         return (int) getConfigurations().getParameter(ACE_COUNT_THRESHOLD_KEY);
     }
 
+    private static class ScanState {
+        private final Map<String, Role> roles = new HashMap<>();
+        private final Set<String> privilegedAccessRoles = new HashSet<>();
+        private final Map<String, Long> aceBySite = new HashMap<>();
+    }
+
+    private ScanState getState() {
+        return getScanState(ScanState::new);
+    }
+
+    @Override
+    public Map<String, String> getCheckpointState() {
+        final Map<String, Long> aceBySite = getState().aceBySite;
+        synchronized (aceBySite) {
+            // The ACE which are not under a site are counted with a null key
+            return aceBySite.entrySet().stream()
+                    .collect(Collectors.toMap(e -> StringUtils.defaultString(e.getKey()), e -> String.valueOf(e.getValue())));
+        }
+    }
+
     @Override
-    protected void reset() {
-        roles.clear();
-        privilegedAccessRoles.clear();
-        aceBySite.clear();
+    public void restoreCheckpointState(Map<String, String> state) {
+        final Map<String, Long> aceBySite = getState().aceBySite;
+        synchronized (aceBySite) {
+            state.forEach((siteKey, count) -> aceBySite.put(StringUtils.defaultIfEmpty(siteKey, null), NumberUtils.toLong(count)));
+        }
     }
 
     @Override
     public void initializeIntegrityTestInternal(JCRNodeWrapper node, Collection<String> excludedPaths) {
+        final ScanState state = getState();
         final JCRSessionWrapper defaultSession = JCRUtils.getSystemSession(EDIT_WORKSPACE, false);
         try {
             processRole(defaultSession.getNode("/roles"), null, true);
@@ -139,14 +163,14 @@ public class AceSanityCheck extends AbstractContentIntegrityCheck implements
             logger.error("Error while loading the available roles", e);
             setScanDurationDisabled(true);
         }
-        roles.values().stream().filter(Role::isPrivileged).map(Role::getName).forEach(privilegedAccessRoles::add);
+        state.roles.values().stream().filter(Role::isPrivileged).map(Role::getName).forEach(state.privilegedAccessRoles::add);
         if (groupService == null) groupService = ServicesRegistry.getInstance().getJahiaGroupManagerService();
         if (userService == null) userService = ServicesRegistry.getInstance().getJahiaUserManagerService();
     }
 
     @Override
     protected ContentIntegrityErrorList finalizeIntegrityTestInternal(JCRNodeWrapper scanRootNode, Collection<String> excludedPaths) {
-        return aceBySite.entrySet().stream()
+        return getState().aceBySite.entrySet().stream()
                 .filter(e -> e.getValue() >= getAceCountThreshold())
                 .map(e -> {
                     final JCRNodeWrapper node = Optional.ofNullable(e.getKey())
@@ -163,7 +187,7 @@ public class AceSanityCheck extends AbstractContentIntegrityCheck implements
         if (!isRootFolder) {
             final Role role = new Role(roleNode);
             if (parentRole != null) {
-                roles.get(parentRole).getExternalPermissions().forEach(role::addExternalPermission);
+                getState().roles.get(parentRole).getExternalPermissions().forEach(role::addExternalPermission);
             }
             for (JCRNodeWrapper extPerm : JCRContentUtils.getNodes(roleNode, JNT_EXTERNAL_PERMISSIONS)) {
                 if (!extPerm.hasProperty(EXTERNAL_PERMISSIONS_PATH)) {
@@ -172,7 +196,7 @@ public class AceSanityCheck extends AbstractContentIntegrityCheck implements
                 }
                 role.addExternalPermission(extPerm.getName(), extPerm.getPropertyAsString(EXTERNAL_PERMISSIONS_PATH));
             }
-            roles.put(role.getName(), role);
+            getState().roles.put(role.getName(), role);
         }
         for (JCRNodeWrapper jcrNodeWrapper : JCRContentUtils.getChildrenOfType(roleNode, JAHIANT_ROLE)) {
             processRole(jcrNodeWrapper, isRootFolder ? null : roleNode.getName(), false);
@@ -181,7 +205,11 @@ public class AceSanityCheck extends AbstractContentIntegrityCheck implements
 
     @Override
     public ContentIntegrityErrorList checkIntegrityBeforeChildren(JCRNodeWrapper node) {
-        final ContentIntegrityErrorList errors = createEmptyErrorsList();
+        return collectErrors(errors -> checkIntegrityBeforeChildren(node, errors));
+    }
+
+    @Override
+    public void checkIntegrityBeforeChildren(JCRNodeWrapper node, ErrorCollector errors) {
         try {
             final boolean isExternalAce = node.isNodeType(JNT_EXTERNAL_ACE);
             checkPrincipalOnAce(node, errors);
@@ -197,13 +225,14 @@ public class AceSanityCheck extends AbstractContentIntegrityCheck implements
             errors.addError(createFrameworkError(node, e));
         }
 
-        final String siteKey = getSiteKey(node.getPath());
-        aceBySite.put(siteKey, Optional.ofNullable(aceBySite.get(siteKey)).map(count -> count + 1).orElse(1L));
-
-        return errors;
+        final String siteKey = getAncestorContext(node).getSiteKey();
+        final Map<String, Long> aceBySite = getState().aceBySite;
+        synchronized (aceBySite) {
+            aceBySite.merge(siteKey, 1L, Long::sum);
+        }
     }
 
-    private void checkExternalAce(JCRNodeWrapper externalAceNode, ContentIntegrityErrorList errors) throws RepositoryException {
+    private void checkExternalAce(JCRNodeWrapper externalAceNode, ErrorCollector errors) throws RepositoryException {
         final String aceType;
         if (!externalAceNode.hasProperty(J_ACE_TYPE)) {
             errors.addError(createError(externalAceNode, NO_ACE_TYPE_PROP, "External ACE without property ".concat(J_ACE_TYPE)));
@@ -271,10 +300,10 @@ public class AceSanityCheck extends AbstractContentIntegrityCheck implements
 
                             final Map<String, String> roleExternalPermissions;
                             final String externalPermissionsName;
-                            if (!roles.containsKey(role)) {
+                            if (!getState().roles.containsKey(role)) {
                                 errors.addError(createError(externalAceNode, ROLE_DOESNT_EXIST, "External ACE defined for a role which does not exist")
                                         .addExtraInfo("role", role));
-                            } else if (!(roleExternalPermissions = roles.get(role).getExternalPermissions())
+                            } else if (!(roleExternalPermissions = getState().roles.get(role).getExternalPermissions())
                                     .containsKey(externalPermissionsName = externalAceNode.getPropertyAsString(J_EXTERNAL_PERMISSIONS_NAME))) {
                                 errors.addError(createError(externalAceNode, INVALID_EXTERNAL_PERMISSIONS)
                                         .addExtraInfo("role", role)
@@ -324,7 +353,7 @@ public class AceSanityCheck extends AbstractContentIntegrityCheck implements
         }
     }
 
-    private List<String> getRoleNames(JCRNodeWrapper ace, ContentIntegrityErrorList errors, JCRNodeWrapper checkedNode) throws RepositoryException {
+    private List<String> getRoleNames(JCRNodeWrapper ace, ErrorCollector errors, JCRNodeWrapper checkedNode) throws RepositoryException {
         return Arrays.stream(ace.getProperty(J_ROLES).getValues()).map(jcrValueWrapper -> {
             try {
                 return jcrValueWrapper.getString();
@@ -339,7 +368,7 @@ public class AceSanityCheck extends AbstractContentIntegrityCheck implements
         }).filter(Objects::nonNull).sorted().collect(Collectors.toList());
     }
 
-    private void checkRegularAce(JCRNodeWrapper aceNode, ContentIntegrityErrorList errors) throws RepositoryException {
+    private void checkRegularAce(JCRNodeWrapper aceNode, ErrorCollector errors) throws RepositoryException {
         final boolean isGrantAce;
         final String aceType;
         if (!aceNode.hasProperty(J_ACE_TYPE)) {
@@ -353,11 +382,11 @@ public class AceSanityCheck extends AbstractContentIntegrityCheck implements
 
         if (aceNode.hasProperty(J_ROLES)) {
             for (String roleName : getRoleNames(aceNode, errors, aceNode)) {
-                if (!roles.containsKey(roleName)) {
+                if (!getState().roles.containsKey(roleName)) {
                     errors.addError(createError(aceNode, ROLE_DOESNT_EXIST, "ACE with a role that doesn't exist")
                             .addExtraInfo("role", roleName));
                 } else if (isGrantAce) {
-                    final Role role = roles.get(roleName);
+                    final Role role = getState().roles.get(roleName);
                     for (String extPerm : role.getExternalPermissions().keySet()) {
                         final PropertyIterator references = aceNode.getWeakReferences();
                         boolean extAceFound = false;
@@ -400,14 +429,14 @@ public class AceSanityCheck extends AbstractContentIntegrityCheck implements
         }
     }
 
-    private void checkPrincipalOnAce(JCRNodeWrapper node, ContentIntegrityErrorList errors) throws RepositoryException {
+    private void checkPrincipalOnAce(JCRNodeWrapper node, ErrorCollector errors) throws RepositoryException {
         if (!node.hasProperty(J_PRINCIPAL)) {
             errors.addError(createError(node, NO_PRINCIPAL));
             return;
         }
 
         final String principal = node.getProperty(J_PRINCIPAL).getString();
-        final JCRSiteNode site = node.getResolveSite();
+        final JCRSiteNode site = getAncestorContext(node).getSite();
         final String siteKey = site == null ? null : site.getSiteKey();
         final JCRNodeWrapper principalNode = getPrincipal(siteKey, principal);
         if (principalNode == null) {
@@ -432,7 +461,7 @@ public class AceSanityCheck extends AbstractContentIntegrityCheck implements
         return p;
     }
 
-    private void checkAceNodeName(JCRNodeWrapper ace, boolean isExternal, ContentIntegrityErrorList errors) {
+    private void checkAceNodeName(JCRNodeWrapper ace, boolean isExternal, ErrorCollector errors) {
         final String expectedNodeName;
 
         if (isExternal) {
@@ -456,7 +485,7 @@ public class AceSanityCheck extends AbstractContentIntegrityCheck implements
         }
     }
 
-    private void checkRolesProp(JCRNodeWrapper node, boolean isExternal, ContentIntegrityErrorList errors) throws RepositoryException {
+    private void checkRolesProp(JCRNodeWrapper node, boolean isExternal, ErrorCollector errors) throws RepositoryException {
         if (!node.hasProperty(J_ROLES)) {
             errors.addError(createError(node, NO_ROLES_PROP, String.format("%sExternal ACE without property j:roles", isExternal ? "External ACE" : "ACE")));
             return;
@@ -468,8 +497,8 @@ public class AceSanityCheck extends AbstractContentIntegrityCheck implements
             JCRGroupNode sitePrivGroup = null;
             JCRNodeWrapper principal = null;
             for (String role : getRoleNames(node, errors, node)) {
-                if (privilegedAccessRoles.contains(role)) {
-                    if (site == null) site = node.getResolveSite();
+                if (getState().privilegedAccessRoles.contains(role)) {
+                    if (site == null) site = getAncestorContext(node).getSite();
                     if (site == null) {
                         errors.addError(createFrameworkError(node, "Impossible to calculate the site for " + node.getCanonicalPath()));
                         break;
@@ -7,6 +7,7 @@ import org.jahia.modules.contentintegrity.api.ContentIntegrityCheckConfiguration
 import org.jahia.modules.contentintegrity.api.ContentIntegrityError;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorList;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorType;
+import org.jahia.modules.contentintegrity.api.NodeSnapshot;
 import org.jahia.modules.contentintegrity.services.impl.AbstractContentIntegrityCheck;
 import org.jahia.modules.contentintegrity.services.impl.Constants;
 import org.jahia.modules.contentintegrity.services.impl.ContentIntegrityCheckConfigurationImpl;
@@ -18,7 +19,6 @@ import org.slf4j.LoggerFactory;
 
 import javax.jcr.Binary;
 import javax.jcr.Property;
-import javax.jcr.PropertyIterator;
 import javax.jcr.PropertyType;
 import javax.jcr.RepositoryException;
 import java.io.IOException;
@@ -27,7 +27,11 @@ import java.io.InputStream;
 import static org.jahia.modules.contentintegrity.services.impl.ContentIntegrityCheckConfigurationImpl.BOOLEAN_PARSER;
 
 @Component(service = ContentIntegrityCheck.class, immediate = true)
-public class BinaryPropertiesSanityCheck extends AbstractContentIntegrityCheck implements ContentIntegrityCheck.IsConfigurable {
+public class BinaryPropertiesSanityCheck extends AbstractContentIntegrityCheck implements
+        ContentIntegrityCheck.IsConfigurable,
+        ContentIntegrityCheck.SupportsParallelScan,
+        ContentIntegrityCheck.SupportsUnorderedScan,
+        ContentIntegrityCheck.SupportsNodeSnapshot {
 
     private static final Logger logger = LoggerFactory.getLogger(BinaryPropertiesSanityCheck.class);
     private static final String DOWNLOAD_STREAM = "download-stream";
@@ -58,17 +62,21 @@ public class BinaryPropertiesSanityCheck extends AbstractContentIntegrityCheck i
 
     @Override
     public ContentIntegrityErrorList checkIntegrityBeforeChildren(JCRNodeWrapper node) {
+        return checkIntegrityBeforeChildren(new NodeSnapshot(node));
+    }
+
+    @Override
+    public ContentIntegrityErrorList checkIntegrityBeforeChildren(NodeSnapshot snapshot) {
+        final JCRNodeWrapper node = snapshot.getNode();
         final ContentIntegrityErrorList errors = createEmptyErrorsList();
         try {
-            final PropertyIterator properties = node.getProperties();
-
             Property property;
             boolean isValid;
             final boolean acceptZeroByteBinaries = acceptZeroByteBinaries();
             final boolean downloadStream = downloadStream();
-            while (properties.hasNext()) {
-                property = properties.nextProperty();
-                if (property.getType() != PropertyType.BINARY) continue;
+            for (NodeSnapshot.PropertySnapshot propertySnapshot : snapshot.getProperties().values()) {
+                if (propertySnapshot.getType() != PropertyType.BINARY) continue;
+                property = propertySnapshot.getProperty();
                 final Binary binary = property.getBinary();
                 final long size = binary.getSize();
                 if (downloadStream) {
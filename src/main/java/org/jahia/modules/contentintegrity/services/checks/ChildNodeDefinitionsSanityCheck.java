@@ -5,23 +5,23 @@ import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorList;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorType;
 import org.jahia.modules.contentintegrity.services.impl.AbstractContentIntegrityCheck;
 import org.jahia.modules.contentintegrity.services.impl.Constants;
+import org.jahia.modules.contentintegrity.services.util.EffectiveDefinitions;
 import org.jahia.services.content.JCRNodeWrapper;
-import org.jahia.services.content.nodetypes.ExtendedNodeType;
 import org.osgi.service.component.annotations.Component;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.jcr.RepositoryException;
 import javax.jcr.nodetype.ConstraintViolationException;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Component(service = ContentIntegrityCheck.class, immediate = true, property = {
         ContentIntegrityCheck.ExecutionCondition.SKIP_ON_NT + "=rep:root"
 })
-public class ChildNodeDefinitionsSanityCheck extends AbstractContentIntegrityCheck {
+public class ChildNodeDefinitionsSanityCheck extends AbstractContentIntegrityCheck implements
+        ContentIntegrityCheck.SupportsParallelScan,
+        // The definition of the parent node can change without modifying the node
+        ContentIntegrityCheck.RequiresFullScan {
 
     private static final Logger logger = LoggerFactory.getLogger(ChildNodeDefinitionsSanityCheck.class);
 
@@ -38,13 +38,10 @@ public class ChildNodeDefinitionsSanityCheck extends AbstractContentIntegrityChe
             so that the node can accept translation sub nodes, no matter the definition.
             If not, let's continue with the regular test, in case such subnode would be anyway allowed, by another mean that jmix:i18n
              */
-            if (node.isNodeType(Constants.JAHIANT_TRANSLATION) && parent.isNodeType(Constants.JAHIA_MIX_I18N)) return null;
+            final EffectiveDefinitions definitions = getEffectiveDefinitions(node);
+            if (definitions.isNodeType(Constants.JAHIANT_TRANSLATION) && getEffectiveDefinitions(parent).isNodeType(Constants.JAHIA_MIX_I18N)) return null;
 
-            final List<String> types = new ArrayList<>();
-            types.add(node.getPrimaryNodeTypeName());
-            types.addAll(Arrays.stream(node.getMixinNodeTypes())
-                    .map(ExtendedNodeType::getName)
-                    .collect(Collectors.toList()));
+            final List<String> types = definitions.getNodeTypeNames();
             final String name = node.getName();
             final ContentIntegrityErrorList errors = createEmptyErrorsList();
             if (types.stream().noneMatch(type -> isChildAllowed(parent, name, type, errors, node)))
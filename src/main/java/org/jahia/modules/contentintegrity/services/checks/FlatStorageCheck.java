@@ -4,6 +4,7 @@ import org.jahia.modules.contentintegrity.api.ContentIntegrityCheck;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityCheckConfiguration;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorList;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorType;
+import org.jahia.modules.contentintegrity.api.NodeSnapshot;
 import org.jahia.modules.contentintegrity.services.Utils;
 import org.jahia.modules.contentintegrity.services.impl.AbstractContentIntegrityCheck;
 import org.jahia.modules.contentintegrity.services.impl.ContentIntegrityCheckConfigurationImpl;
@@ -17,7 +18,10 @@ import javax.jcr.RepositoryException;
 @Component(service = ContentIntegrityCheck.class, immediate = true, property = {
         ContentIntegrityCheck.PRIORITY + "=0" // For performances purpose, the result of getNodes() will be stored in the JR low level cache and will fasten any other check using it as well
 })
-public class FlatStorageCheck extends AbstractContentIntegrityCheck implements ContentIntegrityCheck.IsConfigurable {
+public class FlatStorageCheck extends AbstractContentIntegrityCheck implements
+        ContentIntegrityCheck.IsConfigurable,
+        ContentIntegrityCheck.SupportsParallelScan,
+        ContentIntegrityCheck.SupportsNodeSnapshot {
 
     private static final Logger logger = LoggerFactory.getLogger(FlatStorageCheck.class);
 
@@ -35,8 +39,14 @@ public class FlatStorageCheck extends AbstractContentIntegrityCheck implements C
 
     @Override
     public ContentIntegrityErrorList checkIntegrityBeforeChildren(JCRNodeWrapper node) {
+        return checkIntegrityBeforeChildren(new NodeSnapshot(node));
+    }
+
+    @Override
+    public ContentIntegrityErrorList checkIntegrityBeforeChildren(NodeSnapshot snapshot) {
+        final JCRNodeWrapper node = snapshot.getNode();
         try {
-            final long size = node.getNodes().getSize();
+            final long size = snapshot.getChildrenCount();
             final int threshold = getThreshold();
             if (size > threshold)
                 return createSingleError(createError(node, TOO_MANY_CHILD_NODES, String.format("The node has over %s children", threshold))
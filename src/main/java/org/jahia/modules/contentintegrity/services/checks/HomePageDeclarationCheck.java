@@ -29,7 +29,11 @@ import static org.jahia.modules.contentintegrity.services.impl.Constants.JAHIANT
         ContentIntegrityCheck.ExecutionCondition.APPLY_ON_NT + "=" + Constants.JAHIANT_VIRTUALSITE,
         ContentIntegrityCheck.ExecutionCondition.APPLY_ON_SUBTREES + "=" + "/sites"
 })
-public class HomePageDeclarationCheck extends AbstractContentIntegrityCheck implements ContentIntegrityCheck.SupportsIntegrityErrorFix {
+public class HomePageDeclarationCheck extends AbstractContentIntegrityCheck implements
+        ContentIntegrityCheck.SupportsIntegrityErrorFix,
+        ContentIntegrityCheck.SupportsParallelScan,
+        // The site is checked from the flags of its pages, which can change without modifying the site node
+        ContentIntegrityCheck.RequiresFullScan {
 
     private static final Logger logger = LoggerFactory.getLogger(HomePageDeclarationCheck.class);
 
@@ -18,7 +18,7 @@ import static org.jahia.modules.contentintegrity.services.impl.Constants.JCR_LAN
 @Component(service = ContentIntegrityCheck.class, immediate = true, property = {
         ContentIntegrityCheck.ExecutionCondition.APPLY_ON_NT + "=" + Constants.JAHIANT_TRANSLATION
 })
-public class JCRLanguagePropertyCheck extends AbstractContentIntegrityCheck {
+public class JCRLanguagePropertyCheck extends AbstractContentIntegrityCheck implements ContentIntegrityCheck.SupportsParallelScan {
 
     private static final Logger logger = LoggerFactory.getLogger(JCRLanguagePropertyCheck.class);
 
@@ -26,7 +26,12 @@ import static org.jahia.modules.contentintegrity.services.impl.Constants.J_LOCK_
         ContentIntegrityCheck.ExecutionCondition.APPLY_ON_WS + "=" + Constants.EDIT_WORKSPACE,
         ContentIntegrityCheck.ExecutionCondition.APPLY_IF_HAS_PROP + "=" + J_LOCK_TYPES + "," + J_LOCKTOKEN + "," + JCR_LOCKISDEEP + "," + JCR_LOCKOWNER
 })
-public class LockSanityCheck extends AbstractContentIntegrityCheck {
+public class LockSanityCheck extends AbstractContentIntegrityCheck implements
+        ContentIntegrityCheck.SupportsParallelScan,
+        ContentIntegrityCheck.SupportsUnorderedScan,
+        ContentIntegrityCheck.SupportsQueryScan,
+        // The parent node can be marked for deletion without modifying the node
+        ContentIntegrityCheck.RequiresFullScan {
 
     private static final Logger logger = LoggerFactory.getLogger(LockSanityCheck.class);
 
@@ -1,5 +1,6 @@
 package org.jahia.modules.contentintegrity.services.checks;
 
+import org.jahia.modules.contentintegrity.api.AncestorContext;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityCheck;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorList;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorType;
@@ -18,35 +19,30 @@ import javax.jcr.RepositoryException;
         ContentIntegrityCheck.ExecutionCondition.SKIP_ON_NT + "=" + Constants.JAHIAMIX_MARKED_FOR_DELETION_ROOT,
         ContentIntegrityCheck.ExecutionCondition.APPLY_ON_NT + "=" + Constants.JAHIAMIX_MARKED_FOR_DELETION
 })
-public class MarkForDeletionCheck extends AbstractContentIntegrityCheck {
+public class MarkForDeletionCheck extends AbstractContentIntegrityCheck implements
+        ContentIntegrityCheck.SupportsParallelScan,
+        ContentIntegrityCheck.SupportsQueryScan,
+        // The ancestors can be marked for deletion or unmarked without modifying the node
+        ContentIntegrityCheck.RequiresFullScan {
 
     private static final Logger logger = LoggerFactory.getLogger(MarkForDeletionCheck.class);
     public static final ContentIntegrityErrorType NO_ROOT_DELETION = createErrorType("NO_ROOT_DELETION", "The node is flagged as deleted, but the root of the deletion can't be found", true);
 
     @Override
     public ContentIntegrityErrorList checkIntegrityBeforeChildren(JCRNodeWrapper node) {
-        boolean isConsistent = true;
-        JCRNodeWrapper parent = node;
+        boolean isConsistent;
         try {
-            while (true) {
-                try {
-                    parent = parent.getParent();
-                } catch (ItemNotFoundException e) {
-                    isConsistent = false;
-                    break;
-                }
-                if (!parent.isNodeType("jmix:markedForDeletion")) {
-                    isConsistent = false;
-                    break;
-                }
-                if (parent.isNodeType("jmix:markedForDeletionRoot")) break;
-            }
-            if (!isConsistent) {
-                return createSingleError(createError(node, NO_ROOT_DELETION));
-            }
+            // All the ancestors up to the root of the deletion have to be flagged as deleted
+            final AncestorContext parentContext = getAncestorContext(node).getParent();
+            isConsistent = parentContext != null && parentContext.getMarkedForDeletionRoot() != null;
+        } catch (ItemNotFoundException e) {
+            isConsistent = false;
         } catch (RepositoryException e) {
             return createSingleError(createFrameworkError(node, e));
         }
+        if (!isConsistent) {
+            return createSingleError(createError(node, NO_ROOT_DELETION));
+        }
         return null;
     }
 }
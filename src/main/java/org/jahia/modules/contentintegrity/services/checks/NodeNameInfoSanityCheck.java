@@ -23,7 +23,11 @@ import static org.jahia.modules.contentintegrity.services.impl.ContentIntegrityC
 @Component(service = ContentIntegrityCheck.class, immediate = true, property = {
         ContentIntegrityCheck.ExecutionCondition.APPLY_ON_NT + "=" + Constants.JAHIAMIX_NODENAMEINFO
 })
-public class NodeNameInfoSanityCheck extends AbstractContentIntegrityCheck implements ContentIntegrityCheck.IsConfigurable {
+public class NodeNameInfoSanityCheck extends AbstractContentIntegrityCheck implements
+        ContentIntegrityCheck.IsConfigurable,
+        ContentIntegrityCheck.SupportsParallelScan,
+        // The expected full path changes when an ancestor is moved or when the node is published, without modifying the node
+        ContentIntegrityCheck.RequiresFullScan {
 
     private static final Logger logger = LoggerFactory.getLogger(NodeNameInfoSanityCheck.class);
     private static final String CHECK_FULLPATH = "check-fullpath";
@@ -4,6 +4,7 @@ import org.apache.commons.lang.StringUtils;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityCheck;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorList;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorType;
+import org.jahia.modules.contentintegrity.services.Utils;
 import org.jahia.modules.contentintegrity.services.impl.AbstractContentIntegrityCheck;
 import org.jahia.modules.contentintegrity.services.impl.JCRUtils;
 import org.jahia.services.content.JCRNodeWrapper;
@@ -15,16 +16,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.jcr.RepositoryException;
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.jahia.modules.contentintegrity.services.impl.Constants.JAHIANT_VIRTUALSITE;
 
 @Component(service = ContentIntegrityCheck.class, immediate = true, property = {
         ContentIntegrityCheck.ExecutionCondition.APPLY_ON_NT + "=jmix:hasTemplateNode," + JAHIANT_VIRTUALSITE
 })
-public class PagesSanityCheck extends AbstractContentIntegrityCheck {
+public class PagesSanityCheck extends AbstractContentIntegrityCheck implements
+        ContentIntegrityCheck.SupportsParallelScan {
 
     private static final Logger logger = LoggerFactory.getLogger(PagesSanityCheck.class);
 
@@ -34,14 +35,11 @@ public class PagesSanityCheck extends AbstractContentIntegrityCheck {
 
     public static final ContentIntegrityErrorType MISSING_TEMPLATE = createErrorType("MISSING_TEMPLATE", "Missing template", true);
 
-    private final Set<String> templates = new HashSet<>();
-    private final Set<String> missingTemplates = new HashSet<>();
-
     @Override
     public ContentIntegrityErrorList checkIntegrityBeforeChildren(JCRNodeWrapper node) {
         final String templateName;
         if (JCRUtils.runJcrCallBack(JAHIANT_VIRTUALSITE, node::isNodeType)) {
-            clearCaches();
+            clearCache(node);
             templateName = getTemplateName(node, SITE_DEFAULT_TEMPLATE_NAME);
             if (StringUtils.isBlank(templateName))
                 return null;
@@ -61,37 +59,43 @@ public class PagesSanityCheck extends AbstractContentIntegrityCheck {
     @Override
     public ContentIntegrityErrorList checkIntegrityAfterChildren(JCRNodeWrapper node) {
         if (JCRUtils.runJcrCallBack(JAHIANT_VIRTUALSITE, node::isNodeType)) {
-            clearCaches();
+            clearCache(node);
         }
         return null;
     }
 
-    @Override
-    protected void reset() {
-        clearCaches();
+    /*
+    Validity of the templates, by site key. Each site has its own cache, so that the sites can be scanned concurrently
+     */
+    private Map<String, Map<String, Boolean>> getTemplatesBySite() {
+        return getScanState(ConcurrentHashMap::new);
     }
 
     private boolean isTemplateValid(String templateName, JCRNodeWrapper node, ContentIntegrityErrorList errors) {
-        if (templates.contains(templateName)) return true;
-        if (missingTemplates.contains(templateName)) return false;
+        final Map<String, Boolean> templates = getTemplatesBySite().computeIfAbsent(getCacheKey(node), k -> new ConcurrentHashMap<>());
+        final Boolean isValid = templates.get(templateName);
+        if (isValid != null) return isValid;
 
         final Resource resource = new Resource(node, TEMPLATE_TYPE_HTML, null, null);
         final RenderContext renderContext = new RenderContext(null, null, null);
         try {
             if (RenderService.getInstance().resolveTemplate(resource, renderContext) != null) {
-                templates.add(templateName);
+                templates.put(templateName, Boolean.TRUE);
                 return true;
             }
         } catch (RepositoryException e) {
             errors.addError(createFrameworkError(node, e));
         }
-        missingTemplates.add(templateName);
+        templates.put(templateName, Boolean.FALSE);
         return false;
     }
 
-    private void clearCaches() {
-        templates.clear();
-        missingTemplates.clear();
+    private void clearCache(JCRNodeWrapper siteNode) {
+        getTemplatesBySite().remove(getCacheKey(siteNode));
+    }
+
+    private String getCacheKey(JCRNodeWrapper node) {
+        return StringUtils.defaultString(Utils.getSiteKey(node.getPath()));
     }
 
     private String getTemplateName(JCRNodeWrapper node, String propertyName) {
@@ -10,11 +10,12 @@ import org.jahia.modules.contentintegrity.api.ContentIntegrityCheckConfiguration
 import org.jahia.modules.contentintegrity.api.ContentIntegrityError;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorList;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorType;
-import org.jahia.modules.contentintegrity.services.Utils;
+import org.jahia.modules.contentintegrity.api.ErrorCollector;
 import org.jahia.modules.contentintegrity.services.impl.AbstractContentIntegrityCheck;
 import org.jahia.modules.contentintegrity.services.impl.Constants;
 import org.jahia.modules.contentintegrity.services.impl.ContentIntegrityCheckConfigurationImpl;
 import org.jahia.modules.contentintegrity.services.impl.JCRUtils;
+import org.jahia.modules.contentintegrity.services.util.EffectiveDefinitions;
 import org.jahia.modules.external.ExternalNodeImpl;
 import org.jahia.services.content.JCRNodeWrapper;
 import org.jahia.services.content.JCRPropertyWrapper;
@@ -47,15 +48,14 @@ import javax.validation.groups.Default;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
@@ -64,7 +64,9 @@ import static org.jahia.modules.contentintegrity.services.impl.Constants.JAHIANT
 @Component(service = ContentIntegrityCheck.class, immediate = true, property = {
         ContentIntegrityCheck.ExecutionCondition.SKIP_ON_NT + "=" + JAHIANT_TRANSLATION
 })
-public class PropertyDefinitionsSanityCheck extends AbstractContentIntegrityCheck implements ContentIntegrityCheck.IsConfigurable {
+public class PropertyDefinitionsSanityCheck extends AbstractContentIntegrityCheck implements
+        ContentIntegrityCheck.IsConfigurable,
+        ContentIntegrityCheck.SupportsParallelScan {
 
     private static final Logger logger = LoggerFactory.getLogger(PropertyDefinitionsSanityCheck.class);
 
@@ -83,10 +85,13 @@ public class PropertyDefinitionsSanityCheck extends AbstractContentIntegrityChec
 
     private final ContentIntegrityCheckConfiguration configurations;
 
-    private ExtendedNodeType jntTranslationNt;
-    private final Map<String, Boolean> jntTranslationNtParents = new HashMap<>();
-    private Map<String, Constructor<?>> validators;
-    private LocalValidatorFactoryBean validatorFactoryBean;
+    /*
+    Loaded when a scan starts. Those are not related to the scan, so they are shared by the scans running at the same time
+     */
+    private volatile ExtendedNodeType jntTranslationNt;
+    private final Map<String, Boolean> jntTranslationNtParents = new ConcurrentHashMap<>();
+    private volatile Map<String, Constructor<?>> validators;
+    private volatile LocalValidatorFactoryBean validatorFactoryBean;
 
     public PropertyDefinitionsSanityCheck() {
         configurations = new ContentIntegrityCheckConfigurationImpl();
@@ -109,10 +114,7 @@ public class PropertyDefinitionsSanityCheck extends AbstractContentIntegrityChec
 
     @Override
     protected void reset() {
-        jntTranslationNt = null;
         jntTranslationNtParents.clear();
-        validators = null;
-        validatorFactoryBean = null;
     }
 
     @Override
@@ -130,16 +132,17 @@ public class PropertyDefinitionsSanityCheck extends AbstractContentIntegrityChec
 
     @Override
     public ContentIntegrityErrorList checkIntegrityBeforeChildren(JCRNodeWrapper node) {
-        final ContentIntegrityErrorList errors = createEmptyErrorsList();
+        return collectErrors(errors -> checkIntegrityBeforeChildren(node, errors));
+    }
 
+    @Override
+    public void checkIntegrityBeforeChildren(JCRNodeWrapper node, ErrorCollector errors) {
         checkMandatoryProperties(node, errors);
         checkExistingProperties(node, errors);
         checkNodeValidators(node, errors);
-
-        return errors;
     }
 
-    private void checkNodeValidators(JCRNodeWrapper node, ContentIntegrityErrorList errors) {
+    private void checkNodeValidators(JCRNodeWrapper node, ErrorCollector errors) {
         if (!checkNodeValidators()) return;
         if (MapUtils.isEmpty(validators)) return;
         final AtomicBoolean nodeHasBeenChecked = new AtomicBoolean(false);
@@ -157,7 +160,7 @@ public class PropertyDefinitionsSanityCheck extends AbstractContentIntegrityChec
         if (!nodeHasBeenChecked.get()) JCRUtils.runJcrSupplierCallBack(() -> checkNodeValidators(node, null, errors));
     }
 
-    private Void checkNodeValidators(JCRNodeWrapper node, String locale, ContentIntegrityErrorList errors) throws RepositoryException {
+    private Void checkNodeValidators(JCRNodeWrapper node, String locale, ErrorCollector errors) throws RepositoryException {
         final JCRNodeWrapper checkedNode = locale == null ? node :
                 JCRUtils.runJcrSupplierCallBack(() -> JCRUtils.getSystemSession(node.getSession(), locale).getNode(node.getPath()), null, false);
         if (checkedNode == null) return null;
@@ -179,7 +182,7 @@ public class PropertyDefinitionsSanityCheck extends AbstractContentIntegrityChec
         return null;
     }
 
-    private Object createValidatorInstance(Constructor<?> constructor, JCRNodeWrapper node, ContentIntegrityErrorList errors) {
+    private Object createValidatorInstance(Constructor<?> constructor, JCRNodeWrapper node, ErrorCollector errors) {
         try {
             return constructor.newInstance(node);
         } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
@@ -188,50 +191,34 @@ public class PropertyDefinitionsSanityCheck extends AbstractContentIntegrityChec
         }
     }
 
-    private void checkMandatoryProperties(JCRNodeWrapper node, ContentIntegrityErrorList errors) {
-        final Map<String, String> checkedProperties = new HashMap<>();
-        doOnSupertypes(node, new SupertypeProcessor() {
-            @Override
-            public void execute(JCRNodeWrapper node, ExtendedNodeType extendedNodeType) throws RepositoryException {
-                checkMandatoryPropertiesForType(node, extendedNodeType, checkedProperties, errors);
-            }
-        }, errors, node);
-    }
-
-    private void checkMandatoryPropertiesForType(JCRNodeWrapper node, ExtendedNodeType nodeType, Map<String, String> checkedProperties, ContentIntegrityErrorList errors) throws RepositoryException {
-        final String nodeTypeName = nodeType.getName();
-        final ExtendedPropertyDefinition[] extendedPropertyDefinitions = nodeType.getPropertyDefinitions();
-        for (ExtendedPropertyDefinition propertyDefinition : extendedPropertyDefinitions) {
-            final String propertyDefinitionName = propertyDefinition.getName();
-            if (StringUtils.equals(propertyDefinitionName, Constants.PROPERTY_DEFINITION_NAME_WILDCARD)) continue;
-            if (checkedProperties.containsKey(propertyDefinitionName)) {
-                if (logger.isDebugEnabled()) {
-                    logger.debug(String.format("Already encountered the property %s when checking the type %s on the node %s",
-                            propertyDefinitionName, checkedProperties.get(propertyDefinitionName), node.getIdentifier()));
+    private void checkMandatoryProperties(JCRNodeWrapper node, ErrorCollector errors) {
+        final EffectiveDefinitions definitions = getEffectiveDefinitions(node, errors);
+        if (definitions == null) return;
+
+        try {
+            for (ExtendedPropertyDefinition propertyDefinition : definitions.getMandatoryPropertyDefinitions()) {
+                final String propertyDefinitionName = propertyDefinition.getName();
+                if (propertyDefinition.isInternationalized()) {
+                    doOnTranslationNodes(node, new TranslationNodeProcessor() {
+                        @Override
+                        public void execute(Node translationNode, String locale) throws RepositoryException {
+                            checkMandatoryProperty(node, translationNode, propertyDefinitionName, propertyDefinition, locale, errors);
+                        }
+                    }, errors, node);
+                } else {
+                    final Node realNode = getRealNode(node, errors, node);
+                    if (realNode != null)
+                        checkMandatoryProperty(node, realNode, propertyDefinitionName, propertyDefinition, null, errors);
                 }
-                continue;
-            }
-            checkedProperties.put(propertyDefinitionName, nodeTypeName);
-            if (!propertyDefinition.isMandatory()) continue;
-
-            if (propertyDefinition.isInternationalized()) {
-                doOnTranslationNodes(node, new TranslationNodeProcessor() {
-                    @Override
-                    public void execute(Node translationNode, String locale) throws RepositoryException {
-                        checkMandatoryProperty(node, translationNode, propertyDefinitionName, propertyDefinition, locale, errors);
-                    }
-                }, errors, node);
-            } else {
-                final Node realNode = getRealNode(node, errors, node);
-                if (realNode != null)
-                    checkMandatoryProperty(node, realNode, propertyDefinitionName, propertyDefinition, null, errors);
             }
+        } catch (RepositoryException e) {
+            errors.addError(createFrameworkError(node, "Error while checking the node " + node.getPath(), e));
         }
     }
 
     private void checkMandatoryProperty(JCRNodeWrapper node, Node propertyNode, String pName,
                                         ExtendedPropertyDefinition propertyDefinition, String locale,
-                                        ContentIntegrityErrorList errors) throws RepositoryException {
+                                        ErrorCollector errors) throws RepositoryException {
         if (StringUtils.equals(pName, Constants.PROPERTY_DEFINITION_NAME_WILDCARD)) return;
         if (!propertyDefinition.isMandatory()) return;
         if (node.getRealNode() instanceof ExternalNodeImpl) {
@@ -280,21 +267,21 @@ public class PropertyDefinitionsSanityCheck extends AbstractContentIntegrityChec
         return value.getString().length() <= 0;
     }
 
-    private void checkExistingProperties(JCRNodeWrapper node, ContentIntegrityErrorList errors) {
-        final Map<String, ExtendedPropertyDefinition> namedPropertyDefinitions = new HashMap<>();
-        final Map<Integer, ExtendedPropertyDefinition> unstructuredPropertyDefinitions = new HashMap<>();
-        loadPropertyDefinitions(node, namedPropertyDefinitions, unstructuredPropertyDefinitions, errors);
+    private void checkExistingProperties(JCRNodeWrapper node, ErrorCollector errors) {
+        final EffectiveDefinitions definitions = getEffectiveDefinitions(node, errors);
+        if (definitions == null) return;
+        final Map<Integer, ExtendedPropertyDefinition> unstructuredPropertyDefinitions = definitions.getUnstructuredPropertyDefinitions();
 
         try {
             final Node realNode = getRealNode(node, errors, node);
             if (realNode == null)
                 return;
 
-            checkExistingPropertiesInternal(realNode, null, node, namedPropertyDefinitions, unstructuredPropertyDefinitions, errors);
+            checkExistingPropertiesInternal(realNode, null, node, definitions.getNamedPropertyDefinitions(), unstructuredPropertyDefinitions, errors);
             doOnTranslationNodes(node, new TranslationNodeProcessor() {
                 @Override
                 public void execute(Node translationNode, String locale) throws RepositoryException {
-                    loadPropertyDefinitions(node.getSession().getNodeByUUID(translationNode.getIdentifier()), namedPropertyDefinitions, null, errors);
+                    final Map<String, ExtendedPropertyDefinition> namedPropertyDefinitions = definitions.getNamedPropertyDefinitions(getEffectiveDefinitions(translationNode));
                     checkExistingPropertiesInternal(translationNode, locale, node, namedPropertyDefinitions, unstructuredPropertyDefinitions, errors);
                 }
             }, errors, node);
@@ -303,29 +290,19 @@ public class PropertyDefinitionsSanityCheck extends AbstractContentIntegrityChec
         }
     }
 
-    private void loadPropertyDefinitions(JCRNodeWrapper node,
-                                         Map<String, ExtendedPropertyDefinition> namedPropertyDefinitions,
-                                         Map<Integer, ExtendedPropertyDefinition> unstructuredPropertyDefinitions,
-                                         ContentIntegrityErrorList errors) {
-
-        doOnSupertypes(node, true, new SupertypeProcessor() {
-            @Override
-            public void execute(JCRNodeWrapper node, ExtendedNodeType extendedNodeType) {
-                namedPropertyDefinitions.putAll(extendedNodeType.getPropertyDefinitionsAsMap());
-                if (unstructuredPropertyDefinitions == null) return;
-                for (ExtendedPropertyDefinition propertyDefinition : extendedNodeType.getPropertyDefinitions()) {
-                    if (StringUtils.equals(propertyDefinition.getName(), Constants.PROPERTY_DEFINITION_NAME_WILDCARD)) {
-                        unstructuredPropertyDefinitions.put(getExtendedPropertyType(propertyDefinition), propertyDefinition);
-                    }
-                }
-            }
-        }, errors, node);
+    private EffectiveDefinitions getEffectiveDefinitions(JCRNodeWrapper node, ErrorCollector errors) {
+        try {
+            return getEffectiveDefinitions(node);
+        } catch (RepositoryException e) {
+            errors.addError(createFrameworkError(node, "Impossible to load the types of the node", e));
+            return null;
+        }
     }
 
     private void checkExistingPropertiesInternal(Node node, String locale, JCRNodeWrapper jahiaNode,
                                                  Map<String, ExtendedPropertyDefinition> namedPropertyDefinitions,
                                                  Map<Integer, ExtendedPropertyDefinition> unstructuredPropertyDefinitions,
-                                                 ContentIntegrityErrorList errors) throws RepositoryException {
+                                                 ErrorCollector errors) throws RepositoryException {
         if (node instanceof JCRNodeWrapper) throw new IllegalArgumentException("This method has to be executed on the real node");
 
         final boolean isI18n = StringUtils.isNotBlank(locale);
@@ -422,7 +399,7 @@ public class PropertyDefinitionsSanityCheck extends AbstractContentIntegrityChec
         }
     }
 
-    private void checkPropertyConstraints(Property property, String locale, ExtendedPropertyDefinition epd, JCRNodeWrapper jahiaNode, ContentIntegrityErrorList errors) throws RepositoryException {
+    private void checkPropertyConstraints(Property property, String locale, ExtendedPropertyDefinition epd, JCRNodeWrapper jahiaNode, ErrorCollector errors) throws RepositoryException {
         final boolean hasConstraints = epd.getValueConstraints() != null && epd.getValueConstraints().length > 0;
         if (!hasConstraints) return;
 
@@ -441,14 +418,14 @@ public class PropertyDefinitionsSanityCheck extends AbstractContentIntegrityChec
     private void checkValue(Value value, int valueIdx,
                                String pName, ExtendedPropertyDefinition epd,
                                JCRNodeWrapper jahiaNode, String locale,
-                               ContentIntegrityErrorList errors) throws RepositoryException {
+                               ErrorCollector errors) throws RepositoryException {
         if (isValueEmpty(value)) return;
         if (!constraintIsValid(value, epd, errors, jahiaNode)) {
             trackInvalidValueConstraint(pName, epd, getPrintableValue(value, errors, jahiaNode), valueIdx, jahiaNode, locale, epd.getValueConstraints(), errors);
         }
     }
 
-    private boolean constraintIsValid(Value value, ExtendedPropertyDefinition propertyDefinition, ContentIntegrityErrorList errors, JCRNodeWrapper checkedNode) {
+    private boolean constraintIsValid(Value value, ExtendedPropertyDefinition propertyDefinition, ErrorCollector errors, JCRNodeWrapper checkedNode) {
         final ValueConstraint[] constraints = propertyDefinition.getValueConstraintObjects();
         if (constraints == null || constraints.length == 0) {
             // no constraints to check
@@ -484,7 +461,7 @@ public class PropertyDefinitionsSanityCheck extends AbstractContentIntegrityChec
         return PropertyType.UNDEFINED;
     }
 
-    private int getExtendedPropertyType(Property property, boolean isI18n, ContentIntegrityErrorList errors, JCRNodeWrapper checkedNode) {
+    private int getExtendedPropertyType(Property property, boolean isI18n, ErrorCollector errors, JCRNodeWrapper checkedNode) {
         boolean isMultiple = false;
         try {
             isMultiple = property.isMultiple();
@@ -496,14 +473,11 @@ public class PropertyDefinitionsSanityCheck extends AbstractContentIntegrityChec
     }
 
     private int getExtendedPropertyType(ExtendedPropertyDefinition epd) {
-        return getExtendedPropertyType(epd.getRequiredType(), epd.isInternationalized(), epd.isMultiple());
+        return EffectiveDefinitions.getExtendedPropertyType(epd);
     }
 
     private int getExtendedPropertyType(int type, boolean isI18n, boolean isMultiple) {
-        int xType = type;
-        if (isI18n) xType += 100;
-        if (isMultiple) xType += 1000;
-        return xType;
+        return EffectiveDefinitions.getExtendedPropertyType(type, isI18n, isMultiple);
     }
 
     private boolean baseTypeDiffer(int propertyXType, int definitionXType) {
@@ -531,7 +505,7 @@ public class PropertyDefinitionsSanityCheck extends AbstractContentIntegrityChec
                                                                      Property property, boolean isI18n,
                                                                      Map<String, ExtendedPropertyDefinition> namedPropertyDefinitions,
                                                                      Map<Integer, ExtendedPropertyDefinition> unstructuredPropertyDefinitions,
-                                                                     ContentIntegrityErrorList errors, JCRNodeWrapper checkedNode) throws RepositoryException {
+                                                                     ErrorCollector errors, JCRNodeWrapper checkedNode) throws RepositoryException {
         if (propertyDefinition == null) return namedPropertyDefinitions.get(property.getName());
 
         final String propertyDefinitionName = propertyDefinition.getName();
@@ -552,7 +526,7 @@ public class PropertyDefinitionsSanityCheck extends AbstractContentIntegrityChec
         }
     }
 
-    private Node getRealNode(Node node, ContentIntegrityErrorList errors, JCRNodeWrapper checkedNode) {
+    private Node getRealNode(Node node, ErrorCollector errors, JCRNodeWrapper checkedNode) {
         if (node instanceof JCRNodeWrapper) {
             if (((JCRNodeWrapper) node).getRealNode() instanceof ExternalNodeImpl) {
                 try {
@@ -570,21 +544,19 @@ public class PropertyDefinitionsSanityCheck extends AbstractContentIntegrityChec
     }
 
     private boolean isTranslationTypeParent(String type) {
-        if (!jntTranslationNtParents.containsKey(type))
-            jntTranslationNtParents.put(type, jntTranslationNt.isNodeType(type));
-        return jntTranslationNtParents.get(type);
+        return jntTranslationNtParents.computeIfAbsent(type, jntTranslationNt::isNodeType);
     }
 
     private void trackMissingMandatoryValue(String propertyName, ExtendedPropertyDefinition propertyDefinition,
                                             JCRNodeWrapper node, String locale,
-                                            ContentIntegrityErrorList errors) {
+                                            ErrorCollector errors) {
         trackError(EMPTY_MANDATORY_PROPERTY, propertyName, propertyDefinition, null, -1, -1, node, locale, null, errors);
     }
 
     private void trackInvalidValueConstraint(String propertyName, ExtendedPropertyDefinition propertyDefinition,
                                              String value, int valueIdx,
                                              JCRNodeWrapper node, String locale,
-                                             String[] valueConstraints, ContentIntegrityErrorList errors) {
+                                             String[] valueConstraints, ErrorCollector errors) {
         final HashMap<String, Object> customExtraInfos = new HashMap<>();
         customExtraInfos.put("constraints", Arrays.toString(valueConstraints));
         trackError(INVALID_VALUE_CONSTRAINT, propertyName, propertyDefinition, value, valueIdx, -1, node, locale, customExtraInfos, errors);
@@ -593,26 +565,26 @@ public class PropertyDefinitionsSanityCheck extends AbstractContentIntegrityChec
     private void trackInvalidValueType(String propertyName, ExtendedPropertyDefinition propertyDefinition,
                                        int valueType,
                                        JCRNodeWrapper node, String locale,
-                                       ContentIntegrityErrorList errors) {
+                                       ErrorCollector errors) {
         trackError(INVALID_VALUE_TYPE, propertyName, propertyDefinition, null, -1, valueType, node, locale, null, errors);
     }
 
     private void trackInvalidMultiValuedStatus(String propertyName, ExtendedPropertyDefinition epd,
                                                JCRNodeWrapper node, String locale,
-                                               ContentIntegrityErrorList errors) {
+                                               ErrorCollector errors) {
         trackError(INVALID_MULTI_VALUE_STATUS, propertyName, epd, null, -1, -1, node, locale, null, errors);
     }
 
     private void trackUndeclaredProperty(String propertyName,
                                          JCRNodeWrapper node, String locale,
-                                         ContentIntegrityErrorList errors) {
+                                         ErrorCollector errors) {
         trackError(UNDECLARED_PROPERTY, propertyName, null, null, -1, -1, node, locale, null, errors);
     }
 
     private void trackNodeConstraintViolation(ConstraintViolation<JCRNodeValidator> constraintViolation,
                                               JCRNodeWrapper node,
                                               String locale,
-                                              ContentIntegrityErrorList errors) {
+                                              ErrorCollector errors) {
         final HashMap<String, Object> customExtraInfos = new HashMap<>();
         String propertyName;
         final String propertyValue;
@@ -655,7 +627,7 @@ public class PropertyDefinitionsSanityCheck extends AbstractContentIntegrityChec
                             String propertyName, ExtendedPropertyDefinition propertyDefinition,
                             String value, int valueIdx, int valueType,
                             JCRNodeWrapper node, String locale,
-                            Map<String, Object> customExtraInfos, ContentIntegrityErrorList errors) {
+                            Map<String, Object> customExtraInfos, ErrorCollector errors) {
         trackError(errorType, propertyName, propertyDefinition, value, valueIdx, valueType, node, locale, customExtraInfos, null, errors);
     }
 
@@ -663,7 +635,7 @@ public class PropertyDefinitionsSanityCheck extends AbstractContentIntegrityChec
                             String propertyName, ExtendedPropertyDefinition propertyDefinition,
                             String value, int valueIdx, int valueType,
                             JCRNodeWrapper node, String locale,
-                            Map<String, Object> customExtraInfos, String extraMessage, ContentIntegrityErrorList errors) {
+                            Map<String, Object> customExtraInfos, String extraMessage, ErrorCollector errors) {
         final ContentIntegrityError error = createError(node, locale, errorType)
                 .addExtraInfo("property-name", propertyName);
         if (propertyDefinition != null) {
@@ -688,9 +660,9 @@ public class PropertyDefinitionsSanityCheck extends AbstractContentIntegrityChec
     }
 
     private void doOnTranslationNodes(JCRNodeWrapper node, TranslationNodeProcessor translationNodeProcessor,
-                                      ContentIntegrityErrorList errors, JCRNodeWrapper checkedNode) throws RepositoryException {
-        if (checkSiteLangsOnly() && Utils.getSiteKey(node.getPath()) != null) {
-            final JCRSiteNode site = node.getResolveSite();
+                                      ErrorCollector errors, JCRNodeWrapper checkedNode) throws RepositoryException {
+        if (checkSiteLangsOnly() && getAncestorContext(node).getSiteKey() != null) {
+            final JCRSiteNode site = getAncestorContext(node).getSite();
             final List<Locale> locales = node.getSession().getWorkspace().getName().equals(Constants.EDIT_WORKSPACE) ?
                     site.getLanguagesAsLocales() : site.getActiveLiveLanguagesAsLocales();
             for (Locale locale : locales) {
@@ -722,49 +694,7 @@ public class PropertyDefinitionsSanityCheck extends AbstractContentIntegrityChec
         public abstract void execute(Node translationNode, String locale) throws RepositoryException;
     }
 
-    private void doOnSupertypes(JCRNodeWrapper node, SupertypeProcessor supertypeProcessor, ContentIntegrityErrorList errors, JCRNodeWrapper checkedNode) {
-        doOnSupertypes(node, false, supertypeProcessor, errors, checkedNode);
-    }
-
-    private void doOnSupertypes(JCRNodeWrapper node, boolean reverseOrder, SupertypeProcessor supertypeProcessor,
-                                ContentIntegrityErrorList errors, JCRNodeWrapper checkedNode) {
-        final ExtendedNodeType primaryNodeType;
-        final ExtendedNodeType[] mixinNodeTypes;
-        try {
-            primaryNodeType = node.getPrimaryNodeType();
-            mixinNodeTypes = node.getMixinNodeTypes();
-        } catch (RepositoryException e) {
-            errors.addError(createFrameworkError(checkedNode, "Impossible to load the types of the node", e));
-            return;
-        }
-
-        final List<ExtendedNodeType> superTypes = new ArrayList<>(mixinNodeTypes.length + 1);
-        superTypes.add(primaryNodeType);
-        superTypes.addAll(Arrays.asList(mixinNodeTypes));
-        if (reverseOrder) Collections.reverse(superTypes);
-
-        String identifier = null;
-        try {
-            identifier = node.getIdentifier();
-        } catch (RepositoryException e) {
-            errors.addError(createFrameworkError(checkedNode, e));
-        }
-
-        try {
-            for (ExtendedNodeType superType : superTypes) {
-                supertypeProcessor.execute(node, superType);
-            }
-        } catch (RepositoryException e) {
-            errors.addError(createFrameworkError(checkedNode, "Error while checking the node " + identifier, e));
-        }
-    }
-
-    private abstract static class SupertypeProcessor {
-
-        public abstract void execute(JCRNodeWrapper node, ExtendedNodeType extendedNodeType) throws RepositoryException;
-    }
-
-    private String getPrintableValue(Value value, ContentIntegrityErrorList errors, JCRNodeWrapper checkedNode) {
+    private String getPrintableValue(Value value, ErrorCollector errors, JCRNodeWrapper checkedNode) {
         try {
             return value.getType() == PropertyType.BINARY ? BINARY_VALUE_STR : value.getString();
         } catch (RepositoryException e) {
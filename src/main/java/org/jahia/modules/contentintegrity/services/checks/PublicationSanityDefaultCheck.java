@@ -5,23 +5,26 @@ import org.jahia.modules.contentintegrity.api.ContentIntegrityCheck;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityError;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorList;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorType;
+import org.jahia.modules.contentintegrity.api.PairedNode;
 import org.jahia.modules.contentintegrity.services.impl.AbstractContentIntegrityCheck;
 import org.jahia.modules.contentintegrity.services.impl.Constants;
 import org.jahia.modules.contentintegrity.services.impl.JCRUtils;
 import org.jahia.services.content.JCRNodeWrapper;
-import org.jahia.services.content.JCRSessionWrapper;
 import org.osgi.service.component.annotations.Component;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.jcr.ItemNotFoundException;
-import javax.jcr.PathNotFoundException;
 import javax.jcr.RepositoryException;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static org.jahia.modules.contentintegrity.services.impl.Constants.LIVE_WORKSPACE;
+import static org.jahia.modules.contentintegrity.services.impl.Constants.JCR_PATH_SEPARATOR;
 import static org.jahia.modules.contentintegrity.services.impl.Constants.MODULES_SUBTREE_PATH_PREFIX;
 import static org.jahia.modules.contentintegrity.services.impl.Constants.PUBLISHED;
 import static org.jahia.modules.contentintegrity.services.impl.Constants.ROOT_NODE_PATH;
@@ -30,10 +33,15 @@ import static org.jahia.modules.contentintegrity.services.impl.Constants.ROOT_NO
         ContentIntegrityCheck.ExecutionCondition.APPLY_ON_NT + "=" + Constants.JAHIAMIX_LASTPUBLISHED,
         ContentIntegrityCheck.ExecutionCondition.APPLY_ON_WS + "=" + Constants.EDIT_WORKSPACE
 })
-public class PublicationSanityDefaultCheck extends AbstractContentIntegrityCheck implements ContentIntegrityCheck.SupportsIntegrityErrorFix {
+public class PublicationSanityDefaultCheck extends AbstractContentIntegrityCheck implements
+        ContentIntegrityCheck.SupportsIntegrityErrorFix,
+        ContentIntegrityCheck.SupportsParallelScan,
+        ContentIntegrityCheck.SupportsPairedScan,
+        ContentIntegrityCheck.SupportsCheckpoint,
+        // The node is compared with its counterpart in live, which can change without modifying it
+        ContentIntegrityCheck.RequiresFullScan {
 
     private static final Logger logger = LoggerFactory.getLogger(PublicationSanityDefaultCheck.class);
-    private static final String DIFFERENT_PATH_ROOT = "different-path-root";
     private static final String EXTRA_MSG_DIFFERENT_PATH_POTENTIAL_FP = "Warning: this node is the root of the scan, but not the root of the JCR. So the error might be a false positive, if the node is under a node which has been moved, but this move operation has not been published yet. To clarify this, you need to analyze the parent nodes, or redo the scan from a higher level";
     public static final ContentIntegrityErrorType NO_LIVE_NODE = createErrorType("NO_LIVE_NODE", "The live node with the same uuid is missing");
     public static final ContentIntegrityErrorType DIFFERENT_PATH = createErrorType("DIFFERENT_PATH", "Found a published node, with no pending modifications, but the path in live is different", true);
@@ -41,30 +49,44 @@ public class PublicationSanityDefaultCheck extends AbstractContentIntegrityCheck
     public static final ContentIntegrityErrorType PATH_CONFLICT = createErrorType("PATH_CONFLICT", "Live node with same path but different uuid", true);
     public static final ContentIntegrityErrorType DIFFERENT_PT = createErrorType("DIFFERENT_PT", "Live node with same uuid but different primary type", true);
 
-    private final Map<String, Object> inheritedErrors = new HashMap<>();
-    private String scanRoot = null;
+    private static class ScanState {
+        /*
+        Roots of the subtrees having a different path in live. Several roots can be tracked at the same time when the subtrees are scanned in parallel
+         */
+        private final Set<String> differentPathRoots = ConcurrentHashMap.newKeySet();
+        private volatile String scanRoot = null;
+    }
+
+    private ScanState getState() {
+        return getScanState(ScanState::new);
+    }
+
+    @Override
+    public Map<String, String> getCheckpointState() {
+        return getState().differentPathRoots.stream().collect(Collectors.toMap(Function.identity(), root -> StringUtils.EMPTY));
+    }
 
     @Override
-    protected void reset() {
-        inheritedErrors.clear();
-        scanRoot = null;
+    public void restoreCheckpointState(Map<String, String> state) {
+        getState().differentPathRoots.addAll(state.keySet());
     }
 
     @Override
     protected void initializeIntegrityTestInternal(JCRNodeWrapper node, Collection<String> excludedPaths) {
-        scanRoot = node.getPath();
+        getState().scanRoot = node.getPath();
     }
 
     @Override
     public ContentIntegrityErrorList checkIntegrityBeforeChildren(JCRNodeWrapper node) {
+        return checkIntegrityBeforeChildren(new PairedNode(node, LIVE_WORKSPACE));
+    }
+
+    @Override
+    public ContentIntegrityErrorList checkIntegrityBeforeChildren(PairedNode pairedNode) {
+        final JCRNodeWrapper node = pairedNode.getNode();
         ContentIntegrityErrorList errors = null;
         try {
-            final JCRSessionWrapper liveSession = JCRUtils.getSystemSession(LIVE_WORKSPACE, true);
-
-            JCRNodeWrapper samePathLiveNode = null;
-            try {
-                samePathLiveNode = liveSession.getNode(node.getPath());
-            } catch (PathNotFoundException ignored) {}
+            final JCRNodeWrapper samePathLiveNode = pairedNode.getSamePathNode();
             if (samePathLiveNode != null) {
                 final String samePathLiveNodeIdentifier = samePathLiveNode.getIdentifier();
                 if (!StringUtils.equals(node.getIdentifier(), samePathLiveNodeIdentifier)) {
@@ -81,7 +103,7 @@ public class PublicationSanityDefaultCheck extends AbstractContentIntegrityCheck
             if (flaggedPublished || node.isNodeType(Constants.JMIX_AUTO_PUBLISH) || StringUtils.startsWith(node.getPath(), MODULES_SUBTREE_PATH_PREFIX)) {
                 final JCRNodeWrapper liveNode;
                 try {
-                    liveNode = liveSession.getNodeByIdentifier(node.getIdentifier());
+                    liveNode = pairedNode.getSameIdentifierNode();
                 } catch (ItemNotFoundException infe) {
                     final String msg = String.format("Found a node %s, but no corresponding live node exists",
                             flaggedPublished? "flagged as published" : "auto-published");
@@ -101,14 +123,13 @@ public class PublicationSanityDefaultCheck extends AbstractContentIntegrityCheck
                  on its subtree
                  */
                 final String nodePath = node.getPath();
-                if (!inheritedErrors.containsKey(DIFFERENT_PATH_ROOT) && !StringUtils.equals(nodePath, liveNode.getPath())) {
-                    inheritedErrors.put(DIFFERENT_PATH_ROOT, nodePath);
+                if (!isUnderDifferentPathRoot(nodePath) && !StringUtils.equals(nodePath, liveNode.getPath())) {
+                    getState().differentPathRoots.add(nodePath);
                     // Here we check the pending modifications without considering the translation subnodes. Only a renaming of node can
                     // change its path, what should result in pending modifications on the node itself
                     if (!JCRUtils.hasPendingModifications(node)) {
                         final ContentIntegrityError error;
-                        if (!StringUtils.equals(nodePath, ROOT_NODE_PATH) && StringUtils.equals(nodePath, scanRoot)) {
-                            inheritedErrors.put(DIFFERENT_PATH_ROOT, nodePath);
+                        if (!StringUtils.equals(nodePath, ROOT_NODE_PATH) && StringUtils.equals(nodePath, getState().scanRoot)) {
                             error = createError(node, DIFFERENT_PATH_POTENTIAL_FP);
                             error.setExtraMsg(EXTRA_MSG_DIFFERENT_PATH_POTENTIAL_FP);
                         } else {
@@ -135,11 +156,17 @@ public class PublicationSanityDefaultCheck extends AbstractContentIntegrityCheck
 
     @Override
     public ContentIntegrityErrorList checkIntegrityAfterChildren(JCRNodeWrapper node) {
-        if (inheritedErrors.containsKey(DIFFERENT_PATH_ROOT) && StringUtils.equals(node.getPath(), (String) inheritedErrors.get(DIFFERENT_PATH_ROOT)))
-            inheritedErrors.remove(DIFFERENT_PATH_ROOT);
+        getState().differentPathRoots.remove(node.getPath());
         return super.checkIntegrityAfterChildren(node);
     }
 
+    private boolean isUnderDifferentPathRoot(String path) {
+        final Set<String> differentPathRoots = getState().differentPathRoots;
+        if (differentPathRoots.isEmpty()) return false;
+        return differentPathRoots.stream().anyMatch(root -> StringUtils.equals(path, root)
+                || StringUtils.startsWith(path, StringUtils.equals(root, ROOT_NODE_PATH) ? root : root + JCR_PATH_SEPARATOR));
+    }
+
     @Override
     public boolean fixError(JCRNodeWrapper node, ContentIntegrityError integrityError) throws RepositoryException {
         if (integrityError.getErrorType().equals(NO_LIVE_NODE)) {
@@ -7,11 +7,11 @@ import org.jahia.modules.contentintegrity.api.ContentIntegrityCheckConfiguration
 import org.jahia.modules.contentintegrity.api.ContentIntegrityError;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorList;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorType;
+import org.jahia.modules.contentintegrity.api.PairedNode;
 import org.jahia.modules.contentintegrity.services.impl.AbstractContentIntegrityCheck;
 import org.jahia.modules.contentintegrity.services.impl.Constants;
 import org.jahia.modules.contentintegrity.services.impl.ContentIntegrityCheckConfigurationImpl;
 import org.jahia.modules.contentintegrity.services.impl.JCRUtils;
-import org.jahia.services.content.JCRContentUtils;
 import org.jahia.services.content.JCRNodeWrapper;
 import org.jahia.services.content.JCRSessionWrapper;
 import org.jahia.services.content.nodetypes.ExtendedNodeType;
@@ -45,7 +45,13 @@ import static org.jahia.modules.contentintegrity.services.impl.ContentIntegrityC
         ContentIntegrityCheck.ExecutionCondition.APPLY_ON_WS + "=" + Constants.LIVE_WORKSPACE,
         ContentIntegrityCheck.ExecutionCondition.SKIP_ON_EXTERNAL_NODES + "=true"
 })
-public class PublicationSanityLiveCheck extends AbstractContentIntegrityCheck implements ContentIntegrityCheck.IsConfigurable, ContentIntegrityCheck.SupportsIntegrityErrorFix {
+public class PublicationSanityLiveCheck extends AbstractContentIntegrityCheck implements
+        ContentIntegrityCheck.IsConfigurable,
+        ContentIntegrityCheck.SupportsIntegrityErrorFix,
+        ContentIntegrityCheck.SupportsParallelScan,
+        ContentIntegrityCheck.SupportsPairedScan,
+        // The node is compared with its counterpart in default, which can change without modifying it
+        ContentIntegrityCheck.RequiresFullScan {
 
     private static final Logger logger = LoggerFactory.getLogger(PublicationSanityLiveCheck.class);
 
@@ -109,8 +115,14 @@ public class PublicationSanityLiveCheck extends AbstractContentIntegrityCheck im
 
     @Override
     public ContentIntegrityErrorList checkIntegrityBeforeChildren(JCRNodeWrapper node) {
+        return checkIntegrityBeforeChildren(new PairedNode(node, Constants.EDIT_WORKSPACE));
+    }
+
+    @Override
+    public ContentIntegrityErrorList checkIntegrityBeforeChildren(PairedNode pairedNode) {
+        final JCRNodeWrapper node = pairedNode.getNode();
         try {
-            final JCRSessionWrapper defaultSession = JCRUtils.getSystemSession(Constants.EDIT_WORKSPACE, true);
+            final JCRSessionWrapper defaultSession = pairedNode.getOtherSession();
             final JCRUtils.UGC_STATE ugcState = JCRUtils.isUGCNode(node);
             if (ugcState == JCRUtils.UGC_STATE.UGC) {
                 // UGC
@@ -123,7 +135,7 @@ public class PublicationSanityLiveCheck extends AbstractContentIntegrityCheck im
 
             final JCRNodeWrapper defaultNode;
             try {
-                defaultNode = defaultSession.getNodeByIdentifier(node.getIdentifier());
+                defaultNode = pairedNode.getSameIdentifierNode();
             } catch (ItemNotFoundException infe) {
                 boolean isUGC = false;
 
@@ -172,10 +184,11 @@ public class PublicationSanityLiveCheck extends AbstractContentIntegrityCheck im
                 if (isUGC) return null;
 
                 if (!node.isNodeType(JAHIAMIX_LASTPUBLISHED)) {
-                    final JCRNodeWrapper publicationRoot = JCRUtils.runJcrSupplierCallBack(() -> JCRContentUtils.getParentOfType(node, JAHIAMIX_LASTPUBLISHED), null, false);
+                    final JCRNodeWrapper publicationRoot = JCRUtils.runJcrSupplierCallBack(() -> JCRUtils.getPublicationRoot(node), null, false);
                     if (publicationRoot != null) {
                         // The node is a technical node attached to a publication compliant node  (such as access rights, references in text, ...)
-                        final JCRNodeWrapper publicationRootDefault = JCRUtils.runJcrSupplierCallBack(() -> defaultSession.getNodeByIdentifier(publicationRoot.getIdentifier()), null, false);
+                        final JCRNodeWrapper publicationRootDefault = JCRUtils.nodeExists(publicationRoot.getIdentifier(), defaultSession) ?
+                                JCRUtils.runJcrSupplierCallBack(() -> defaultSession.getNodeByIdentifier(publicationRoot.getIdentifier()), null, false) : null;
                         if (publicationRootDefault == null) {
                             // The parent itself holds the error, reporting it again on the technical node would be too verbose
                             return null;
@@ -0,0 +1,102 @@
+package org.jahia.modules.contentintegrity.services.checks;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * References buffered by a thread of a scan, resolved together once enough identifiers are referenced. The nodes
+ * scanned by the thread can be in a single workspace at a time.
+ * <p>
+ * Each reference keeps the identifier of the node holding it, since the batch is usually resolved while checking
+ * another node, or at the end of the scan.
+ */
+class ReferencesBatch {
+
+    private String workspace;
+    private final Map<String, List<PendingReference>> references = new LinkedHashMap<>();
+
+    String getWorkspace() {
+        return workspace;
+    }
+
+    void setWorkspace(String workspace) {
+        this.workspace = workspace;
+    }
+
+    void add(String uuid, String nodeId, String propertyName) {
+        references.computeIfAbsent(uuid, k -> new ArrayList<>(1)).add(new PendingReference(uuid, nodeId, propertyName));
+    }
+
+    /**
+     * @return the number of distinct referenced identifiers
+     */
+    int size() {
+        return references.size();
+    }
+
+    /**
+     * @return a copy of the referenced identifiers
+     */
+    Set<String> getUuids() {
+        return new HashSet<>(references.keySet());
+    }
+
+    boolean isEmpty() {
+        return references.isEmpty();
+    }
+
+    void forEach(BiConsumer<String, PendingReference> consumer) {
+        references.forEach((uuid, pendingReferences) -> pendingReferences.forEach(reference -> consumer.accept(workspace, reference)));
+    }
+
+    /**
+     * Empties the batch
+     *
+     * @param exists tells if the node with the specified identifier exists, called once per referenced identifier
+     * @return the references to the missing nodes, grouped by referenced identifier in the order in which the identifiers have been first buffered
+     */
+    List<PendingReference> removeBrokenReferences(Predicate<String> exists) {
+        final List<PendingReference> brokenReferences = new ArrayList<>();
+        references.forEach((uuid, pendingReferences) -> {
+            if (!exists.test(uuid)) brokenReferences.addAll(pendingReferences);
+        });
+        references.clear();
+        return brokenReferences;
+    }
+
+    static class PendingReference {
+        private final String uuid;
+        private final String nodeId;
+        private final String propertyName;
+
+        PendingReference(String uuid, String nodeId, String propertyName) {
+            this.uuid = uuid;
+            this.nodeId = nodeId;
+            this.propertyName = propertyName;
+        }
+
+        /**
+         * @return the referenced identifier
+         */
+        String getUuid() {
+            return uuid;
+        }
+
+        /**
+         * @return the identifier of the node holding the reference
+         */
+        String getNodeId() {
+            return nodeId;
+        }
+
+        String getPropertyName() {
+            return propertyName;
+        }
+    }
+}
@@ -5,11 +5,13 @@ import org.jahia.modules.contentintegrity.api.ContentIntegrityCheck;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityCheckConfiguration;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorList;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorType;
+import org.jahia.modules.contentintegrity.api.NodeSnapshot;
 import org.jahia.modules.contentintegrity.services.Utils;
 import org.jahia.modules.contentintegrity.services.impl.AbstractContentIntegrityCheck;
 import org.jahia.modules.contentintegrity.services.impl.ContentIntegrityCheckConfigurationImpl;
 import org.jahia.modules.contentintegrity.services.impl.JCRUtils;
 import org.jahia.services.content.JCRNodeWrapper;
+import org.jahia.services.content.JCRSessionWrapper;
 import org.osgi.service.component.annotations.Component;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,20 +24,39 @@ import javax.jcr.PropertyType;
 import javax.jcr.RepositoryException;
 import javax.jcr.Value;
 import javax.jcr.nodetype.PropertyDefinition;
-import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.jahia.modules.contentintegrity.services.impl.Constants.CALCULATION_ERROR;
 import static org.jahia.modules.contentintegrity.services.impl.Constants.MIX_VERSIONABLE;
 import static org.jahia.modules.contentintegrity.services.impl.ContentIntegrityCheckConfigurationImpl.BOOLEAN_PARSER;
+import static org.jahia.modules.contentintegrity.services.impl.ContentIntegrityCheckConfigurationImpl.INTEGER_PARSER;
 
 @Component(service = ContentIntegrityCheck.class, immediate = true)
-public class ReferencesSanityCheck extends AbstractContentIntegrityCheck implements ContentIntegrityCheck.IsConfigurable {
+public class ReferencesSanityCheck extends AbstractContentIntegrityCheck implements
+        ContentIntegrityCheck.IsConfigurable,
+        ContentIntegrityCheck.SupportsParallelScan,
+        ContentIntegrityCheck.SupportsUnorderedScan,
+        ContentIntegrityCheck.SupportsCheckpoint,
+        ContentIntegrityCheck.SupportsNodeSnapshot,
+        // The referenced nodes can be deleted without modifying the referencing node
+        ContentIntegrityCheck.RequiresFullScan {
 
     private static final Logger logger = LoggerFactory.getLogger(ReferencesSanityCheck.class);
     private static final String VALIDATE_REFS = "validate-refs";
     private static final String VALIDATE_BACK_REFS = "validate-back-refs";
     private static final String VALIDATE_VERSION_HISTORY = "validate-version-history";
+    private static final String REFS_BATCH_SIZE = "refs-batch-size";
+    private static final int DEFAULT_REFS_BATCH_SIZE = 200;
+    private static final int EXISTING_UUIDS_CACHE_SIZE = 100000;
+    private static final String STATE_SEPARATOR = "\t";
     public static final ContentIntegrityErrorType INVALID_BACK_REF = createErrorType("INVALID_BACK_REF", "Missing referencing node");
     public static final ContentIntegrityErrorType BROKEN_REF = createErrorType("BROKEN_REF", "Broken reference");
     public static final ContentIntegrityErrorType BROKEN_REF_TO_VN = createErrorType("BROKEN_REF_TO_VN", "Broken reference to a virtual node");
@@ -47,6 +68,55 @@ public class ReferencesSanityCheck extends AbstractContentIntegrityCheck impleme
         configurations.declareDefaultParameter(VALIDATE_REFS, Boolean.TRUE, BOOLEAN_PARSER, "Check the references sanity");
         configurations.declareDefaultParameter(VALIDATE_BACK_REFS, Boolean.FALSE, BOOLEAN_PARSER, "Check the back references sanity");
         configurations.declareDefaultParameter(VALIDATE_VERSION_HISTORY, Boolean.FALSE, BOOLEAN_PARSER, "Check the version history");
+        configurations.declareDefaultParameter(REFS_BATCH_SIZE, DEFAULT_REFS_BATCH_SIZE, INTEGER_PARSER, "Number of references resolved together. The references are resolved one by one if 0 or less");
+    }
+
+    private static class ScanState {
+        private final Map<Thread, ReferencesBatch> batches = new ConcurrentHashMap<>();
+        private final Map<String, Boolean> existingUuids = Collections.synchronizedMap(new LinkedHashMap<String, Boolean>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > EXISTING_UUIDS_CACHE_SIZE;
+            }
+        });
+        private volatile Set<String> virtualNodeIdentifiers;
+    }
+
+    private ScanState getState() {
+        return getScanState(ScanState::new);
+    }
+
+    @Override
+    protected ContentIntegrityErrorList finalizeIntegrityTestInternal(JCRNodeWrapper scanRootNode, Collection<String> excludedPaths) {
+        ContentIntegrityErrorList errors = null;
+        for (ReferencesBatch batch : getState().batches.values()) {
+            errors = Utils.mergeErrorLists(errors, flush(batch));
+        }
+        return errors;
+    }
+
+    /**
+     * The state is made of the references buffered in the batches, which have not been resolved yet
+     */
+    @Override
+    public Map<String, String> getCheckpointState() {
+        final Map<String, String> state = new HashMap<>();
+        for (ReferencesBatch batch : getState().batches.values()) {
+            batch.forEach((workspace, reference) -> state.put(String.valueOf(state.size()),
+                    StringUtils.join(new String[]{workspace, reference.getUuid(), reference.getNodeId(), reference.getPropertyName()}, STATE_SEPARATOR)));
+        }
+        return state;
+    }
+
+    @Override
+    public void restoreCheckpointState(Map<String, String> state) {
+        final ReferencesBatch batch = getState().batches.computeIfAbsent(Thread.currentThread(), t -> new ReferencesBatch());
+        for (String value : state.values()) {
+            final String[] fields = StringUtils.splitPreserveAllTokens(value, STATE_SEPARATOR);
+            if (fields.length != 4) continue;
+            batch.setWorkspace(fields[0]);
+            batch.add(fields[1], fields[2], fields[3]);
+        }
     }
 
     @Override
@@ -56,26 +126,32 @@ public class ReferencesSanityCheck extends AbstractContentIntegrityCheck impleme
 
     @Override
     public ContentIntegrityErrorList checkIntegrityBeforeChildren(JCRNodeWrapper node) {
+        return checkIntegrityBeforeChildren(new NodeSnapshot(node));
+    }
+
+    @Override
+    public ContentIntegrityErrorList checkIntegrityBeforeChildren(NodeSnapshot snapshot) {
         return Utils.mergeErrorLists(
-                checkBackReferences(node),
-                checkReferences(node)
+                checkBackReferences(snapshot.getNode()),
+                checkReferences(snapshot)
         );
     }
 
-    private ContentIntegrityErrorList checkReferences(JCRNodeWrapper node) {
+    private ContentIntegrityErrorList checkReferences(NodeSnapshot snapshot) {
         if (!((Boolean) getConfigurations().getParameter(VALIDATE_REFS))) return null;
 
-        final PropertyIterator properties = JCRUtils.runJcrCallBack(node, Node::getProperties);
+        final JCRNodeWrapper node = snapshot.getNode();
+        final Map<String, NodeSnapshot.PropertySnapshot> properties = JCRUtils.runJcrCallBack(snapshot, NodeSnapshot::getProperties);
         if (properties == null) return null;
 
         ContentIntegrityErrorList errors = null;
 
-        while (properties.hasNext()) {
-            final Property property = properties.nextProperty();
+        for (NodeSnapshot.PropertySnapshot propertySnapshot : properties.values()) {
+            final Property property = propertySnapshot.getProperty();
             final PropertyDefinition definition;
             try {
                 definition = property.getDefinition();
-                property.getType();
+                propertySnapshot.getType();
             } catch (RepositoryException e) {
                 if (errors == null) errors = createEmptyErrorsList();
                 errors.addError(createFrameworkError(node, String.format("Skipping %s as its definition is inconsistent", JCRUtils.runJcrCallBack(property, Item::getPath, CALCULATION_ERROR)), e));
@@ -85,22 +161,19 @@ public class ReferencesSanityCheck extends AbstractContentIntegrityCheck impleme
                 continue;
             }
 
-            final Boolean isMultiple = JCRUtils.runJcrCallBack(property, Property::isMultiple);
-            if (isMultiple == null) continue;
-
-            final ContentIntegrityErrorList propErrors;
-            if (isMultiple) {
-                final Value[] values = JCRUtils.runJcrCallBack(property, Property::getValues);
-                if (values == null) continue;
-                propErrors = Utils.mergeErrorLists(Arrays.stream(values)
-                        .map(v -> checkPropertyValue(v, node, property))
-                        .filter(Objects::nonNull)
-                        .toArray(ContentIntegrityErrorList[]::new));
-            } else {
-                final Value value = JCRUtils.runJcrCallBack(property, Property::getValue);
-                if (value == null) continue;
-                propErrors = checkPropertyValue(value, node, property);
+            final List<Value> values = JCRUtils.runJcrCallBack(propertySnapshot, NodeSnapshot.PropertySnapshot::getValues);
+            if (values == null) continue;
+
+            if (getBatchSize() > 0) {
+                for (Value value : values) {
+                    errors = Utils.mergeErrorLists(errors, bufferPropertyValue(value, node, property));
+                }
+                continue;
             }
+            final ContentIntegrityErrorList propErrors = Utils.mergeErrorLists(values.stream()
+                    .map(v -> checkPropertyValue(v, node, property))
+                    .filter(Objects::nonNull)
+                    .toArray(ContentIntegrityErrorList[]::new));
             errors = Utils.mergeErrorLists(errors, propErrors);
         }
         return errors;
@@ -127,6 +200,93 @@ public class ReferencesSanityCheck extends AbstractContentIntegrityCheck impleme
         }
     }
 
+    private int getBatchSize() {
+        return (Integer) getConfigurations().getParameter(REFS_BATCH_SIZE);
+    }
+
+    /**
+     * Buffers the referenced identifier, so that it is resolved together with the ones referenced by the next nodes
+     * scanned by the current thread. The errors of the batch are returned when it is full, or at the end of the scan.
+     * <p>
+     * The batch is not flushed when moving to the next node, otherwise it would rarely contain more than a few
+     * identifiers. As a consequence, the broken references held by a node are usually returned while checking a node
+     * scanned later by the same thread, or by {@link #finalizeIntegrityTest(JCRNodeWrapper, Collection)}. The errors are
+     * created on the node holding the broken reference, looked up from its identifier, and not on the node being
+     * checked when the batch is flushed.
+     */
+    private ContentIntegrityErrorList bufferPropertyValue(Value value, JCRNodeWrapper checkedNode, Property property) {
+        if (value.getType() != PropertyType.REFERENCE && value.getType() != PropertyType.WEAKREFERENCE) return null;
+
+        final String uuid = JCRUtils.runJcrCallBack(value, Value::getString);
+        final String nodeId = JCRUtils.runJcrCallBack(checkedNode, Node::getIdentifier);
+        if (uuid == null || nodeId == null) return null;
+        final String workspace = checkedNode.getSession().getWorkspace().getName();
+        if (getState().existingUuids.containsKey(getCacheKey(workspace, uuid))) return null;
+
+        final ReferencesBatch batch = getState().batches.computeIfAbsent(Thread.currentThread(), t -> new ReferencesBatch());
+        ContentIntegrityErrorList errors = null;
+        if (batch.getWorkspace() != null && !StringUtils.equals(batch.getWorkspace(), workspace)) {
+            errors = flush(batch);
+        }
+        batch.setWorkspace(workspace);
+        batch.add(uuid, nodeId, JCRUtils.runJcrCallBack(property, Property::getName, CALCULATION_ERROR));
+        if (batch.size() >= getBatchSize()) {
+            errors = Utils.mergeErrorLists(errors, flush(batch));
+        }
+        return errors;
+    }
+
+    private ContentIntegrityErrorList flush(ReferencesBatch batch) {
+        if (batch.isEmpty()) return null;
+
+        final String workspace = batch.getWorkspace();
+        final JCRSessionWrapper session = JCRUtils.getSystemSession(workspace, false);
+        final Set<String> foundUuids = findExistingNodeIdentifiers(batch, session);
+        final Map<String, Boolean> existingUuids = getState().existingUuids;
+        // The nodes not returned by the query can be missing from the index only
+        final List<ReferencesBatch.PendingReference> brokenReferences = batch.removeBrokenReferences(uuid -> {
+            if (!foundUuids.contains(uuid) && !JCRUtils.nodeExists(uuid, session)) return false;
+            existingUuids.put(getCacheKey(workspace, uuid), Boolean.TRUE);
+            return true;
+        });
+
+        ContentIntegrityErrorList errors = null;
+        for (ReferencesBatch.PendingReference reference : brokenReferences) {
+            // The error is tracked on the node holding the reference, not on the node being checked
+            final JCRNodeWrapper referencingNode = JCRUtils.runJcrSupplierCallBack(() -> session.getNodeByIdentifier(reference.getNodeId()));
+            if (referencingNode == null) continue;
+            final ContentIntegrityErrorType errorType = isVirtualNodeIdentifier(reference.getUuid()) ? BROKEN_REF_TO_VN : BROKEN_REF;
+            if (errors == null) errors = createEmptyErrorsList();
+            errors.addError(createPropertyRelatedError(referencingNode, errorType)
+                    .addExtraInfo("property-name", reference.getPropertyName())
+                    .addExtraInfo("missing-uuid", reference.getUuid(), true));
+        }
+        return errors;
+    }
+
+    private static Set<String> findExistingNodeIdentifiers(ReferencesBatch batch, JCRSessionWrapper session) {
+        try {
+            return JCRUtils.findExistingNodeIdentifiers(batch.getUuids(), session);
+        } catch (RepositoryException e) {
+            logger.error("Impossible to resolve the references with a query, resolving them one by one", e);
+            return Collections.emptySet();
+        }
+    }
+
+    private boolean isVirtualNodeIdentifier(String uuid) {
+        final ScanState state = getState();
+        if (state.virtualNodeIdentifiers == null) {
+            synchronized (state) {
+                if (state.virtualNodeIdentifiers == null) state.virtualNodeIdentifiers = JCRUtils.getVirtualNodeIdentifiers();
+            }
+        }
+        return state.virtualNodeIdentifiers.contains(uuid);
+    }
+
+    private static String getCacheKey(String workspace, String uuid) {
+        return workspace + ":" + uuid;
+    }
+
     private ContentIntegrityErrorList checkBackReferences(JCRNodeWrapper node) {
         if (!((Boolean) getConfigurations().getParameter(VALIDATE_BACK_REFS))) return null;
 
@@ -16,6 +16,7 @@ import org.slf4j.LoggerFactory;
 
 import javax.jcr.RepositoryException;
 import java.util.Collection;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.jahia.modules.contentintegrity.services.impl.Constants.EDIT_WORKSPACE;
 import static org.jahia.modules.contentintegrity.services.impl.Constants.JAHIANT_VIRTUALSITE;
@@ -27,7 +28,7 @@ import static org.jahia.services.usermanager.JahiaGroupManagerService.SITE_PRIVI
         ContentIntegrityCheck.ExecutionCondition.APPLY_ON_NT + "=" + JAHIANT_VIRTUALSITE,
         ContentIntegrityCheck.ExecutionCondition.APPLY_ON_SUBTREES + "=/sites"
 })
-public class SiteLevelSystemGroupsCheck extends AbstractContentIntegrityCheck {
+public class SiteLevelSystemGroupsCheck extends AbstractContentIntegrityCheck implements ContentIntegrityCheck.SupportsParallelScan {
 
     private static final Logger logger = LoggerFactory.getLogger(SiteLevelSystemGroupsCheck.class);
     private static final String EXTRA_MSG_PRIVILEGED_GROUP_NOT_EXIST = String.format("The '%s' group is created at server installation time, at server level, and should never be deleted", PRIVILEGED_GROUPNAME);
@@ -38,12 +39,6 @@ public class SiteLevelSystemGroupsCheck extends AbstractContentIntegrityCheck {
     public static final ContentIntegrityErrorType MISSING_MEMBERSHIP = createErrorType("MISSING_MEMBERSHIP", "Missing member in a system group");
 
     private JahiaGroupManagerService jgms;
-    private boolean missingRootPrivilegedGroupLogged = false;
-
-    @Override
-    protected void reset() {
-        missingRootPrivilegedGroupLogged = false;
-    }
 
     @Override
     public void initializeIntegrityTestInternal(JCRNodeWrapper node, Collection<String> excludedPaths) {
@@ -51,6 +46,13 @@ public class SiteLevelSystemGroupsCheck extends AbstractContentIntegrityCheck {
             jgms = ServicesRegistry.getInstance().getJahiaGroupManagerService();
     }
 
+    /*
+    The missing 'privileged' group is reported only once per scan
+     */
+    private AtomicBoolean isMissingRootPrivilegedGroupLogged() {
+        return getScanState(AtomicBoolean::new);
+    }
+
     @Override
     public ContentIntegrityErrorList checkIntegrityBeforeChildren(JCRNodeWrapper node) {
         if (!(node instanceof JCRSiteNode)) {
@@ -61,13 +63,12 @@ public class SiteLevelSystemGroupsCheck extends AbstractContentIntegrityCheck {
         final ContentIntegrityErrorList errors = createEmptyErrorsList();
         try {
             privGroup = jgms.lookupGroup(null, PRIVILEGED_GROUPNAME, site.getSession());
-            if (privGroup == null && !missingRootPrivilegedGroupLogged) {
+            if (privGroup == null && isMissingRootPrivilegedGroupLogged().compareAndSet(false, true)) {
                 // The 'privileged' group is defined at server level. If missing, a unique error will be logged while scanning the first site
                 final ContentIntegrityError error = createError(site.getSession().getRootNode(), GROUP_DOES_NOT_EXIST, String.format("The '%s' group does not exist", PRIVILEGED_GROUPNAME))
                         .addExtraInfo("group-name", PRIVILEGED_GROUPNAME)
                         .setExtraMsg(EXTRA_MSG_PRIVILEGED_GROUP_NOT_EXIST);
                 errors.addError(error);
-                missingRootPrivilegedGroupLogged = true;
             }
 
             final JCRGroupNode sitePrivGroup = jgms.lookupGroup(site.getSiteKey(), SITE_PRIVILEGED_GROUPNAME, site.getSession());
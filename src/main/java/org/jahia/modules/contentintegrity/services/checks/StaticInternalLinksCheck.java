@@ -5,6 +5,7 @@ import org.jahia.modules.contentintegrity.api.ContentIntegrityCheck;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityCheckConfiguration;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorList;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorType;
+import org.jahia.modules.contentintegrity.api.NodeSnapshot;
 import org.jahia.modules.contentintegrity.services.impl.AbstractContentIntegrityCheck;
 import org.jahia.modules.contentintegrity.services.impl.Constants;
 import org.jahia.modules.contentintegrity.services.impl.ContentIntegrityCheckConfigurationImpl;
@@ -18,24 +19,25 @@ import org.osgi.service.component.annotations.Component;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.jcr.Property;
-import javax.jcr.PropertyIterator;
 import javax.jcr.PropertyType;
 import javax.jcr.RepositoryException;
 import javax.jcr.Value;
-import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
-import static org.jahia.modules.contentintegrity.services.impl.Constants.CALCULATION_ERROR;
-
 @Component(service = ContentIntegrityCheck.class, immediate = true, property = {
         ContentIntegrityCheck.ENABLED + "=false"
 })
-public class StaticInternalLinksCheck extends AbstractContentIntegrityCheck implements ContentIntegrityCheck.IsConfigurable {
+public class StaticInternalLinksCheck extends AbstractContentIntegrityCheck implements
+        ContentIntegrityCheck.IsConfigurable,
+        ContentIntegrityCheck.SupportsParallelScan,
+        ContentIntegrityCheck.SupportsNodeSnapshot,
+        // The domains of the sites can change without modifying the nodes linking to them
+        ContentIntegrityCheck.RequiresFullScan {
 
     private static final Logger logger = LoggerFactory.getLogger(StaticInternalLinksCheck.class);
 
@@ -45,7 +47,6 @@ public class StaticInternalLinksCheck extends AbstractContentIntegrityCheck impl
 
     public static final ContentIntegrityErrorType HARDCODED_DOMAIN = createErrorType("HARDCODED_DOMAIN", "Hardcoded site domain in a String value");
 
-    private final Set<String> domains = new HashSet<>();
     private final Map<String, Collection<String>> ignoredProperties = new HashMap<>();
 
     private final ContentIntegrityCheckConfiguration configurations;
@@ -62,13 +63,16 @@ public class StaticInternalLinksCheck extends AbstractContentIntegrityCheck impl
         ignoredProperties.get(Constants.JAHIANT_VIRTUALSITE).add("j:serverNameAliases");
     }
 
-    @Override
-    protected void reset() {
-        domains.clear();
+    /*
+    Domains of the sites, loaded when the scan starts
+     */
+    private Set<String> getDomains() {
+        return getScanState(HashSet::new);
     }
 
     @Override
     protected void initializeIntegrityTestInternal(JCRNodeWrapper scanRootNode, Collection<String> excludedPaths) {
+        final Set<String> domains = getDomains();
         try {
             final JCRSessionWrapper systemSession = JCRUtils.getSystemSession(Constants.LIVE_WORKSPACE, false);
             JahiaSitesService.getInstance().getSitesNodeList(systemSession).stream()
@@ -84,22 +88,28 @@ public class StaticInternalLinksCheck extends AbstractContentIntegrityCheck impl
 
     @Override
     public ContentIntegrityErrorList checkIntegrityBeforeChildren(JCRNodeWrapper node) {
-        final PropertyIterator properties;
+        return checkIntegrityBeforeChildren(new NodeSnapshot(node));
+    }
+
+    @Override
+    public ContentIntegrityErrorList checkIntegrityBeforeChildren(NodeSnapshot snapshot) {
+        final JCRNodeWrapper node = snapshot.getNode();
+        final Collection<NodeSnapshot.PropertySnapshot> properties;
+        final String pt;
         try {
-            properties = node.getProperties();
+            properties = snapshot.getProperties().values();
+            pt = snapshot.getPrimaryNodeTypeName();
         } catch (RepositoryException e) {
             return createSingleError(createFrameworkError(node, e));
         }
+        // For performance purpose, we just check the exact PT, without considering the inheritance or the mixins
+        // TODO : for the moment, it would not work with ignored i18n properties
+        final Collection<String> ignored = ignoredProperties.getOrDefault(pt, Collections.emptySet());
         final ContentIntegrityErrorList errors = createEmptyErrorsList();
-        while (properties.hasNext()) {
-            final Property property = properties.nextProperty();
+        for (NodeSnapshot.PropertySnapshot property : properties) {
+            if (ignored.contains(property.getName())) continue;
             try {
-                if (property.isMultiple()) {
-                    Arrays.stream(property.getValues())
-                            .forEach(value -> checkValue(value, errors, node, property));
-                } else {
-                    checkValue(property.getValue(), errors, node, property);
-                }
+                property.getValues().forEach(value -> checkValue(value, errors, node, property.getName()));
             } catch (RepositoryException e) {
                 errors.addError(createFrameworkError(node, e));
             }
@@ -107,24 +117,11 @@ public class StaticInternalLinksCheck extends AbstractContentIntegrityCheck impl
         return errors;
     }
 
-    private void checkValue(Value value, ContentIntegrityErrorList errors, JCRNodeWrapper node, Property property) {
+    private void checkValue(Value value, ContentIntegrityErrorList errors, JCRNodeWrapper node, String propertyName) {
         if (value.getType() != PropertyType.STRING) return;
-        final String propertyName;
-        String tmpPropName = null;
-        try {
-            tmpPropName = property.getName();
-            // For performance purpose, we just check the exact PT, without considering the inheritance or the mixins
-            // TODO : for the moment, it would not work with ignored i18n properties
-            final String pt = node.getPrimaryNodeTypeName();
-            if (ignoredProperties.containsKey(pt) && ignoredProperties.get(pt).contains(tmpPropName))
-                return;
-        } catch (RepositoryException e) {
-            errors.addError(createFrameworkError(node, e));
-        }
-        propertyName = StringUtils.defaultString(tmpPropName, CALCULATION_ERROR);
         try {
             final String text = value.getString();
-            domains.forEach(domain -> {
+            getDomains().forEach(domain -> {
                 if (StringUtils.contains(text, domain)) {
                     errors.addError(createPropertyRelatedError(node, HARDCODED_DOMAIN)
                             .addExtraInfo("property-name", propertyName)
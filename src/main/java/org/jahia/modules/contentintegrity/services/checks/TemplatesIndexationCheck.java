@@ -22,7 +22,7 @@ import static org.jahia.modules.contentintegrity.services.impl.Constants.JCR_PAT
         ContentIntegrityCheck.ExecutionCondition.APPLY_ON_NT + "=jnt:template",
         ContentIntegrityCheck.ExecutionCondition.APPLY_ON_SUBTREES + "=" + "/modules"
 })
-public class TemplatesIndexationCheck extends AbstractContentIntegrityCheck {
+public class TemplatesIndexationCheck extends AbstractContentIntegrityCheck implements ContentIntegrityCheck.SupportsParallelScan {
 
     private static final Logger logger = LoggerFactory.getLogger(TemplatesIndexationCheck.class);
 
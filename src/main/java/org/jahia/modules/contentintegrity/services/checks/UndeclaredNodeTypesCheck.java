@@ -21,29 +21,30 @@ import javax.jcr.RepositoryException;
 import javax.jcr.nodetype.NoSuchNodeTypeException;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 import static org.jahia.modules.contentintegrity.services.impl.Constants.JCR_MIXINTYPES;
 import static org.jahia.modules.contentintegrity.services.impl.Constants.JCR_PRIMARYTYPE;
 
 @Component(service = ContentIntegrityCheck.class, immediate = true)
-public class UndeclaredNodeTypesCheck extends AbstractContentIntegrityCheck {
+public class UndeclaredNodeTypesCheck extends AbstractContentIntegrityCheck implements
+        ContentIntegrityCheck.SupportsParallelScan,
+        ContentIntegrityCheck.SupportsUnorderedScan {
 
     private static final Logger logger = LoggerFactory.getLogger(UndeclaredNodeTypesCheck.class);
 
     public static final ContentIntegrityErrorType UNDECLARED_NODE_TYPE = createErrorType("UNDECLARED_NODE_TYPE", "Undeclared type", true);
     public static final ContentIntegrityErrorType GHOST_NODE_TYPE = createErrorType("GHOST_NODE_TYPE", "Ghost type", true);
 
-    private final Set<String> existingNodeTypes = new HashSet<>();
-    private final Map<String, Boolean> missingNodeTypes = new HashMap<>();
-    private final Set<String> existingMixins = new HashSet<>();
-    private final Map<String, Boolean> missingMixins = new HashMap<>();
+    private final Set<String> existingNodeTypes = ConcurrentHashMap.newKeySet();
+    private final Map<String, Boolean> missingNodeTypes = new ConcurrentHashMap<>();
+    private final Set<String> existingMixins = ConcurrentHashMap.newKeySet();
+    private final Map<String, Boolean> missingMixins = new ConcurrentHashMap<>();
 
     @Override
     protected void reset() {
@@ -30,16 +30,18 @@ import java.util.stream.Collectors;
         ContentIntegrityCheck.ExecutionCondition.APPLY_ON_NT + "=" + Constants.JAHIANT_VIRTUALSITE,
         ContentIntegrityCheck.ExecutionCondition.APPLY_ON_SUBTREES + "=" + "/sites"
 })
-public class UndeployedModulesReferencesCheck extends AbstractContentIntegrityCheck implements ContentIntegrityCheck.SupportsIntegrityErrorFix {
+public class UndeployedModulesReferencesCheck extends AbstractContentIntegrityCheck implements
+        ContentIntegrityCheck.SupportsIntegrityErrorFix,
+        ContentIntegrityCheck.SupportsParallelScan {
 
     private static final Logger logger = LoggerFactory.getLogger(UndeployedModulesReferencesCheck.class);
     public static final ContentIntegrityErrorType UNDEPLOYED_MODULE_ON_SITE = createErrorType("UNDEPLOYED_MODULE_ON_SITE", "Undeployed module still activated on a site", true);
 
-    private final Collection<String> availableModules = new ArrayList<>();
-
-    @Override
-    protected void reset() {
-        availableModules.clear();
+    /*
+    Modules deployed when the scan starts
+     */
+    private Collection<String> getAvailableModules() {
+        return getScanState(ArrayList::new);
     }
 
     @Override
@@ -47,13 +49,14 @@ public class UndeployedModulesReferencesCheck extends AbstractContentIntegrityCh
         final JahiaTemplateManagerService jahiaTemplateManagerService = ServicesRegistry.getInstance().getJahiaTemplateManagerService();
         jahiaTemplateManagerService.getAvailableTemplatePackages().stream()
                 .map(JahiaTemplatesPackage::getId)
-                .collect(Collectors.toCollection(() -> availableModules));
+                .collect(Collectors.toCollection(this::getAvailableModules));
     }
 
     @Override
     public ContentIntegrityErrorList checkIntegrityBeforeChildren(JCRNodeWrapper node) {
         final ContentIntegrityErrorList errors = createEmptyErrorsList();
         final JCRSiteNode site = (JCRSiteNode) node;
+        final Collection<String> availableModules = getAvailableModules();
         site.getInstalledModules().stream()
                 .filter(m -> !availableModules.contains(m))
                 .forEach(undeployedModule ->
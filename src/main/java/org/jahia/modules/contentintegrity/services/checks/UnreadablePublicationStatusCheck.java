@@ -22,7 +22,10 @@ import static org.jahia.modules.contentintegrity.services.impl.Constants.TRANSLA
 @Component(service = ContentIntegrityCheck.class, immediate = true, property = {
         ContentIntegrityCheck.ExecutionCondition.APPLY_ON_NT + "=" + JAHIA_MIX_I18N
 })
-public class UnreadablePublicationStatusCheck extends AbstractContentIntegrityCheck {
+public class UnreadablePublicationStatusCheck extends AbstractContentIntegrityCheck implements
+        ContentIntegrityCheck.SupportsParallelScan,
+        // The translation sub-nodes can change without modifying the node
+        ContentIntegrityCheck.RequiresFullScan {
 
     private static final Logger logger = LoggerFactory.getLogger(UnreadablePublicationStatusCheck.class);
 
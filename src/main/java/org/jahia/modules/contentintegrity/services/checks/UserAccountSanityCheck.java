@@ -17,7 +17,7 @@ import java.util.Map;
 @Component(service = ContentIntegrityCheck.class, immediate = true, property = {
         ContentIntegrityCheck.ExecutionCondition.APPLY_ON_NT + "=" + Constants.JAHIANT_USER
 })
-public class UserAccountSanityCheck extends AbstractContentIntegrityCheck {
+public class UserAccountSanityCheck extends AbstractContentIntegrityCheck implements ContentIntegrityCheck.SupportsParallelScan, ContentIntegrityCheck.SupportsQueryScan {
 
     private static final Logger logger = LoggerFactory.getLogger(UserAccountSanityCheck.class);
 
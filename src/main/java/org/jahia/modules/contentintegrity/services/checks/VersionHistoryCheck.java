@@ -33,7 +33,11 @@ import java.util.Collections;
 })
 public class VersionHistoryCheck extends AbstractContentIntegrityCheck implements
         ContentIntegrityCheck.SupportsIntegrityErrorFix,
-        ContentIntegrityCheck.IsConfigurable {
+        ContentIntegrityCheck.IsConfigurable,
+        ContentIntegrityCheck.SupportsParallelScan,
+        ContentIntegrityCheck.SupportsQueryScan,
+        // The live nodes are checked according to the default workspace, which can change without modifying them
+        ContentIntegrityCheck.RequiresFullScan {
 
     private static final Logger logger = LoggerFactory.getLogger(VersionHistoryCheck.class);
 
@@ -1,6 +1,7 @@
 package org.jahia.modules.contentintegrity.services.checks;
 
 import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityCheck;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorList;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorType;
@@ -18,6 +19,8 @@ import org.slf4j.LoggerFactory;
 import javax.jcr.ItemNotFoundException;
 import javax.jcr.RepositoryException;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 import static org.jahia.modules.contentintegrity.services.impl.Constants.JCR_FROZENNODE;
 import static org.jahia.modules.contentintegrity.services.impl.Constants.JCR_FROZENUUID;
@@ -31,7 +34,9 @@ import static org.jahia.modules.contentintegrity.services.impl.Constants.NT_VERS
         ContentIntegrityCheck.ENABLED + "=false"
 })
  */
-public class VersionSanityCheck extends AbstractContentIntegrityCheck {
+public class VersionSanityCheck extends AbstractContentIntegrityCheck implements
+        ContentIntegrityCheck.RequiresFullScan,
+        ContentIntegrityCheck.SupportsCheckpoint {
 
     private static final Logger logger = LoggerFactory.getLogger(VersionSanityCheck.class);
 
@@ -39,31 +44,50 @@ public class VersionSanityCheck extends AbstractContentIntegrityCheck {
     public static final ContentIntegrityErrorType ORPHANED_HISTORY = createErrorType("ORPHANED_HISTORY", "Orphaned version history");
     public static final ContentIntegrityErrorType HISTORY_WITHOUT_NODE_ID = createErrorType("HISTORY_WITHOUT_NODE_ID", "Version history without versioned node ID");
 
-    private long versionHistoriesCount = 0L;
-    private long orphanVersionHistoriesCount = 0L;
-    private long versionNodesCount = 0L;
-    private long orphanedVersionNodesCount = 0L;
+    private static class Counters {
+        private long versionHistoriesCount = 0L;
+        private long orphanVersionHistoriesCount = 0L;
+        private long versionNodesCount = 0L;
+        private long orphanedVersionNodesCount = 0L;
+    }
+
+    private Counters getCounters() {
+        return getScanState(Counters::new);
+    }
+
+    @Override
+    public Map<String, String> getCheckpointState() {
+        final Counters counters = getCounters();
+        final Map<String, String> state = new HashMap<>();
+        state.put("version-histories-count", String.valueOf(counters.versionHistoriesCount));
+        state.put("orphaned-version-histories-count", String.valueOf(counters.orphanVersionHistoriesCount));
+        state.put("version-nodes-count", String.valueOf(counters.versionNodesCount));
+        state.put("orphaned-version-nodes-count", String.valueOf(counters.orphanedVersionNodesCount));
+        return state;
+    }
 
     @Override
-    protected void reset() {
-        versionHistoriesCount = 0L;
-        orphanVersionHistoriesCount = 0L;
-        versionNodesCount = 0L;
-        orphanedVersionNodesCount = 0L;
+    public void restoreCheckpointState(Map<String, String> state) {
+        final Counters counters = getCounters();
+        counters.versionHistoriesCount = NumberUtils.toLong(state.get("version-histories-count"));
+        counters.orphanVersionHistoriesCount = NumberUtils.toLong(state.get("orphaned-version-histories-count"));
+        counters.versionNodesCount = NumberUtils.toLong(state.get("version-nodes-count"));
+        counters.orphanedVersionNodesCount = NumberUtils.toLong(state.get("orphaned-version-nodes-count"));
     }
 
     @Override
     protected ContentIntegrityErrorList finalizeIntegrityTestInternal(JCRNodeWrapper scanRootNode, Collection<String> excludedPaths) {
-        if (orphanVersionHistoriesCount > 0) {
+        final Counters counters = getCounters();
+        if (counters.orphanVersionHistoriesCount > 0) {
             return createSingleError(createError(scanRootNode, ORPHAN_IN_SUBTREE)
-                    .addExtraInfo("version-histories-count", versionHistoriesCount)
-                    .addExtraInfo("orphaned-version-histories-count", orphanVersionHistoriesCount)
-                    .addExtraInfo("orphaned-version-histories-ratio", String.format("%.2f%%", 100F * orphanVersionHistoriesCount / versionHistoriesCount))
-                    .addExtraInfo("total-nb-version-nodes", versionNodesCount)
-                    .addExtraInfo("total-nb-orphan-version-nodes", orphanedVersionNodesCount)
-                    .addExtraInfo("total-nb-non-orphan-version-nodes", versionNodesCount - orphanedVersionNodesCount)
-                    .addExtraInfo("orphaned-version-nodes-ratio", String.format("%.2f%%", 100F * orphanedVersionNodesCount / versionNodesCount))
-                    .addExtraInfo("total-nb-deletable-version-nodes", versionNodesCount - versionHistoriesCount + orphanVersionHistoriesCount)
+                    .addExtraInfo("version-histories-count", counters.versionHistoriesCount)
+                    .addExtraInfo("orphaned-version-histories-count", counters.orphanVersionHistoriesCount)
+                    .addExtraInfo("orphaned-version-histories-ratio", String.format("%.2f%%", 100F * counters.orphanVersionHistoriesCount / counters.versionHistoriesCount))
+                    .addExtraInfo("total-nb-version-nodes", counters.versionNodesCount)
+                    .addExtraInfo("total-nb-orphan-version-nodes", counters.orphanedVersionNodesCount)
+                    .addExtraInfo("total-nb-non-orphan-version-nodes", counters.versionNodesCount - counters.orphanedVersionNodesCount)
+                    .addExtraInfo("orphaned-version-nodes-ratio", String.format("%.2f%%", 100F * counters.orphanedVersionNodesCount / counters.versionNodesCount))
+                    .addExtraInfo("total-nb-deletable-version-nodes", counters.versionNodesCount - counters.versionHistoriesCount + counters.orphanVersionHistoriesCount)
             );
         }
         return null;
@@ -71,17 +95,18 @@ public class VersionSanityCheck extends AbstractContentIntegrityCheck {
 
     @Override
     public ContentIntegrityErrorList checkIntegrityBeforeChildren(JCRNodeWrapper node) {
-        versionHistoriesCount++;
+        final Counters counters = getCounters();
+        counters.versionHistoriesCount++;
         final int nbVersions = JCRContentUtils.getChildrenOfType(node, NT_VERSION).size();
-        versionNodesCount += nbVersions;
+        counters.versionNodesCount += nbVersions;
         final String uuid = node.getPropertyAsString(JCR_VERSIONABLEUUID);
         if (StringUtils.isBlank(uuid)) {
             return createSingleError(createError(node, HISTORY_WITHOUT_NODE_ID));
         }
 
         if (JCRUtils.runJcrCallBack(node, VersionSanityCheck::isOrphanedHistory)) {
-            orphanVersionHistoriesCount++;
-            orphanedVersionNodesCount += nbVersions;
+            counters.orphanVersionHistoriesCount++;
+            counters.orphanedVersionNodesCount += nbVersions;
             return createSingleError(createError(node, ORPHANED_HISTORY).addExtraInfo("nb-version-nodes", nbVersions, true));
         }
 
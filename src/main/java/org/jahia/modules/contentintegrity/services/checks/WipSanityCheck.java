@@ -32,7 +32,7 @@ import static org.jahia.modules.contentintegrity.services.impl.Constants.WORKINP
         ContentIntegrityCheck.ExecutionCondition.APPLY_IF_HAS_PROP + "=" + WORKINPROGRESS + "," + WORKINPROGRESS_STATUS,
         ContentIntegrityCheck.ValidityCondition.APPLY_ON_VERSION_GTE + "=7.2.3.1"
 })
-public class WipSanityCheck extends AbstractContentIntegrityCheck {
+public class WipSanityCheck extends AbstractContentIntegrityCheck implements ContentIntegrityCheck.SupportsParallelScan, ContentIntegrityCheck.SupportsQueryScan {
 
     private static final Logger logger = LoggerFactory.getLogger(WipSanityCheck.class);
 
@@ -68,7 +68,7 @@ public class WipSanityCheck extends AbstractContentIntegrityCheck {
                     switch (status) {
                         case WORKINPROGRESS_STATUS_LANG:
                             if (propertyLangsIsDefined) {
-                                final Set<String> siteLanguages = node.getResolveSite().getLanguages();
+                                final Set<String> siteLanguages = getAncestorContext(node).getSiteLanguages();
                                 for (JCRValueWrapper value : node.getProperty(WORKINPROGRESS_LANGUAGES).getValues()) {
                                     final String lang = value.getString();
                                     if (!siteLanguages.contains(lang)) {
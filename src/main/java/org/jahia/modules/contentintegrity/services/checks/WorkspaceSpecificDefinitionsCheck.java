@@ -27,7 +27,9 @@ import static org.jahia.modules.contentintegrity.services.impl.Constants.WORKINP
 import static org.jahia.modules.contentintegrity.services.impl.Constants.WORKINPROGRESS_STATUS_DISABLED;
 
 @Component(service = ContentIntegrityCheck.class, immediate = true)
-public class WorkspaceSpecificDefinitionsCheck extends AbstractContentIntegrityCheck implements ContentIntegrityCheck.IsConfigurable {
+public class WorkspaceSpecificDefinitionsCheck extends AbstractContentIntegrityCheck implements
+        ContentIntegrityCheck.IsConfigurable,
+        ContentIntegrityCheck.SupportsParallelScan {
 
     private static final Logger logger = LoggerFactory.getLogger(WorkspaceSpecificDefinitionsCheck.class);
 
@@ -54,10 +56,6 @@ public class WorkspaceSpecificDefinitionsCheck extends AbstractContentIntegrityC
 
     private final ContentIntegrityCheckConfiguration configurations;
 
-    private final Collection<String> types = new ArrayList<>();
-    private final Collection<String> properties = new ArrayList<>();
-    private final Collection<PropertyWithValue> propertyWithValues = new ArrayList<>();
-
     public WorkspaceSpecificDefinitionsCheck() {
         configurations = new ContentIntegrityCheckConfigurationImpl();
         getConfigurations().declareDefaultParameter(WS_DEFAULT_TYPES_KEY, WS_DEFAULT_TYPES_DEFAULT_VAL, null, "Types which should be defined only in the default workspace (comma separated, spaces allowed)");
@@ -73,15 +71,22 @@ public class WorkspaceSpecificDefinitionsCheck extends AbstractContentIntegrityC
         return configurations;
     }
 
-    @Override
-    protected void reset() {
-        types.clear();
-        properties.clear();
-        propertyWithValues.clear();
+    /*
+    Definitions which are unexpected in the scanned workspace
+     */
+    private static class Definitions {
+        private final Collection<String> types = new ArrayList<>();
+        private final Collection<String> properties = new ArrayList<>();
+        private final Collection<PropertyWithValue> propertyWithValues = new ArrayList<>();
+    }
+
+    private Definitions getDefinitions() {
+        return getScanState(Definitions::new);
     }
 
     @Override
     protected void initializeIntegrityTestInternal(JCRNodeWrapper scanRootNode, Collection<String> excludedPaths) {
+        final Definitions definitions = getDefinitions();
         final String confNameTypes, confNameProps, confNamePropsVals;
         final String workspace = JCRUtils.runJcrSupplierCallBack(() -> scanRootNode.getSession().getWorkspace().getName(), Constants.CALCULATION_ERROR);
         switch (workspace) {
@@ -104,39 +109,40 @@ public class WorkspaceSpecificDefinitionsCheck extends AbstractContentIntegrityC
         Patterns.COMMA.splitAsStream(confTypes)
                 .map(StringUtils::trimToNull)
                 .filter(Objects::nonNull)
-                .forEach(types::add);
+                .forEach(definitions.types::add);
         final String confProps = (String) getConfigurations().getParameter(confNameProps);
         Patterns.COMMA.splitAsStream(confProps)
                 .map(StringUtils::trimToNull)
                 .filter(Objects::nonNull)
-                .forEach(properties::add);
+                .forEach(definitions.properties::add);
         final String confPropsVals = (String) getConfigurations().getParameter(confNamePropsVals);
         Patterns.COMMA.splitAsStream(confPropsVals)
                 .map(StringUtils::trimToNull)
                 .filter(Objects::nonNull)
                 .map(PropertyWithValue::new)
                 .filter(PropertyWithValue::isValid)
-                .forEach(propertyWithValues::add);
+                .forEach(definitions.propertyWithValues::add);
 
-        if (types.isEmpty() && properties.isEmpty() && propertyWithValues.isEmpty()) setScanDurationDisabled(true);
+        if (definitions.types.isEmpty() && definitions.properties.isEmpty() && definitions.propertyWithValues.isEmpty()) setScanDurationDisabled(true);
     }
 
     @Override
     public ContentIntegrityErrorList checkIntegrityBeforeChildren(JCRNodeWrapper node) {
-        if (types.isEmpty() && properties.isEmpty() && propertyWithValues.isEmpty()) return null;
+        final Definitions definitions = getDefinitions();
+        if (definitions.types.isEmpty() && definitions.properties.isEmpty() && definitions.propertyWithValues.isEmpty()) return null;
 
         final ContentIntegrityErrorList errorsList = createEmptyErrorsList();
-        types.stream()
+        definitions.types.stream()
                 .filter(type -> JCRUtils.runJcrCallBack(type, node::isNodeType, Boolean.FALSE))
                 .map(type -> createError(node, UNEXPECTED_TYPE)
                         .addExtraInfo("unexpected-type", type))
                 .forEach(errorsList::addError);
-        properties.stream()
+        definitions.properties.stream()
                 .filter(prop -> JCRUtils.runJcrCallBack(prop, node::hasProperty, Boolean.FALSE))
                 .map(prop -> createError(node, UNEXPECTED_PROP)
                         .addExtraInfo("unexpected-prop", prop))
                 .forEach(errorsList::addError);
-        propertyWithValues.stream()
+        definitions.propertyWithValues.stream()
                 .filter(prop -> JCRUtils.runJcrCallBack(prop.getPropertyName(), node::hasProperty, Boolean.FALSE))
                 .filter(prop -> !prop.isValueValid(node.getPropertyAsString(prop.getPropertyName())))
                 .map(prop -> createError(node, UNEXPECTED_PROP_VALUE)
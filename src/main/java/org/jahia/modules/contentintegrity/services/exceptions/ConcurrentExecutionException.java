@@ -6,7 +6,7 @@ import org.slf4j.LoggerFactory;
 public class ConcurrentExecutionException extends Exception {
 
     private static final Logger logger = LoggerFactory.getLogger(ConcurrentExecutionException.class);
-    private static final String MESSAGE = "Impossible to run the integrity check, since another one is already running";
+    private static final String MESSAGE = "Impossible to run the integrity check, since the maximum number of scans running at the same time is reached";
 
     public ConcurrentExecutionException() {
         super(MESSAGE);
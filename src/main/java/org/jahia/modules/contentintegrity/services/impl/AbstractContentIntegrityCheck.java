@@ -4,14 +4,18 @@ import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 import org.jahia.bin.Jahia;
 import org.jahia.commons.Version;
+import org.jahia.modules.contentintegrity.api.AncestorContext;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityCheck;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityError;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorList;
 import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorType;
+import org.jahia.modules.contentintegrity.api.ErrorCollector;
+import org.jahia.modules.contentintegrity.api.ScanContext;
 import org.jahia.modules.contentintegrity.services.ContentIntegrityErrorImpl;
 import org.jahia.modules.contentintegrity.services.ContentIntegrityErrorListImpl;
 import org.jahia.modules.contentintegrity.services.ContentIntegrityErrorTypeImpl;
 import org.jahia.modules.contentintegrity.services.ContentIntegrityErrorTypeImplLegacy;
+import org.jahia.modules.contentintegrity.services.util.EffectiveDefinitions;
 import org.jahia.services.content.JCRContentUtils;
 import org.jahia.services.content.JCRNodeWrapper;
 import org.jahia.utils.Patterns;
@@ -19,30 +23,38 @@ import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.jcr.Node;
 import javax.jcr.RepositoryException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static org.jahia.modules.contentintegrity.services.impl.Constants.JCR_PATH_SEPARATOR;
+import static org.jahia.modules.contentintegrity.services.impl.Constants.ROOT_NODE_PATH;
 
 public abstract class AbstractContentIntegrityCheck implements ContentIntegrityCheck {
 
     private static final Logger logger = LoggerFactory.getLogger(AbstractContentIntegrityCheck.class);
     private static final String CONDITION_VALUES_SEPARATOR = ",";
+    private static final String QUERY_SELECTOR = "n";
 
     private float priority = 100f;
     private boolean enabled = true;
-    private boolean scanDurationDisabled = false;
     private String description;
     private final List<ExecutionCondition> conditions = new LinkedList<>();
     private String id = null;
-    private long ownTime = 0L;
-    private int fatalErrorCount = 0;
+    private final AtomicLong ownTime = new AtomicLong();
+    // Context of the executions of the check outside of a scan run by the service
+    private final ScanContext standaloneContext = new ScanContext(null, null);
     private final int FATAL_ERRORS_THRESHOLD = 10;  // TODO make this configurable
     private String validity_jahiaMinimumVersion = null;  // TODO if another criteria is some day required, introduce a list of validity conditions as for the execution conditions
     private boolean validity_jahiaMinimumVersionBoundIncluded = false;
@@ -131,6 +143,22 @@ public abstract class AbstractContentIntegrityCheck implements ContentIntegrityC
         return true;
     }
 
+    @Override
+    public final boolean areNodeTypeConditionsMatched(JCRNodeWrapper node) {
+        for (ExecutionCondition condition : conditions) {
+            if (condition.isNodeTypeCondition() && !condition.matches(node)) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public final boolean areOtherConditionsMatched(JCRNodeWrapper node) {
+        for (ExecutionCondition condition : conditions) {
+            if (!condition.isNodeTypeCondition() && !condition.matches(node)) return false;
+        }
+        return true;
+    }
+
     protected final void addCondition(ExecutionCondition condition) {
         conditions.add(condition);
     }
@@ -146,6 +174,33 @@ public abstract class AbstractContentIntegrityCheck implements ContentIntegrityC
         return conditions.stream().allMatch(c -> c.isReachableCondition(scanRootNode, excludedPaths) >= 0);
     }
 
+    @Override
+    public final boolean areConditionsReachableInSubtree(String path) {
+        for (ExecutionCondition condition : conditions) {
+            if (!condition.isReachableInSubtree(path)) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public final List<String> getCandidateNodesQueries(String scanRootPath) {
+        Collection<String> nodeTypes = null;
+        final List<String> constraints = new ArrayList<>();
+        for (ExecutionCondition condition : conditions) {
+            // Only the first condition on the node types is used in the queries, the other ones are evaluated on the returned nodes
+            if (nodeTypes == null) nodeTypes = condition.getQueryNodeTypes();
+            final String constraint = condition.getQueryConstraint(QUERY_SELECTOR);
+            if (constraint != null) constraints.add(constraint);
+        }
+        if (nodeTypes == null && constraints.isEmpty()) return null;
+
+        constraints.add(0, String.format("(issamenode(%1$s, '%2$s') or isdescendantnode(%1$s, '%2$s'))", QUERY_SELECTOR, JCRContentUtils.sqlEncode(scanRootPath)));
+        final String where = String.join(" and ", constraints);
+        return Optional.ofNullable(nodeTypes).orElse(Collections.singletonList(Constants.NT_BASE)).stream()
+                .map(nodeType -> String.format("select * from [%s] as %s where %s", nodeType, QUERY_SELECTOR, where))
+                .collect(Collectors.toList());
+    }
+
     @Override
     public final float getPriority() {
         return priority;
@@ -158,7 +213,7 @@ public abstract class AbstractContentIntegrityCheck implements ContentIntegrityC
 
     @Override
     public final boolean canRun() {
-        return !scanDurationDisabled;
+        return !getScanContext().isCheckDisabled(this);
     }
 
     @Override
@@ -167,7 +222,40 @@ public abstract class AbstractContentIntegrityCheck implements ContentIntegrityC
     }
 
     protected final void setScanDurationDisabled(boolean scanDurationDisabled) {
-        this.scanDurationDisabled = scanDurationDisabled;
+        getScanContext().setCheckDisabled(this, scanDurationDisabled);
+    }
+
+    /**
+     * @return the context of the scan executed by the current thread
+     */
+    protected final ScanContext getScanContext() {
+        return Optional.ofNullable(ScanContext.getCurrent()).orElse(standaloneContext);
+    }
+
+    /**
+     * The checks are shared by the scans running at the same time, so that the state accumulated during a scan has to
+     * be kept with this method instead of instance fields.
+     *
+     * @param factory creates the state, the first time it is requested during the scan
+     * @return the state of the check for the scan executed by the current thread
+     */
+    protected final <T> T getScanState(Supplier<T> factory) {
+        return getScanContext().getCheckState(this, factory);
+    }
+
+    /**
+     * @return the definitions which apply to the node, shared by all the checks and all the nodes having the same
+     * primary type and mixins during the scan executed by the current thread
+     */
+    protected final EffectiveDefinitions getEffectiveDefinitions(Node node) throws RepositoryException {
+        return getScanContext().getEffectiveDefinitions().getDefinitions(node);
+    }
+
+    /**
+     * @return what the node inherits from its ancestors, calculated once per node during a tree traversal
+     */
+    protected final AncestorContext getAncestorContext(JCRNodeWrapper node) {
+        return getScanContext().getAncestorContext(node);
     }
 
     public final String getDescription() {
@@ -205,25 +293,25 @@ public abstract class AbstractContentIntegrityCheck implements ContentIntegrityC
 
     @Override
     public final void resetOwnTime() {
-        ownTime = 0L;
+        ownTime.set(0L);
     }
 
     @Override
     public final long getOwnTime() {
-        return ownTime;
+        return ownTime.get();
     }
 
     @Override
     public final void trackOwnTime(long time) {
-        ownTime += time;
+        ownTime.addAndGet(time);
     }
 
     protected static ContentIntegrityErrorType createErrorType(String key, String defaultMessage) {
-        return new ContentIntegrityErrorTypeImpl(key).setDefaultMessage(defaultMessage);
+        return ContentIntegrityErrorTypeImpl.register(new ContentIntegrityErrorTypeImpl(key).setDefaultMessage(defaultMessage));
     }
 
     protected static ContentIntegrityErrorType createErrorType(String key, String defaultMessage, boolean isBlockingImport) {
-        return new ContentIntegrityErrorTypeImpl(key, isBlockingImport).setDefaultMessage(defaultMessage);
+        return ContentIntegrityErrorTypeImpl.register(new ContentIntegrityErrorTypeImpl(key, isBlockingImport).setDefaultMessage(defaultMessage));
     }
 
     protected final ContentIntegrityError createError(JCRNodeWrapper node, ContentIntegrityErrorType errorType) {
@@ -310,26 +398,37 @@ public abstract class AbstractContentIntegrityCheck implements ContentIntegrityC
         return ContentIntegrityErrorListImpl.createSingleError(error);
     }
 
+    /**
+     * Adapts the checks pushing their errors to an {@link ErrorCollector} to the methods returning a list of errors
+     */
+    protected final ContentIntegrityErrorList collectErrors(Consumer<ErrorCollector> checker) {
+        final ContentIntegrityErrorList errors = createEmptyErrorsList();
+        checker.accept(errors::addError);
+        return errors;
+    }
+
     protected final ContentIntegrityErrorList trackError(ContentIntegrityErrorList errorList, ContentIntegrityError error) {
         return Optional.ofNullable(errorList).orElseGet(this::createEmptyErrorsList).addError(error);
     }
 
     @Override
     public final void trackFatalError() {
-        fatalErrorCount += 1;
-        if (fatalErrorCount >= FATAL_ERRORS_THRESHOLD) {
+        if (getScanContext().trackFatalError(this) >= FATAL_ERRORS_THRESHOLD) {
             logger.warn(String.format("Automatically disabling the check as it is raising too many unhandled errors: %s", getName()));
             setScanDurationDisabled(true);
         }
     }
 
+    /**
+     * Run before and after each scan. Since the checks are shared by the scans running at the same time, this method
+     * must only reset some caches which don't depend on the scan. The state of a scan is kept with {@link #getScanState(Supplier)}
+     */
     protected void reset() {
     }
 
     @Override
     public final void initializeIntegrityTest(JCRNodeWrapper scanRootNode, Collection<String> excludedPaths) {
-        fatalErrorCount = 0;
-        setScanDurationDisabled(false);
+        getScanContext().releaseCheck(this);
         reset();
         initializeIntegrityTestInternal(scanRootNode, excludedPaths);
     }
@@ -343,11 +442,7 @@ public abstract class AbstractContentIntegrityCheck implements ContentIntegrityC
     public final ContentIntegrityErrorList finalizeIntegrityTest(JCRNodeWrapper scanRootNode, Collection<String> excludedPaths) {
         final ContentIntegrityErrorList errorList = finalizeIntegrityTestInternal(scanRootNode, excludedPaths);
         reset();
-        // TODO the next lines are useless. scanDurationDisabled can be set to true for other reasons. And it is set to false in initializeIntegrityTest() in any case.
-        if (!scanDurationDisabled && fatalErrorCount > 0) {
-            logger.info(String.format("Enabling back the integrity check which was disabled after too many errors: %s", getName()));
-            setScanDurationDisabled(false);
-        }
+        getScanContext().releaseCheck(this);
         return errorList;
     }
 
@@ -407,6 +502,21 @@ public abstract class AbstractContentIntegrityCheck implements ContentIntegrityC
             return !condition.matches(node);
         }
 
+        @Override
+        public boolean isNodeTypeCondition() {
+            return condition.isNodeTypeCondition();
+        }
+
+        @Override
+        public boolean isReachableInSubtree(String path) {
+            return !condition.matchesWholeSubtree(path);
+        }
+
+        @Override
+        public boolean matchesWholeSubtree(String path) {
+            return !condition.isReachableInSubtree(path);
+        }
+
         @Override
         public String toString() {
             return "not (" + condition + ")";
@@ -430,6 +540,53 @@ public abstract class AbstractContentIntegrityCheck implements ContentIntegrityC
             return false;
         }
 
+        @Override
+        public boolean isNodeTypeCondition() {
+            return conditions.stream().allMatch(ExecutionCondition::isNodeTypeCondition);
+        }
+
+        @Override
+        public boolean isReachableInSubtree(String path) {
+            if (CollectionUtils.isEmpty(conditions)) return true;
+            for (ExecutionCondition condition : conditions) {
+                if (condition.isReachableInSubtree(path)) return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean matchesWholeSubtree(String path) {
+            if (CollectionUtils.isEmpty(conditions)) return true;
+            for (ExecutionCondition condition : conditions) {
+                if (condition.matchesWholeSubtree(path)) return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Collection<String> getQueryNodeTypes() {
+            if (CollectionUtils.isEmpty(conditions)) return null;
+            final List<String> nodeTypes = new ArrayList<>();
+            for (ExecutionCondition condition : conditions) {
+                final Collection<String> conditionNodeTypes = condition.getQueryNodeTypes();
+                if (conditionNodeTypes == null) return null;
+                nodeTypes.addAll(conditionNodeTypes);
+            }
+            return nodeTypes;
+        }
+
+        @Override
+        public String getQueryConstraint(String selector) {
+            if (CollectionUtils.isEmpty(conditions)) return null;
+            final List<String> constraints = new ArrayList<>();
+            for (ExecutionCondition condition : conditions) {
+                final String constraint = condition.getQueryConstraint(selector);
+                if (constraint == null) return null;
+                constraints.add(constraint);
+            }
+            return constraints.stream().collect(Collectors.joining(" or ", "(", ")"));
+        }
+
         @Override
         public String toString() {
             final StringBuilder out = new StringBuilder();
@@ -459,6 +616,16 @@ public abstract class AbstractContentIntegrityCheck implements ContentIntegrityC
             return false;
         }
 
+        @Override
+        public boolean isNodeTypeCondition() {
+            return true;
+        }
+
+        @Override
+        public Collection<String> getQueryNodeTypes() {
+            return Collections.singletonList(nodeType);
+        }
+
         @Override
         public String toString() {
             return String.format("node type = %s", nodeType);
@@ -546,6 +713,17 @@ public abstract class AbstractContentIntegrityCheck implements ContentIntegrityC
             return path.equals(treePath) || path.startsWith(treePathPlusSlash); // TODO review path.equals(treePath) , shouldn't this be another condition? (toString() to adapt if changed)
         }
 
+        @Override
+        public boolean isReachableInSubtree(String path) {
+            // Either the subtree is in the tree, or the tree is in the subtree
+            return matchesWholeSubtree(path) || treePath.startsWith(ROOT_NODE_PATH.equals(path) ? path : path.concat(JCR_PATH_SEPARATOR));
+        }
+
+        @Override
+        public boolean matchesWholeSubtree(String path) {
+            return path.equals(treePath) || path.startsWith(treePathPlusSlash);
+        }
+
         @Override
         public String toString() {
             return String.format("is or is under %s", treePath);
@@ -598,6 +776,11 @@ public abstract class AbstractContentIntegrityCheck implements ContentIntegrityC
             }
         }
 
+        @Override
+        public String getQueryConstraint(String selector) {
+            return String.format("%s.[%s] is not null", selector, propertyName);
+        }
+
         @Override
         public String toString() {
             return String.format("has property %s", propertyName);
@@ -0,0 +1,158 @@
+package org.jahia.modules.contentintegrity.services.impl;
+
+import org.apache.commons.lang.StringUtils;
+import org.jahia.utils.DatabaseUtils;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Reads the identifiers of the nodes of a workspace from the bundle table of the Jackrabbit persistence manager,
+ * in batches, in the order of the primary key of the table. This is the order in which the bundles are stored, so that
+ * loading the nodes batch after batch reads the table sequentially, instead of randomly when traversing the tree.
+ * <p>
+ * Both storage models of the Jackrabbit bundle persistence managers are supported: the identifiers stored as binary
+ * values in the NODE_ID column, or as two long values in the NODE_ID_HI and NODE_ID_LO columns.
+ */
+public class BundleTableReader {
+
+    private static final String TABLE_PREFIX = "JR_";
+    private static final String TABLE_SUFFIX = "_BUNDLE";
+    private static final String NODE_ID = "NODE_ID";
+    private static final String NODE_ID_HI = "NODE_ID_HI";
+    private static final String NODE_ID_LO = "NODE_ID_LO";
+
+    private final String table;
+    private final int batchSize;
+    private Boolean binaryKeys;
+    private UUID lastReadIdentifier;
+    private boolean completed = false;
+
+    public BundleTableReader(String workspace, int batchSize) {
+        table = TABLE_PREFIX + StringUtils.upperCase(workspace) + TABLE_SUFFIX;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return the number of bundles in the table, which includes the nodes outside of the scanned tree
+     */
+    public long countNodes() throws SQLException {
+        Connection conn = null;
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        try {
+            conn = DatabaseUtils.getDatasource().getConnection();
+            statement = conn.prepareStatement(String.format("select count(*) from %s", table));
+            resultSet = statement.executeQuery();
+            return resultSet.next() ? resultSet.getLong(1) : 0L;
+        } finally {
+            DatabaseUtils.closeQuietly(resultSet);
+            DatabaseUtils.closeQuietly(statement);
+            DatabaseUtils.closeQuietly(conn);
+        }
+    }
+
+    /**
+     * @return the identifiers of the next batch of nodes, or an empty list once all the table has been read
+     */
+    public List<String> nextBatch() throws SQLException {
+        if (completed) return Collections.emptyList();
+
+        final List<String> identifiers = new ArrayList<>(batchSize);
+        nextBatch(identifier -> identifiers.add(identifier.toString()));
+        return identifiers;
+    }
+
+    /**
+     * Reads the next batch of nodes, without converting their identifiers into strings
+     *
+     * @return the number of identifiers passed to the consumer, 0 once all the table has been read
+     */
+    public int nextBatch(Consumer<UUID> consumer) throws SQLException {
+        if (completed) return 0;
+
+        int count = 0;
+        Connection conn = null;
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        try {
+            conn = DatabaseUtils.getDatasource().getConnection();
+            if (binaryKeys == null) binaryKeys = hasBinaryKeys(conn);
+            statement = conn.prepareStatement(getBatchQuery());
+            statement.setMaxRows(batchSize);
+            if (lastReadIdentifier != null) {
+                if (binaryKeys) {
+                    statement.setBytes(1, toBytes(lastReadIdentifier));
+                } else {
+                    statement.setLong(1, lastReadIdentifier.getMostSignificantBits());
+                    statement.setLong(2, lastReadIdentifier.getMostSignificantBits());
+                    statement.setLong(3, lastReadIdentifier.getLeastSignificantBits());
+                }
+            }
+            resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                lastReadIdentifier = binaryKeys ?
+                        fromBytes(resultSet.getBytes(1)) :
+                        new UUID(resultSet.getLong(1), resultSet.getLong(2));
+                consumer.accept(lastReadIdentifier);
+                count++;
+            }
+        } finally {
+            DatabaseUtils.closeQuietly(resultSet);
+            DatabaseUtils.closeQuietly(statement);
+            DatabaseUtils.closeQuietly(conn);
+        }
+        if (count < batchSize) completed = true;
+        return count;
+    }
+
+    private String getBatchQuery() {
+        if (binaryKeys) {
+            return lastReadIdentifier == null ?
+                    String.format("select %s from %s order by %s", NODE_ID, table, NODE_ID) :
+                    String.format("select %s from %s where %s > ? order by %s", NODE_ID, table, NODE_ID, NODE_ID);
+        }
+        return lastReadIdentifier == null ?
+                String.format("select %s, %s from %s order by %s, %s", NODE_ID_HI, NODE_ID_LO, table, NODE_ID_HI, NODE_ID_LO) :
+                String.format("select %s, %s from %s where (%s > ?) or (%s = ? and %s > ?) order by %s, %s",
+                        NODE_ID_HI, NODE_ID_LO, table, NODE_ID_HI, NODE_ID_HI, NODE_ID_LO, NODE_ID_HI, NODE_ID_LO);
+    }
+
+    private boolean hasBinaryKeys(Connection conn) throws SQLException {
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        try {
+            statement = conn.prepareStatement(String.format("select * from %s where 1 = 0", table));
+            resultSet = statement.executeQuery();
+            final ResultSetMetaData metaData = resultSet.getMetaData();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                if (StringUtils.equalsIgnoreCase(metaData.getColumnName(i), NODE_ID)) return true;
+            }
+            return false;
+        } finally {
+            DatabaseUtils.closeQuietly(resultSet);
+            DatabaseUtils.closeQuietly(statement);
+        }
+    }
+
+    private static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    private static UUID fromBytes(byte[] bytes) {
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
@@ -24,6 +24,7 @@ public class Constants extends org.jahia.api.Constants {
     public static final String SITES_TREE_PATH = "/sites";
     public static final String NODE_UNDER_SITE_PATH_PREFIX = SITES_TREE_PATH + JCR_PATH_SEPARATOR;
 
+    public static final String NT_BASE = "nt:base";
     public static final String JAHIA_MIX_I18N = "jmix:i18n";
     public static final String TRANSLATION_NODE_PREFIX = "j:translation_";
     public static final String PROPERTY_DEFINITION_NAME_WILDCARD = "*";
@@ -1,10 +1,13 @@
 package org.jahia.modules.contentintegrity.services.impl;
 
 import org.apache.commons.lang.StringUtils;
+import org.jahia.modules.contentintegrity.api.ScanContext;
+import org.jahia.modules.contentintegrity.services.util.ScanSessions;
 import org.jahia.services.content.JCRContentUtils;
 import org.jahia.services.content.JCRNodeWrapper;
 import org.jahia.services.content.JCRSessionFactory;
 import org.jahia.services.content.JCRSessionWrapper;
+import org.jahia.services.query.QueryWrapper;
 import org.jahia.utils.DatabaseUtils;
 import org.jahia.utils.LanguageCodeConverters;
 import org.slf4j.Logger;
@@ -15,15 +18,21 @@ import javax.jcr.Property;
 import javax.jcr.PropertyType;
 import javax.jcr.RepositoryException;
 import javax.jcr.Value;
+import javax.jcr.query.Query;
+import javax.jcr.query.RowIterator;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static org.jahia.modules.contentintegrity.services.impl.Constants.JAHIAMIX_LASTPUBLISHED;
@@ -97,7 +106,7 @@ public class JCRUtils {
                 translationNode = considerI18n && (locale = node.getSession().getLocale()) != null ? getI18N(node, locale) : null;
             } else if (allowTechnicalNodes) {
                 translationNode = null;
-                final JCRNodeWrapper publicationRoot = JCRContentUtils.getParentOfType(node, JAHIAMIX_LASTPUBLISHED);
+                final JCRNodeWrapper publicationRoot = getPublicationRoot(node);
                 if (publicationRoot == null) return false;
                 locale = getTechnicalNodeLocale(node);
                 if (locale != null) {
@@ -119,6 +128,15 @@ public class JCRUtils {
         }
     }
 
+    /**
+     * @return the nearest ancestor of the node which can be published, read from the context of the node during a scan
+     */
+    public static JCRNodeWrapper getPublicationRoot(JCRNodeWrapper node) throws RepositoryException {
+        final ScanContext scanContext = ScanContext.getCurrent();
+        if (scanContext == null) return JCRContentUtils.getParentOfType(node, JAHIAMIX_LASTPUBLISHED);
+        return scanContext.getAncestorContext(node).getPublicationRoot();
+    }
+
     private static boolean hasPendingModificationsInternal(Node node) {
         try {
             if (node.isNodeType(Constants.JAHIAMIX_MARKED_FOR_DELETION_ROOT)) return true;
@@ -195,6 +213,11 @@ public class JCRUtils {
 
     private static JCRSessionWrapper getSystemSession(String workspace, String locale, boolean refresh) {
         try {
+            // During a scan, the sessions are reused by the threads of the scan and refreshed according to the refresh
+            // policy of the scan, whatever the caller requests
+            final ScanContext scanContext = ScanContext.getCurrent();
+            final ScanSessions scanSessions = scanContext == null ? null : scanContext.getSessions();
+            if (scanSessions != null) return scanSessions.getSession(workspace, LanguageCodeConverters.languageCodeToLocale(locale));
             final JCRSessionWrapper session = JCRSessionFactory.getInstance().getCurrentSystemSession(workspace, LanguageCodeConverters.languageCodeToLocale(locale), null);
             if (refresh) session.refresh(false);
             return session;
@@ -209,6 +232,11 @@ public class JCRUtils {
     }
 
     public static boolean nodeExists(String uuid, JCRSessionWrapper session, boolean verifyUnmountedVirtualNodes) {
+        // During a scan, the identifiers of the nodes of the workspace can be indexed. The index is a snapshot, so a node
+        // missing from it is looked up in the workspace, since it might have been created after the index was loaded
+        final ScanContext scanContext = ScanContext.getCurrent();
+        if (scanContext != null && Boolean.TRUE.equals(scanContext.getIdentifierIndexes().nodeExists(uuid, session.getWorkspace().getName())))
+            return true;
         try {
             session.getNodeByIdentifier(uuid);
             return true;
@@ -237,6 +265,56 @@ public class JCRUtils {
         }
     }
 
+    /**
+     * Loads in a single query the internal identifiers of all the nodes mapped by the external providers.
+     *
+     * @return the identifiers, or an empty set if they can't be loaded
+     */
+    public static Set<String> getVirtualNodeIdentifiers() {
+        final Set<String> identifiers = new HashSet<>();
+        Connection conn = null;
+        Statement statement = null;
+        ResultSet resultSet = null;
+        try {
+            conn = DatabaseUtils.getDatasource().getConnection();
+            statement = conn.createStatement();
+            resultSet = statement.executeQuery("select internalUuid from jahia_external_mapping");
+            while (resultSet.next()) {
+                identifiers.add(resultSet.getString(1));
+            }
+        } catch (SQLException e) {
+            logger.debug("Impossible to load the identifiers of the virtual nodes", e);
+            identifiers.clear();
+        } finally {
+            DatabaseUtils.closeQuietly(resultSet);
+            DatabaseUtils.closeQuietly(statement);
+            DatabaseUtils.closeQuietly(conn);
+        }
+        return identifiers;
+    }
+
+    /**
+     * Looks up several identifiers with a single query. The identifiers which are not returned by the query can be
+     * the ones of nodes which are not yet indexed, so they have to be validated individually before concluding that
+     * the nodes don't exist.
+     *
+     * @return the identifiers of the nodes found by the query
+     */
+    public static Set<String> findExistingNodeIdentifiers(Collection<String> uuids, JCRSessionWrapper session) throws RepositoryException {
+        final Set<String> existing = new HashSet<>();
+        if (uuids.isEmpty()) return existing;
+        final String query = uuids.stream()
+                .map(uuid -> String.format("n.[jcr:uuid] = '%s'", JCRContentUtils.sqlEncode(uuid)))
+                .collect(Collectors.joining(" or ", "select n.[jcr:uuid] from [mix:referenceable] as n where ", StringUtils.EMPTY));
+        final QueryWrapper q = session.getWorkspace().getQueryManager().createQuery(query, Query.JCR_SQL2);
+        final RowIterator rows = q.execute().getRows();
+        while (rows.hasNext()) {
+            final Value value = rows.nextRow().getValue("n.jcr:uuid");
+            if (value != null) existing.add(value.getString());
+        }
+        return existing;
+    }
+
     public static String getTranslationNodeLocale(Node translationNode) {
         try {
             if (translationNode.hasProperty(Constants.JCR_LANGUAGE))
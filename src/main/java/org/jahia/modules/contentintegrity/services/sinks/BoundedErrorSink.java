@@ -0,0 +1,45 @@
+package org.jahia.modules.contentintegrity.services.sinks;
+
+import org.jahia.modules.contentintegrity.api.ContentIntegrityError;
+import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorSink;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Keeps in memory only the first errors, up to a maximum number. The other errors are only counted.
+ */
+public class BoundedErrorSink implements ContentIntegrityErrorSink {
+
+    private final int maxErrors;
+    private final List<ContentIntegrityError> errors = new ArrayList<>();
+    private long errorsCount = 0L;
+
+    public BoundedErrorSink(int maxErrors) {
+        if (maxErrors < 0) throw new IllegalArgumentException(String.format("The maximum number of errors can't be negative: %d", maxErrors));
+        this.maxErrors = maxErrors;
+    }
+
+    @Override
+    public synchronized void addError(ContentIntegrityError error) {
+        errorsCount++;
+        if (errors.size() < maxErrors) errors.add(error);
+    }
+
+    @Override
+    public synchronized long getErrorsCount() {
+        return errorsCount;
+    }
+
+    @Override
+    public synchronized Stream<ContentIntegrityError> getErrors() {
+        return Collections.unmodifiableList(new ArrayList<>(errors)).stream();
+    }
+
+    @Override
+    public synchronized boolean isComplete() {
+        return errorsCount == errors.size();
+    }
+}
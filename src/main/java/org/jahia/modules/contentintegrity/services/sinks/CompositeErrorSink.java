@@ -0,0 +1,46 @@
+package org.jahia.modules.contentintegrity.services.sinks;
+
+import org.jahia.modules.contentintegrity.api.ContentIntegrityError;
+import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorSink;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Read-only view over several sinks, used to merge the results of several scans without copying their errors.
+ */
+public class CompositeErrorSink implements ContentIntegrityErrorSink {
+
+    private final List<ContentIntegrityErrorSink> sinks;
+
+    public CompositeErrorSink(Collection<ContentIntegrityErrorSink> sinks) {
+        this.sinks = new ArrayList<>(sinks);
+    }
+
+    @Override
+    public void addError(ContentIntegrityError error) {
+        throw new UnsupportedOperationException("Errors can't be added to a composite sink");
+    }
+
+    @Override
+    public long getErrorsCount() {
+        return sinks.stream().mapToLong(ContentIntegrityErrorSink::getErrorsCount).sum();
+    }
+
+    @Override
+    public Stream<ContentIntegrityError> getErrors() {
+        return sinks.stream().flatMap(ContentIntegrityErrorSink::getErrors);
+    }
+
+    @Override
+    public boolean isComplete() {
+        return sinks.stream().allMatch(ContentIntegrityErrorSink::isComplete);
+    }
+
+    @Override
+    public void dispose() {
+        sinks.forEach(ContentIntegrityErrorSink::dispose);
+    }
+}
@@ -0,0 +1,35 @@
+package org.jahia.modules.contentintegrity.services.sinks;
+
+import org.jahia.modules.contentintegrity.api.ContentIntegrityError;
+import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorSink;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Only counts the errors, without storing them.
+ */
+public class CountingErrorSink implements ContentIntegrityErrorSink {
+
+    private final AtomicLong errorsCount = new AtomicLong();
+
+    @Override
+    public void addError(ContentIntegrityError error) {
+        errorsCount.incrementAndGet();
+    }
+
+    @Override
+    public long getErrorsCount() {
+        return errorsCount.get();
+    }
+
+    @Override
+    public Stream<ContentIntegrityError> getErrors() {
+        return Stream.empty();
+    }
+
+    @Override
+    public boolean isComplete() {
+        return errorsCount.get() == 0L;
+    }
+}
@@ -0,0 +1,48 @@
+package org.jahia.modules.contentintegrity.services.sinks;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
+import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorSink;
+
+import java.io.IOException;
+
+public class ErrorSinks {
+
+    public static final String MEMORY = "memory";
+    public static final String BOUNDED = "bounded";
+    public static final String DISK = "disk";
+    public static final String COUNT = "count";
+    public static final int BOUNDED_DEFAULT_MAX_ERRORS = 10000;
+    private static final String PARAMETER_SEPARATOR = ":";
+
+    private ErrorSinks() {
+    }
+
+    /**
+     * Creates a sink from its description: "memory", "bounded" (optionally followed by ":" and the maximum number of
+     * errors kept in memory), "disk" or "count".
+     *
+     * @param description the description of the sink. If blank, the in-memory sink is used
+     * @return the sink
+     * @throws IllegalArgumentException if the description is invalid
+     * @throws IOException              if the disk sink can't be created
+     */
+    public static ContentIntegrityErrorSink create(String description) throws IOException {
+        if (StringUtils.isBlank(description)) return new InMemoryErrorSink();
+
+        final String type = StringUtils.substringBefore(description, PARAMETER_SEPARATOR).trim();
+        switch (type) {
+            case MEMORY:
+                return new InMemoryErrorSink();
+            case BOUNDED:
+                final String max = StringUtils.substringAfter(description, PARAMETER_SEPARATOR).trim();
+                return new BoundedErrorSink(StringUtils.isBlank(max) ? BOUNDED_DEFAULT_MAX_ERRORS : NumberUtils.toInt(max, BOUNDED_DEFAULT_MAX_ERRORS));
+            case DISK:
+                return new FileErrorSink();
+            case COUNT:
+                return new CountingErrorSink();
+            default:
+                throw new IllegalArgumentException(String.format("Invalid error sink: %s", description));
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package org.jahia.modules.contentintegrity.services.sinks;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.jahia.modules.contentintegrity.api.ContentIntegrityError;
+import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorSink;
+import org.jahia.modules.contentintegrity.services.ContentIntegrityErrorImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Appends the errors to a file on the disk, so that the number of errors tracked during a scan is not bound by the heap size.
+ * The errors are read back sequentially from the file.
+ * <p>
+ * The values of the extra infos are read back as strings, and the fixed status of an error which is read back is
+ * not written in the file.
+ */
+public class FileErrorSink implements ContentIntegrityErrorSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileErrorSink.class);
+
+    private static final File SPILL_FOLDER = new File(System.getProperty("java.io.tmpdir"), "content-integrity/errors");
+    private static final String FILE_EXTENSION = ".bin";
+
+    private final File file;
+    private final boolean deleteOnDispose;
+    private DataOutputStream out;
+    private long errorsCount = 0L;
+    private long failedWrites = 0L;
+    private boolean disposed = false;
+
+    public FileErrorSink() throws IOException {
+        FileUtils.forceMkdir(SPILL_FOLDER);
+        file = new File(SPILL_FOLDER, UUID.randomUUID() + FILE_EXTENSION);
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        deleteOnDispose = true;
+    }
+
+    private FileErrorSink(File file, long errorsCount) {
+        this.file = file;
+        this.errorsCount = errorsCount;
+        deleteOnDispose = false;
+    }
+
+    /**
+     * Opens in read only mode a file of errors written by another component. The file is not deleted when the sink is disposed.
+     *
+     * @param file        the file
+     * @param errorsCount the number of errors written in the file
+     * @return the sink
+     */
+    public static FileErrorSink open(File file, long errorsCount) {
+        return new FileErrorSink(file, errorsCount);
+    }
+
+    /**
+     * Deletes the files left by the previous executions. The sinks are not persisted, so those files can't be read anymore.
+     */
+    public static void cleanSpillFolder() {
+        if (!SPILL_FOLDER.exists()) return;
+        try {
+            FileUtils.cleanDirectory(SPILL_FOLDER);
+        } catch (IOException e) {
+            logger.error(String.format("Impossible to clean the folder %s", SPILL_FOLDER.getPath()), e);
+        }
+    }
+
+    @Override
+    public synchronized void addError(ContentIntegrityError error) {
+        if (out == null) throw new IllegalStateException("The sink is closed");
+        try {
+            ContentIntegrityErrorImpl.writeTo(error, out);
+            errorsCount++;
+        } catch (IOException e) {
+            if (failedWrites++ == 0L) logger.error(String.format("Impossible to write an error in %s", file.getPath()), e);
+        }
+    }
+
+    @Override
+    public synchronized long getErrorsCount() {
+        return errorsCount + failedWrites;
+    }
+
+    @Override
+    public synchronized boolean isComplete() {
+        return failedWrites == 0L && !disposed;
+    }
+
+    @Override
+    public synchronized Stream<ContentIntegrityError> getErrors() {
+        final long count = errorsCount;
+        final DataInputStream in;
+        try {
+            if (out != null) out.flush();
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        } catch (IOException e) {
+            logger.error(String.format("Impossible to read the errors from %s", file.getPath()), e);
+            return Stream.empty();
+        }
+
+        final Spliterator<ContentIntegrityError> spliterator = new Spliterators.AbstractSpliterator<ContentIntegrityError>(count, Spliterator.ORDERED | Spliterator.SIZED | Spliterator.NONNULL) {
+            private long readErrors = 0L;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super ContentIntegrityError> action) {
+                if (readErrors >= count) return false;
+                try {
+                    action.accept(ContentIntegrityErrorImpl.readFrom(in));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                readErrors++;
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(() -> IOUtils.closeQuietly(in));
+    }
+
+    @Override
+    public synchronized void close() {
+        if (out == null) return;
+        IOUtils.closeQuietly(out);
+        out = null;
+    }
+
+    @Override
+    public synchronized void dispose() {
+        close();
+        disposed = true;
+        if (deleteOnDispose) FileUtils.deleteQuietly(file);
+    }
+}
@@ -0,0 +1,44 @@
+package org.jahia.modules.contentintegrity.services.sinks;
+
+import org.jahia.modules.contentintegrity.api.ContentIntegrityError;
+import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorSink;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Keeps all the errors in memory. This is the default sink.
+ */
+public class InMemoryErrorSink implements ContentIntegrityErrorSink {
+
+    private final List<ContentIntegrityError> errors;
+
+    public InMemoryErrorSink() {
+        this(new ArrayList<>());
+    }
+
+    public InMemoryErrorSink(List<ContentIntegrityError> errors) {
+        this.errors = Collections.synchronizedList(errors);
+    }
+
+    @Override
+    public void addError(ContentIntegrityError error) {
+        errors.add(error);
+    }
+
+    @Override
+    public long getErrorsCount() {
+        return errors.size();
+    }
+
+    @Override
+    public Stream<ContentIntegrityError> getErrors() {
+        return getErrorsList().stream();
+    }
+
+    public List<ContentIntegrityError> getErrorsList() {
+        return Collections.unmodifiableList(errors);
+    }
+}
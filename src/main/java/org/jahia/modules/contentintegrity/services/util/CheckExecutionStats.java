@@ -0,0 +1,178 @@
+package org.jahia.modules.contentintegrity.services.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Execution statistics of an integrity check during a scan. Safe for concurrent updates.
+ * <p>
+ * The durations are tracked in nanoseconds, per execution of the check on a node (before or after its children),
+ * in a histogram with 8 buckets per power of two, so that the calculated percentiles are at most 12.5% below the
+ * real values. The nodes are counted only once, when the check is executed before their children.
+ */
+public class CheckExecutionStats {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int NB_BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    private static final int DEFAULT_SLOWEST_NODES_COUNT = 10;
+
+    private final String checkId;
+    private final String checkName;
+    private final LongAdder matchedNodes = new LongAdder();
+    private final LongAdder skippedNodes = new LongAdder();
+    private final LongAdder matchedExecutions = new LongAdder();
+    private final LongAdder totalTime = new LongAdder();
+    private final AtomicLong maxTime = new AtomicLong();
+    private final AtomicLongArray histogram = new AtomicLongArray(NB_BUCKETS);
+    private final int slowestNodesCount;
+    private final PriorityQueue<NodeDuration> slowestNodes = new PriorityQueue<>(Comparator.comparingLong(NodeDuration::getDuration));
+    // Duration under which a node can't be one of the slowest ones, read without locking
+    private volatile long slowestNodesThreshold = 0L;
+
+    public CheckExecutionStats(String checkId, String checkName) {
+        this(checkId, checkName, DEFAULT_SLOWEST_NODES_COUNT);
+    }
+
+    public CheckExecutionStats(String checkId, String checkName, int slowestNodesCount) {
+        this.checkId = checkId;
+        this.checkName = checkName;
+        this.slowestNodesCount = slowestNodesCount;
+    }
+
+    public void trackSkippedNode(long duration, boolean beforeChildren) {
+        if (beforeChildren) skippedNodes.increment();
+        totalTime.add(duration);
+    }
+
+    public void trackMatchedNode(String path, long duration, boolean beforeChildren) {
+        if (beforeChildren) matchedNodes.increment();
+        matchedExecutions.increment();
+        totalTime.add(duration);
+        histogram.incrementAndGet(getBucket(duration));
+        maxTime.accumulateAndGet(duration, Math::max);
+        if (slowestNodesCount > 0 && duration > slowestNodesThreshold) {
+            synchronized (slowestNodes) {
+                slowestNodes.add(new NodeDuration(path, duration));
+                if (slowestNodes.size() > slowestNodesCount) slowestNodes.poll();
+                if (slowestNodes.size() == slowestNodesCount) slowestNodesThreshold = slowestNodes.peek().getDuration();
+            }
+        }
+    }
+
+    /**
+     * Adds the statistics of another execution of the same check, for example on another workspace.
+     */
+    public void add(CheckExecutionStats other) {
+        matchedNodes.add(other.matchedNodes.sum());
+        skippedNodes.add(other.skippedNodes.sum());
+        matchedExecutions.add(other.matchedExecutions.sum());
+        totalTime.add(other.totalTime.sum());
+        maxTime.accumulateAndGet(other.maxTime.get(), Math::max);
+        for (int bucket = 0; bucket < NB_BUCKETS; bucket++) {
+            histogram.addAndGet(bucket, other.histogram.get(bucket));
+        }
+        for (NodeDuration node : other.getSlowestNodes()) {
+            synchronized (slowestNodes) {
+                slowestNodes.add(node);
+                if (slowestNodes.size() > slowestNodesCount) slowestNodes.poll();
+                if (slowestNodes.size() == slowestNodesCount) slowestNodesThreshold = slowestNodes.peek().getDuration();
+            }
+        }
+    }
+
+    public String getCheckId() {
+        return checkId;
+    }
+
+    public String getCheckName() {
+        return checkName;
+    }
+
+    public long getMatchedNodes() {
+        return matchedNodes.sum();
+    }
+
+    public long getSkippedNodes() {
+        return skippedNodes.sum();
+    }
+
+    /**
+     * @return the total time spent in the check, including the evaluation of its conditions, in nanoseconds
+     */
+    public long getTotalTime() {
+        return totalTime.sum();
+    }
+
+    public long getMaxTime() {
+        return maxTime.get();
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the lower bound of the histogram bucket which contains the percentile, in nanoseconds
+     */
+    public long getPercentile(double percentile) {
+        final long count = matchedExecutions.sum();
+        if (count == 0L) return 0L;
+        final long rank = Math.max(1L, (long) Math.ceil(count * percentile / 100D));
+        long cumulatedCount = 0L;
+        for (int bucket = 0; bucket < NB_BUCKETS; bucket++) {
+            cumulatedCount += histogram.get(bucket);
+            if (cumulatedCount >= rank) return Math.min(getBucketLowerBound(bucket), getMaxTime());
+        }
+        return getMaxTime();
+    }
+
+    /**
+     * @return the slowest nodes, sorted from the slowest one
+     */
+    public List<NodeDuration> getSlowestNodes() {
+        final List<NodeDuration> nodes;
+        synchronized (slowestNodes) {
+            nodes = new ArrayList<>(slowestNodes);
+        }
+        nodes.sort(Comparator.comparingLong(NodeDuration::getDuration).reversed());
+        return nodes;
+    }
+
+    static int getBucket(long duration) {
+        if (duration < SUB_BUCKETS) return (int) Math.max(0L, duration);
+        final int msb = Long.SIZE - 1 - Long.numberOfLeadingZeros(duration);
+        final int subBucket = (int) ((duration >>> (msb - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        return (msb - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long getBucketLowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        final int msb = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        final int subBucket = bucket % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + subBucket) << (msb - SUB_BUCKET_BITS);
+    }
+
+    public static class NodeDuration {
+        private final String path;
+        private final long duration;
+
+        public NodeDuration(String path, long duration) {
+            this.path = path;
+            this.duration = duration;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * @return the duration in nanoseconds
+         */
+        public long getDuration() {
+            return duration;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.jahia.modules.contentintegrity.services.util;
+
+import org.jahia.modules.contentintegrity.api.ContentIntegrityCheck;
+import org.jahia.services.content.JCRNodeWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.nodetype.NodeType;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Calculates once per combination of primary type and mixins which checks can be executed on a node, according to
+ * the conditions of the checks which depend only on the node types. Built at the beginning of a scan, for the list
+ * of checks to execute during this scan.
+ */
+public class ChecksDispatchTable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChecksDispatchTable.class);
+
+    private static final char KEY_SEPARATOR = '|';
+
+    private final List<ContentIntegrityCheck> checks;
+    private final boolean[] allChecks;
+    private final Map<String, boolean[]> candidatesByNodeTypes = new ConcurrentHashMap<>();
+
+    public ChecksDispatchTable(List<ContentIntegrityCheck> checks) {
+        this.checks = checks;
+        allChecks = new boolean[checks.size()];
+        Arrays.fill(allChecks, true);
+    }
+
+    /**
+     * @return for each check, in the order of the list used to build the table, true if the check can be executed on
+     * the node according to the node types. The returned array must not be modified
+     */
+    public boolean[] getCandidateChecks(JCRNodeWrapper node) {
+        final String key;
+        try {
+            key = getNodeTypesKey(node);
+        } catch (RepositoryException e) {
+            logger.error(String.format("Impossible to read the node types of %s", node.getPath()), e);
+            return allChecks;
+        }
+        return candidatesByNodeTypes.computeIfAbsent(key, k -> {
+            final boolean[] candidates = new boolean[checks.size()];
+            for (int i = 0; i < candidates.length; i++) {
+                candidates[i] = checks.get(i).areNodeTypeConditionsMatched(node);
+            }
+            return candidates;
+        });
+    }
+
+    public int getNodeTypesCombinationsCount() {
+        return candidatesByNodeTypes.size();
+    }
+
+    private String getNodeTypesKey(JCRNodeWrapper node) throws RepositoryException {
+        final String primaryType = node.getPrimaryNodeTypeName();
+        final NodeType[] mixins = node.getMixinNodeTypes();
+        if (mixins == null || mixins.length == 0) return primaryType;
+        final String[] mixinNames = new String[mixins.length];
+        for (int i = 0; i < mixins.length; i++) {
+            mixinNames[i] = mixins[i].getName();
+        }
+        Arrays.sort(mixinNames);
+        final StringBuilder key = new StringBuilder(primaryType);
+        for (String mixin : mixinNames) {
+            key.append(KEY_SEPARATOR).append(mixin);
+        }
+        return key.toString();
+    }
+}
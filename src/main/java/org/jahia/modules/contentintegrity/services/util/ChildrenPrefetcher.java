@@ -0,0 +1,238 @@
+package org.jahia.modules.contentintegrity.services.util;
+
+import org.jahia.bin.filters.jcr.JcrSessionFilter;
+import org.jahia.modules.contentintegrity.services.impl.JCRUtils;
+import org.jahia.services.content.JCRNodeWrapper;
+import org.jahia.services.content.JCRSessionWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.RepositoryException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Loads the nodes which are about to be scanned by a sequential scan, ahead of it, on a helper thread with its own session.
+ * <p>
+ * The sessions are bound to the threads, so that the loaded nodes are not handed to the scan: loading them warms up
+ * the caches of the repository, which are shared by the sessions. The latency of the reads then overlaps with the
+ * execution of the checks, and the scan reads the nodes from the caches.
+ * <p>
+ * The helper thread follows the traversal. The scan notifies the prefetcher when it starts and ends iterating over the
+ * children of a node, and when it reaches each of those children. The upcoming children of the deepest node being
+ * iterated are loaded in batches, each of them with the first levels of its subtree. Once they are all loaded, the
+ * upcoming children of its parent are loaded, and so on. At most a given number of nodes are loaded ahead of the scan.
+ */
+public class ChildrenPrefetcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChildrenPrefetcher.class);
+
+    private static final int BATCH_SIZE = 20;
+    // Wait for the scan to consume the loaded nodes, after which the oldest one is dropped, assuming that the scan won't reach it
+    private static final long FULL_BUFFER_WAIT_MS = 1000L;
+    private static final long STOP_TIMEOUT_MS = 5000L;
+
+    private final String workspace;
+    private final int depth;
+    private final int bufferSize;
+    private final Predicate<JCRNodeWrapper> skipped;
+    private final SessionRefreshTracker sessionRefreshTracker;
+    // Nodes whose children are being iterated by the scan, the deepest one first. Guarded by this
+    private final Deque<Cursor> cursors = new ArrayDeque<>();
+    // Paths of the nodes loaded ahead of the scan, not reached yet by the scan. Guarded by this
+    private final Set<String> buffer = new LinkedHashSet<>();
+    private final LongAdder reachedNodes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder prefetchedNodes = new LongAdder();
+    private volatile boolean stopped = false;
+    private Thread thread;
+
+    /**
+     * @param depth   the number of levels loaded for each upcoming child, 1 to load only the children
+     * @param skipped the nodes which are not scanned, and then not loaded ahead, with their subtree
+     */
+    public ChildrenPrefetcher(String workspace, int depth, int bufferSize, Predicate<JCRNodeWrapper> skipped, SessionRefreshTracker sessionRefreshTracker) {
+        this.workspace = workspace;
+        this.depth = depth;
+        this.bufferSize = bufferSize;
+        this.skipped = skipped;
+        this.sessionRefreshTracker = sessionRefreshTracker;
+    }
+
+    public void start(String threadName) {
+        thread = new Thread(this::run, threadName);
+        thread.setPriority(Thread.currentThread().getPriority());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the helper thread. The thread is not interrupted, since an interruption during a read in the repository
+     * can close some resources shared with the other sessions.
+     */
+    public void stop() {
+        synchronized (this) {
+            stopped = true;
+            notifyAll();
+        }
+        if (thread == null) return;
+        try {
+            thread.join(STOP_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Called by the scan when it reaches a node
+     */
+    public synchronized void nodeReached(String path) {
+        reachedNodes.increment();
+        if (buffer.remove(path)) {
+            hits.increment();
+            notifyAll();
+        }
+    }
+
+    /**
+     * Called by the scan when it starts iterating over the children of a node
+     */
+    public synchronized void enter(String path) {
+        cursors.push(new Cursor(path));
+        notifyAll();
+    }
+
+    /**
+     * Called by the scan when it reaches a child of the node whose children are iterated
+     *
+     * @param childIdx the index of the child, from 1
+     */
+    public synchronized void childReached(String parentPath, int childIdx) {
+        final Cursor cursor = cursors.peek();
+        if (cursor != null && cursor.path.equals(parentPath)) cursor.scanIndex = childIdx;
+    }
+
+    /**
+     * Called by the scan when it has iterated over all the children of a node
+     */
+    public synchronized void leave(String path) {
+        if (cursors.stream().noneMatch(c -> c.path.equals(path))) return;
+        Cursor cursor;
+        do {
+            cursor = cursors.pop();
+            cursor.closed = true;
+        } while (!cursor.path.equals(path));
+    }
+
+    public long getPrefetchedNodes() {
+        return prefetchedNodes.sum();
+    }
+
+    /**
+     * @return the share of the nodes reached by the scan which had been loaded ahead, from 0 to 1
+     */
+    public double getHitRate() {
+        final long reached = reachedNodes.sum();
+        return reached == 0L ? 0d : (double) hits.sum() / reached;
+    }
+
+    private void run() {
+        try {
+            final JCRSessionWrapper session = JCRUtils.getSystemSession(workspace, false);
+            if (session == null) return;
+            Cursor cursor;
+            while ((cursor = nextCursor()) != null) {
+                try {
+                    prefetchBatch(session, cursor);
+                } catch (RepositoryException | RuntimeException e) {
+                    logger.debug(String.format("Impossible to load ahead the children of %s", cursor.path), e);
+                    cursor.exhausted = true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            JcrSessionFilter.endRequest();
+            sessionRefreshTracker.releaseSessions();
+        }
+    }
+
+    /**
+     * @return the deepest node whose children have not all been loaded yet, waiting for one if required. Null once stopped
+     */
+    private synchronized Cursor nextCursor() throws InterruptedException {
+        while (!stopped) {
+            if (buffer.size() >= bufferSize) {
+                waitForRoom();
+                continue;
+            }
+            for (Cursor cursor : cursors) {
+                if (!cursor.exhausted) return cursor;
+            }
+            wait();
+        }
+        return null;
+    }
+
+    private void waitForRoom() throws InterruptedException {
+        wait(FULL_BUFFER_WAIT_MS);
+        if (buffer.size() >= bufferSize) {
+            final Iterator<String> oldest = buffer.iterator();
+            oldest.next();
+            oldest.remove();
+        }
+    }
+
+    private void prefetchBatch(JCRSessionWrapper session, Cursor cursor) throws RepositoryException, InterruptedException {
+        if (cursor.children == null) cursor.children = session.getNode(cursor.path).getNodes().iterator();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            if (cursor.closed || stopped) return;
+            if (!cursor.children.hasNext()) {
+                cursor.exhausted = true;
+                return;
+            }
+            final JCRNodeWrapper child = cursor.children.next();
+            cursor.prefetchIndex++;
+            // Already reached by the scan
+            if (cursor.prefetchIndex <= cursor.scanIndex) continue;
+            prefetch(child, depth);
+        }
+    }
+
+    private void prefetch(JCRNodeWrapper node, int levels) throws RepositoryException, InterruptedException {
+        if (skipped.test(node) || !addToBuffer(node.getPath())) return;
+        sessionRefreshTracker.nodeLoaded(node);
+        if (levels <= 1) return;
+        for (JCRNodeWrapper child : node.getNodes()) {
+            if (stopped) return;
+            prefetch(child, levels - 1);
+        }
+    }
+
+    private synchronized boolean addToBuffer(String path) throws InterruptedException {
+        while (!stopped && buffer.size() >= bufferSize) waitForRoom();
+        if (stopped) return false;
+        if (buffer.add(path)) prefetchedNodes.increment();
+        return true;
+    }
+
+    private static class Cursor {
+        private final String path;
+        // Index of the last child reached by the scan, from 1
+        private volatile int scanIndex = 0;
+        private volatile boolean closed = false;
+        private volatile boolean exhausted = false;
+        // Only used by the helper thread
+        private Iterator<JCRNodeWrapper> children;
+        private int prefetchIndex = 0;
+
+        private Cursor(String path) {
+            this.path = path;
+        }
+    }
+}
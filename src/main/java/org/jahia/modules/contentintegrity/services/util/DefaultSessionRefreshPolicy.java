@@ -0,0 +1,28 @@
+package org.jahia.modules.contentintegrity.services.util;
+
+import org.jahia.modules.contentintegrity.api.SessionRefreshPolicy;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Refreshes a session once enough items have been loaded through it, either by number or by size, or sooner when the
+ * heap is running out. A session is not refreshed before a minimum number of items, so that a full heap doesn't
+ * lead to a refresh per node.
+ */
+public class DefaultSessionRefreshPolicy implements SessionRefreshPolicy {
+
+    private static final long MIN_ITEMS = 1000L;
+    private static final long MAX_ITEMS = 100000L;
+    private static final long MAX_BYTES = 32L * 1024L * 1024L;
+    private static final long MAX_ELAPSED_TIME = TimeUnit.MINUTES.toMillis(5L);
+    private static final double MIN_HEAP_HEADROOM = 0.15d;
+
+    @Override
+    public boolean isRefreshRequired(SessionLoad load) {
+        if (load.getLoadedItems() < MIN_ITEMS) return false;
+        return load.getLoadedItems() >= MAX_ITEMS
+                || load.getEstimatedBytes() >= MAX_BYTES
+                || load.getElapsedTime() >= MAX_ELAPSED_TIME
+                || load.getHeapHeadroom() < MIN_HEAP_HEADROOM;
+    }
+}
@@ -0,0 +1,148 @@
+package org.jahia.modules.contentintegrity.services.util;
+
+import org.apache.commons.lang.StringUtils;
+import org.jahia.modules.contentintegrity.services.impl.Constants;
+import org.jahia.services.content.nodetypes.ExtendedNodeType;
+import org.jahia.services.content.nodetypes.ExtendedPropertyDefinition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The definitions which apply to the nodes having a given primary type and set of mixins, resolved once for all those
+ * nodes. Immutable, and then safe for concurrent use.
+ */
+public class EffectiveDefinitions {
+
+    private final ExtendedNodeType[] nodeTypes;
+    private final List<String> nodeTypeNames;
+    private final List<ExtendedPropertyDefinition> mandatoryPropertyDefinitions;
+    private final Map<String, ExtendedPropertyDefinition> namedPropertyDefinitions;
+    private final Map<Integer, ExtendedPropertyDefinition> unstructuredPropertyDefinitions;
+    private final boolean hasInternationalizedProperties;
+    private final Map<String, Boolean> isNodeType = new ConcurrentHashMap<>();
+    private final Map<EffectiveDefinitions, Map<String, ExtendedPropertyDefinition>> translationNamedPropertyDefinitions = new ConcurrentHashMap<>();
+
+    /**
+     * @param nodeTypes the primary type, followed by the mixins
+     */
+    EffectiveDefinitions(ExtendedNodeType[] nodeTypes) {
+        this.nodeTypes = nodeTypes;
+
+        final List<String> names = new ArrayList<>(nodeTypes.length);
+        final Set<String> encounteredProperties = new HashSet<>();
+        final List<ExtendedPropertyDefinition> mandatory = new ArrayList<>();
+        for (ExtendedNodeType nodeType : nodeTypes) {
+            names.add(nodeType.getName());
+            // The first type declaring a property wins
+            for (ExtendedPropertyDefinition propertyDefinition : nodeType.getPropertyDefinitions()) {
+                final String name = propertyDefinition.getName();
+                if (StringUtils.equals(name, Constants.PROPERTY_DEFINITION_NAME_WILDCARD)) continue;
+                if (encounteredProperties.add(name) && propertyDefinition.isMandatory()) mandatory.add(propertyDefinition);
+            }
+        }
+        nodeTypeNames = Collections.unmodifiableList(names);
+        mandatoryPropertyDefinitions = Collections.unmodifiableList(mandatory);
+
+        final Map<String, ExtendedPropertyDefinition> named = new HashMap<>();
+        final Map<Integer, ExtendedPropertyDefinition> unstructured = new HashMap<>();
+        // Reverse order, so that the definitions of the primary type override the ones of the mixins
+        for (int i = nodeTypes.length - 1; i >= 0; i--) {
+            named.putAll(nodeTypes[i].getPropertyDefinitionsAsMap());
+            for (ExtendedPropertyDefinition propertyDefinition : nodeTypes[i].getPropertyDefinitions()) {
+                if (StringUtils.equals(propertyDefinition.getName(), Constants.PROPERTY_DEFINITION_NAME_WILDCARD)) {
+                    unstructured.put(getExtendedPropertyType(propertyDefinition), propertyDefinition);
+                }
+            }
+        }
+        namedPropertyDefinitions = Collections.unmodifiableMap(named);
+        unstructuredPropertyDefinitions = Collections.unmodifiableMap(unstructured);
+        hasInternationalizedProperties = named.values().stream().anyMatch(ExtendedPropertyDefinition::isInternationalized);
+    }
+
+    /**
+     * @return the primary type, followed by the mixins
+     */
+    public List<String> getNodeTypeNames() {
+        return nodeTypeNames;
+    }
+
+    /**
+     * @return true if the primary type or one of the mixins is, or inherits from, the specified type
+     */
+    public boolean isNodeType(String type) {
+        return isNodeType.computeIfAbsent(type, t -> {
+            for (ExtendedNodeType nodeType : nodeTypes) {
+                if (nodeType.isNodeType(t)) return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * @return the mandatory property definitions, one per property name, the primary type winning over the mixins
+     */
+    public List<ExtendedPropertyDefinition> getMandatoryPropertyDefinitions() {
+        return mandatoryPropertyDefinitions;
+    }
+
+    public Map<String, ExtendedPropertyDefinition> getNamedPropertyDefinitions() {
+        return namedPropertyDefinitions;
+    }
+
+    /**
+     * @return the definitions of the unstructured properties, by extended property type
+     * @see #getExtendedPropertyType(int, boolean, boolean)
+     */
+    public Map<Integer, ExtendedPropertyDefinition> getUnstructuredPropertyDefinitions() {
+        return unstructuredPropertyDefinitions;
+    }
+
+    /**
+     * @return the named property definitions of the translation nodes of the nodes having those definitions, the
+     * definitions of the translation nodes overriding the ones of the nodes
+     */
+    public Map<String, ExtendedPropertyDefinition> getNamedPropertyDefinitions(EffectiveDefinitions translationNodeDefinitions) {
+        return translationNamedPropertyDefinitions.computeIfAbsent(translationNodeDefinitions, t -> {
+            final Map<String, ExtendedPropertyDefinition> merged = new HashMap<>(namedPropertyDefinitions);
+            merged.putAll(t.getNamedPropertyDefinitions());
+            return Collections.unmodifiableMap(merged);
+        });
+    }
+
+    public boolean hasInternationalizedProperties() {
+        return hasInternationalizedProperties;
+    }
+
+    /**
+     * @return true if those definitions have been resolved from the specified types, in the same order, which are the
+     * ones currently registered
+     */
+    boolean isResolvedFrom(ExtendedNodeType[] types) {
+        if (types.length != nodeTypes.length) return false;
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] != nodeTypes[i]) return false;
+        }
+        return true;
+    }
+
+    public static int getExtendedPropertyType(ExtendedPropertyDefinition epd) {
+        return getExtendedPropertyType(epd.getRequiredType(), epd.isInternationalized(), epd.isMultiple());
+    }
+
+    /**
+     * @return a single number encoding the type of the value, and the i18n and multi-valued statuses
+     */
+    public static int getExtendedPropertyType(int type, boolean isI18n, boolean isMultiple) {
+        int xType = type;
+        if (isI18n) xType += 100;
+        if (isMultiple) xType += 1000;
+        return xType;
+    }
+}
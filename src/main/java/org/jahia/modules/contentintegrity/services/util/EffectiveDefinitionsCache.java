@@ -0,0 +1,82 @@
+package org.jahia.modules.contentintegrity.services.util;
+
+import org.jahia.services.content.JCRNodeWrapper;
+import org.jahia.services.content.nodetypes.ExtendedNodeType;
+import org.jahia.services.content.nodetypes.NodeTypeRegistry;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.nodetype.NodeType;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves once per combination of primary type and mixins the definitions which apply to the nodes. Scoped to a
+ * scan, and safe for concurrent use by the threads of a parallel scan.
+ * <p>
+ * The types are looked up in the {@link NodeTypeRegistry} for each node, which is a map lookup. When a module
+ * registers its definitions again during the scan, the registry holds some new instances of the types, and the
+ * definitions resolved from the previous ones are resolved again.
+ * <p>
+ * The number of cached combinations is bounded, the definitions of the extra combinations being resolved for each node.
+ */
+public class EffectiveDefinitionsCache {
+
+    private static final int MAX_ENTRIES = 10000;
+    private static final char KEY_SEPARATOR = '|';
+
+    private final Map<String, EffectiveDefinitions> definitions = new ConcurrentHashMap<>();
+
+    /**
+     * @param node either a node wrapper, or a node of the underlying repository, such as a translation node
+     */
+    public EffectiveDefinitions getDefinitions(Node node) throws RepositoryException {
+        final String primaryType = node instanceof JCRNodeWrapper ?
+                ((JCRNodeWrapper) node).getPrimaryNodeTypeName() :
+                node.getPrimaryNodeType().getName();
+        final NodeType[] mixins = node.getMixinNodeTypes();
+        final String[] mixinNames = new String[mixins == null ? 0 : mixins.length];
+        for (int i = 0; i < mixinNames.length; i++) {
+            mixinNames[i] = mixins[i].getName();
+        }
+        return getDefinitions(primaryType, mixinNames);
+    }
+
+    /**
+     * @param mixins the mixins, in the order of the node. The definitions are resolved in this order, since the first
+     *               type declaring a property wins. The mixins are sorted only to build the cache key, and a cached
+     *               entry resolved from the same mixins in another order is resolved again
+     */
+    public EffectiveDefinitions getDefinitions(String primaryType, String[] mixins) throws RepositoryException {
+        final NodeTypeRegistry registry = NodeTypeRegistry.getInstance();
+        final ExtendedNodeType[] types = new ExtendedNodeType[mixins.length + 1];
+        types[0] = registry.getNodeType(primaryType);
+        for (int i = 0; i < mixins.length; i++) {
+            types[i + 1] = registry.getNodeType(mixins[i]);
+        }
+
+        final String key = getKey(primaryType, mixins);
+        final EffectiveDefinitions cached = definitions.get(key);
+        if (cached != null && cached.isResolvedFrom(types)) return cached;
+
+        final EffectiveDefinitions resolved = new EffectiveDefinitions(types);
+        if (cached != null || definitions.size() < MAX_ENTRIES) definitions.put(key, resolved);
+        return resolved;
+    }
+
+    public int getSize() {
+        return definitions.size();
+    }
+
+    private String getKey(String primaryType, String[] mixins) {
+        if (mixins.length == 0) return primaryType;
+        final String[] sortedMixins = mixins.clone();
+        Arrays.sort(sortedMixins);
+        final StringBuilder key = new StringBuilder(primaryType);
+        for (String mixin : sortedMixins) {
+            key.append(KEY_SEPARATOR).append(mixin);
+        }
+        return key.toString();
+    }
+}
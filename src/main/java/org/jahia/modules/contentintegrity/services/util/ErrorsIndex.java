@@ -0,0 +1,317 @@
+package org.jahia.modules.contentintegrity.services.util;
+
+import org.apache.commons.lang.StringUtils;
+import org.jahia.modules.contentintegrity.api.ContentIntegrityError;
+import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorSink;
+import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorType;
+import org.jahia.modules.contentintegrity.services.sinks.InMemoryErrorSink;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Random access to the errors of some results, with an inverted index per column: for each value of the column,
+ * the sorted positions of the errors having this value. The index of a column is built the first time the column is
+ * used, with a single read of the errors for all the columns requested at the same time.
+ * <p>
+ * Only the positions are kept in memory: the errors are read from the sink of the results when needed, page after page.
+ * The columns with a high cardinality, such as the message, are not indexed, the errors are then read to evaluate them.
+ */
+public class ErrorsIndex {
+
+    public static final String CHECK_NAME = "checkName";
+    public static final String ERROR_TYPE = "errorType";
+    public static final String WORKSPACE = "workspace";
+    public static final String SITE = "site";
+    public static final String NODE_PRIMARY_TYPE = "nodePrimaryType";
+    public static final String LOCALE = "locale";
+    public static final String MESSAGE = "message";
+    public static final String IMPORT_ERROR = "importError";
+
+    private static final Set<String> NOT_INDEXED_COLUMNS = Collections.singleton(MESSAGE);
+
+    private final ContentIntegrityErrorSink errors;
+    private final Map<String, Map<String, int[]>> columns = new HashMap<>();
+    private int size = -1;
+
+    public ErrorsIndex(ContentIntegrityErrorSink errors) {
+        this.errors = errors;
+    }
+
+    /**
+     * @return the number of errors which can be read from the sink
+     */
+    public synchronized int size() {
+        if (size < 0) {
+            if (errors instanceof InMemoryErrorSink) {
+                size = ((InMemoryErrorSink) errors).getErrorsList().size();
+            } else {
+                try (Stream<ContentIntegrityError> stream = errors.getErrors()) {
+                    size = (int) stream.count();
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Reads the errors at the specified positions, in a single pass on the sink.
+     *
+     * @param positions the sorted positions
+     * @param from      the index of the first position to read, inclusive
+     * @param to        the index of the last position to read, exclusive
+     * @return the errors, in the order of the positions
+     */
+    public List<ContentIntegrityError> get(int[] positions, int from, int to) {
+        final List<ContentIntegrityError> page = new ArrayList<>(Math.max(0, to - from));
+        forEach(positions, from, to, (error, position) -> page.add(error));
+        return page;
+    }
+
+    /**
+     * @param positions the sorted positions of the errors to consider
+     * @param predicate the condition to match
+     * @return the first error matching the condition among the considered ones, or null if none matches
+     */
+    public ContentIntegrityError find(int[] positions, Predicate<ContentIntegrityError> predicate) {
+        if (positions.length == 0) return null;
+        if (errors instanceof InMemoryErrorSink) {
+            final List<ContentIntegrityError> list = ((InMemoryErrorSink) errors).getErrorsList();
+            for (int position : positions) {
+                final ContentIntegrityError error = list.get(position);
+                if (predicate.test(error)) return error;
+            }
+            return null;
+        }
+        try (Stream<ContentIntegrityError> stream = errors.getErrors()) {
+            final Iterator<ContentIntegrityError> iterator = stream.iterator();
+            int position = 0;
+            int idx = 0;
+            while (idx < positions.length && iterator.hasNext()) {
+                final ContentIntegrityError error = iterator.next();
+                if (position++ != positions[idx]) continue;
+                idx++;
+                if (predicate.test(error)) return error;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param filters the expected value per column
+     * @return the sorted positions of the errors matching all the filters. The returned array can be modified
+     */
+    public int[] filter(Map<String, String> filters) {
+        final Map<String, String> notIndexedFilters = new HashMap<>();
+        final List<String> indexedColumns = new ArrayList<>();
+        filters.forEach((column, value) -> {
+            if (NOT_INDEXED_COLUMNS.contains(column)) notIndexedFilters.put(column, value);
+            else indexedColumns.add(column);
+        });
+
+        int[] matching = null;
+        final Map<String, Map<String, int[]>> index = getColumns(indexedColumns);
+        for (String column : indexedColumns) {
+            final int[] withValue = index.get(column).get(filters.get(column));
+            if (withValue == null) return new int[0];
+            matching = matching == null ? withValue.clone() : intersect(matching, withValue);
+            if (matching.length == 0) return matching;
+        }
+        if (notIndexedFilters.isEmpty()) return matching == null ? allPositions() : matching;
+
+        final PostingList matchingAll = new PostingList();
+        final ObjIntConsumer<ContentIntegrityError> notIndexedFilter = (error, position) -> {
+            for (Map.Entry<String, String> filter : notIndexedFilters.entrySet()) {
+                if (!StringUtils.equals(getColumnValue(error, filter.getKey()), filter.getValue())) return;
+            }
+            matchingAll.add(position);
+        };
+        if (matching == null) forEach(notIndexedFilter);
+        else forEach(matching, 0, matching.length, notIndexedFilter);
+        return matchingAll.toArray();
+    }
+
+    /**
+     * @param column   the column
+     * @param matching the sorted positions of the errors to consider
+     * @return for each value of the column, the number of errors having this value among the considered ones. The
+     * values which are not present in the considered errors are associated to 0
+     */
+    public Map<String, Long> countValues(String column, int[] matching) {
+        final Map<String, Long> counts = new LinkedHashMap<>();
+        if (NOT_INDEXED_COLUMNS.contains(column)) {
+            final int[] considered = {0};
+            forEach((error, position) -> {
+                final String value = getColumnValue(error, column);
+                while (considered[0] < matching.length && matching[considered[0]] < position) considered[0]++;
+                final boolean isConsidered = considered[0] < matching.length && matching[considered[0]] == position;
+                if (value != null) counts.merge(value, isConsidered ? 1L : 0L, Long::sum);
+            });
+            return counts;
+        }
+        final boolean allErrors = matching.length == size();
+        getColumns(Collections.singleton(column)).get(column).forEach((value, positions) ->
+                counts.put(value, (long) (allErrors ? positions.length : countIntersection(positions, matching))));
+        return counts;
+    }
+
+    private int[] allPositions() {
+        final int[] positions = new int[size()];
+        Arrays.setAll(positions, i -> i);
+        return positions;
+    }
+
+    /*
+    Indexes the missing columns in a single pass on the errors
+     */
+    private synchronized Map<String, Map<String, int[]>> getColumns(Collection<String> requestedColumns) {
+        final Set<String> missingColumns = new HashSet<>(requestedColumns);
+        missingColumns.removeAll(columns.keySet());
+        if (!missingColumns.isEmpty()) indexColumns(missingColumns);
+        final Map<String, Map<String, int[]>> requested = new HashMap<>();
+        for (String column : requestedColumns) requested.put(column, columns.get(column));
+        return requested;
+    }
+
+    private void indexColumns(Set<String> missingColumns) {
+        final Map<String, Map<String, PostingList>> postingLists = new HashMap<>();
+        for (String column : missingColumns) postingLists.put(column, new HashMap<>());
+        int position = 0;
+        try (Stream<ContentIntegrityError> stream = errors.getErrors()) {
+            final Iterator<ContentIntegrityError> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                final ContentIntegrityError error = iterator.next();
+                for (Map.Entry<String, Map<String, PostingList>> column : postingLists.entrySet()) {
+                    final String value = getColumnValue(error, column.getKey());
+                    if (value == null) continue;
+                    column.getValue().computeIfAbsent(value, v -> new PostingList()).add(position);
+                }
+                position++;
+            }
+        }
+        size = position;
+        postingLists.forEach((column, values) -> {
+            final Map<String, int[]> positions = new HashMap<>(values.size() * 2);
+            values.forEach((value, list) -> positions.put(value, list.toArray()));
+            columns.put(column, Collections.unmodifiableMap(positions));
+        });
+    }
+
+    private void forEach(ObjIntConsumer<ContentIntegrityError> consumer) {
+        try (Stream<ContentIntegrityError> stream = errors.getErrors()) {
+            final Iterator<ContentIntegrityError> iterator = stream.iterator();
+            int position = 0;
+            while (iterator.hasNext()) consumer.accept(iterator.next(), position++);
+        }
+    }
+
+    /*
+    Reads the errors at the positions[from, to[ , the positions being sorted
+     */
+    private void forEach(int[] positions, int from, int to, ObjIntConsumer<ContentIntegrityError> consumer) {
+        if (from >= to) return;
+        if (errors instanceof InMemoryErrorSink) {
+            final List<ContentIntegrityError> list = ((InMemoryErrorSink) errors).getErrorsList();
+            for (int idx = from; idx < to; idx++) {
+                consumer.accept(list.get(positions[idx]), positions[idx]);
+            }
+            return;
+        }
+        try (Stream<ContentIntegrityError> stream = errors.getErrors()) {
+            final Iterator<ContentIntegrityError> iterator = stream.iterator();
+            int position = 0;
+            int idx = from;
+            while (idx < to && iterator.hasNext()) {
+                final ContentIntegrityError error = iterator.next();
+                if (position == positions[idx]) {
+                    consumer.accept(error, position);
+                    idx++;
+                }
+                position++;
+            }
+        }
+    }
+
+    static int[] intersect(int[] a, int[] b) {
+        final int[] intersection = new int[Math.min(a.length, b.length)];
+        int size = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else {
+                intersection[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return size == intersection.length ? intersection : Arrays.copyOf(intersection, size);
+    }
+
+    static int countIntersection(int[] a, int[] b) {
+        int count = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else {
+                count++;
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    public static String getColumnValue(ContentIntegrityError error, String column) {
+        switch (column) {
+            case CHECK_NAME:
+                return error.getIntegrityCheckName();
+            case ERROR_TYPE:
+                return Optional.ofNullable(error.getErrorType()).map(ContentIntegrityErrorType::getKey).orElse(StringUtils.EMPTY);
+            case WORKSPACE:
+                return error.getWorkspace();
+            case SITE:
+                return error.getSite();
+            case NODE_PRIMARY_TYPE:
+                return error.getPrimaryType();
+            case LOCALE:
+                return error.getLocale();
+            case MESSAGE:
+                return error.getConstraintMessage();
+            case IMPORT_ERROR:
+                return Optional.ofNullable(error.getErrorType()).map(ContentIntegrityErrorType::isBlockingImport).orElse(Boolean.FALSE).toString();
+            default:
+                return StringUtils.EMPTY;
+        }
+    }
+
+    /*
+    Growable array of sorted positions
+     */
+    private static class PostingList {
+
+        private int[] positions = new int[4];
+        private int size = 0;
+
+        void add(int position) {
+            if (size == positions.length) positions = Arrays.copyOf(positions, size + (size >> 1));
+            positions[size++] = position;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(positions, size);
+        }
+    }
+}
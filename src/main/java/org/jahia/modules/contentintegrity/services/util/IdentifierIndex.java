@@ -0,0 +1,180 @@
+package org.jahia.modules.contentintegrity.services.util;
+
+import org.jahia.modules.contentintegrity.services.impl.BundleTableReader;
+import org.jahia.modules.contentintegrity.services.impl.JCRUtils;
+
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The identifiers of all the nodes stored in a workspace, loaded with a sequential read of the bundle tables of the
+ * workspace and of the version storage, so that testing if a node exists requires neither to load it, nor to catch
+ * an exception when it doesn't exist.
+ * <p>
+ * Each identifier is stored as two long values in an open addressing hash table, without any object per identifier.
+ * Immutable once loaded, and then safe for concurrent use.
+ * <p>
+ * The index is a snapshot: the nodes created or deleted after it has been loaded are not taken into account.
+ */
+public class IdentifierIndex {
+
+    private static final String VERSIONING_TABLE_NAME = "V";
+    private static final int LOAD_BATCH_SIZE = 10000;
+    private static final double MAX_LOAD_FACTOR = 0.75;
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 29;
+    private static final long ARRAY_HEADER_BYTES = 16L;
+
+    private final String workspace;
+    private final int maxCapacity;
+    private long[] slots;
+    private int capacity;
+    private int size = 0;
+    // The nil UUID marks the empty slots
+    private boolean containsNil = false;
+    private final Set<String> virtualNodeIdentifiers;
+
+    /**
+     * @param expectedSize           the expected number of identifiers, to size the hash table
+     * @param maxCapacity            the maximum number of slots of the hash table, a power of 2
+     * @param virtualNodeIdentifiers the identifiers which can't be told by the index
+     */
+    IdentifierIndex(String workspace, long expectedSize, int maxCapacity, Set<String> virtualNodeIdentifiers) {
+        this.workspace = workspace;
+        this.maxCapacity = maxCapacity;
+        this.virtualNodeIdentifiers = virtualNodeIdentifiers;
+        capacity = getCapacity(expectedSize, maxCapacity);
+        slots = new long[2 * capacity];
+    }
+
+    /**
+     * @param maxBytes the maximum memory footprint of the index
+     * @return the index, or null if its memory footprint would exceed the specified one
+     */
+    public static IdentifierIndex load(String workspace, long maxBytes) throws SQLException {
+        final BundleTableReader workspaceReader = new BundleTableReader(workspace, LOAD_BATCH_SIZE);
+        final BundleTableReader versionsReader = new BundleTableReader(VERSIONING_TABLE_NAME, LOAD_BATCH_SIZE);
+        final long expectedSize = workspaceReader.countNodes() + versionsReader.countNodes();
+        if (getMemoryFootprint(getCapacity(expectedSize, MAX_CAPACITY)) > maxBytes) return null;
+
+        // The virtual nodes are not stored in the bundle tables, they have to be looked up in the workspace
+        final IdentifierIndex index = new IdentifierIndex(workspace, expectedSize, MAX_CAPACITY, JCRUtils.getVirtualNodeIdentifiers());
+        index.addAll(workspaceReader);
+        index.addAll(versionsReader);
+        return index;
+    }
+
+    private void addAll(BundleTableReader reader) throws SQLException {
+        int count;
+        do {
+            count = reader.nextBatch(this::add);
+        } while (count > 0);
+    }
+
+    /**
+     * @throws IllegalStateException if the hash table is full and can't grow anymore
+     */
+    void add(UUID identifier) {
+        final long hi = identifier.getMostSignificantBits();
+        final long lo = identifier.getLeastSignificantBits();
+        if (hi == 0L && lo == 0L) {
+            if (!containsNil) size++;
+            containsNil = true;
+            return;
+        }
+        if (size + 1 > capacity * MAX_LOAD_FACTOR && capacity < maxCapacity) resize();
+        // At least one slot has to remain empty, so that the probing stops
+        if (size + 1 >= capacity)
+            throw new IllegalStateException(String.format("The index of the identifiers of the workspace %s is full: %d identifiers", workspace, size));
+        if (insert(slots, capacity, hi, lo)) size++;
+    }
+
+    private void resize() {
+        final int newCapacity = capacity << 1;
+        final long[] newSlots = new long[2 * newCapacity];
+        for (int i = 0; i < capacity; i++) {
+            final long hi = slots[2 * i];
+            final long lo = slots[2 * i + 1];
+            if (hi != 0L || lo != 0L) insert(newSlots, newCapacity, hi, lo);
+        }
+        slots = newSlots;
+        capacity = newCapacity;
+    }
+
+    /**
+     * @return false if the identifier was already in the table
+     */
+    private static boolean insert(long[] slots, int capacity, long hi, long lo) {
+        final int mask = capacity - 1;
+        int i = hash(hi, lo) & mask;
+        while (slots[2 * i] != 0L || slots[2 * i + 1] != 0L) {
+            if (slots[2 * i] == hi && slots[2 * i + 1] == lo) return false;
+            i = (i + 1) & mask;
+        }
+        slots[2 * i] = hi;
+        slots[2 * i + 1] = lo;
+        return true;
+    }
+
+    private boolean contains(long hi, long lo) {
+        if (hi == 0L && lo == 0L) return containsNil;
+        final int mask = capacity - 1;
+        int i = hash(hi, lo) & mask;
+        while (slots[2 * i] != 0L || slots[2 * i + 1] != 0L) {
+            if (slots[2 * i] == hi && slots[2 * i + 1] == lo) return true;
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    private static int hash(long hi, long lo) {
+        long h = (hi ^ lo) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int getCapacity(long expectedSize, int maxCapacity) {
+        final double required = expectedSize / MAX_LOAD_FACTOR;
+        int capacity = MIN_CAPACITY;
+        while (capacity < required && capacity < maxCapacity) capacity <<= 1;
+        return capacity;
+    }
+
+    private static long getMemoryFootprint(int capacity) {
+        return ARRAY_HEADER_BYTES + 2L * Long.BYTES * capacity;
+    }
+
+    /**
+     * @return true or false if the index tells if the node exists, null if it can't tell, for example when the
+     * identifier is the one of a virtual node, so that the node has to be looked up in the workspace
+     */
+    public Boolean exists(String identifier) {
+        if (identifier == null) return Boolean.FALSE;
+        if (virtualNodeIdentifiers.contains(identifier)) return null;
+        final UUID uuid;
+        try {
+            uuid = UUID.fromString(identifier);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return contains(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    public String getWorkspace() {
+        return workspace;
+    }
+
+    /**
+     * @return the number of indexed identifiers
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return the memory used by the hash table, in bytes
+     */
+    public long getMemoryFootprint() {
+        return getMemoryFootprint(capacity);
+    }
+}
@@ -0,0 +1,89 @@
+package org.jahia.modules.contentintegrity.services.util;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * The {@link IdentifierIndex} of each workspace, loaded once during a scan. Safe for concurrent use by the threads of
+ * a parallel scan.
+ * <p>
+ * Loading an index reads the whole bundle tables, which is worth it only when a lot of nodes are looked up by
+ * identifier. The index of a workspace is then loaded after a given number of lookups, by the thread requesting it at
+ * this moment, while the other threads keep on looking up the nodes in the workspace. It is not loaded if it would
+ * use more than a given share of the heap.
+ */
+public class IdentifierIndexes {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdentifierIndexes.class);
+
+    private static final long LOOKUPS_BEFORE_LOADING = 10000L;
+    private static final double MAX_HEAP_SHARE = 0.1d;
+
+    private final Map<String, WorkspaceIndex> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * @return true or false if the index of the workspace tells if the node exists, null if the node has to be looked
+     * up in the workspace. Since the index is a snapshot, false has to be confirmed in the workspace before concluding
+     * that the node doesn't exist
+     */
+    public Boolean nodeExists(String identifier, String workspace) {
+        final IdentifierIndex index = indexes.computeIfAbsent(workspace, WorkspaceIndex::new).getIndex();
+        return index == null ? null : index.exists(identifier);
+    }
+
+    /**
+     * @return the indexes loaded during the scan
+     */
+    public List<IdentifierIndex> getLoadedIndexes() {
+        return indexes.values().stream()
+                .map(i -> i.index)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private static class WorkspaceIndex {
+        private final String workspace;
+        private final LongAdder lookups = new LongAdder();
+        private final AtomicBoolean loadStarted = new AtomicBoolean(false);
+        private volatile IdentifierIndex index;
+
+        private WorkspaceIndex(String workspace) {
+            this.workspace = workspace;
+        }
+
+        private IdentifierIndex getIndex() {
+            if (loadStarted.get()) return index;
+            lookups.increment();
+            if (lookups.sum() >= LOOKUPS_BEFORE_LOADING && loadStarted.compareAndSet(false, true)) load();
+            return index;
+        }
+
+        private void load() {
+            final long maxBytes = (long) (Runtime.getRuntime().maxMemory() * MAX_HEAP_SHARE);
+            final long start = System.currentTimeMillis();
+            try {
+                final IdentifierIndex loaded = IdentifierIndex.load(workspace, maxBytes);
+                if (loaded == null) {
+                    logger.info(String.format("Not indexing the identifiers of the workspace %s, as the index would use more than %s",
+                            workspace, FileUtils.byteCountToDisplaySize(maxBytes)));
+                    return;
+                }
+                logger.info(String.format("Identifiers of the workspace %s indexed in %d ms: %d nodes, %s",
+                        workspace, System.currentTimeMillis() - start, loaded.getSize(), FileUtils.byteCountToDisplaySize(loaded.getMemoryFootprint())));
+                index = loaded;
+            } catch (SQLException | IllegalStateException e) {
+                logger.warn(String.format("Impossible to index the identifiers of the workspace %s, the nodes are looked up one by one", workspace), e);
+            }
+        }
+    }
+}
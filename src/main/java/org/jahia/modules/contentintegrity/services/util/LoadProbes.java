@@ -0,0 +1,161 @@
+package org.jahia.modules.contentintegrity.services.util;
+
+import org.jahia.modules.contentintegrity.api.ScanLoadProbe;
+import org.jahia.utils.DatabaseUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Built-in probes used to throttle the scans
+ */
+public class LoadProbes {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadProbes.class);
+
+    // Heap occupancy after the last collection, below which the heap is considered as idle, and above which it is saturated
+    private static final double HEAP_LOW_OCCUPANCY = 0.6;
+    private static final double HEAP_HIGH_OCCUPANCY = 0.9;
+    // Share of the time spent in the garbage collections above which the GC is saturated
+    private static final double GC_HIGH_TIME_RATIO = 0.1;
+    // Share of the connections of the database pool in use, below which the pool is considered as idle, and above which it is saturated
+    private static final double POOL_LOW_USAGE = 0.5;
+    private static final double POOL_HIGH_USAGE = 0.9;
+    // Getters of the number of active connections and of the size of the pool, for the supported connection pools
+    private static final String[][] POOL_GETTERS = {{"getNumActive", "getMaxTotal"}, {"getNumActive", "getMaxActive"}, {"getActive", "getMaxActive"}};
+
+    private LoadProbes() {
+    }
+
+    /**
+     * @return new instances of the built-in probes. Some of them keep a state between two measures, so that they can't
+     * be shared by the scans
+     */
+    public static List<ScanLoadProbe> createDefaultProbes() {
+        return Arrays.asList(new HeapProbe(), new GcProbe(), new DataSourcePoolProbe());
+    }
+
+    private static double scale(double value, double low, double high) {
+        return Math.max(0d, (value - low) / (high - low));
+    }
+
+    /**
+     * Occupancy of the old generation after the last garbage collection, which is what remains once the garbage has
+     * been collected. The occupancy of the heap at any time is meaningless, since it grows until the next collection.
+     * The eden and survivor spaces are skipped, since they are emptied or filled by each young collection whatever the
+     * live data. They are the heap pools which don't support a usage threshold, with all the HotSpot collectors.
+     */
+    private static class HeapProbe implements ScanLoadProbe {
+        @Override
+        public String getName() {
+            return "heap";
+        }
+
+        @Override
+        public double getLoad() {
+            double occupancy = -1d;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() != MemoryType.HEAP || !pool.isUsageThresholdSupported()) continue;
+                final MemoryUsage usage = pool.getCollectionUsage();
+                if (usage == null || usage.getMax() <= 0L) continue;
+                occupancy = Math.max(occupancy, (double) usage.getUsed() / usage.getMax());
+            }
+            return occupancy < 0d ? -1d : scale(occupancy, HEAP_LOW_OCCUPANCY, HEAP_HIGH_OCCUPANCY);
+        }
+    }
+
+    /**
+     * Share of the time spent in the garbage collections since the previous measure
+     */
+    private static class GcProbe implements ScanLoadProbe {
+        private long lastCollectionTime = -1L;
+        private long lastMeasure;
+
+        @Override
+        public String getName() {
+            return "GC";
+        }
+
+        @Override
+        public synchronized double getLoad() {
+            long collectionTime = 0L;
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                collectionTime += Math.max(0L, gc.getCollectionTime());
+            }
+            final long now = System.currentTimeMillis();
+            final double load = lastCollectionTime < 0L || now <= lastMeasure ? -1d :
+                    (double) (collectionTime - lastCollectionTime) / (now - lastMeasure) / GC_HIGH_TIME_RATIO;
+            lastCollectionTime = collectionTime;
+            lastMeasure = now;
+            return load;
+        }
+    }
+
+    /**
+     * Usage of the connection pool of the database, if the pool exposes its size. The pool is shared by the scans and
+     * the requests served by the server.
+     */
+    private static class DataSourcePoolProbe implements ScanLoadProbe {
+        private Method activeGetter;
+        private Method maxGetter;
+        private boolean unsupported = false;
+
+        @Override
+        public String getName() {
+            return "DB pool";
+        }
+
+        @Override
+        public synchronized double getLoad() {
+            if (unsupported) return -1d;
+            final DataSource dataSource = DatabaseUtils.getDatasource();
+            if (dataSource == null) return -1d;
+            try {
+                if (activeGetter == null && !resolveGetters(dataSource)) {
+                    logger.debug("The usage of the connection pool {} can't be measured", dataSource.getClass().getName());
+                    unsupported = true;
+                    return -1d;
+                }
+                final double max = ((Number) maxGetter.invoke(dataSource)).doubleValue();
+                if (max <= 0d) return -1d;
+                return scale(((Number) activeGetter.invoke(dataSource)).doubleValue() / max, POOL_LOW_USAGE, POOL_HIGH_USAGE);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                logger.debug("Impossible to measure the usage of the connection pool", e);
+                unsupported = true;
+                return -1d;
+            }
+        }
+
+        private boolean resolveGetters(DataSource dataSource) {
+            for (String[] getters : POOL_GETTERS) {
+                try {
+                    final Method active = dataSource.getClass().getMethod(getters[0]);
+                    final Method max = dataSource.getClass().getMethod(getters[1]);
+                    if (!Number.class.isAssignableFrom(box(active.getReturnType())) || !Number.class.isAssignableFrom(box(max.getReturnType())))
+                        continue;
+                    activeGetter = active;
+                    maxGetter = max;
+                    return true;
+                } catch (NoSuchMethodException ignored) {
+                    // Not this kind of pool
+                }
+            }
+            return false;
+        }
+
+        private Class<?> box(Class<?> type) {
+            if (type == int.class) return Integer.class;
+            if (type == long.class) return Long.class;
+            return type;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.jahia.modules.contentintegrity.services.util;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable set of paths, indexed in a trie so that finding the ones which are a prefix of a given path costs a
+ * single walk over the characters of this path, whatever the number of paths in the set.
+ * <p>
+ * The paths are compared as strings, like {@link String#startsWith(String)} does, and not segment per segment.
+ */
+public class PathTrie extends AbstractSet<String> {
+
+    private final Set<String> paths;
+    private final TrieNode root = new TrieNode();
+
+    public PathTrie(Collection<String> paths) {
+        this.paths = Collections.unmodifiableSet(new LinkedHashSet<>(paths));
+        for (String path : this.paths) {
+            TrieNode node = root;
+            for (int i = 0; i < path.length(); i++) {
+                node = node.children.computeIfAbsent(path.charAt(i), c -> new TrieNode());
+            }
+            node.terminal = true;
+        }
+    }
+
+    /**
+     * @return true if the specified path starts with one of the paths of the set
+     */
+    public boolean containsPrefixOf(String path) {
+        if (paths.isEmpty()) return false;
+        TrieNode node = root;
+        for (int i = 0; i < path.length(); i++) {
+            if (node.terminal) return true;
+            node = node.children.get(path.charAt(i));
+            if (node == null) return false;
+        }
+        return node.terminal;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return paths.iterator();
+    }
+
+    @Override
+    public int size() {
+        return paths.size();
+    }
+
+    private static class TrieNode {
+        private final Map<Character, TrieNode> children = new HashMap<>(4);
+        private boolean terminal;
+    }
+}
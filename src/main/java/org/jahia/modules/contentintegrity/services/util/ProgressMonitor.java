@@ -6,9 +6,9 @@ import org.slf4j.Logger;
 
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
+import java.util.function.Supplier;
 
 public class ProgressMonitor {
-    private static final ProgressMonitor instance = new ProgressMonitor();
     private static final long DISPLAY_INTERVAL_MS = 5000L;
 
     private Logger logger;
@@ -16,19 +16,25 @@ public class ProgressMonitor {
     private String message;
     private long counter;
     private long targetCount;
+    private boolean estimatedTargetCount;
     private long lastMoment;
     private long firstMoment;
     private long lastCounter;
+    private Supplier<String> statusSupplier;
 
-    private ProgressMonitor() {
+    public ProgressMonitor() {
     }
 
-    public static ProgressMonitor getInstance() {
-        return instance;
+    public void init(long targetCount, String message, Logger logger, ExternalLogger externalLogger) {
+        init(targetCount, false, message, logger, externalLogger);
     }
 
-    public void init(long targetCount, String message, Logger logger, ExternalLogger externalLogger) {
+    /**
+     * @param estimatedTargetCount if true, the target count is an estimate, which is raised during the progress if exceeded
+     */
+    public void init(long targetCount, boolean estimatedTargetCount, String message, Logger logger, ExternalLogger externalLogger) {
         this.targetCount = targetCount;
+        this.estimatedTargetCount = estimatedTargetCount;
         this.message = message;
         this.logger = logger;
         this.externalLogger = externalLogger;
@@ -38,9 +44,19 @@ public class ProgressMonitor {
         firstMoment = System.currentTimeMillis();
     }
 
-    public void progress() {
+    /**
+     * @param statusSupplier provides a status appended to the displayed progress, for example the throttling state. Ignored if null or blank
+     */
+    public void setStatusSupplier(Supplier<String> statusSupplier) {
+        this.statusSupplier = statusSupplier;
+    }
+
+    public synchronized void progress() {
         final long now = System.currentTimeMillis();
         counter++;
+        if (estimatedTargetCount && counter >= targetCount) {
+            targetCount = counter + Math.max(1L, counter / 10L);
+        }
         final boolean doDisplay = counter == 1 || counter == targetCount || (now - lastMoment) / DISPLAY_INTERVAL_MS > 0;
         if (doDisplay) {
             // Percentage
@@ -70,7 +86,9 @@ public class ProgressMonitor {
                 etaText = "";
             }
 
-            final String effectiveMessage = message + " (" + counter + "/" + targetCount + ", " + percent + rate + etaText + ")";
+            final String status = statusSupplier == null ? null : statusSupplier.get();
+            final String statusText = status == null || status.trim().isEmpty() ? "" : " [" + status + "]";
+            final String effectiveMessage = message + " (" + counter + "/" + (estimatedTargetCount ? "~" : "") + targetCount + ", " + percent + rate + etaText + ")" + statusText;
             Utils.log(effectiveMessage, logger, externalLogger);
             // Remember last point displayed
             lastMoment = now;
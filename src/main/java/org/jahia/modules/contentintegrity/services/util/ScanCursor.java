@@ -0,0 +1,67 @@
+package org.jahia.modules.contentintegrity.services.util;
+
+import org.apache.commons.lang.StringUtils;
+
+import static org.jahia.modules.contentintegrity.services.impl.Constants.JCR_PATH_SEPARATOR;
+import static org.jahia.modules.contentintegrity.services.impl.Constants.ROOT_NODE_PATH;
+
+/**
+ * Position from which a sequential scan is resumed, among the children of a node. The cursor is the last node whose
+ * subtree has been fully scanned before the interruption of the scan.
+ * <p>
+ * The children are submitted in the order of the traversal: the ones before the child leading to the cursor have
+ * been scanned, as well as the cursor itself. The scan resumes inside the child leading to the cursor when it is a
+ * strict ancestor of the cursor, and after the cursor otherwise.
+ */
+public class ScanCursor {
+
+    private final String cursor;
+    // Child on the way to the cursor, null once it has been reached
+    private String resumedChildPath;
+
+    /**
+     * @param cursor           the last node whose subtree has been fully scanned
+     * @param resumedChildPath the child which is the cursor or one of its ancestors, as returned by
+     *                         {@link #getChildOnPath(String, String)}
+     */
+    public ScanCursor(String cursor, String resumedChildPath) {
+        this.cursor = cursor;
+        this.resumedChildPath = resumedChildPath;
+    }
+
+    /**
+     * @return the path of the child of the specified node which is the cursor or one of its ancestors, or null if the
+     * node is not a strict ancestor of the cursor
+     */
+    public static String getChildOnPath(String path, String cursor) {
+        if (cursor == null || StringUtils.equals(path, cursor)) return null;
+        final String pathPlusSlash = StringUtils.equals(path, ROOT_NODE_PATH) ? path : path.concat(JCR_PATH_SEPARATOR);
+        if (!StringUtils.startsWith(cursor, pathPlusSlash)) return null;
+        final String childName = StringUtils.substringBefore(cursor.substring(pathPlusSlash.length()), JCR_PATH_SEPARATOR);
+        return StringUtils.isEmpty(childName) ? null : pathPlusSlash + childName;
+    }
+
+    /**
+     * @return true if the subtree of the child has been fully scanned before the interruption
+     */
+    public boolean isScanned(String childPath) {
+        if (resumedChildPath == null) return false;
+        if (!StringUtils.equals(childPath, resumedChildPath)) return true;
+        if (StringUtils.equals(childPath, cursor)) {
+            resumedChildPath = null;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * To be called on the children which are not {@link #isScanned(String) scanned}.
+     *
+     * @return the cursor from which the scan of the child is resumed, or null if the child has to be fully scanned
+     */
+    public String getCursorInside(String childPath) {
+        if (resumedChildPath == null || !StringUtils.equals(childPath, resumedChildPath)) return null;
+        resumedChildPath = null;
+        return cursor;
+    }
+}
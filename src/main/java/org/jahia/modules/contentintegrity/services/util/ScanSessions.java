@@ -0,0 +1,79 @@
+package org.jahia.modules.contentintegrity.services.util;
+
+import org.jahia.services.content.JCRSessionFactory;
+import org.jahia.services.content.JCRSessionWrapper;
+
+import javax.jcr.RepositoryException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The system sessions used during a scan, per workspace and locale. A session is opened the first time it is requested
+ * by a thread of the scan, and then reused by this thread until the end of the scan, so that the items it has loaded
+ * remain in its cache. The sessions are never refreshed on request of the caller, but according to the
+ * {@link SessionRefreshTracker} of the scan.
+ * <p>
+ * Safe for concurrent use by the threads of a parallel scan, the sessions being bound to the threads.
+ */
+public class ScanSessions {
+
+    private static final char KEY_SEPARATOR = '|';
+
+    private final SessionRefreshTracker sessionRefreshTracker;
+    private final ThreadLocal<Map<String, JCRSessionWrapper>> sessions = ThreadLocal.withInitial(HashMap::new);
+    private final LongAdder openedSessions = new LongAdder();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+
+    public ScanSessions(SessionRefreshTracker sessionRefreshTracker) {
+        this.sessionRefreshTracker = sessionRefreshTracker;
+    }
+
+    /**
+     * @param locale the locale of the session, null for a session which is not localized
+     */
+    public JCRSessionWrapper getSession(String workspace, Locale locale) throws RepositoryException {
+        lookups.increment();
+        final String key = locale == null ? workspace : workspace + KEY_SEPARATOR + locale;
+        final Map<String, JCRSessionWrapper> threadSessions = sessions.get();
+        JCRSessionWrapper session = threadSessions.get(key);
+        if (session != null && session.isLive()) {
+            hits.increment();
+        } else {
+            session = JCRSessionFactory.getInstance().getCurrentSystemSession(workspace, locale, null);
+            threadSessions.put(key, session);
+            openedSessions.increment();
+        }
+        sessionRefreshTracker.sessionUsed(session);
+        return session;
+    }
+
+    /**
+     * Forgets the sessions of the current thread, once it is done with them
+     */
+    public void releaseSessions() {
+        sessions.remove();
+        sessionRefreshTracker.releaseSessions();
+    }
+
+    /**
+     * @return the number of sessions opened by the threads of the scan, one per thread, workspace and locale
+     */
+    public long getOpenedSessionsCount() {
+        return openedSessions.sum();
+    }
+
+    public long getLookupsCount() {
+        return lookups.sum();
+    }
+
+    /**
+     * @return the share of the lookups served by a session already opened by the thread, from 0 to 1
+     */
+    public double getHitRate() {
+        final long count = lookups.sum();
+        return count == 0L ? 0d : (double) hits.sum() / count;
+    }
+}
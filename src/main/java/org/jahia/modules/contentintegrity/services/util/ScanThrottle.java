@@ -0,0 +1,164 @@
+package org.jahia.modules.contentintegrity.services.util;
+
+import org.jahia.modules.contentintegrity.api.ExternalLogger;
+import org.jahia.modules.contentintegrity.api.ScanLoadProbe;
+import org.jahia.modules.contentintegrity.services.Utils;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Limits the number of nodes scanned per second, so that a scan can run on a server which is serving some requests.
+ * Safe for concurrent use by the threads of a parallel scan.
+ * <p>
+ * The nodes are scanned at most at the specified rate, which is lowered when the load of the server increases.
+ * The load is evaluated every second, from the latency of the JCR reads measured by the scan itself, and from the
+ * probes: the built-in ones from {@link LoadProbes}, and the ones registered as OSGi services. The highest load is
+ * retained. The rate is halved as long as this load is 1 or more, and raised back step by step once it is below 0.8.
+ */
+public class ScanThrottle {
+
+    private static final long EVALUATION_INTERVAL_NS = TimeUnit.SECONDS.toNanos(1L);
+    private static final double HIGH_LOAD = 1d;
+    private static final double MODERATE_LOAD = 0.8d;
+    private static final double BACKOFF_FACTOR = 0.5d;
+    private static final double RECOVERY_STEP = 0.1d;
+    private static final double MIN_RATE_FACTOR = 0.05d;
+    private static final double MIN_RATE = 1d;
+    // Ratio between the latency of the JCR reads and its baseline, from which the load of the repository is 1
+    private static final double HIGH_READ_LATENCY_RATIO = 4d;
+    // Growth of the baseline latency per evaluation, so that a durable change of the scanned content is eventually accepted
+    private static final double READ_LATENCY_BASELINE_DRIFT = 1.01d;
+    private static final long MIN_READS_PER_EVALUATION = 50L;
+    private static final String READ_LATENCY_SIGNAL = "JCR reads latency";
+
+    private final int maxNodesPerSecond;
+    private final List<ScanLoadProbe> probes;
+    private final Collection<ScanLoadProbe> registeredProbes;
+    private final Logger logger;
+    private final ExternalLogger externalLogger;
+    private final LongAdder readsCount = new LongAdder();
+    private final LongAdder readsDuration = new LongAdder();
+    private final LongAdder throttledTime = new LongAdder();
+    private double baselineReadLatency = -1d;
+    private long nextSlot = 0L;
+    private long nextEvaluation = 0L;
+    private volatile double rateFactor = 1d;
+    private volatile String limitingSignal;
+    private volatile double limitingLoad;
+
+    /**
+     * @param registeredProbes the probes registered as OSGi services. Read at each evaluation, so that the probes
+     *                         registered or unregistered during the scan are taken into account
+     */
+    public ScanThrottle(int maxNodesPerSecond, Collection<ScanLoadProbe> registeredProbes, Logger logger, ExternalLogger externalLogger) {
+        this.maxNodesPerSecond = maxNodesPerSecond;
+        this.registeredProbes = registeredProbes;
+        this.logger = logger;
+        this.externalLogger = externalLogger;
+        probes = new ArrayList<>(LoadProbes.createDefaultProbes());
+    }
+
+    /**
+     * Waits until the next node can be scanned
+     */
+    public void acquire() {
+        final long now = System.nanoTime();
+        final long wait;
+        synchronized (this) {
+            if (now >= nextEvaluation) evaluate(now);
+            final long slot = Math.max(now, nextSlot);
+            nextSlot = slot + (long) (TimeUnit.SECONDS.toNanos(1L) / getAllowedRate());
+            wait = slot - now;
+        }
+        if (wait > 0L) {
+            LockSupport.parkNanos(wait);
+            throttledTime.add(wait);
+        }
+    }
+
+    /**
+     * Tracks the duration of a read in the JCR, which rises when the database or the datastore are under pressure
+     *
+     * @param duration the duration in nanoseconds
+     */
+    public void trackRead(long duration) {
+        readsCount.increment();
+        readsDuration.add(duration);
+    }
+
+    private void evaluate(long now) {
+        nextEvaluation = now + EVALUATION_INTERVAL_NS;
+        double load = evaluateReadLatency();
+        String signal = load < 0d ? null : READ_LATENCY_SIGNAL;
+        final List<ScanLoadProbe> allProbes = new ArrayList<>(probes);
+        allProbes.addAll(registeredProbes);
+        for (ScanLoadProbe probe : allProbes) {
+            final double probeLoad;
+            try {
+                probeLoad = probe.getLoad();
+            } catch (RuntimeException e) {
+                logger.debug(String.format("Impossible to measure the load with the probe %s", probe.getName()), e);
+                continue;
+            }
+            if (probeLoad > load) {
+                load = probeLoad;
+                signal = probe.getName();
+            }
+        }
+
+        final double previousFactor = rateFactor;
+        if (load >= HIGH_LOAD) {
+            rateFactor = Math.max(MIN_RATE_FACTOR, previousFactor * BACKOFF_FACTOR);
+        } else if (load < MODERATE_LOAD && previousFactor < 1d) {
+            rateFactor = Math.min(1d, previousFactor + RECOVERY_STEP);
+        }
+        limitingSignal = signal;
+        limitingLoad = load;
+        if (rateFactor < previousFactor) {
+            Utils.log(String.format("Slowing down the scan to %.0f nodes/s, load of the %s: %.2f", getAllowedRate(), signal, load),
+                    Utils.LOG_LEVEL.WARN, logger, externalLogger);
+        } else if (rateFactor == 1d && previousFactor < 1d) {
+            Utils.log(String.format("The scan is back to %d nodes/s", maxNodesPerSecond), logger, externalLogger);
+        }
+    }
+
+    /**
+     * @return the load of the repository, from the average latency of the reads since the previous evaluation
+     * compared to the lowest average latency observed during the scan. A negative value if not enough reads have been tracked
+     */
+    private double evaluateReadLatency() {
+        final long count = readsCount.sumThenReset();
+        final long duration = readsDuration.sumThenReset();
+        if (count < MIN_READS_PER_EVALUATION) return -1d;
+        final double latency = (double) duration / count;
+        baselineReadLatency = baselineReadLatency < 0d ? latency : Math.min(latency, baselineReadLatency * READ_LATENCY_BASELINE_DRIFT);
+        if (baselineReadLatency <= 0d) return -1d;
+        return Math.max(0d, (latency / baselineReadLatency - 1d) / (HIGH_READ_LATENCY_RATIO - 1d));
+    }
+
+    private double getAllowedRate() {
+        return Math.max(MIN_RATE, maxNodesPerSecond * rateFactor);
+    }
+
+    /**
+     * @return the current throttling state, to be displayed in the progress of the scan
+     */
+    public String getStatus() {
+        if (rateFactor < 1d)
+            return String.format("throttled to %.0f nodes/s, load of the %s: %.2f", getAllowedRate(), limitingSignal, limitingLoad);
+        return String.format("limited to %d nodes/s", maxNodesPerSecond);
+    }
+
+    /**
+     * @return the time spent waiting by the threads of the scan, in nanoseconds
+     */
+    public long getThrottledTime() {
+        return throttledTime.sum();
+    }
+}
@@ -0,0 +1,154 @@
+package org.jahia.modules.contentintegrity.services.util;
+
+import org.jahia.modules.contentintegrity.api.SessionRefreshPolicy;
+import org.jahia.services.content.JCRNodeWrapper;
+import org.jahia.services.content.JCRSessionWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.RepositoryException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks what is loaded through the sessions used during a scan, and refreshes them when required by the
+ * {@link SessionRefreshPolicy}. Safe for concurrent use by the threads of a parallel scan, the sessions being bound
+ * to the threads.
+ * <p>
+ * The size of the loaded items is an approximation: a fixed footprint per node, plus the size of the binary stored
+ * in the node if it is small enough to be stored in the bundle of the node, and then held in memory with it.
+ */
+public class SessionRefreshTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionRefreshTracker.class);
+
+    private static final long NODE_BYTES = 1024L;
+    private static final long INLINED_BINARY_MAX_BYTES = 16L * 1024L;
+    private static final String JCR_DATA = "jcr:data";
+
+    private final SessionRefreshPolicy policy;
+    private final SessionRefreshPolicy fallbackPolicy = new DefaultSessionRefreshPolicy();
+    private final ThreadLocal<Map<JCRSessionWrapper, Load>> loads = ThreadLocal.withInitial(IdentityHashMap::new);
+    private final LongAdder refreshCount = new LongAdder();
+    private final LongAdder releasedBytes = new LongAdder();
+
+    /**
+     * @param policy the policy to apply, the default one is used if null
+     */
+    public SessionRefreshTracker(SessionRefreshPolicy policy) {
+        this.policy = policy == null ? fallbackPolicy : policy;
+    }
+
+    /**
+     * Tracks a node loaded through its session
+     */
+    public void nodeLoaded(JCRNodeWrapper node) {
+        final JCRSessionWrapper session;
+        try {
+            session = node.getSession();
+        } catch (RepositoryException e) {
+            logger.error("", e);
+            return;
+        }
+        itemsLoaded(session, estimateSize(node));
+    }
+
+    /**
+     * Tracks a session which is used without knowing which items are loaded through it. This is accounted as the
+     * load of a single node.
+     */
+    public void sessionUsed(JCRSessionWrapper session) {
+        itemsLoaded(session, NODE_BYTES);
+    }
+
+    private void itemsLoaded(JCRSessionWrapper session, long bytes) {
+        final Load load = loads.get().computeIfAbsent(session, s -> new Load());
+        load.items++;
+        load.bytes += bytes;
+        if (!isRefreshRequired(load)) return;
+
+        try {
+            session.refresh(false);
+            refreshCount.increment();
+            releasedBytes.add(load.bytes);
+        } catch (RepositoryException e) {
+            logger.error("Impossible to refresh the session", e);
+        }
+        load.reset();
+    }
+
+    private boolean isRefreshRequired(Load load) {
+        try {
+            return policy.isRefreshRequired(load);
+        } catch (RuntimeException e) {
+            logger.error(String.format("Error while applying the session refresh policy %s, falling back to the default one", policy.getClass().getName()), e);
+            return fallbackPolicy.isRefreshRequired(load);
+        }
+    }
+
+    private long estimateSize(JCRNodeWrapper node) {
+        long size = NODE_BYTES;
+        try {
+            if (node.hasProperty(JCR_DATA)) {
+                final long binarySize = node.getProperty(JCR_DATA).getLength();
+                if (binarySize > 0L && binarySize <= INLINED_BINARY_MAX_BYTES) size += binarySize;
+            }
+        } catch (RepositoryException e) {
+            logger.debug(String.format("Impossible to read the binary of %s", node.getPath()), e);
+        }
+        return size;
+    }
+
+    /**
+     * Forgets the sessions of the current thread, once it is done with them
+     */
+    public void releaseSessions() {
+        loads.remove();
+    }
+
+    public long getRefreshCount() {
+        return refreshCount.sum();
+    }
+
+    /**
+     * @return the approximate size in bytes of the items dropped from the cache of the sessions by the refreshes
+     */
+    public long getReleasedBytes() {
+        return releasedBytes.sum();
+    }
+
+    private static class Load implements SessionRefreshPolicy.SessionLoad {
+        private long items;
+        private long bytes;
+        private long lastRefresh = System.currentTimeMillis();
+
+        private void reset() {
+            items = 0L;
+            bytes = 0L;
+            lastRefresh = System.currentTimeMillis();
+        }
+
+        @Override
+        public long getLoadedItems() {
+            return items;
+        }
+
+        @Override
+        public long getEstimatedBytes() {
+            return bytes;
+        }
+
+        @Override
+        public long getElapsedTime() {
+            return System.currentTimeMillis() - lastRefresh;
+        }
+
+        @Override
+        public double getHeapHeadroom() {
+            final Runtime runtime = Runtime.getRuntime();
+            final long used = runtime.totalMemory() - runtime.freeMemory();
+            return Math.max(0d, 1d - (double) used / runtime.maxMemory());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.jahia.modules.contentintegrity.services;
+
+import org.jahia.modules.contentintegrity.api.ContentIntegrityError;
+import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorType;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ContentIntegrityErrorImplTest {
+
+    @Test
+    public void readsBackTheWrittenError() throws IOException {
+        final ContentIntegrityError error = readBack(error("123456789", "/sites/mySite/home/page", "default"));
+        assertThat(error.getErrorID(), is("123456789"));
+        assertThat(error.getPath(), is("/sites/mySite/home/page"));
+        assertThat(error.getWorkspace(), is("default"));
+        assertThat(error.getSite(), is("mySite"));
+        assertThat(error.getConstraintMessage(), is("Broken reference"));
+        assertThat(error.getErrorType().getKey(), is("BROKEN_REFERENCE"));
+        assertThat(error.getExtraInfo("property"), is("j:node"));
+    }
+
+    @Test
+    public void readsBackTheErrorsWhoseIdIsNotANumber() throws IOException {
+        for (String id : Arrays.asList("6f1c7d2e-8a4b-4f7e-9d55-0c3a2b1e9f00", "0123", "-1", "99999999999999999999", "")) {
+            assertThat(id, readBack(error(id, "/sites/mySite/home", "live")).getErrorID(), is(id));
+        }
+    }
+
+    @Test
+    public void resolvesTheErrorTypeDeclaredByTheCheck() throws IOException {
+        final ContentIntegrityErrorType declaredType = ContentIntegrityErrorTypeImpl.register(
+                new ContentIntegrityErrorTypeImpl("MISSING_NODE", true).setDefaultMessage("Missing node"));
+        final ContentIntegrityErrorType otherCheckType = ContentIntegrityErrorTypeImpl.register(
+                new ContentIntegrityErrorTypeImpl("MISSING_NODE", true).setDefaultMessage("Missing node in the other workspace"));
+        final ContentIntegrityError error = readBack(error("1", "/sites/mySite/home", "default", declaredType));
+        assertThat(error.getErrorType() == declaredType, is(true));
+        assertThat(readBack(error("2", "/sites/mySite/home", "default", otherCheckType)).getErrorType() == otherCheckType, is(true));
+        // Errors read back several times share the same type
+        assertThat(readBack(error).getErrorType() == declaredType, is(true));
+    }
+
+    @Test
+    public void comparesTheErrorTypesOnTheirKey() {
+        final ContentIntegrityErrorType errorType = new ContentIntegrityErrorTypeImpl("BROKEN_REFERENCE");
+        assertThat(errorType.equals(new ContentIntegrityErrorTypeImpl("BROKEN_REFERENCE")), is(true));
+        assertThat(errorType.hashCode(), is(new ContentIntegrityErrorTypeImpl("BROKEN_REFERENCE").hashCode()));
+        assertThat(errorType.equals(new ContentIntegrityErrorTypeImpl("BROKEN_REFERENCE", true)), is(false));
+        assertThat(errorType.equals(new ContentIntegrityErrorTypeImpl("MISSING_NODE")), is(false));
+    }
+
+    private static ContentIntegrityError readBack(ContentIntegrityError error) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            ContentIntegrityErrorImpl.writeTo(error, out);
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return ContentIntegrityErrorImpl.readFrom(in);
+        }
+    }
+
+    /*
+    Error of another implementation
+     */
+    private static ContentIntegrityError error(String id, String path, String workspace) {
+        return error(id, path, workspace, new ContentIntegrityErrorTypeImpl("BROKEN_REFERENCE"));
+    }
+
+    private static ContentIntegrityError error(String id, String path, String workspace, ContentIntegrityErrorType errorType) {
+        final Map<String, Object> values = new HashMap<>();
+        values.put("getErrorID", id);
+        values.put("getPath", path);
+        values.put("getSite", Utils.getSiteKey(path));
+        values.put("getUuid", "6f1c7d2e-8a4b-4f7e-9d55-0c3a2b1e9f00");
+        values.put("getPrimaryType", "jnt:contentList");
+        values.put("getWorkspace", workspace);
+        values.put("getConstraintMessage", "Broken reference");
+        values.put("getIntegrityCheckName", "ReferencesSanityCheck");
+        values.put("getIntegrityCheckID", "1");
+        values.put("getErrorType", errorType);
+        values.put("isFixed", Boolean.FALSE);
+        values.put("getAllExtraInfos", Collections.singletonMap("property", "j:node"));
+        values.put("getSpecificExtraInfos", Collections.emptyMap());
+        return (ContentIntegrityError) Proxy.newProxyInstance(ContentIntegrityErrorImplTest.class.getClassLoader(),
+                new Class<?>[]{ContentIntegrityError.class}, (proxy, method, args) -> values.get(method.getName()));
+    }
+}
@@ -0,0 +1,133 @@
+package org.jahia.modules.contentintegrity.services;
+
+import org.jahia.modules.contentintegrity.api.ContentIntegrityCheck;
+import org.jahia.modules.contentintegrity.api.ContentIntegrityError;
+import org.jahia.modules.contentintegrity.api.ExternalLogger;
+import org.jahia.modules.contentintegrity.services.sinks.InMemoryErrorSink;
+import org.jahia.services.content.JCRNodeWrapper;
+import org.junit.Test;
+
+import javax.jcr.RepositoryException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class ScanErrorCollectorTest {
+
+    private final List<String> loggedLines = new ArrayList<>();
+    private final ExternalLogger externalLogger = loggedLines::add;
+
+    @Test
+    public void reusesTheCollectorOfTheThread() throws InterruptedException {
+        final ThreadLocal<ScanErrorCollector> collectors = ScanErrorCollector.perThread();
+        final ScanErrorCollector collector = collectors.get().reset(node("/sites/mySite/a"), false, new InMemoryErrorSink(), externalLogger);
+        assertThat(collectors.get().reset(node("/sites/mySite/b"), false, new InMemoryErrorSink(), externalLogger), sameInstance(collector));
+
+        final AtomicReference<ScanErrorCollector> otherThreadCollector = new AtomicReference<>();
+        final Thread thread = new Thread(() -> otherThreadCollector.set(collectors.get()));
+        thread.start();
+        thread.join();
+        assertThat(otherThreadCollector.get(), not(sameInstance(collector)));
+        // Each scan has its own collectors
+        assertThat(ScanErrorCollector.perThread().get(), not(sameInstance(collector)));
+    }
+
+    @Test
+    public void pushesTheErrorsToTheSinkOfTheCurrentNode() {
+        final ThreadLocal<ScanErrorCollector> collectors = ScanErrorCollector.perThread();
+        final InMemoryErrorSink firstSink = new InMemoryErrorSink();
+        final InMemoryErrorSink secondSink = new InMemoryErrorSink();
+        final ContentIntegrityCheck check = check("ReferencesSanityCheck", new AtomicInteger());
+
+        final ScanErrorCollector collector = collectors.get().reset(node("/sites/mySite/a"), false, firstSink, externalLogger);
+        collector.setCheck(check);
+        collector.addError(error("/sites/mySite/a"));
+        collector.addError(null);
+
+        collectors.get().reset(node("/sites/mySite/b"), false, secondSink, externalLogger).setCheck(check);
+        collector.addError(error("/sites/mySite/b"));
+
+        assertThat(paths(firstSink), is(Collections.singletonList("/sites/mySite/a")));
+        assertThat(paths(secondSink), is(Collections.singletonList("/sites/mySite/b")));
+    }
+
+    @Test
+    public void keepsTheErrorsPushedBeforeTheCheckFailed() {
+        final InMemoryErrorSink sink = new InMemoryErrorSink();
+        final AtomicInteger fatalErrors = new AtomicInteger();
+        final ScanErrorCollector collector = ScanErrorCollector.perThread().get().reset(node("/sites/mySite/a"), false, sink, externalLogger);
+        collector.setCheck(check("ReferencesSanityCheck", fatalErrors));
+
+        collector.addError(error("/sites/mySite/a"));
+        collector.trackFailure(new IllegalStateException("Unexpected value"));
+
+        final List<ContentIntegrityError> errors = sink.getErrorsList();
+        assertThat(errors.size(), is(2));
+        assertThat(errors.get(0).getPath(), is("/sites/mySite/a"));
+        assertThat(errors.get(0).getErrorType().getKey(), is("BROKEN_REFERENCE"));
+        final ContentIntegrityError frameworkError = errors.get(1);
+        assertThat(frameworkError.getErrorType().getKey(), is("FRAMEWORK_ERROR"));
+        assertThat(frameworkError.getIntegrityCheckName(), is("Framework"));
+        assertThat(frameworkError.getExtraInfo("executed-check"), is("ReferencesSanityCheck"));
+        assertThat(frameworkError.getExtraInfo("java-error-type"), is("IllegalStateException"));
+        assertThat(frameworkError.getExtraInfo("java-error-message"), is("Unexpected value"));
+        assertThat(fatalErrors.get(), is(1));
+        assertThat(loggedLines.size(), is(1));
+        assertThat(loggedLines.get(0).endsWith("Impossible to check the integrity of /sites/mySite/a"), is(true));
+    }
+
+    private static List<String> paths(InMemoryErrorSink sink) {
+        return sink.getErrorsList().stream().map(ContentIntegrityError::getPath).collect(Collectors.toList());
+    }
+
+    /*
+    The node types can't be read, so the errors created on this node have no path
+     */
+    private static JCRNodeWrapper node(String path) {
+        return (JCRNodeWrapper) Proxy.newProxyInstance(ScanErrorCollectorTest.class.getClassLoader(),
+                new Class<?>[]{JCRNodeWrapper.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getPath":
+                            return path;
+                        case "toString":
+                            return path;
+                        default:
+                            throw new RepositoryException(method.getName());
+                    }
+                });
+    }
+
+    private static ContentIntegrityCheck check(String name, AtomicInteger fatalErrors) {
+        return (ContentIntegrityCheck) Proxy.newProxyInstance(ScanErrorCollectorTest.class.getClassLoader(),
+                new Class<?>[]{ContentIntegrityCheck.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getName":
+                            return name;
+                        case "trackFatalError":
+                            fatalErrors.incrementAndGet();
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private static ContentIntegrityError error(String path) {
+        final Map<String, Object> values = new HashMap<>();
+        values.put("getPath", path);
+        values.put("getErrorType", new ContentIntegrityErrorTypeImpl("BROKEN_REFERENCE"));
+        return (ContentIntegrityError) Proxy.newProxyInstance(ScanErrorCollectorTest.class.getClassLoader(),
+                new Class<?>[]{ContentIntegrityError.class}, (proxy, method, args) -> values.get(method.getName()));
+    }
+}
@@ -0,0 +1,87 @@
+package org.jahia.modules.contentintegrity.services.checks;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ReferencesBatchTest {
+
+    private static final int BATCH_SIZE = 3;
+    private static final Set<String> EXISTING_UUIDS = new HashSet<>(Arrays.asList("existing-1", "existing-2", "existing-3"));
+
+    @Test
+    public void reportsTheBrokenReferenceOnTheNodeHoldingIt() {
+        final ReferencesBatch batch = new ReferencesBatch();
+        assertThat(buffer(batch, "missing-1", "node-a", "j:node"), is(Collections.<String>emptyList()));
+        assertThat(buffer(batch, "existing-1", "node-b", "j:node"), is(Collections.<String>emptyList()));
+        // The batch is resolved while checking node C
+        assertThat(buffer(batch, "existing-2", "node-c", "j:node"), is(Collections.singletonList("node-a/j:node->missing-1")));
+        assertThat(batch.isEmpty(), is(true));
+    }
+
+    @Test
+    public void reportsTheBrokenReferencesBufferedAtTheEndOfTheScan() {
+        final ReferencesBatch batch = new ReferencesBatch();
+        assertThat(buffer(batch, "existing-1", "node-a", "j:node"), is(Collections.<String>emptyList()));
+        assertThat(buffer(batch, "missing-1", "node-b", "j:linknode"), is(Collections.<String>emptyList()));
+        // End of the scan, the batch is not full
+        assertThat(format(batch.removeBrokenReferences(EXISTING_UUIDS::contains)), is(Collections.singletonList("node-b/j:linknode->missing-1")));
+        assertThat(batch.isEmpty(), is(true));
+        assertThat(format(batch.removeBrokenReferences(EXISTING_UUIDS::contains)), is(Collections.<String>emptyList()));
+    }
+
+    @Test
+    public void resolvesEachIdentifierOnce() {
+        final ReferencesBatch batch = new ReferencesBatch();
+        batch.add("missing-1", "node-a", "j:node");
+        batch.add("existing-1", "node-b", "j:node");
+        batch.add("missing-1", "node-c", "j:node");
+        assertThat(batch.size(), is(2));
+        assertThat(batch.getUuids(), is(new HashSet<>(Arrays.asList("missing-1", "existing-1"))));
+
+        final List<String> resolvedUuids = new ArrayList<>();
+        final List<ReferencesBatch.PendingReference> brokenReferences = batch.removeBrokenReferences(uuid -> {
+            resolvedUuids.add(uuid);
+            return EXISTING_UUIDS.contains(uuid);
+        });
+        assertThat(resolvedUuids, is(Arrays.asList("missing-1", "existing-1")));
+        assertThat(format(brokenReferences), is(Arrays.asList("node-a/j:node->missing-1", "node-c/j:node->missing-1")));
+    }
+
+    @Test
+    public void listsTheBufferedReferences() {
+        final ReferencesBatch batch = new ReferencesBatch();
+        batch.setWorkspace("live");
+        batch.add("missing-1", "node-a", "j:node");
+        batch.add("existing-1", "node-b", "j:node");
+        final List<String> references = new ArrayList<>();
+        batch.forEach((workspace, reference) -> references.add(workspace + ":" + format(reference)));
+        assertThat(references, is(Arrays.asList("live:node-a/j:node->missing-1", "live:node-b/j:node->existing-1")));
+    }
+
+    /*
+    Same as the check: the batch is resolved once it references enough identifiers
+     */
+    private static List<String> buffer(ReferencesBatch batch, String uuid, String nodeId, String propertyName) {
+        batch.add(uuid, nodeId, propertyName);
+        if (batch.size() < BATCH_SIZE) return Collections.emptyList();
+        return format(batch.removeBrokenReferences(EXISTING_UUIDS::contains));
+    }
+
+    private static List<String> format(List<ReferencesBatch.PendingReference> references) {
+        return references.stream().map(ReferencesBatchTest::format).collect(Collectors.toList());
+    }
+
+    private static String format(ReferencesBatch.PendingReference reference) {
+        return String.format("%s/%s->%s", reference.getNodeId(), reference.getPropertyName(), reference.getUuid());
+    }
+}
@@ -0,0 +1,142 @@
+package org.jahia.modules.contentintegrity.services.sinks;
+
+import org.jahia.modules.contentintegrity.api.ContentIntegrityError;
+import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorSink;
+import org.jahia.modules.contentintegrity.services.ContentIntegrityErrorTypeImpl;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ErrorSinksTest {
+
+    @Test
+    public void readsBackTheErrorsWrittenOnTheDisk() throws IOException {
+        final FileErrorSink sink = new FileErrorSink();
+        try {
+            addErrors(sink, 3);
+            // Readable while the scan is running
+            assertThat(readPaths(sink), is(paths(3)));
+            addErrors(sink, 5);
+            sink.close();
+            assertThat(sink.getErrorsCount(), is(5L + 3L));
+            assertThat(sink.isComplete(), is(true));
+            final List<ContentIntegrityError> errors = read(sink);
+            assertThat(errors.size(), is(8));
+            final ContentIntegrityError error = errors.get(4);
+            assertThat(error.getErrorID(), is("1"));
+            assertThat(error.getPath(), is("/sites/mySite/node1"));
+            assertThat(error.getWorkspace(), is("default"));
+            assertThat(error.getConstraintMessage(), is("Broken reference"));
+            assertThat(error.getErrorType().getKey(), is("BROKEN_REFERENCE"));
+            assertThat(error.getExtraInfo("property"), is("j:node"));
+            // Can be read several times
+            assertThat(read(sink).size(), is(8));
+        } finally {
+            sink.dispose();
+        }
+        assertThat(sink.isComplete(), is(false));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsTheErrorsOnceClosed() throws IOException {
+        final FileErrorSink sink = new FileErrorSink();
+        try {
+            sink.close();
+            addErrors(sink, 1);
+        } finally {
+            sink.dispose();
+        }
+    }
+
+    @Test
+    public void onlyCountsTheErrorsBeyondTheBound() throws IOException {
+        final ContentIntegrityErrorSink sink = ErrorSinks.create("bounded:3");
+        assertThat(sink, instanceOf(BoundedErrorSink.class));
+        addErrors(sink, 3);
+        assertThat(sink.isComplete(), is(true));
+        addErrors(sink, 2);
+        assertThat(sink.getErrorsCount(), is(5L));
+        assertThat(sink.isComplete(), is(false));
+        assertThat(readPaths(sink), is(paths(3)));
+    }
+
+    @Test
+    public void createsTheSinksFromTheirDescription() throws IOException {
+        assertThat(ErrorSinks.create(null), instanceOf(InMemoryErrorSink.class));
+        assertThat(ErrorSinks.create(" "), instanceOf(InMemoryErrorSink.class));
+        assertThat(ErrorSinks.create("memory"), instanceOf(InMemoryErrorSink.class));
+        assertThat(ErrorSinks.create("count"), instanceOf(CountingErrorSink.class));
+        final ContentIntegrityErrorSink diskSink = ErrorSinks.create("disk");
+        assertThat(diskSink, instanceOf(FileErrorSink.class));
+        diskSink.dispose();
+        // The default bound is used if the parameter is missing or invalid
+        for (String description : new String[]{"bounded", "bounded:", "bounded:many"}) {
+            final ContentIntegrityErrorSink sink = ErrorSinks.create(description);
+            addErrors(sink, ErrorSinks.BOUNDED_DEFAULT_MAX_ERRORS);
+            assertThat(description, sink.isComplete(), is(true));
+            addErrors(sink, 1);
+            assertThat(description, sink.isComplete(), is(false));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTheUnknownSinks() throws IOException {
+        ErrorSinks.create("database");
+    }
+
+    @Test
+    public void onlyCountsTheErrors() throws IOException {
+        final ContentIntegrityErrorSink sink = ErrorSinks.create("count");
+        addErrors(sink, 4);
+        assertThat(sink.getErrorsCount(), is(4L));
+        assertThat(sink.isComplete(), is(false));
+        assertThat(read(sink).size(), is(0));
+    }
+
+    private static void addErrors(ContentIntegrityErrorSink sink, int count) {
+        for (int i = 0; i < count; i++) sink.addError(error(i));
+    }
+
+    private static List<ContentIntegrityError> read(ContentIntegrityErrorSink sink) {
+        try (Stream<ContentIntegrityError> errors = sink.getErrors()) {
+            return errors.collect(Collectors.toList());
+        }
+    }
+
+    private static List<String> readPaths(ContentIntegrityErrorSink sink) {
+        return read(sink).stream().map(ContentIntegrityError::getPath).collect(Collectors.toList());
+    }
+
+    private static List<String> paths(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "/sites/mySite/node" + i).collect(Collectors.toList());
+    }
+
+    private static ContentIntegrityError error(int i) {
+        final Map<String, Object> values = new HashMap<>();
+        values.put("getErrorID", Integer.toString(i));
+        values.put("getPath", "/sites/mySite/node" + i);
+        values.put("getSite", "mySite");
+        values.put("getWorkspace", "default");
+        values.put("getConstraintMessage", "Broken reference");
+        values.put("getIntegrityCheckName", "ReferencesSanityCheck");
+        values.put("getIntegrityCheckID", "1");
+        values.put("getErrorType", new ContentIntegrityErrorTypeImpl("BROKEN_REFERENCE"));
+        values.put("isFixed", Boolean.FALSE);
+        values.put("getAllExtraInfos", Collections.singletonMap("property", "j:node"));
+        values.put("getSpecificExtraInfos", Collections.emptyMap());
+        return (ContentIntegrityError) Proxy.newProxyInstance(ErrorSinksTest.class.getClassLoader(),
+                new Class<?>[]{ContentIntegrityError.class}, (proxy, method, args) -> values.get(method.getName()));
+    }
+}
@@ -0,0 +1,92 @@
+package org.jahia.modules.contentintegrity.services.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class CheckExecutionStatsTest {
+
+    @Test
+    public void storesTheSmallDurationsInTheirOwnBucket() {
+        assertThat(CheckExecutionStats.getBucket(0L), is(0));
+        assertThat(CheckExecutionStats.getBucket(7L), is(7));
+        assertThat(CheckExecutionStats.getBucketLowerBound(0), is(0L));
+        assertThat(CheckExecutionStats.getBucketLowerBound(7), is(7L));
+        // Negative durations can be measured if the clock goes backwards
+        assertThat(CheckExecutionStats.getBucket(-1L), is(0));
+    }
+
+    @Test
+    public void splitsEachPowerOfTwoInEightBuckets() {
+        assertThat(CheckExecutionStats.getBucket(8L), is(8));
+        assertThat(CheckExecutionStats.getBucketLowerBound(8), is(8L));
+        assertThat(CheckExecutionStats.getBucket(15L), is(15));
+        assertThat(CheckExecutionStats.getBucket(16L), is(16));
+        assertThat(CheckExecutionStats.getBucket(17L), is(16));
+        assertThat(CheckExecutionStats.getBucket(18L), is(17));
+        assertThat(CheckExecutionStats.getBucketLowerBound(17), is(18L));
+    }
+
+    @Test
+    public void storesTheLongestDurationInTheLastBucket() {
+        assertThat(CheckExecutionStats.getBucket(Long.MAX_VALUE), is(CheckExecutionStats.NB_BUCKETS - 1));
+        assertThat(CheckExecutionStats.getBucketLowerBound(CheckExecutionStats.NB_BUCKETS - 1), is(15L << 59));
+    }
+
+    @Test
+    public void lowerBoundIsAtMostOneEighthBelowTheDuration() {
+        for (long duration : new long[]{0L, 1L, 7L, 8L, 9L, 63L, 64L, 1000L, 999_999L, 1L << 40, Long.MAX_VALUE - 1L, Long.MAX_VALUE}) {
+            assertBucket(duration);
+        }
+        for (int i = 0; i < 10000; i++) {
+            assertBucket(ThreadLocalRandom.current().nextLong(Long.MAX_VALUE));
+        }
+    }
+
+    @Test
+    public void bucketsAreSortedByDuration() {
+        for (int bucket = 1; bucket < CheckExecutionStats.NB_BUCKETS; bucket++) {
+            final long lowerBound = CheckExecutionStats.getBucketLowerBound(bucket);
+            assertTrue(String.valueOf(bucket), lowerBound > CheckExecutionStats.getBucketLowerBound(bucket - 1));
+            assertThat(CheckExecutionStats.getBucket(lowerBound), is(bucket));
+            assertThat(CheckExecutionStats.getBucket(lowerBound - 1L), is(bucket - 1));
+        }
+    }
+
+    @Test
+    public void calculatesThePercentilesFromTheBuckets() {
+        final CheckExecutionStats stats = new CheckExecutionStats("1", "check");
+        assertThat(stats.getPercentile(50D), is(0L));
+        for (long duration : new long[]{0L, 7L, 8L, Long.MAX_VALUE}) {
+            stats.trackMatchedNode("/node" + duration, duration, true);
+        }
+        assertThat(stats.getPercentile(0D), is(0L));
+        assertThat(stats.getPercentile(25D), is(0L));
+        assertThat(stats.getPercentile(50D), is(7L));
+        assertThat(stats.getPercentile(75D), is(8L));
+        assertThat(stats.getPercentile(100D), is(15L << 59));
+        assertThat(stats.getMaxTime(), is(Long.MAX_VALUE));
+        assertThat(stats.getMatchedNodes(), is(4L));
+    }
+
+    @Test
+    public void neverReturnsAPercentileAboveTheMaximum() {
+        final CheckExecutionStats stats = new CheckExecutionStats("1", "check");
+        stats.trackMatchedNode("/a", 1000L, true);
+        stats.trackMatchedNode("/a", 1001L, false);
+        assertThat(stats.getPercentile(100D), is(CheckExecutionStats.getBucketLowerBound(CheckExecutionStats.getBucket(1001L))));
+        assertTrue(stats.getPercentile(100D) <= stats.getMaxTime());
+        // Counted once, when executed before the children
+        assertThat(stats.getMatchedNodes(), is(1L));
+    }
+
+    private static void assertBucket(long duration) {
+        final long lowerBound = CheckExecutionStats.getBucketLowerBound(CheckExecutionStats.getBucket(duration));
+        assertTrue(String.valueOf(duration), lowerBound <= duration);
+        assertTrue(String.valueOf(duration), duration - lowerBound <= duration / 8L);
+    }
+}
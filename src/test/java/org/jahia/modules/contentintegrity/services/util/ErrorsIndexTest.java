@@ -0,0 +1,132 @@
+package org.jahia.modules.contentintegrity.services.util;
+
+import org.jahia.modules.contentintegrity.api.ContentIntegrityError;
+import org.jahia.modules.contentintegrity.api.ContentIntegrityErrorSink;
+import org.jahia.modules.contentintegrity.services.sinks.InMemoryErrorSink;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class ErrorsIndexTest {
+
+    private static final List<ContentIntegrityError> ERRORS = new ArrayList<>();
+
+    static {
+        ERRORS.add(error("0", "default", "mySite", "missing"));
+        ERRORS.add(error("1", "live", "mySite", "missing"));
+        ERRORS.add(error("2", "default", "otherSite", "broken"));
+        ERRORS.add(error("3", "default", "mySite", "broken"));
+        ERRORS.add(error("4", "live", "otherSite", "missing"));
+    }
+
+    @Test
+    public void filtersOnTheIndexedColumns() {
+        for (ErrorsIndex index : indexes()) {
+            assertThat(index.filter(Collections.emptyMap()), is(new int[]{0, 1, 2, 3, 4}));
+            assertThat(index.filter(filters(ErrorsIndex.WORKSPACE, "default")), is(new int[]{0, 2, 3}));
+            assertThat(index.filter(filters(ErrorsIndex.WORKSPACE, "default", ErrorsIndex.SITE, "mySite")), is(new int[]{0, 3}));
+            assertThat(index.filter(filters(ErrorsIndex.WORKSPACE, "unknown")), is(new int[0]));
+        }
+    }
+
+    @Test
+    public void filtersOnTheMessageWithoutIndexingIt() {
+        for (ErrorsIndex index : indexes()) {
+            assertThat(index.filter(filters(ErrorsIndex.MESSAGE, "broken")), is(new int[]{2, 3}));
+            assertThat(index.filter(filters(ErrorsIndex.MESSAGE, "missing", ErrorsIndex.SITE, "otherSite")), is(new int[]{4}));
+        }
+    }
+
+    @Test
+    public void countsTheValuesAmongTheMatchingErrors() {
+        for (ErrorsIndex index : indexes()) {
+            final int[] matching = index.filter(filters(ErrorsIndex.SITE, "mySite"));
+            assertThat(index.countValues(ErrorsIndex.WORKSPACE, matching), is(counts("default", 2L, "live", 1L)));
+            assertThat(index.countValues(ErrorsIndex.MESSAGE, matching), is(counts("missing", 2L, "broken", 1L)));
+            final int[] otherSite = index.filter(filters(ErrorsIndex.SITE, "otherSite", ErrorsIndex.WORKSPACE, "live"));
+            assertThat(index.countValues(ErrorsIndex.MESSAGE, otherSite), is(counts("missing", 1L, "broken", 0L)));
+        }
+    }
+
+    @Test
+    public void readsAPageOfErrors() {
+        for (ErrorsIndex index : indexes()) {
+            final int[] matching = index.filter(filters(ErrorsIndex.WORKSPACE, "default"));
+            assertThat(ids(index.get(matching, 1, 3)), is("2,3"));
+            assertThat(index.get(matching, 3, 3).size(), is(0));
+            assertThat(index.find(matching, e -> e.getErrorID().equals("3")).getErrorID(), is("3"));
+            assertThat(index.find(matching, e -> e.getErrorID().equals("1")), is(nullValue()));
+            assertThat(index.size(), is(5));
+        }
+    }
+
+    @Test
+    public void intersectsTheSortedPositions() {
+        assertThat(ErrorsIndex.intersect(new int[]{1, 3, 5, 7}, new int[]{0, 3, 4, 7, 8}), is(new int[]{3, 7}));
+        assertThat(ErrorsIndex.countIntersection(new int[]{1, 3, 5, 7}, new int[]{0, 3, 4, 7, 8}), is(2));
+        assertThat(ErrorsIndex.intersect(new int[0], new int[]{1}), is(new int[0]));
+    }
+
+    /*
+    The in memory sink is read by position, the other sinks are read as a stream
+     */
+    private static List<ErrorsIndex> indexes() {
+        final List<ErrorsIndex> indexes = new ArrayList<>();
+        indexes.add(new ErrorsIndex(new InMemoryErrorSink(new ArrayList<>(ERRORS))));
+        indexes.add(new ErrorsIndex(new ContentIntegrityErrorSink() {
+            @Override
+            public void addError(ContentIntegrityError error) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public long getErrorsCount() {
+                return ERRORS.size();
+            }
+
+            @Override
+            public Stream<ContentIntegrityError> getErrors() {
+                return ERRORS.stream();
+            }
+        }));
+        return indexes;
+    }
+
+    private static ContentIntegrityError error(String id, String workspace, String site, String message) {
+        final Map<String, Object> values = new HashMap<>();
+        values.put("getErrorID", id);
+        values.put("getWorkspace", workspace);
+        values.put("getSite", site);
+        values.put("getConstraintMessage", message);
+        return (ContentIntegrityError) Proxy.newProxyInstance(ErrorsIndexTest.class.getClassLoader(),
+                new Class<?>[]{ContentIntegrityError.class}, (proxy, method, args) -> values.get(method.getName()));
+    }
+
+    private static Map<String, String> filters(String... columnsAndValues) {
+        final Map<String, String> filters = new HashMap<>();
+        for (int i = 0; i < columnsAndValues.length; i += 2) filters.put(columnsAndValues[i], columnsAndValues[i + 1]);
+        return filters;
+    }
+
+    private static Map<String, Long> counts(Object... valuesAndCounts) {
+        final Map<String, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < valuesAndCounts.length; i += 2) counts.put((String) valuesAndCounts[i], (Long) valuesAndCounts[i + 1]);
+        return counts;
+    }
+
+    private static String ids(List<ContentIntegrityError> errors) {
+        return errors.stream().map(ContentIntegrityError::getErrorID).collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,98 @@
+package org.jahia.modules.contentintegrity.services.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class IdentifierIndexTest {
+
+    private static final String NIL_UUID = "00000000-0000-0000-0000-000000000000";
+    private static final String VIRTUAL_NODE_IDENTIFIER = "4f2e9c3a-1b7d-4e8f-a6c5-0d9b8e7f6a51";
+
+    @Test
+    public void tellsIfTheIdentifiersAreIndexed() {
+        final IdentifierIndex index = newIndex(16, 1 << 10);
+        final List<UUID> identifiers = randomIdentifiers(10);
+        identifiers.forEach(index::add);
+        identifiers.forEach(id -> assertThat(index.exists(id.toString()), is(Boolean.TRUE)));
+        assertThat(index.exists(UUID.randomUUID().toString()), is(Boolean.FALSE));
+        assertThat(index.exists(null), is(Boolean.FALSE));
+        assertThat(index.getSize(), is(10));
+    }
+
+    @Test
+    public void indexesTheNilUuidOutsideOfTheHashTable() {
+        final IdentifierIndex index = newIndex(16, 1 << 10);
+        assertThat(index.exists(NIL_UUID), is(Boolean.FALSE));
+        index.add(UUID.fromString(NIL_UUID));
+        index.add(UUID.fromString(NIL_UUID));
+        assertThat(index.exists(NIL_UUID), is(Boolean.TRUE));
+        assertThat(index.getSize(), is(1));
+    }
+
+    @Test
+    public void countsTheDuplicatesOnce() {
+        final IdentifierIndex index = newIndex(16, 1 << 10);
+        final UUID identifier = UUID.randomUUID();
+        index.add(identifier);
+        index.add(identifier);
+        assertThat(index.getSize(), is(1));
+    }
+
+    @Test
+    public void growsWhenMoreIdentifiersThanExpectedAreAdded() {
+        final IdentifierIndex index = newIndex(4, 1 << 10);
+        final long initialFootprint = index.getMemoryFootprint();
+        final List<UUID> identifiers = randomIdentifiers(500);
+        identifiers.forEach(index::add);
+        identifiers.forEach(id -> assertThat(index.exists(id.toString()), is(Boolean.TRUE)));
+        assertThat(index.getSize(), is(500));
+        assertThat(index.getMemoryFootprint() > initialFootprint, is(true));
+    }
+
+    @Test
+    public void failsFastOnceTheHashTableIsFullAtItsMaximumCapacity() {
+        final IdentifierIndex index = newIndex(4, 16);
+        final List<UUID> identifiers = randomIdentifiers(20);
+        int added = 0;
+        try {
+            for (UUID identifier : identifiers) {
+                index.add(identifier);
+                added++;
+            }
+            fail("The index should be full");
+        } catch (IllegalStateException expected) {
+            // One slot remains empty
+            assertThat(added, is(15));
+        }
+        identifiers.subList(0, added).forEach(id -> assertThat(index.exists(id.toString()), is(Boolean.TRUE)));
+        assertThat(index.exists(identifiers.get(added).toString()), is(Boolean.FALSE));
+    }
+
+    @Test
+    public void cantTellIfTheVirtualNodesExist() {
+        final IdentifierIndex index = newIndex(16, 1 << 10);
+        index.add(UUID.fromString(VIRTUAL_NODE_IDENTIFIER));
+        assertThat(index.exists(VIRTUAL_NODE_IDENTIFIER), is(nullValue()));
+        // Not a UUID
+        assertThat(index.exists("not-a-uuid"), is(nullValue()));
+    }
+
+    private static IdentifierIndex newIndex(long expectedSize, int maxCapacity) {
+        return new IdentifierIndex("default", expectedSize, maxCapacity, Collections.singleton(VIRTUAL_NODE_IDENTIFIER));
+    }
+
+    private static List<UUID> randomIdentifiers(int count) {
+        final List<UUID> identifiers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) identifiers.add(UUID.randomUUID());
+        return identifiers;
+    }
+}
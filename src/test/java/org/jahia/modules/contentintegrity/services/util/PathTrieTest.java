@@ -0,0 +1,74 @@
+package org.jahia.modules.contentintegrity.services.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class PathTrieTest {
+
+    @Test
+    public void excludesThePathsAndTheirDescendants() {
+        final PathTrie excludedPaths = new PathTrie(Arrays.asList("/sites/mySite/files", "/modules"));
+        assertThat(excludedPaths.containsPrefixOf("/sites/mySite/files"), is(true));
+        assertThat(excludedPaths.containsPrefixOf("/sites/mySite/files/images/logo.png"), is(true));
+        assertThat(excludedPaths.containsPrefixOf("/modules/article/1.0.0"), is(true));
+        assertThat(excludedPaths.containsPrefixOf("/sites/mySite"), is(false));
+        assertThat(excludedPaths.containsPrefixOf("/sites/mySite/home"), is(false));
+        assertThat(excludedPaths.containsPrefixOf("/"), is(false));
+    }
+
+    @Test
+    public void comparesThePathsAsStrings() {
+        // Same semantics as String.startsWith, the paths are not compared segment per segment
+        final PathTrie excludedPaths = new PathTrie(Collections.singletonList("/sites/mySite/files"));
+        assertThat(excludedPaths.containsPrefixOf("/sites/mySite/files-archive"), is(true));
+        assertThat(excludedPaths.containsPrefixOf("/sites/mySite/file"), is(false));
+    }
+
+    @Test
+    public void excludesEverythingUnderTheRoot() {
+        final PathTrie excludedPaths = new PathTrie(Collections.singletonList("/"));
+        assertThat(excludedPaths.containsPrefixOf("/"), is(true));
+        assertThat(excludedPaths.containsPrefixOf("/sites/mySite"), is(true));
+    }
+
+    @Test
+    public void excludesNothingWhenEmpty() {
+        final PathTrie excludedPaths = new PathTrie(Collections.emptyList());
+        assertThat(excludedPaths.containsPrefixOf("/"), is(false));
+        assertThat(excludedPaths.containsPrefixOf(""), is(false));
+        assertThat(excludedPaths.isEmpty(), is(true));
+    }
+
+    @Test
+    public void keepsTheNestedPaths() {
+        final PathTrie excludedPaths = new PathTrie(Arrays.asList("/sites/mySite/files/private", "/sites/mySite/files"));
+        assertThat(excludedPaths.containsPrefixOf("/sites/mySite/files/public"), is(true));
+        assertThat(excludedPaths.containsPrefixOf("/sites/mySite/files/private/doc.pdf"), is(true));
+    }
+
+    @Test
+    public void isASetOfThePaths() {
+        final PathTrie excludedPaths = new PathTrie(Arrays.asList("/b", "/a", "/b"));
+        assertThat(excludedPaths.size(), is(2));
+        assertThat(new ArrayList<>(excludedPaths), is(Arrays.asList("/b", "/a")));
+        assertThat(excludedPaths.contains("/a"), is(true));
+        assertThat(excludedPaths.contains("/a/b"), is(false));
+    }
+
+    @Test
+    public void matchesStringStartsWith() {
+        final List<String> paths = Arrays.asList("/a", "/a/b/c", "/ab", "/b/c", "/c/d/e/f");
+        final PathTrie excludedPaths = new PathTrie(paths);
+        for (String path : Arrays.asList("/", "/a", "/a/", "/a/b", "/ab/c", "/abc", "/b", "/b/c", "/b/cd", "/b/d", "/c/d/e", "/c/d/e/f/g", "")) {
+            final boolean expected = paths.stream().anyMatch(path::startsWith);
+            assertThat(path, excludedPaths.containsPrefixOf(path), is(expected));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.jahia.modules.contentintegrity.services.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class ScanCursorTest {
+
+    private static final Map<String, List<String>> TREE = new HashMap<>();
+
+    static {
+        TREE.put("/", Arrays.asList("/a", "/b", "/c"));
+        TREE.put("/a", Arrays.asList("/a/a1", "/a/a2", "/a/a3"));
+        TREE.put("/b", Arrays.asList("/b/b1", "/b/b2"));
+        TREE.put("/b/b1", Collections.singletonList("/b/b1/b11"));
+    }
+
+    @Test
+    public void findsTheChildOnThePathToTheCursor() {
+        assertThat(ScanCursor.getChildOnPath("/", "/a/a2"), is("/a"));
+        assertThat(ScanCursor.getChildOnPath("/a", "/a/a2"), is("/a/a2"));
+        assertThat(ScanCursor.getChildOnPath("/a/a2", "/a/a2"), is(nullValue()));
+        assertThat(ScanCursor.getChildOnPath("/b", "/a/a2"), is(nullValue()));
+        // Compared segment per segment
+        assertThat(ScanCursor.getChildOnPath("/a", "/ab/c"), is(nullValue()));
+    }
+
+    @Test
+    public void resumesAfterALeaf() {
+        assertThat(resume("/a/a2"), is(Arrays.asList(
+                "before /a/a3", "after /a/a3", "after /a",
+                "before /b", "before /b/b1", "before /b/b1/b11", "after /b/b1/b11", "after /b/b1", "before /b/b2", "after /b/b2", "after /b",
+                "before /c", "after /c", "after /")));
+    }
+
+    @Test
+    public void resumesAfterAnInnerNodeWithoutScanningItsSubtreeAgain() {
+        assertThat(resume("/b/b1"), is(Arrays.asList(
+                "before /b/b2", "after /b/b2", "after /b",
+                "before /c", "after /c", "after /")));
+    }
+
+    @Test
+    public void resumesAfterTheLastChildOfANode() {
+        assertThat(resume("/a"), is(Arrays.asList(
+                "before /b", "before /b/b1", "before /b/b1/b11", "after /b/b1/b11", "after /b/b1", "before /b/b2", "after /b/b2", "after /b",
+                "before /c", "after /c", "after /")));
+    }
+
+    @Test
+    public void resumedScanContinuesTheInterruptedOneWhateverTheCursor() {
+        final List<String> fullScan = new ArrayList<>();
+        scan("/", null, fullScan);
+        for (String cursor : TREE.values().stream().flatMap(List::stream).toArray(String[]::new)) {
+            final List<String> expected = fullScan.subList(fullScan.indexOf("after " + cursor) + 1, fullScan.size());
+            assertThat(cursor, resume(cursor), is(expected));
+        }
+    }
+
+    private List<String> resume(String cursor) {
+        final List<String> events = new ArrayList<>();
+        scan("/", cursor, events);
+        return events;
+    }
+
+    /*
+    Same traversal as the sequential scan of the service
+     */
+    private void scan(String path, String resumeAfter, List<String> events) {
+        if (path.equals(resumeAfter)) return;
+        if (resumeAfter == null) events.add("before " + path);
+        final String resumedChildPath = ScanCursor.getChildOnPath(path, resumeAfter);
+        final ScanCursor scanCursor = resumedChildPath == null ? null : new ScanCursor(resumeAfter, resumedChildPath);
+        for (String child : TREE.getOrDefault(path, Collections.emptyList())) {
+            if (scanCursor != null && scanCursor.isScanned(child)) continue;
+            scan(child, scanCursor == null ? null : scanCursor.getCursorInside(child), events);
+        }
+        events.add("after " + path);
+    }
+}